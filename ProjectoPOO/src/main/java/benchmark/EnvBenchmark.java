@@ -0,0 +1,93 @@
+package benchmark;
+
+import rl.TrafficEnv;
+import rl.VectorTrafficEnv;
+
+/**
+ * Mede os passos por segundo dos ambientes de aprendizagem por reforço (TrafficEnv e
+ * VectorTrafficEnv), com uma política simples que dá o verde à direção com maior fila.
+ *
+ * Uso: java benchmark.EnvBenchmark [cruzamentos] [ambientes] [passos] [ticksPorPasso]
+ */
+public class EnvBenchmark {
+    private static final int EPISODE_TICKS = 3_600;
+    private static final int GENERATION_INTERVAL = 2;
+
+    public static void main(String[] args) {
+        int crossings = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int envCount = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int ticksPerStep = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("Cenário: %d cruzamentos, %d tick(s) por passo, %d núcleos%n", crossings, ticksPerStep, cores);
+        System.out.printf("%-28s %14s %14s %14s%n", "Ambiente", "Passos/s", "Ticks/s", "Recompensa méd.");
+
+        // Ambiente único
+        runSingle(crossings, steps / 4, ticksPerStep); // Aquecimento
+        long start = System.nanoTime();
+        double reward = runSingle(crossings, steps, ticksPerStep);
+        report("TrafficEnv", steps, ticksPerStep, System.nanoTime() - start, reward);
+
+        // Ambientes vetorizados, sequencial e em paralelo
+        int vectorSteps = Math.max(1, steps / envCount);
+        for (int threads : cores > 1 ? new int[]{1, cores} : new int[]{1}) {
+            try (VectorTrafficEnv env = new VectorTrafficEnv(envCount, threads, crossings, GENERATION_INTERVAL,
+                    ticksPerStep, EPISODE_TICKS)) {
+                runVector(env, vectorSteps / 4); // Aquecimento
+                start = System.nanoTime();
+                reward = runVector(env, vectorSteps);
+                report(String.format("VectorTrafficEnv %dx, %d thr.", envCount, threads), (long) vectorSteps * envCount,
+                        ticksPerStep, System.nanoTime() - start, reward);
+            }
+        }
+    }
+
+    private static double runSingle(int crossings, int steps, int ticksPerStep) {
+        TrafficEnv env = new TrafficEnv(crossings, GENERATION_INTERVAL, ticksPerStep, EPISODE_TICKS);
+        int[] actions = new int[env.getActionSize()];
+        float[] observation = env.reset(1);
+        double rewardSum = 0;
+        for (int s = 0; s < steps; s++) {
+            choose(observation, 0, actions, 0, crossings);
+            observation = env.step(actions);
+            rewardSum += env.getLastReward();
+            if (env.isDone()) {
+                observation = env.reset(s + 2);
+            }
+        }
+        return rewardSum / steps;
+    }
+
+    private static double runVector(VectorTrafficEnv env, int steps) {
+        int crossings = env.getActionSize();
+        int[] actions = new int[env.getCount() * crossings];
+        float[] observations = env.reset(1);
+        double rewardSum = 0;
+        for (int s = 0; s < steps; s++) {
+            for (int i = 0; i < env.getCount(); i++) {
+                choose(observations, i * env.getObservationSize(), actions, i * crossings, crossings);
+            }
+            env.step(actions);
+            for (float reward : env.getRewards()) {
+                rewardSum += reward;
+            }
+        }
+        return rewardSum / ((double) steps * env.getCount());
+    }
+
+    // Política de referência: verde para o eixo (horizontal ou vertical) com mais veículos em fila
+    private static void choose(float[] observation, int offset, int[] actions, int actionOffset, int crossings) {
+        for (int c = 0; c < crossings; c++) {
+            int base = offset + c * TrafficEnv.OBSERVATIONS_PER_INTERSECTION;
+            float horizontal = observation[base] + observation[base + 1];
+            float vertical = observation[base + 2] + observation[base + 3];
+            actions[actionOffset + c] = vertical > horizontal ? 1 : 0;
+        }
+    }
+
+    private static void report(String label, long steps, int ticksPerStep, long nanos, double reward) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-28s %14.0f %14.0f %14.3f%n", label, steps / seconds, steps * ticksPerStep / seconds, reward);
+    }
+}
@@ -0,0 +1,52 @@
+package benchmark;
+
+import model.RoadModel;
+import model.VehicleArena;
+import model.World;
+
+/**
+ * Mede a memória ocupada por veículo no modo de objetos e nos modos compactos
+ * (arena no heap e fora do heap), para o mesmo cenário e semente.
+ *
+ * Uso: java benchmark.MemoryBenchmark [cruzamentos] [ticks]
+ */
+public class MemoryBenchmark {
+
+    public static void main(String[] args) {
+        int crossings = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+
+        System.out.printf("Cenário: %d cruzamentos, %d ticks com geração em todos os ticks%n", crossings, ticks);
+        System.out.printf("%-10s %12s %14s %14s %14s%n", "Modo", "Veículos", "Heap/veículo", "Declarado", "Fora do heap");
+        for (String mode : new String[]{"objetos", "heap", "off-heap"}) {
+            long before = usedHeap();
+            World world = new World(1);
+            world.setupGridScenario(crossings, RoadModel.MICROSCOPIC);
+            VehicleArena arena = null;
+            if (!mode.equals("objetos")) {
+                arena = VehicleArena.create(mode.equals("off-heap"), 1024);
+                world.enableCompactMode(arena);
+            }
+            world.setVehicleGenerationInterval(1);
+            world.start();
+            for (int t = 0; t < ticks; t++) {
+                world.tick();
+            }
+            long after = usedHeap();
+            int vehicles = world.getVehicleCount();
+            long offHeap = arena != null && arena.isOffHeap() ? arena.getAllocatedBytes() : 0;
+            // O heap inclui também estradas, semáforos e intersecções do cenário
+            System.out.printf("%-10s %12d %12.1f B %12d B %12.1f MB%n", mode, vehicles,
+                    (double) (after - before) / vehicles, world.getBytesPerVehicle(), offHeap / 1e6);
+            world.stop();
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
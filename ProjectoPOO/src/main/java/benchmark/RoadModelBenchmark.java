@@ -0,0 +1,82 @@
+package benchmark;
+
+import model.RoadModel;
+import model.World;
+import util.Metrics;
+
+/**
+ * Compara o modelo de estrada microscópico (Vehicle.move) com o mesoscópico (MesoRoad)
+ * em velocidade (ticks/s) e em precisão (métricas agregadas) para o mesmo cenário.
+ * Os dois modelos correm com a mesma semente e o erro relativo do mesoscópico face ao
+ * microscópico é mostrado ao lado da aceleração.
+ *
+ * Uso: java benchmark.RoadModelBenchmark [cruzamentos] [ticks] [intervaloGeração]
+ */
+public class RoadModelBenchmark {
+    private static final int WARMUP_RUNS = 2;
+    private static final long SEED = 1; // A mesma semente nos dois modelos (mesma procura)
+
+    public static void main(String[] args) {
+        int crossings = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int interval = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        System.out.printf("Cenário: %d cruzamentos, %d ticks, geração a cada %d ticks%n", crossings, ticks, interval);
+        System.out.printf("%-13s %12s %12s %12s %12s %12s%n",
+                "Modelo", "Ticks/s", "Tempo (ms)", "Servidos", "Espera Méd.", "Fila Méd.");
+
+        Result[] results = new Result[RoadModel.values().length];
+        for (RoadModel model : RoadModel.values()) {
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                run(crossings, ticks / 4, interval, model);
+            }
+            Result result = run(crossings, ticks, interval, model);
+            results[model.ordinal()] = result;
+            Metrics metrics = result.world.getMetrics();
+            System.out.printf("%-13s %12.1f %12.1f %12d %12.2f %12.2f%n",
+                    model, ticks / (result.nanos / 1e9), result.nanos / 1e6,
+                    metrics.getTotalVehiclesServed(), metrics.getAverageWaitingTime(), metrics.getAverageQueueLength());
+        }
+
+        Metrics micro = results[RoadModel.MICROSCOPIC.ordinal()].world.getMetrics();
+        Metrics meso = results[RoadModel.MESOSCOPIC.ordinal()].world.getMetrics();
+        System.out.printf("Mesoscópico: %.1fx mais rápido; erro face ao microscópico: servidos %+.1f%%, espera %+.1f%%, fila %+.1f%%%n",
+                (double) results[RoadModel.MICROSCOPIC.ordinal()].nanos / results[RoadModel.MESOSCOPIC.ordinal()].nanos,
+                relativeError(meso.getTotalVehiclesServed(), micro.getTotalVehiclesServed()),
+                relativeError(meso.getAverageWaitingTime(), micro.getAverageWaitingTime()),
+                relativeError(meso.getAverageQueueLength(), micro.getAverageQueueLength()));
+
+        // Escala: quantos cruzamentos mesoscópicos cabem no tempo de uma execução microscópica
+        long microNanos = run(crossings, ticks, interval, RoadModel.MICROSCOPIC).nanos;
+        int mesoCrossings = crossings;
+        long mesoNanos = run(mesoCrossings, ticks, interval, RoadModel.MESOSCOPIC).nanos;
+        while (mesoNanos * 2 < microNanos) {
+            mesoCrossings *= 2;
+            mesoNanos = run(mesoCrossings, ticks, interval, RoadModel.MESOSCOPIC).nanos;
+        }
+        // Extrapolação linear a partir da última medição (o custo mesoscópico cresce com os cruzamentos)
+        long equivalent = Math.round((double) mesoCrossings * microNanos / mesoNanos);
+        System.out.printf("No mesmo tempo (%.0f ms) o modelo mesoscópico simula ~%d cruzamentos (%.1fx)%n",
+                microNanos / 1e6, equivalent, (double) equivalent / crossings);
+    }
+
+    // Erro relativo em percentagem (0 quando a referência é 0)
+    private static double relativeError(double value, double reference) {
+        return reference == 0 ? 0 : (value - reference) / reference * 100;
+    }
+
+    private static Result run(int crossings, int ticks, int interval, RoadModel model) {
+        World world = new World(SEED);
+        world.setupGridScenario(crossings, model);
+        world.setVehicleGenerationInterval(interval);
+        world.start();
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            world.tick();
+        }
+        return new Result(world, System.nanoTime() - start);
+    }
+
+    private record Result(World world, long nanos) {
+    }
+}
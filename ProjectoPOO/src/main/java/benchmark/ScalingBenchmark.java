@@ -0,0 +1,276 @@
+package benchmark;
+
+import model.RoadModel;
+import model.World;
+import util.CommandLine;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Curvas de escala de ponta a ponta: ticks/s, latência por tick, tempo de GC e pico de heap em
+ * função do número de cruzamentos (estradas e intersecções), da densidade de veículos (intervalo
+ * de geração) e do número de threads, em grelhas geradas a partir de uma semente.
+ *
+ * Com T threads, os cruzamentos são repartidos por T mundos independentes (fatias da grelha) que
+ * avançam em conjunto, um tick de cada vez; a latência de um tick é a da rede inteira. As fatias
+ * mantêm os ids das estradas da grelha inteira e a mesma semente, pelo que a rede simulada (e os
+ * veículos servidos) é a mesma seja qual for o número de threads. Cada
+ * configuração corre em mundos novos, com aquecimento antes da medição.
+ *
+ * O relatório JSON tem um resultado por linha, identificado por "key" e pela ordem da matriz,
+ * para poder ser comparado com diff entre versões; com --baseline, a variação de ticks/s de cada
+ * configuração em relação a um relatório anterior é também mostrada.
+ *
+ * Uso: java benchmark.ScalingBenchmark [opções]
+ *   --crossings 16,64,256,1024
+ *   --intervals 1,5           (intervalo de geração: 1 = rede mais densa)
+ *   --threads 1,2,4
+ *   --model MICROSCOPIC       (ou MESOSCOPIC)
+ *   --ticks 2000              (ticks medidos)
+ *   --warmup 500              (ticks de aquecimento, não medidos)
+ *   --seed 1
+ *   --label dev               (identificação da versão no relatório)
+ *   --out scaling.json
+ *   --baseline anterior.json
+ */
+public class ScalingBenchmark {
+
+    /**
+     * Resultado de uma configuração da matriz.
+     */
+    private record Result(int crossings, int interval, int threads, int roads, int intersections,
+                          double averageVehicles, int peakVehicles, double ticksPerSecond, long p50Nanos,
+                          long p90Nanos, long p99Nanos, long maxNanos, long gcCount, long gcMillis,
+                          long peakHeapBytes, long vehiclesServed) {
+
+        String key() {
+            return crossings + "x/i" + interval + "/t" + threads;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = CommandLine.parseOptions(args);
+        List<Integer> crossingsList = CommandLine.parseInts(options.getOrDefault("crossings", "16,64,256,1024"));
+        List<Integer> intervals = CommandLine.parseInts(options.getOrDefault("intervals", "1,5"));
+        List<Integer> threadsList = CommandLine.parseInts(options.getOrDefault("threads", "1,2,4"));
+        RoadModel model = RoadModel.valueOf(options.getOrDefault("model", "MICROSCOPIC"));
+        int ticks = Integer.parseInt(options.getOrDefault("ticks", "2000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "500"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        String label = options.getOrDefault("label", version());
+        String out = options.getOrDefault("out", "scaling.json");
+        Map<String, Double> baseline = options.containsKey("baseline")
+                ? readThroughput(Path.of(options.get("baseline"))) : Map.of();
+
+        System.out.printf("Matriz: %d configurações, %d ticks medidos (+%d de aquecimento), modelo %s, %d núcleos%n",
+                crossingsList.size() * intervals.size() * threadsList.size(), ticks, warmup, model,
+                Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-18s %9s %10s %10s %9s %9s %9s %8s %10s %9s%n", "Configuração", "Veículos", "Ticks/s",
+                "p50 (µs)", "p99 (µs)", "máx (ms)", "GC (ms)", "GCs", "Heap (MB)", "vs base");
+
+        List<Result> results = new ArrayList<>();
+        for (int crossings : crossingsList) {
+            for (int interval : intervals) {
+                for (int threads : threadsList) {
+                    Result result = run(crossings, interval, threads, model, ticks, warmup, seed);
+                    results.add(result);
+                    Double before = baseline.get(result.key());
+                    System.out.printf("%-18s %9.0f %10.1f %10.1f %9.1f %9.2f %9d %8d %10.1f %9s%n", result.key(),
+                            result.averageVehicles(), result.ticksPerSecond(), result.p50Nanos() / 1e3,
+                            result.p99Nanos() / 1e3, result.maxNanos() / 1e6, result.gcMillis(), result.gcCount(),
+                            result.peakHeapBytes() / 1e6, before == null ? "-"
+                                    : String.format(Locale.ROOT, "%+.1f%%", 100 * (result.ticksPerSecond() / before - 1)));
+                }
+            }
+        }
+        writeReport(Path.of(out), label, model, ticks, warmup, seed, results);
+        System.out.println("Relatório exportado para " + out);
+    }
+
+    /**
+     * Executa uma configuração: constrói as fatias, aquece, e mede cada tick da rede inteira.
+     */
+    private static Result run(int crossings, int interval, int threads, RoadModel model, int ticks, int warmup,
+                              long seed) throws InterruptedException {
+        int slices = Math.max(1, Math.min(threads, crossings));
+        World[] worlds = new World[slices];
+        for (int s = 0; s < slices; s++) {
+            // A mesma semente e os ids globais das estradas: a procura da grelha não depende do número de threads
+            worlds[s] = new World(seed);
+            worlds[s].setupGridScenario(crossings, s * crossings / slices, (s + 1) * crossings / slices, model);
+            worlds[s].setVehicleIdSequence(s + 1, slices); // Ids únicos em toda a grelha
+            worlds[s].setVehicleGenerationInterval(interval);
+            worlds[s].start();
+        }
+        ExecutorService pool = slices > 1 ? Executors.newFixedThreadPool(slices, r -> {
+            Thread thread = new Thread(r, "scaling-benchmark");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (World world : worlds) {
+            tasks.add(() -> {
+                world.tick();
+                return null;
+            });
+        }
+
+        try {
+            for (int t = 0; t < warmup; t++) {
+                tick(worlds, pool, tasks);
+            }
+            System.gc();
+            List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+            for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (memoryPool.getType() == MemoryType.HEAP) {
+                    memoryPool.resetPeakUsage();
+                    heapPools.add(memoryPool);
+                }
+            }
+            long[] gcBefore = gcTotals();
+
+            long[] tickNanos = new long[ticks];
+            long vehicleSum = 0;
+            int peakVehicles = 0;
+            long elapsed = 0; // Só o tempo dos ticks (sem a contagem de veículos)
+            for (int t = 0; t < ticks; t++) {
+                long tickStart = System.nanoTime();
+                tick(worlds, pool, tasks);
+                tickNanos[t] = System.nanoTime() - tickStart;
+                elapsed += tickNanos[t];
+                int vehicles = 0;
+                for (World world : worlds) {
+                    vehicles += world.getVehicleCount();
+                }
+                vehicleSum += vehicles;
+                peakVehicles = Math.max(peakVehicles, vehicles);
+            }
+            long[] gcAfter = gcTotals();
+            long peakHeap = 0; // Soma dos picos de cada zona do heap (limite superior do pico total)
+            for (MemoryPoolMXBean heapPool : heapPools) {
+                peakHeap += heapPool.getPeakUsage().getUsed();
+            }
+            int roads = 0;
+            int intersections = 0;
+            long served = 0;
+            for (World world : worlds) {
+                roads += world.getRoads().size();
+                intersections += world.getIntersections().size();
+                served += world.getMetrics().getTotalVehiclesServed();
+            }
+            Arrays.sort(tickNanos);
+            return new Result(crossings, interval, threads, roads, intersections, (double) vehicleSum / ticks,
+                    peakVehicles, ticks / (elapsed / 1e9), percentile(tickNanos, 0.50), percentile(tickNanos, 0.90),
+                    percentile(tickNanos, 0.99), tickNanos[ticks - 1], gcAfter[0] - gcBefore[0],
+                    gcAfter[1] - gcBefore[1], peakHeap, served);
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static void tick(World[] worlds, ExecutorService pool, List<Callable<Void>> tasks)
+            throws InterruptedException {
+        if (pool == null) {
+            worlds[0].tick();
+            return;
+        }
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha numa fatia da grelha", e.getCause());
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    /**
+     * Obtém o número de recolhas e o tempo de GC acumulados desde o arranque da JVM.
+     */
+    private static long[] gcTotals() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[] {count, millis};
+    }
+
+    private static void writeReport(Path file, String label, RoadModel model, int ticks, int warmup, long seed,
+                                    List<Result> results) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            writer.println("{");
+            writer.printf("  \"benchmark\": \"ScalingBenchmark\",%n");
+            writer.printf("  \"label\": \"%s\",%n", label.replace("\"", "'"));
+            writer.printf("  \"java\": \"%s\",%n", System.getProperty("java.version"));
+            writer.printf("  \"vm\": \"%s\",%n", System.getProperty("java.vm.name"));
+            writer.printf("  \"cores\": %d,%n", Runtime.getRuntime().availableProcessors());
+            writer.printf("  \"maxHeapBytes\": %d,%n", Runtime.getRuntime().maxMemory());
+            writer.printf("  \"model\": \"%s\",%n", model);
+            writer.printf("  \"ticks\": %d,%n", ticks);
+            writer.printf("  \"warmupTicks\": %d,%n", warmup);
+            writer.printf("  \"seed\": %d,%n", seed);
+            writer.println("  \"results\": [");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                writer.printf(Locale.ROOT, "    {\"key\": \"%s\", \"crossings\": %d, \"interval\": %d, \"threads\": %d, "
+                                + "\"roads\": %d, \"intersections\": %d, \"averageVehicles\": %.1f, \"peakVehicles\": %d, "
+                                + "\"ticksPerSecond\": %.1f, \"tickNanosP50\": %d, \"tickNanosP90\": %d, "
+                                + "\"tickNanosP99\": %d, \"tickNanosMax\": %d, \"gcCount\": %d, \"gcMillis\": %d, "
+                                + "\"peakHeapBytes\": %d, \"vehiclesServed\": %d}%s%n",
+                        r.key(), r.crossings(), r.interval(), r.threads(), r.roads(), r.intersections(),
+                        r.averageVehicles(), r.peakVehicles(), r.ticksPerSecond(), r.p50Nanos(), r.p90Nanos(),
+                        r.p99Nanos(), r.maxNanos(), r.gcCount(), r.gcMillis(), r.peakHeapBytes(), r.vehiclesServed(),
+                        i + 1 < results.size() ? "," : "");
+            }
+            writer.println("  ]");
+            writer.println("}");
+        }
+    }
+
+    /**
+     * Lê os ticks/s de cada configuração de um relatório anterior (uma linha por resultado).
+     */
+    private static Map<String, Double> readThroughput(Path file) throws IOException {
+        Pattern pattern = Pattern.compile("\"key\": \"([^\"]+)\".*\"ticksPerSecond\": ([0-9.]+)");
+        Map<String, Double> throughput = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file)) {
+            Matcher matcher = pattern.matcher(line);
+            if (matcher.find()) {
+                throughput.put(matcher.group(1), Double.parseDouble(matcher.group(2)));
+            }
+        }
+        return throughput;
+    }
+
+    private static String version() {
+        String version = ScalingBenchmark.class.getPackage().getImplementationVersion();
+        return version != null ? version : "dev";
+    }
+}
@@ -1,5 +1,6 @@
 package controller;
 
+import model.Detector;
 import model.Intersection;
 import model.Road;
 import model.TrafficLight;
@@ -12,6 +13,8 @@ import java.util.Map;
 /**
  * Implementação da estratégia de ciclo adaptativo (Adaptive Cycle).
  * Ajusta a duração do estado GREEN com base no número de veículos parados.
+ * A fila é lida do detetor de zona Detector.QUEUE da estrada, se estiver instalado
+ * (World.installControllerDetectors); caso contrário, da contagem mantida pela própria estrada.
  */
 public class AdaptiveCycle implements Strategy {
     private static final int MIN_GREEN = 6;
@@ -61,7 +64,7 @@ public class AdaptiveCycle implements Strategy {
         // Lógica de Ajuste (apenas no início do ciclo GREEN)
         if (light.getCurrentState() instanceof GreenState && light.getTimeInState() == 0) {
             // Conta o número de veículos parados (ou na fila)
-            long vehiclesInQueue = road.getVehiclesInQueue();
+            long vehiclesInQueue = queueLength(road);
 
             // Calcula a nova duração do GREEN
             int baseGreen = light.getGreenDuration(); // Duração base (10s)
@@ -73,6 +76,11 @@ public class AdaptiveCycle implements Strategy {
         }
     }
 
+    private static long queueLength(Road road) {
+        Detector detector = road.getDetector(Detector.QUEUE);
+        return detector != null ? detector.getVehiclesPresent() : road.getVehiclesInQueue();
+    }
+
     @Override
     public String getName() {
         return "AdaptiveCycle";
@@ -0,0 +1,142 @@
+package controller;
+
+import model.Intersection;
+import model.Road;
+import model.TrafficLight;
+import model.TrafficLightState;
+import model.state.GreenState;
+import model.state.RedState;
+import model.state.YellowState;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Estratégia controlada de fora (ex.: por um agente de aprendizagem por reforço): em cada
+ * intersecção, o controlador externo escolhe a fase desejada, 0 (verde horizontal, R1 e R2) ou
+ * 1 (verde vertical, R3 e R4). Quando a fase desejada muda, o verde atual passa a amarelo durante
+ * yellowDuration ticks e só depois a outra direção recebe o verde; pedidos feitos durante o
+ * amarelo ficam pendentes até ao fim da transição. Não há durações automáticas de verde ou vermelho.
+ *
+ * As intersecções são identificadas pelo índice id - 1 (como em World.setupGridScenario).
+ */
+public class ExternalPhaseControl implements Strategy {
+    private int[] desiredPhase = new int[0];
+    private int[] phase = new int[0];
+    private int[] yellowRemaining = new int[0];
+    private int[] timeInPhase = new int[0];
+    private boolean[] initialized = new boolean[0];
+
+    /**
+     * Define a fase desejada de uma intersecção (aplicada a partir do próximo tick).
+     * @param index O índice da intersecção (id - 1).
+     * @param desired 0 para verde horizontal, 1 para verde vertical.
+     * @throws IllegalArgumentException se a fase não for 0 nem 1.
+     */
+    public void setDesiredPhase(int index, int desired) {
+        if (desired != 0 && desired != 1) {
+            throw new IllegalArgumentException("Fase inválida na intersecção " + index + ": " + desired + " (esperado 0 ou 1)");
+        }
+        ensureCapacity(index + 1);
+        desiredPhase[index] = desired;
+    }
+
+    /**
+     * Esquece o estado de todas as intersecções (para reutilizar a estratégia noutro World).
+     */
+    public void clear() {
+        Arrays.fill(desiredPhase, 0);
+        Arrays.fill(phase, 0);
+        Arrays.fill(yellowRemaining, 0);
+        Arrays.fill(timeInPhase, 0);
+        Arrays.fill(initialized, false);
+    }
+
+    @Override
+    public void applyStrategy(Intersection intersection) {
+        int index = intersection.getId() - 1;
+        ensureCapacity(index + 1);
+        List<Road> roads = intersection.getRoads();
+        TrafficLight light1 = intersection.getTrafficLight(roads.get(0)); // R1
+        TrafficLight light2 = intersection.getTrafficLight(roads.get(1)); // R2
+        TrafficLight light3 = intersection.getTrafficLight(roads.get(2)); // R3
+        TrafficLight light4 = intersection.getTrafficLight(roads.get(3)); // R4
+
+        if (!initialized[index]) {
+            // Parte da fase em que a intersecção se encontra (verde horizontal se R1 não estiver vermelho)
+            phase[index] = light1.getState() == TrafficLightState.RED ? 1 : 0;
+            setGroup(light1, light2, phase[index] == 0 ? TrafficLightState.GREEN : TrafficLightState.RED);
+            setGroup(light3, light4, phase[index] == 1 ? TrafficLightState.GREEN : TrafficLightState.RED);
+            initialized[index] = true;
+        }
+
+        timeInPhase[index]++;
+        if (yellowRemaining[index] > 0) {
+            if (--yellowRemaining[index] == 0) {
+                // Fim do amarelo: a outra direção recebe o verde
+                phase[index] = 1 - phase[index];
+                timeInPhase[index] = 0;
+                setGroup(light1, light2, phase[index] == 0 ? TrafficLightState.GREEN : TrafficLightState.RED);
+                setGroup(light3, light4, phase[index] == 1 ? TrafficLightState.GREEN : TrafficLightState.RED);
+                return;
+            }
+        } else if (desiredPhase[index] != phase[index]) {
+            yellowRemaining[index] = light1.getYellowDuration();
+            if (phase[index] == 0) {
+                setGroup(light1, light2, TrafficLightState.YELLOW);
+            } else {
+                setGroup(light3, light4, TrafficLightState.YELLOW);
+            }
+            return;
+        }
+        light1.incrementTimeInState();
+        light2.incrementTimeInState();
+        light3.incrementTimeInState();
+        light4.incrementTimeInState();
+    }
+
+    private static void setGroup(TrafficLight a, TrafficLight b, TrafficLightState color) {
+        setLight(a, color);
+        setLight(b, color);
+    }
+
+    private static void setLight(TrafficLight light, TrafficLightState color) {
+        if (light.getState() == color) {
+            return;
+        }
+        switch (color) {
+            case GREEN -> light.changeState(new GreenState(light.getGreenDuration()));
+            case YELLOW -> light.changeState(new YellowState(light.getYellowDuration()));
+            default -> light.changeState(new RedState(light.getRedDuration()));
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > phase.length) {
+            int capacity = Math.max(size, phase.length * 2);
+            desiredPhase = Arrays.copyOf(desiredPhase, capacity);
+            phase = Arrays.copyOf(phase, capacity);
+            yellowRemaining = Arrays.copyOf(yellowRemaining, capacity);
+            timeInPhase = Arrays.copyOf(timeInPhase, capacity);
+            initialized = Arrays.copyOf(initialized, capacity);
+        }
+    }
+
+    // Getters (estado visto pelo controlador externo)
+    public int getPhase(int index) {
+        return index < phase.length ? phase[index] : 0;
+    }
+
+    public boolean isInTransition(int index) {
+        return index < yellowRemaining.length && yellowRemaining[index] > 0;
+    }
+
+    public int getTimeInPhase(int index) {
+        return index < timeInPhase.length ? timeInPhase[index] : 0;
+    }
+
+    @Override
+    public String getName() {
+        return "ExternalControl";
+    }
+}
@@ -0,0 +1,328 @@
+package controller;
+
+import model.DemandSource;
+import model.Intersection;
+import model.Road;
+import model.TrafficLight;
+import model.Vehicle;
+import model.World;
+import model.WorldSnapshot;
+import model.state.GreenState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implementação da estratégia de controlo preditivo (Predictive Cycle).
+ * No início de cada GREEN de um semáforo principal (R1 ou R3), simula o futuro próximo com várias
+ * durações candidatas e escolhe a que deixa menos veículos parados na intersecção.
+ *
+ * Cada simulação corre numa cópia do mundo: um WorldSnapshot (arrays primitivos, sem objetos por
+ * veículo) tirado no início do tick e reposto numa réplica do cenário (World.createReplica). O
+ * snapshot inclui os pedidos do VehicleInjector em espera e a réplica tem uma cópia da fonte de
+ * procura (ex.: contagens de --trace), pelo que as previsões veem a mesma procura que o mundo real;
+ * se a fonte não puder ser copiada, a previsão é desativada. As réplicas são reutilizadas entre
+ * decisões, pelo que uma cópia custa apenas o restore. As
+ * candidatas correm em paralelo no ForkJoinPool comum; nas réplicas as intersecções usam o ciclo fixo.
+ *
+ * Por omissão a decisão espera pelas simulações no máximo DEFAULT_DEADLINE_MILLIS (contados desde
+ * o início do tick), para que a previsão nunca atrase o tick da interface ou da telemetria: as que
+ * não terminarem a tempo são canceladas e, se nenhuma terminar, fica a duração base. O resultado
+ * depende então da carga da máquina e NÃO é reprodutível. Com NO_DEADLINE a decisão espera sempre por
+ * todas as simulações e a execução é determinista; é esse o prazo pedido explicitamente pelas
+ * execuções em lote que exigem a mesma simulação para a mesma semente (ExperimentRunner,
+ * StrategyComparison, PartitionCoordinator e PartitionWorker, e HeadlessLauncher --deadline 0). Só funciona no modo de objetos com
+ * estradas microscópicas (os snapshots não cobrem o modo compacto nem as estradas mesoscópicas);
+ * caso contrário comporta-se como o ciclo fixo.
+ */
+public class PredictiveCycle implements Strategy {
+    private static final int[] CANDIDATE_GREENS = {6, 10, 14, 20};
+    static final int DEFAULT_HORIZON = 30;
+    /** Prazo de decisão por omissão (uso interativo), em milissegundos. */
+    public static final long DEFAULT_DEADLINE_MILLIS = 10;
+    /** Sem prazo: espera por todas as simulações (determinista). */
+    public static final long NO_DEADLINE = 0;
+
+    private final int horizon;
+    private final long deadlineNanos;
+    private final FixedCycle fixedCycle = new FixedCycle();
+
+    // Réplicas do mundo controlado (criadas na thread da simulação, usadas nas tarefas)
+    private final ConcurrentLinkedQueue<World> replicas = new ConcurrentLinkedQueue<>();
+    private World source;
+    private Road sourceFirstRoad; // Muda quando o cenário é reconstruído (reset)
+    private DemandSource sourceDemand; // As réplicas têm uma cópia desta fonte
+    private boolean predictionDisabled = false;
+
+    // Decisões do tick atual, por semáforo principal
+    private final Map<TrafficLight, Decision> pending = new IdentityHashMap<>();
+    private AtomicBoolean roundCancelled = new AtomicBoolean();
+    private long roundDeadline;
+
+    // Estatísticas
+    private long decisions = 0;
+    private long fallbacks = 0;
+    private long forks = 0;
+
+    /**
+     * Candidatas de uma decisão e os respetivos custos (NaN se a simulação não terminou).
+     */
+    private static final class Decision {
+        final int[] greens;
+        final List<CompletableFuture<Double>> costs = new ArrayList<>();
+
+        Decision(int[] greens) {
+            this.greens = greens;
+        }
+    }
+
+    /**
+     * Construtor com horizonte de 30 ticks e prazo de DEFAULT_DEADLINE_MILLIS (não determinista).
+     */
+    public PredictiveCycle() {
+        this(DEFAULT_HORIZON, DEFAULT_DEADLINE_MILLIS);
+    }
+
+    /**
+     * Construtor para PredictiveCycle.
+     * @param horizon Os ticks simulados por candidata.
+     * @param deadlineMillis O tempo máximo de decisão, em milissegundos (NO_DEADLINE espera por todas
+     *                       as candidatas; um valor positivo torna a execução não determinista).
+     */
+    public PredictiveCycle(int horizon, long deadlineMillis) {
+        if (horizon < 1) {
+            throw new IllegalArgumentException("O horizonte tem de ser positivo");
+        }
+        this.horizon = horizon;
+        this.deadlineNanos = Math.max(0, deadlineMillis) * 1_000_000L;
+    }
+
+    @Override
+    public void beforeTick(World world) {
+        if (predictionDisabled) {
+            return;
+        }
+        roundCancelled.set(true); // Simulações de um tick anterior ainda em curso já não servem
+        pending.clear();
+
+        List<TrafficLight> due = new ArrayList<>();
+        List<int[]> targets = new ArrayList<>(); // {intersecção, estrada} de cada semáforo
+        List<Intersection> intersections = world.getIntersections();
+        for (int i = 0; i < intersections.size(); i++) {
+            Intersection intersection = intersections.get(i);
+            for (int r = 0; r <= 2; r += 2) {
+                TrafficLight light = intersection.getTrafficLight(intersection.getRoads().get(r));
+                if (light.getCurrentState() instanceof GreenState && light.getTimeInState() == 0) {
+                    due.add(light);
+                    targets.add(new int[] {i, r});
+                }
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        WorldSnapshot snapshot;
+        try {
+            snapshot = world.snapshot();
+        } catch (IllegalStateException e) {
+            disablePrediction(e);
+            return;
+        }
+        if (world != source || world.getRoads().get(0) != sourceFirstRoad || world.getDemandSource() != sourceDemand) {
+            replicas.clear();
+            source = world;
+            sourceFirstRoad = world.getRoads().get(0);
+            sourceDemand = world.getDemandSource();
+        }
+        if (replicas.isEmpty()) {
+            // A primeira réplica verifica se o mundo pode ser copiado (ex.: fonte de procura sem copy())
+            try {
+                replicas.add(world.createReplica());
+            } catch (IllegalStateException e) {
+                disablePrediction(e);
+                return;
+            }
+        }
+
+        roundCancelled = new AtomicBoolean();
+        AtomicBoolean cancelled = roundCancelled;
+        roundDeadline = System.nanoTime() + deadlineNanos;
+        for (int d = 0; d < due.size(); d++) {
+            TrafficLight light = due.get(d);
+            int[] target = targets.get(d);
+            Decision decision = new Decision(candidates(light.getGreenDuration()));
+            for (int green : decision.greens) {
+                World replica = replicas.poll();
+                if (replica == null) {
+                    replica = world.createReplica();
+                }
+                World fork = replica;
+                decision.costs.add(CompletableFuture.supplyAsync(
+                        () -> simulate(fork, snapshot, target[0], target[1], green, cancelled),
+                        ForkJoinPool.commonPool()));
+                forks++;
+            }
+            pending.put(light, decision);
+        }
+    }
+
+    private void disablePrediction(IllegalStateException e) {
+        predictionDisabled = true;
+        System.err.println("PredictiveCycle: previsão desativada (" + e.getMessage() + "); a usar o ciclo fixo");
+    }
+
+    /**
+     * Duração base primeiro (ganha os empates), seguida das restantes candidatas.
+     */
+    private static int[] candidates(int baseGreen) {
+        int[] greens = new int[CANDIDATE_GREENS.length + 1];
+        int n = 0;
+        greens[n++] = baseGreen;
+        for (int green : CANDIDATE_GREENS) {
+            if (green != baseGreen) {
+                greens[n++] = green;
+            }
+        }
+        return Arrays.copyOf(greens, n);
+    }
+
+    /**
+     * Simula uma candidata numa réplica e devolve o custo: a soma, em cada tick do horizonte, dos
+     * veículos parados (sem prioridade) nas estradas da intersecção.
+     */
+    private double simulate(World replica, WorldSnapshot snapshot, int intersectionIndex, int roadIndex,
+                            int green, AtomicBoolean cancelled) {
+        try {
+            replica.restore(snapshot);
+            replica.setTrafficStrategy(fixedCycle);
+            Intersection intersection = replica.getIntersections().get(intersectionIndex);
+            intersection.getTrafficLight(intersection.getRoads().get(roadIndex)).changeState(new GreenState(green));
+            replica.start();
+            double cost = 0.0;
+            for (int t = 0; t < horizon; t++) {
+                if (cancelled.get()) {
+                    return Double.NaN;
+                }
+                replica.tick();
+                for (Road road : intersection.getRoads()) {
+                    for (Vehicle vehicle : road.getVehicles()) {
+                        if (vehicle.isStopped() && !vehicle.getVehicleClass().isPriority()) {
+                            cost++;
+                        }
+                    }
+                }
+            }
+            return cost;
+        } finally {
+            replica.stop();
+            replicas.add(replica);
+        }
+    }
+
+    @Override
+    public void applyStrategy(Intersection intersection) {
+        TrafficLight light1 = intersection.getTrafficLight(intersection.getRoads().get(0)); // R1
+        TrafficLight light3 = intersection.getTrafficLight(intersection.getRoads().get(2)); // R3
+        decide(light1);
+        decide(light3);
+
+        // Tick dos semáforos principais e sincronização dos opostos, como no ciclo fixo
+        fixedCycle.applyStrategy(intersection);
+    }
+
+    /**
+     * Aplica a melhor candidata da decisão pendente do semáforo (se houver).
+     */
+    private void decide(TrafficLight light) {
+        Decision decision = pending.remove(light);
+        if (decision == null) {
+            return;
+        }
+        int best = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int c = 0; c < decision.greens.length; c++) {
+            double cost = awaitCost(decision.costs.get(c));
+            if (cost < bestCost) {
+                bestCost = cost;
+                best = c;
+            }
+        }
+        decisions++;
+        if (best < 0) {
+            fallbacks++;
+            return; // Fica a duração base
+        }
+        light.changeState(new GreenState(decision.greens[best]));
+    }
+
+    private double awaitCost(CompletableFuture<Double> cost) {
+        try {
+            if (deadlineNanos == 0) {
+                return cost.get();
+            }
+            long remaining = roundDeadline - System.nanoTime();
+            if (remaining <= 0 && !cost.isDone()) {
+                roundCancelled.set(true); // Liberta as réplicas das simulações atrasadas
+                return Double.NaN;
+            }
+            return cost.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            roundCancelled.set(true);
+            return Double.NaN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Double.NaN;
+        } catch (ExecutionException e) {
+            return Double.NaN;
+        }
+    }
+
+    // Getters
+    public int getHorizon() {
+        return horizon;
+    }
+
+    /**
+     * Obtém o prazo de decisão, em milissegundos (0 = sem prazo, determinista).
+     */
+    public long getDeadlineMillis() {
+        return deadlineNanos / 1_000_000L;
+    }
+
+    /**
+     * Obtém o número de decisões tomadas (inícios de GREEN de semáforos principais).
+     */
+    public long getDecisionCount() {
+        return decisions;
+    }
+
+    /**
+     * Obtém o número de decisões em que nenhuma simulação terminou dentro do prazo.
+     */
+    public long getFallbackCount() {
+        return fallbacks;
+    }
+
+    /**
+     * Obtém o número de simulações (cópias do mundo) lançadas.
+     */
+    public long getForkCount() {
+        return forks;
+    }
+
+    @Override
+    public String getName() {
+        return "PredictiveCycle";
+    }
+}
@@ -3,6 +3,7 @@ package controller;
 import model.Intersection;
 import model.Road;
 import model.TrafficLight;
+import model.World;
 
 /**
  * Interface Strategy para o padrão Strategy. Define a estratégia de controle de tráfego.
@@ -15,6 +16,14 @@ public interface Strategy {
      */
     void applyStrategy(Intersection intersection);
 
+    /**
+     * Chamado pelo World no início de cada tick, antes de qualquer alteração: o estado do mundo é o
+     * do fim do tick anterior. Permite a estratégias preditivas copiá-lo (por omissão não faz nada).
+     * @param world O mundo controlado.
+     */
+    default void beforeTick(World world) {
+    }
+
     /**
      * Obtém o nome da estratégia.
      * @return O nome da estratégia.
@@ -0,0 +1,39 @@
+package controller;
+
+/**
+ * Cria estratégias de controlo a partir do seu nome (o mesmo devolvido por Strategy.getName()).
+ */
+public class StrategyFactory {
+
+    private StrategyFactory() {
+    }
+
+    /**
+     * Cria uma nova instância da estratégia indicada, para uso interativo: o PredictiveCycle tem o
+     * prazo de decisão por omissão e não é reprodutível. As execuções em lote reprodutíveis usam
+     * create(name, PredictiveCycle.NO_DEADLINE).
+     * @param name O nome da estratégia ("FixedCycle", "AdaptiveCycle" ou "PredictiveCycle").
+     * @return A estratégia criada.
+     * @throws IllegalArgumentException se o nome não for conhecido.
+     */
+    public static Strategy create(String name) {
+        return create(name, PredictiveCycle.DEFAULT_DEADLINE_MILLIS);
+    }
+
+    /**
+     * Cria uma nova instância da estratégia indicada, com prazo de decisão para o PredictiveCycle.
+     * @param name O nome da estratégia.
+     * @param predictionDeadlineMillis O prazo do PredictiveCycle em milissegundos (PredictiveCycle.NO_DEADLINE
+     *                                 = determinista; um valor positivo torna a execução não reprodutível).
+     * @return A estratégia criada.
+     * @throws IllegalArgumentException se o nome não for conhecido.
+     */
+    public static Strategy create(String name, long predictionDeadlineMillis) {
+        return switch (name) {
+            case "FixedCycle" -> new FixedCycle();
+            case "AdaptiveCycle" -> new AdaptiveCycle();
+            case "PredictiveCycle" -> new PredictiveCycle(PredictiveCycle.DEFAULT_HORIZON, predictionDeadlineMillis);
+            default -> throw new IllegalArgumentException("Estratégia desconhecida: " + name);
+        };
+    }
+}
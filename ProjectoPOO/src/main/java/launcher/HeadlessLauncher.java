@@ -0,0 +1,166 @@
+package launcher;
+
+import controller.PredictiveCycle;
+import controller.StrategyFactory;
+import model.ArrivalProcess;
+import model.FleetMix;
+import model.GridlockMonitor;
+import model.GridlockPolicy;
+import model.Incident;
+import model.RoadModel;
+import model.World;
+import util.CommandLine;
+import util.CountTraceDemand;
+import util.Metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Ponto de entrada sem interface gráfica, para execuções curtas (varrimentos, scripts) em que o
+ * arranque da JVM pesa no tempo total. Só usa os pacotes model, controller e util: nenhuma classe
+ * JavaFX é carregada, e não há reflexão nem carregamento dinâmico de classes, pelo que o mesmo
+ * código serve para um arquivo AppCDS e para uma imagem nativa GraalVM (perfis headless e native
+ * do pom.xml).
+ *
+ * No fim é indicado o tempo de arranque até ao primeiro tick, dividido em arranque até main e main
+ * até ao fim do primeiro tick. O arranque conta desde a criação da JVM ou, com --launched-at, desde o
+ * instante indicado por quem lançou o processo (ex.: --launched-at $(date +%s%3N)), que inclui
+ * também o lançador java.
+ *
+ * Uso: java launcher.HeadlessLauncher [opções]
+ *   --strategy AdaptiveCycle   (ou FixedCycle, PredictiveCycle)
+ *   --deadline 10              (prazo de decisão do PredictiveCycle em ms; só 0 é reprodutível)
+ *   --interval 5               (intervalo de geração de veículos)
+ *   --arrivals FIXED           (ou POISSON: chegadas aleatórias com o mesmo intervalo médio)
+ *   --crossings 1
+ *   --scenario GRID            (ou CORRIDOR, RING: cruzamentos ligados em corredor ou em anel)
+ *   --model MICROSCOPIC        (ou MESOSCOPIC)
+ *   --seed 1
+ *   --antithetic false         (true: geradores antitéticos para a mesma semente)
+ *   --ticks 3600
+ *   --incidents CLOSURE:5:600:1200   (tipo:estrada:início:fim[:valor])
+ *   --fleet CAR:0.8,TRUCK:0.2  (composição da frota; por omissão EMERGENCY:0.1,CAR:0.9)
+ *   --trace contagens.bin      (procura a partir de contagens de detetores, em vez de --interval)
+ *   --trace-interval 60        (duração de cada contagem, só para ficheiros CSV)
+ *   --gridlock ABORT           (ou IGNORE, RESOLVE: o que fazer num gridlock; ABORT termina a execução)
+ *   --launched-at EPOCH_MS     (instante de lançamento, em milissegundos desde 1970)
+ *
+ * Com o arquivo gerado pelo perfil headless:
+ *   java -XX:SharedArchiveFile=target/traffic-headless.jsa -jar target/traffic-simulation-1.0-SNAPSHOT-headless.jar
+ */
+public class HeadlessLauncher {
+
+    private HeadlessLauncher() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        long mainNanos = System.nanoTime();
+        long mainMillis = System.currentTimeMillis();
+        Map<String, String> options = CommandLine.parseOptions(args);
+        int ticks = Integer.parseInt(options.getOrDefault("ticks", "3600"));
+        if (ticks < 1) {
+            throw new IllegalArgumentException("O número de ticks tem de ser positivo");
+        }
+
+        World world = new World(Long.parseLong(options.getOrDefault("seed", "1")),
+                Boolean.parseBoolean(options.getOrDefault("antithetic", "false")));
+        int crossings = Integer.parseInt(options.getOrDefault("crossings", "1"));
+        switch (options.getOrDefault("scenario", "GRID")) {
+            case "GRID" -> world.setupGridScenario(crossings,
+                    RoadModel.valueOf(options.getOrDefault("model", "MICROSCOPIC")));
+            case "CORRIDOR" -> world.setupCorridorScenario(crossings);
+            case "RING" -> world.setupRingScenario(crossings);
+            default -> throw new IllegalArgumentException("Cenário desconhecido: " + options.get("scenario"));
+        }
+        world.getGridlockMonitor().setPolicy(GridlockPolicy.valueOf(options.getOrDefault("gridlock", "IGNORE")));
+        if (options.containsKey("incidents")) {
+            for (Incident incident : Incident.parseList(options.get("incidents"))) {
+                world.scheduleIncident(incident);
+            }
+        }
+        world.setTrafficStrategy(StrategyFactory.create(options.getOrDefault("strategy", "AdaptiveCycle"),
+                Long.parseLong(options.getOrDefault("deadline", String.valueOf(PredictiveCycle.DEFAULT_DEADLINE_MILLIS)))));
+        world.setVehicleGenerationInterval(Integer.parseInt(options.getOrDefault("interval", "5")));
+        world.setArrivalProcess(ArrivalProcess.valueOf(options.getOrDefault("arrivals", "FIXED")));
+        if (options.containsKey("fleet")) {
+            world.setFleetMix(FleetMix.parse(options.get("fleet")));
+        }
+        CountTraceDemand trace = null;
+        if (options.containsKey("trace")) {
+            trace = new CountTraceDemand(Path.of(options.get("trace")),
+                    Integer.parseInt(options.getOrDefault("trace-interval", "60")));
+            world.setDemandSource(trace);
+        }
+        world.start();
+        world.tick();
+        long firstTickNanos = System.nanoTime();
+
+        for (int i = 1; i < ticks && world.isRunning(); i++) {
+            world.tick();
+        }
+        long endNanos = System.nanoTime();
+        if (trace != null) {
+            trace.close();
+        }
+
+        Metrics metrics = world.getMetrics();
+        System.out.printf("Ticks: %d | Veículos servidos: %d | Espera média: %.2f | Fila média: %.2f%n",
+                world.getSimulationTime(), metrics.getTotalVehiclesServed(), metrics.getAverageWaitingTime(),
+                metrics.getAverageQueueLength());
+        if (trace != null) {
+            System.out.printf("Contagens: %d registos lidos | Chegadas: %d | Entraram: %d | Em espera: %d | Rejeitadas: %d%n",
+                    trace.getRecordsRead(), trace.getArrivals(), world.getVehicleInjector().getInjectedCount(),
+                    world.getVehicleInjector().getBackloggedCount(),
+                    world.getVehicleInjector().getRejectedCount() + trace.getRefused());
+        }
+        GridlockMonitor gridlock = world.getGridlockMonitor();
+        if (gridlock.getWatchedRoadCount() > 0) {
+            System.out.printf("Spillback: %d episódios (%d estrada-ticks) | Gridlocks: %d (1.º no tick %d) | "
+                            + "Veículos retirados: %d%s%n", gridlock.getSpillbackEpisodes(), gridlock.getSpillbackRoadTicks(),
+                    gridlock.getGridlockCount(), gridlock.getFirstGridlockTick(), gridlock.getRemovedVehicles(),
+                    gridlock.isAborted() ? " | Execução terminada por gridlock" : "");
+        }
+
+        // Consultado só depois do primeiro tick, para não pesar no tempo medido
+        long launchMillis = options.containsKey("launched-at") ? Long.parseLong(options.get("launched-at"))
+                : ManagementFactory.getRuntimeMXBean().getStartTime();
+        long launchToMainMillis = Math.max(0, mainMillis - launchMillis);
+        double mainToFirstTickMillis = (firstTickNanos - mainNanos) / 1e6;
+        System.out.printf("Arranque: %s -> main %d ms | main -> 1.º tick %.1f ms | total até ao 1.º tick %.1f ms%n",
+                options.containsKey("launched-at") ? "lançamento" : "JVM", launchToMainMillis, mainToFirstTickMillis,
+                launchToMainMillis + mainToFirstTickMillis);
+        System.out.printf("Simulação: %.1f ms (%.2f µs/tick) | %s%n", (endNanos - firstTickNanos) / 1e6,
+                (endNanos - firstTickNanos) / 1e3 / Math.max(1, world.getSimulationTime() - 1), runtimeDescription());
+    }
+
+    /**
+     * Descreve o ambiente de execução: imagem nativa, ou JVM com o arquivo AppCDS da aplicação, só com
+     * o arquivo CDS padrão do JDK, ou sem partilha de classes. O "sharing" de java.vm.info também
+     * aparece com o arquivo padrão do JDK, pelo que o arquivo da aplicação é identificado pela opção
+     * -XX:SharedArchiveFile da JVM.
+     */
+    private static String runtimeDescription() {
+        if (System.getProperty("org.graalvm.nativeimage.imagecode") != null) {
+            return "imagem nativa";
+        }
+        String archive = null;
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith("-XX:SharedArchiveFile=")) {
+                archive = argument.substring("-XX:SharedArchiveFile=".length());
+            }
+        }
+        boolean sharing = System.getProperty("java.vm.info", "").contains("sharing");
+        String cds;
+        if (!sharing) {
+            cds = archive != null ? "sem CDS (arquivo " + archive + " não usado)" : "sem CDS";
+        } else if (archive != null) {
+            cds = "AppCDS " + archive;
+        } else {
+            cds = "CDS padrão do JDK";
+        }
+        return "JVM " + System.getProperty("java.version") + ", " + cds;
+    }
+}
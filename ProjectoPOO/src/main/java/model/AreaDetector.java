@@ -0,0 +1,72 @@
+package model;
+
+/**
+ * Detetor de zona (câmara ou espira longa) entre duas posições da estrada.
+ *
+ * Conta os veículos que entram na zona e mantém o número de veículos presentes, que é a leitura
+ * usada pelos controladores para estimar a fila. A velocidade é a média no espaço: a distância
+ * percorrida dentro da zona a dividir pelos veículos-tick passados nela (um veículo parado conta
+ * com velocidade 0, mesmo nos ticks em que a estrada está adormecida).
+ */
+public class AreaDetector extends Detector {
+    private final double from;
+    private final double to;
+
+    /**
+     * Construtor para AreaDetector.
+     * @param name O nome do detetor.
+     * @param roadId O id da estrada.
+     * @param from O início da zona (incluído).
+     * @param to O fim da zona (excluído).
+     * @param intervalTicks Os ticks de cada intervalo de agregação.
+     */
+    public AreaDetector(String name, int roadId, double from, double to, int intervalTicks) {
+        super(name, roadId, intervalTicks);
+        if (to <= from) {
+            throw new IllegalArgumentException("Zona de deteção vazia: [" + from + ", " + to + ")");
+        }
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public boolean isInZone(double position) {
+        return position >= from && position < to;
+    }
+
+    @Override
+    void onEnter(double position) {
+        super.onEnter(position);
+        if (isInZone(position)) {
+            countVehicle();
+        }
+    }
+
+    @Override
+    void onMove(double previous, double current) {
+        boolean wasInZone = isInZone(previous);
+        boolean isInZone = isInZone(current);
+        if (isInZone) {
+            distanceSum += current - previous;
+            if (!wasInZone) {
+                vehiclesPresent++;
+                countVehicle();
+            }
+        } else if (wasInZone) {
+            vehiclesPresent--;
+        }
+    }
+
+    @Override
+    protected void sampleTick() {
+        speedSamples += vehiclesPresent;
+    }
+
+    public double getFrom() {
+        return from;
+    }
+
+    public double getTo() {
+        return to;
+    }
+}
@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * Enumeração dos processos de chegada da geração automática de veículos (World.setArrivalProcess).
+ */
+public enum ArrivalProcess {
+    /** Uma chegada em cada estrada de entrada a cada vehicleGenerationInterval ticks. */
+    FIXED,
+    /**
+     * Chegadas aleatórias em cada estrada de entrada, em média uma a cada vehicleGenerationInterval ticks
+     * (intervalos geométricos, o equivalente em tempo discreto a um processo de Poisson).
+     */
+    POISSON
+}
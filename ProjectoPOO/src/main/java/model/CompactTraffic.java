@@ -0,0 +1,180 @@
+package model;
+
+import util.Metrics;
+import util.TripLog;
+import util.TrajectoryFrame;
+
+import java.util.Arrays;
+
+/**
+ * Modo compacto do World: os veículos vivem numa VehicleArena e cada estrada é uma lista
+ * encadeada de slots, da frente (mais próximo do fim) para trás. Como os veículos nunca se
+ * ultrapassam, a ordem de entrada é a ordem de posição e não há ordenações nem objetos por veículo.
+ * As regras de movimento são as de MovementKernel, tal como no modo de objetos.
+ */
+public class CompactTraffic {
+    private final VehicleArena arena;
+
+    // Estado por estrada, indexado pela posição da estrada em World.getRoads()
+    private int[] head = new int[0]; // Veículo da frente
+    private int[] tail = new int[0]; // Último veículo a entrar
+    private int[] count = new int[0];
+
+    public CompactTraffic(VehicleArena arena) {
+        this.arena = arena;
+    }
+
+    /**
+     * Garante espaço para o número de estradas do cenário.
+     * @param roadCount O número de estradas.
+     */
+    void ensureRoads(int roadCount) {
+        if (roadCount > head.length) {
+            int oldLength = head.length;
+            head = Arrays.copyOf(head, roadCount);
+            tail = Arrays.copyOf(tail, roadCount);
+            count = Arrays.copyOf(count, roadCount);
+            Arrays.fill(head, oldLength, roadCount, VehicleArena.NONE);
+            Arrays.fill(tail, oldLength, roadCount, VehicleArena.NONE);
+        }
+    }
+
+    /**
+     * Remove todos os veículos.
+     */
+    void clear() {
+        arena.clear();
+        Arrays.fill(head, VehicleArena.NONE);
+        Arrays.fill(tail, VehicleArena.NONE);
+        Arrays.fill(count, 0);
+    }
+
+    /**
+     * Verifica se há espaço no início da estrada (mesma regra de Road.canAddVehicle).
+     */
+    boolean canAddVehicle(int road) {
+        return count[road] == 0 || arena.getPosition(tail[road])
+                > arena.getVehicleClass(tail[road]).getLength() + MovementKernel.MIN_DISTANCE;
+    }
+
+    /**
+     * Adiciona um veículo no início da estrada (atrás de todos os outros), à velocidade máxima da classe.
+     */
+    void addVehicle(int road, Road roadInfo, int id, double position, VehicleClass vehicleClass, int spawnTime) {
+        int slot = arena.allocate(id, position, vehicleClass, vehicleClass.getMaxSpeed(), spawnTime);
+        if (count[road] == 0) {
+            head[road] = slot;
+        } else {
+            arena.setNext(tail[road], slot);
+        }
+        tail[road] = slot;
+        count[road]++;
+        if (position < roadInfo.getLength() / 2) {
+            roadInfo.setVehiclesInQueue((int) roadInfo.getVehiclesInQueue() + 1);
+        }
+        for (Detector detector : roadInfo.getDetectorArray()) {
+            detector.onEnter(position);
+        }
+    }
+
+    /**
+     * Move os veículos de uma estrada e retira os que chegaram ao fim, registando-os nas métricas.
+     * @param road O índice da estrada.
+     * @param roadInfo A estrada (comprimento).
+     * @param trafficLight O semáforo no final da estrada, ou null.
+     * @param metrics As métricas onde registar os veículos servidos.
+     * @param tripLog O registo de viagens, ou null.
+     * @param time O tempo de simulação (tick de saída dos veículos servidos).
+     * @return O número de veículos que se moveram.
+     */
+    int update(int road, Road roadInfo, TrafficLight trafficLight, Metrics metrics, TripLog tripLog, int time) {
+        if (count[road] == 0) {
+            return 0;
+        }
+        double length = roadInfo.getLength();
+        TrafficLightState lightState = trafficLight != null ? trafficLight.getState() : null;
+        Detector[] detectors = roadInfo.getDetectorArray();
+        double speedFactor = roadInfo.getSpeedFactor();
+        double blockage = roadInfo.getBlockagePosition();
+
+        int queued = 0;
+        int moved = 0;
+        double leaderPosition = Double.NaN;
+        double leaderLength = 0.0;
+        for (int slot = head[road]; slot != VehicleArena.NONE; slot = arena.getNext(slot)) {
+            double position = arena.getPosition(slot);
+            VehicleClass vehicleClass = arena.getVehicleClass(slot);
+            double speed = MovementKernel.desiredSpeed(vehicleClass.getMaxSpeed() * speedFactor, arena.getSpeed(slot),
+                    vehicleClass.getAcceleration());
+            // O primeiro veículo atrás do bloqueio trata-o como o veículo da frente (mesma regra de Road)
+            if (!Double.isNaN(blockage) && position <= blockage) {
+                double barrier = blockage + MovementKernel.MIN_DISTANCE;
+                if (Double.isNaN(leaderPosition) || leaderPosition > barrier) {
+                    leaderPosition = barrier;
+                    leaderLength = MovementKernel.MIN_DISTANCE;
+                }
+                blockage = Double.NaN;
+            }
+            double distanceToMove = MovementKernel.limitByLeader(speed, position, leaderPosition, leaderLength);
+            distanceToMove = MovementKernel.limitByLight(distanceToMove, speed, position, length, lightState,
+                    vehicleClass.getLightCompliance());
+            if (distanceToMove < MovementKernel.STOPPED_THRESHOLD && !vehicleClass.isPriority()) {
+                arena.setWaitingTime(slot, arena.getWaitingTime(slot) + 1);
+            }
+            arena.setSpeed(slot, (float) distanceToMove);
+            double newPosition = MovementKernel.advance(position, distanceToMove, length);
+            if (newPosition != position) {
+                moved++;
+                for (Detector detector : detectors) {
+                    detector.onMove(position, newPosition);
+                }
+            }
+            position = newPosition;
+            arena.setPosition(slot, position);
+            if (position < length / 2) {
+                queued++;
+            }
+            leaderPosition = position;
+            leaderLength = vehicleClass.getLength();
+        }
+        // A fila é guardada na própria estrada, onde as estratégias a consultam
+        roadInfo.setVehiclesInQueue(queued);
+
+        // Os veículos que chegaram ao fim estão sempre na frente da lista
+        while (head[road] != VehicleArena.NONE && arena.getPosition(head[road]) >= length) {
+            int slot = head[road];
+            for (Detector detector : detectors) {
+                detector.onLeave(arena.getPosition(slot));
+            }
+            metrics.recordVehicleServed(arena.getWaitingTime(slot));
+            if (tripLog != null) {
+                tripLog.record(arena.getId(slot), arena.getVehicleClass(slot), roadInfo.getId(),
+                        arena.getSpawnTime(slot), time, arena.getWaitingTime(slot));
+            }
+            head[road] = arena.getNext(slot);
+            arena.free(slot);
+            count[road]--;
+        }
+        if (head[road] == VehicleArena.NONE) {
+            tail[road] = VehicleArena.NONE;
+        }
+        return moved;
+    }
+
+    /**
+     * Acrescenta ao frame os veículos de uma estrada.
+     */
+    void capture(int road, int roadId, TrajectoryFrame frame) {
+        for (int slot = head[road]; slot != VehicleArena.NONE; slot = arena.getNext(slot)) {
+            frame.addVehicle(arena.getId(slot), roadId, arena.getPosition(slot), arena.getVehicleClass(slot));
+        }
+    }
+
+    int getVehicleCount(int road) {
+        return count[road];
+    }
+
+    public VehicleArena getArena() {
+        return arena;
+    }
+}
@@ -0,0 +1,27 @@
+package model;
+
+/**
+ * Fonte externa de procura: substitui a geração automática de veículos do World (um veículo por
+ * estrada de entrada a cada vehicleGenerationInterval ticks) enquanto estiver definida.
+ */
+public interface DemandSource {
+
+    /**
+     * Chamado pelo World no início de cada tick, na thread da simulação, antes de os pedidos do
+     * VehicleInjector serem retirados: as chegadas do tick devem ser pedidas com
+     * world.getVehicleInjector().submit(), que trata as entradas cheias (espera e rejeições).
+     * @param world O mundo da simulação.
+     * @param tick O tick atual.
+     */
+    void generate(World world, int tick);
+
+    /**
+     * Cria uma fonte independente com a mesma procura, para uma réplica do World (World.createReplica,
+     * ex.: simulações de previsão). A cópia tem de gerar as mesmas chegadas a partir de qualquer tick,
+     * incluindo depois de um restore.
+     * @return A cópia, ou null se a fonte não puder ser copiada.
+     */
+    default DemandSource copy() {
+        return null;
+    }
+}
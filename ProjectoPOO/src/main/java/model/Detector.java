@@ -0,0 +1,283 @@
+package model;
+
+/**
+ * Detetor virtual numa estrada (espira ou zona), como os que alimentam os controladores reais.
+ *
+ * O detetor não percorre a estrada: é avisado pela própria estrada (ou pelo modo compacto) de cada
+ * veículo que entra, se move ou sai, e só reage aos que tocam na sua zona. No fim de cada tick
+ * acumula a ocupação; a cada intervalo de agregação publica a contagem, a ocupação e a velocidade
+ * média desse intervalo, que ficam disponíveis até ao intervalo seguinte.
+ */
+public abstract class Detector implements Cloneable {
+    /** Nome da zona de fila usada pelos controladores (ver World.installControllerDetectors). */
+    public static final String QUEUE = "fila";
+    /** Nome da espira no fim da estrada, que conta os veículos que passam o semáforo. */
+    public static final String STOP_LINE = "linha de paragem";
+
+    private final String name;
+    private final int roadId;
+    private final int intervalTicks;
+
+    protected int vehiclesPresent = 0; // Veículos na zona neste momento
+
+    // Acumuladores do intervalo em curso
+    private int ticksInInterval = 0;
+    private int count = 0;
+    private int occupiedTicks = 0;
+    private long vehicleTicks = 0;
+    protected double distanceSum = 0.0;
+    protected long speedSamples = 0;
+
+    // Resultado do último intervalo completo
+    private int intervals = 0;
+    private int lastCount = 0;
+    private double lastOccupancy = 0.0;
+    private double lastDensity = 0.0;
+    private double lastMeanSpeed = Double.NaN;
+
+    // Totais da execução
+    private long totalCount = 0;
+    private long totalTicks = 0;
+    private long totalOccupiedTicks = 0;
+    private long totalVehicleTicks = 0;
+    private double totalDistance = 0.0;
+    private long totalSpeedSamples = 0;
+
+    /**
+     * Construtor para Detector.
+     * @param name O nome do detetor (ex.: "fila", "linha de paragem").
+     * @param roadId O id da estrada onde está instalado.
+     * @param intervalTicks Os ticks de cada intervalo de agregação.
+     */
+    protected Detector(String name, int roadId, int intervalTicks) {
+        if (intervalTicks < 1) {
+            throw new IllegalArgumentException("Intervalo de agregação inválido: " + intervalTicks);
+        }
+        this.name = name;
+        this.roadId = roadId;
+        this.intervalTicks = intervalTicks;
+    }
+
+    /**
+     * Indica se uma posição está dentro da zona de deteção.
+     */
+    public abstract boolean isInZone(double position);
+
+    /**
+     * Um veículo da estrada passou de "from" para "to" neste tick.
+     */
+    abstract void onMove(double from, double to);
+
+    /**
+     * Um veículo entrou na estrada na posição indicada.
+     */
+    void onEnter(double position) {
+        if (isInZone(position)) {
+            vehiclesPresent++;
+        }
+    }
+
+    /**
+     * Um veículo saiu da estrada a partir da posição indicada.
+     */
+    void onLeave(double position) {
+        if (isInZone(position)) {
+            vehiclesPresent--;
+        }
+    }
+
+    /**
+     * Conta um veículo detetado no intervalo em curso.
+     */
+    protected void countVehicle() {
+        count++;
+    }
+
+    /**
+     * Amostra de velocidade adicional por tick (ver AreaDetector).
+     */
+    protected void sampleTick() {
+    }
+
+    /**
+     * Fecha o tick: acumula a ocupação e, no fim do intervalo, publica os agregados.
+     */
+    void endTick() {
+        if (vehiclesPresent > 0) {
+            occupiedTicks++;
+        }
+        vehicleTicks += vehiclesPresent;
+        sampleTick();
+        if (++ticksInInterval == intervalTicks) {
+            publish();
+        }
+    }
+
+    private void publish() {
+        intervals++;
+        lastCount = count;
+        lastOccupancy = (double) occupiedTicks / intervalTicks;
+        lastDensity = (double) vehicleTicks / intervalTicks;
+        lastMeanSpeed = speedSamples > 0 ? distanceSum / speedSamples : Double.NaN;
+
+        totalCount += count;
+        totalTicks += intervalTicks;
+        totalOccupiedTicks += occupiedTicks;
+        totalVehicleTicks += vehicleTicks;
+        totalDistance += distanceSum;
+        totalSpeedSamples += speedSamples;
+
+        ticksInInterval = 0;
+        count = 0;
+        occupiedTicks = 0;
+        vehicleTicks = 0;
+        distanceSum = 0.0;
+        speedSamples = 0;
+    }
+
+    /**
+     * Limpa as leituras e os totais (a estrada foi recriada vazia).
+     */
+    void reset() {
+        vehiclesPresent = 0;
+        ticksInInterval = 0;
+        count = 0;
+        occupiedTicks = 0;
+        vehicleTicks = 0;
+        distanceSum = 0.0;
+        speedSamples = 0;
+        intervals = 0;
+        lastCount = 0;
+        lastOccupancy = 0.0;
+        lastDensity = 0.0;
+        lastMeanSpeed = Double.NaN;
+        totalCount = 0;
+        totalTicks = 0;
+        totalOccupiedTicks = 0;
+        totalVehicleTicks = 0;
+        totalDistance = 0.0;
+        totalSpeedSamples = 0;
+    }
+
+    /**
+     * Copia o detetor com as leituras atuais (usado pelos WorldSnapshot).
+     */
+    Detector copyState() {
+        try {
+            return (Detector) clone(); // Só há campos primitivos e imutáveis
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Repõe as leituras de uma cópia feita por copyState().
+     */
+    void restoreState(Detector saved) {
+        vehiclesPresent = saved.vehiclesPresent;
+        ticksInInterval = saved.ticksInInterval;
+        count = saved.count;
+        occupiedTicks = saved.occupiedTicks;
+        vehicleTicks = saved.vehicleTicks;
+        distanceSum = saved.distanceSum;
+        speedSamples = saved.speedSamples;
+        intervals = saved.intervals;
+        lastCount = saved.lastCount;
+        lastOccupancy = saved.lastOccupancy;
+        lastDensity = saved.lastDensity;
+        lastMeanSpeed = saved.lastMeanSpeed;
+        totalCount = saved.totalCount;
+        totalTicks = saved.totalTicks;
+        totalOccupiedTicks = saved.totalOccupiedTicks;
+        totalVehicleTicks = saved.totalVehicleTicks;
+        totalDistance = saved.totalDistance;
+        totalSpeedSamples = saved.totalSpeedSamples;
+    }
+
+    // Getters
+    public String getName() {
+        return name;
+    }
+
+    public int getRoadId() {
+        return roadId;
+    }
+
+    public int getIntervalTicks() {
+        return intervalTicks;
+    }
+
+    /**
+     * Obtém o número de veículos na zona neste momento (leitura instantânea, sem agregação).
+     */
+    public int getVehiclesPresent() {
+        return vehiclesPresent;
+    }
+
+    /**
+     * Obtém o número de intervalos já agregados.
+     */
+    public int getIntervals() {
+        return intervals;
+    }
+
+    /**
+     * Obtém os veículos contados no último intervalo.
+     */
+    public int getCount() {
+        return lastCount;
+    }
+
+    /**
+     * Obtém o fluxo do último intervalo em veículos por tick.
+     */
+    public double getFlow() {
+        return (double) lastCount / intervalTicks;
+    }
+
+    /**
+     * Obtém a ocupação do último intervalo: fração dos ticks com pelo menos um veículo na zona.
+     */
+    public double getOccupancy() {
+        return lastOccupancy;
+    }
+
+    /**
+     * Obtém o número médio de veículos na zona durante o último intervalo.
+     */
+    public double getDensity() {
+        return lastDensity;
+    }
+
+    /**
+     * Obtém a velocidade média do último intervalo (unidades por tick), ou NaN se não houve amostras.
+     */
+    public double getMeanSpeed() {
+        return lastMeanSpeed;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Obtém a ocupação média de todos os intervalos completos.
+     */
+    public double getTotalOccupancy() {
+        return totalTicks > 0 ? (double) totalOccupiedTicks / totalTicks : 0.0;
+    }
+
+    /**
+     * Obtém o número médio de veículos na zona em todos os intervalos completos.
+     */
+    public double getTotalDensity() {
+        return totalTicks > 0 ? (double) totalVehicleTicks / totalTicks : 0.0;
+    }
+
+    /**
+     * Obtém a velocidade média de todos os intervalos completos, ou NaN se não houve amostras.
+     */
+    public double getTotalMeanSpeed() {
+        return totalSpeedSamples > 0 ? totalDistance / totalSpeedSamples : Double.NaN;
+    }
+}
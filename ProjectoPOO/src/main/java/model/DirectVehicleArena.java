@@ -0,0 +1,95 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Arena de veículos fora do heap: um ByteBuffer direto com um registo de tamanho fixo por slot.
+ * O estado não é percorrido pelo GC, pelo que o heap fica livre para o resto da simulação.
+ */
+class DirectVehicleArena extends VehicleArena {
+    // Disposição de cada registo (32 bytes, alinhado)
+    private static final int ID = 0;
+    private static final int WAITING_TIME = 4;
+    private static final int POSITION = 8;
+    private static final int SPEED = 16;
+    private static final int NEXT = 20;
+    private static final int CLASS_TAG = 24;
+    private static final int SPAWN_TIME = 28;
+    private static final int STRIDE = 32;
+
+    private ByteBuffer buffer;
+
+    DirectVehicleArena(int initialCapacity) {
+        super(initialCapacity);
+        buffer = allocate(getCapacity());
+    }
+
+    @Override
+    public int getBytesPerVehicle() {
+        return STRIDE;
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return true;
+    }
+
+    @Override
+    public int getId(int slot) { return buffer.getInt(slot * STRIDE + ID); }
+
+    @Override
+    public double getPosition(int slot) { return buffer.getDouble(slot * STRIDE + POSITION); }
+
+    @Override
+    public float getSpeed(int slot) { return buffer.getFloat(slot * STRIDE + SPEED); }
+
+    @Override
+    public int getWaitingTime(int slot) { return buffer.getInt(slot * STRIDE + WAITING_TIME); }
+
+    @Override
+    public int getNext(int slot) { return buffer.getInt(slot * STRIDE + NEXT); }
+
+    @Override
+    public int getSpawnTime(int slot) { return buffer.getInt(slot * STRIDE + SPAWN_TIME); }
+
+    @Override
+    byte getClassTag(int slot) { return buffer.get(slot * STRIDE + CLASS_TAG); }
+
+    @Override
+    void setId(int slot, int id) { buffer.putInt(slot * STRIDE + ID, id); }
+
+    @Override
+    public void setPosition(int slot, double position) { buffer.putDouble(slot * STRIDE + POSITION, position); }
+
+    @Override
+    void setSpeed(int slot, float speed) { buffer.putFloat(slot * STRIDE + SPEED, speed); }
+
+    @Override
+    public void setWaitingTime(int slot, int waitingTime) { buffer.putInt(slot * STRIDE + WAITING_TIME, waitingTime); }
+
+    @Override
+    public void setNext(int slot, int next) { buffer.putInt(slot * STRIDE + NEXT, next); }
+
+    @Override
+    void setSpawnTime(int slot, int spawnTime) { buffer.putInt(slot * STRIDE + SPAWN_TIME, spawnTime); }
+
+    @Override
+    void setClassTag(int slot, byte tag) { buffer.put(slot * STRIDE + CLASS_TAG, tag); }
+
+    @Override
+    protected void grow(int oldCapacity, int newCapacity) {
+        if ((long) newCapacity * STRIDE > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Capacidade máxima da arena excedida: " + newCapacity + " veículos");
+        }
+        ByteBuffer bigger = allocate(newCapacity);
+        buffer.position(0).limit(oldCapacity * STRIDE);
+        bigger.put(buffer);
+        bigger.clear();
+        buffer = bigger;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * STRIDE).order(ByteOrder.nativeOrder());
+    }
+}
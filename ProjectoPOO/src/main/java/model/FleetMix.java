@@ -0,0 +1,97 @@
+package model;
+
+import util.RandomStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Composição da frota gerada num fluxo de procura: a proporção de cada classe de veículo.
+ * A escolha de cada veículo consome um único número aleatório do fluxo da estrada.
+ */
+public final class FleetMix {
+    /** A composição original da simulação: 10% de veículos de emergência. */
+    public static final FleetMix DEFAULT = new FleetMix(
+            new VehicleClass[] {VehicleClass.EMERGENCY, VehicleClass.CAR}, new double[] {0.1, 0.9});
+
+    private final VehicleClass[] classes;
+    private final double[] cumulative; // Proporção acumulada, normalizada para terminar em 1
+
+    /**
+     * Construtor para FleetMix.
+     * @param classes As classes de veículo.
+     * @param weights O peso de cada classe (não precisam de somar 1).
+     * @throws IllegalArgumentException se os pesos forem inválidos.
+     */
+    public FleetMix(VehicleClass[] classes, double[] weights) {
+        if (classes.length == 0 || classes.length != weights.length) {
+            throw new IllegalArgumentException("Composição da frota inválida");
+        }
+        double total = 0.0;
+        for (double weight : weights) {
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("Peso inválido na composição da frota: " + weight);
+            }
+            total += weight;
+        }
+        if (!(total > 0)) {
+            throw new IllegalArgumentException("A composição da frota não tem nenhuma classe com peso");
+        }
+        this.classes = classes.clone();
+        this.cumulative = new double[weights.length];
+        double sum = 0.0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum / total;
+        }
+    }
+
+    /**
+     * Lê uma composição no formato "CLASSE:peso,..." (ex.: "CAR:0.8,TRUCK:0.1,EMERGENCY:0.1").
+     * @param spec A descrição da composição.
+     * @return A composição.
+     * @throws IllegalArgumentException se a descrição for inválida.
+     */
+    public static FleetMix parse(String spec) {
+        List<VehicleClass> classes = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
+        for (String item : spec.split(",")) {
+            String[] parts = item.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Classe inválida na composição da frota: " + item);
+            }
+            classes.add(VehicleClass.valueOf(parts[0].trim().toUpperCase()));
+            weights.add(Double.parseDouble(parts[1].trim()));
+        }
+        return new FleetMix(classes.toArray(new VehicleClass[0]), weights.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    /**
+     * Escolhe a classe do próximo veículo.
+     * @param random O gerador do fluxo de procura.
+     * @return A classe escolhida.
+     */
+    public VehicleClass sample(RandomStream random) {
+        double u = random.nextDouble();
+        for (int i = 0; i < cumulative.length - 1; i++) {
+            if (u < cumulative[i]) {
+                return classes[i];
+            }
+        }
+        return classes[classes.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        double previous = 0.0;
+        for (int i = 0; i < classes.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(classes[i]).append(':').append(cumulative[i] - previous);
+            previous = cumulative[i];
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,22 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Um evento de congestionamento detetado pelo GridlockMonitor.
+ * @param type O tipo de evento.
+ * @param tick O tick em que foi detetado.
+ * @param roadIds A estrada afetada (spillback) ou as estradas do ciclo, pela ordem de espera (gridlock).
+ */
+public record GridlockEvent(Type type, int tick, List<Integer> roadIds) {
+
+    /**
+     * Tipos de evento.
+     */
+    public enum Type {
+        SPILLBACK_START,  // A fila chegou à entrada da estrada: a estrada anterior deixa de poder largar veículos
+        SPILLBACK_END,
+        GRIDLOCK,         // Espera circular confirmada
+        GRIDLOCK_CLEARED
+    }
+}
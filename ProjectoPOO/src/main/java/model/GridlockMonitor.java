@@ -0,0 +1,352 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Deteção de spillback e de gridlock nas estradas ligadas entre si (ver World.setupCorridorScenario
+ * e World.setupRingScenario). O World chama update() no fim de cada tick.
+ *
+ * Spillback: a fila de uma estrada alimentada por outra chegou à entrada (canAddVehicle() é falso),
+ * pelo que a estrada anterior deixa de poder largar veículos.
+ *
+ * Gridlock: cada estrada cujo veículo da frente espera no fim por uma estrada seguinte cheia "espera
+ * por" essa estrada. Como cada estrada tem no máximo uma seguinte, as esperas formam um grafo com
+ * uma aresta de saída por estrada, e um ciclo é uma espera circular. A procura de ciclos é
+ * incremental: só quando uma estrada passa a esperar se segue a cadeia a partir dela (no máximo uma
+ * volta), e um ciclo conhecido só é revisto quando uma das suas estradas deixa de esperar. Um ciclo
+ * é confirmado como gridlock quando dura confirmationTicks seguidos (as filas que ainda estão a
+ * compactar desfazem-se antes disso) e a política é então aplicada.
+ *
+ * O estado do monitor não faz parte dos WorldSnapshot: depois de um restore() é recalculado a partir
+ * das estradas, e os contadores continuam a acumular.
+ */
+public class GridlockMonitor {
+    private static final int DEFAULT_CONFIRMATION_TICKS = 20;
+
+    /**
+     * Uma espera circular: índices das estradas, pela ordem da espera.
+     */
+    private static final class Cycle {
+        final int[] members;
+        final int detectedAt;
+        boolean confirmed = false;
+
+        Cycle(int[] members, int detectedAt) {
+            this.members = members;
+            this.detectedAt = detectedAt;
+        }
+    }
+
+    // Estradas vigiadas (ligadas a outra estrada) e o seu estado no fim do último tick
+    private final List<Road> roads = new ArrayList<>();
+    private final Map<Road, Integer> indexOf = new IdentityHashMap<>();
+    private int[] nextIndex = new int[0]; // Índice da estrada seguinte, ou -1 se não for vigiada
+    private boolean[] spilled = new boolean[0];
+    private boolean[] waiting = new boolean[0];
+    private Cycle[] cycleOf = new Cycle[0];
+    private final List<Cycle> cycles = new ArrayList<>();
+    private final List<Integer> newlyWaiting = new ArrayList<>(); // Reutilizada entre ticks
+
+    private GridlockPolicy policy = GridlockPolicy.IGNORE;
+    private int confirmationTicks = DEFAULT_CONFIRMATION_TICKS;
+    private Consumer<GridlockEvent> listener;
+
+    // Métricas
+    private long spillbackEpisodes = 0;
+    private long spillbackRoadTicks = 0;
+    private long gridlocks = 0;
+    private int firstGridlockTick = -1;
+    private long removedVehicles = 0;
+    private boolean aborted = false;
+
+    /**
+     * Passa a vigiar uma estrada ligada a outra (chamado pelo World ao ligar as estradas).
+     */
+    void watch(Road road) {
+        if (!indexOf.containsKey(road)) {
+            indexOf.put(road, roads.size());
+            roads.add(road);
+            int n = roads.size();
+            nextIndex = Arrays.copyOf(nextIndex, n);
+            spilled = Arrays.copyOf(spilled, n);
+            waiting = Arrays.copyOf(waiting, n);
+            cycleOf = Arrays.copyOf(cycleOf, n);
+        }
+        // As ligações podem ser feitas por qualquer ordem: recalcula os índices das estradas seguintes
+        for (int k = 0; k < roads.size(); k++) {
+            Integer next = indexOf.get(roads.get(k).getNextRoad());
+            nextIndex[k] = next != null ? next : -1;
+        }
+    }
+
+    /**
+     * Deixa de vigiar todas as estradas e limpa as métricas (reset do World).
+     */
+    void clear() {
+        roads.clear();
+        indexOf.clear();
+        nextIndex = new int[0];
+        spilled = new boolean[0];
+        waiting = new boolean[0];
+        cycleOf = new Cycle[0];
+        cycles.clear();
+        spillbackEpisodes = 0;
+        spillbackRoadTicks = 0;
+        gridlocks = 0;
+        firstGridlockTick = -1;
+        removedVehicles = 0;
+        aborted = false;
+    }
+
+    /**
+     * Esquece o estado do último tick (depois de World.restore()); é recalculado no próximo update().
+     * Os ciclos voltam a precisar de confirmationTicks para serem confirmados.
+     */
+    void resync() {
+        Arrays.fill(spilled, false);
+        Arrays.fill(waiting, false);
+        Arrays.fill(cycleOf, null);
+        cycles.clear();
+    }
+
+    /**
+     * Atualiza o spillback e as esperas no fim de um tick (depois de fixada a capacidade de receber
+     * veículos de cada estrada) e aplica a política aos gridlocks confirmados.
+     * @param world O mundo das estradas.
+     * @param tick O tick atual.
+     */
+    void update(World world, int tick) {
+        for (int k = 0; k < roads.size(); k++) {
+            Road road = roads.get(k);
+
+            boolean spill = road.receivesTransfers() && !road.isClosed() && !road.canAddVehicle();
+            if (spill != spilled[k]) {
+                spilled[k] = spill;
+                if (spill) {
+                    spillbackEpisodes++;
+                }
+                emit(spill ? GridlockEvent.Type.SPILLBACK_START : GridlockEvent.Type.SPILLBACK_END, tick,
+                        List.of(road.getId()));
+            }
+            if (spill) {
+                spillbackRoadTicks++;
+            }
+
+            Road next = road.getNextRoad();
+            boolean waits = next != null && road.hasVehicleAtEnd() && !next.isAcceptingTransfers();
+            if (waits != waiting[k]) {
+                waiting[k] = waits;
+                if (waits) {
+                    newlyWaiting.add(k);
+                } else if (cycleOf[k] != null) {
+                    breakCycle(cycleOf[k], tick);
+                }
+            }
+        }
+
+        // Só uma aresta nova pode fechar um ciclo, e só o ciclo que passa por ela
+        for (int k : newlyWaiting) {
+            if (waiting[k] && cycleOf[k] == null) {
+                findCycle(k, tick);
+            }
+        }
+        newlyWaiting.clear();
+
+        for (int c = 0; c < cycles.size(); c++) {
+            Cycle cycle = cycles.get(c);
+            if (!cycle.confirmed && tick - cycle.detectedAt >= confirmationTicks) {
+                confirm(world, cycle, tick);
+            }
+        }
+    }
+
+    /**
+     * Segue as esperas a partir de uma estrada; se voltar a ela, regista o ciclo.
+     */
+    private void findCycle(int start, int tick) {
+        int length = 1;
+        int k = nextIndex[start];
+        while (k >= 0 && k != start && waiting[k] && length <= roads.size()) {
+            k = nextIndex[k];
+            length++;
+        }
+        if (k != start) {
+            return;
+        }
+        int[] members = new int[length];
+        k = start;
+        for (int i = 0; i < length; i++) {
+            members[i] = k;
+            k = nextIndex[k];
+        }
+        Cycle cycle = new Cycle(members, tick);
+        for (int member : members) {
+            cycleOf[member] = cycle;
+        }
+        cycles.add(cycle);
+    }
+
+    private void breakCycle(Cycle cycle, int tick) {
+        for (int member : cycle.members) {
+            cycleOf[member] = null;
+        }
+        cycles.remove(cycle);
+        if (cycle.confirmed) {
+            emit(GridlockEvent.Type.GRIDLOCK_CLEARED, tick, roadIds(cycle));
+        }
+    }
+
+    private void confirm(World world, Cycle cycle, int tick) {
+        cycle.confirmed = true;
+        gridlocks++;
+        if (firstGridlockTick < 0) {
+            firstGridlockTick = tick;
+        }
+        emit(GridlockEvent.Type.GRIDLOCK, tick, roadIds(cycle));
+
+        switch (policy) {
+            case IGNORE -> {
+            }
+            case ABORT -> {
+                aborted = true;
+                world.stop();
+            }
+            case RESOLVE -> {
+                // Retira o veículo da frente que espera há mais tempo (o mesmo em todas as execuções)
+                Vehicle removed = null;
+                for (int member : cycle.members) {
+                    List<Vehicle> vehicles = roads.get(member).getVehicles();
+                    Vehicle front = vehicles.get(vehicles.size() - 1);
+                    if (removed == null || front.getWaitingTime() > removed.getWaitingTime()) {
+                        removed = front;
+                    }
+                }
+                removed.getCurrentRoad().removeVehicle(removed);
+                removedVehicles++;
+            }
+        }
+    }
+
+    private List<Integer> roadIds(Cycle cycle) {
+        List<Integer> ids = new ArrayList<>(cycle.members.length);
+        for (int member : cycle.members) {
+            ids.add(roads.get(member).getId());
+        }
+        return List.copyOf(ids);
+    }
+
+    private void emit(GridlockEvent.Type type, int tick, List<Integer> roadIds) {
+        if (listener != null) {
+            listener.accept(new GridlockEvent(type, tick, roadIds));
+        }
+    }
+
+    /**
+     * Define a política aplicada aos gridlocks confirmados.
+     */
+    public void setPolicy(GridlockPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Define quantos ticks seguidos uma espera circular tem de durar para ser um gridlock.
+     */
+    public void setConfirmationTicks(int confirmationTicks) {
+        if (confirmationTicks < 1) {
+            throw new IllegalArgumentException("O tempo de confirmação tem de ser positivo");
+        }
+        this.confirmationTicks = confirmationTicks;
+    }
+
+    /**
+     * Define quem recebe os eventos de spillback e gridlock (chamado na thread da simulação), ou null.
+     */
+    public void setListener(Consumer<GridlockEvent> listener) {
+        this.listener = listener;
+    }
+
+    // Getters
+    public GridlockPolicy getPolicy() {
+        return policy;
+    }
+
+    public int getConfirmationTicks() {
+        return confirmationTicks;
+    }
+
+    /**
+     * Obtém o número de estradas vigiadas (0 se não houver estradas ligadas).
+     */
+    public int getWatchedRoadCount() {
+        return roads.size();
+    }
+
+    /**
+     * Obtém o número de vezes que uma fila chegou à entrada da sua estrada.
+     */
+    public long getSpillbackEpisodes() {
+        return spillbackEpisodes;
+    }
+
+    /**
+     * Obtém a soma, por tick, das estradas com a fila na entrada.
+     */
+    public long getSpillbackRoadTicks() {
+        return spillbackRoadTicks;
+    }
+
+    /**
+     * Obtém o número de estradas com a fila na entrada no último tick.
+     */
+    public int getSpilledRoadCount() {
+        int count = 0;
+        for (boolean spill : spilled) {
+            if (spill) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long getGridlockCount() {
+        return gridlocks;
+    }
+
+    /**
+     * Obtém o tick do primeiro gridlock confirmado, ou -1 se não houve nenhum.
+     */
+    public int getFirstGridlockTick() {
+        return firstGridlockTick;
+    }
+
+    /**
+     * Indica se há agora algum gridlock confirmado.
+     */
+    public boolean isGridlocked() {
+        for (Cycle cycle : cycles) {
+            if (cycle.confirmed) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtém o número de veículos retirados da rede pela política RESOLVE.
+     */
+    public long getRemovedVehicles() {
+        return removedVehicles;
+    }
+
+    /**
+     * Indica se a simulação foi parada pela política ABORT.
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+}
@@ -0,0 +1,13 @@
+package model;
+
+/**
+ * O que fazer quando o GridlockMonitor confirma um gridlock (espera circular entre estradas).
+ */
+public enum GridlockPolicy {
+    /** Apenas regista o evento e as métricas. */
+    IGNORE,
+    /** Para a simulação (World.stop()), para não gastar tempo de cálculo numa rede bloqueada. */
+    ABORT,
+    /** Retira da rede o veículo da frente que espera há mais tempo no ciclo, desfazendo o bloqueio. */
+    RESOLVE
+}
@@ -0,0 +1,91 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Arena de veículos em arrays primitivos no heap (um array por campo).
+ */
+class HeapVehicleArena extends VehicleArena {
+    private int[] ids;
+    private double[] positions;
+    private float[] speeds;
+    private int[] waitingTimes;
+    private int[] next;
+    private int[] spawnTimes;
+    private byte[] classTags;
+
+    HeapVehicleArena(int initialCapacity) {
+        super(initialCapacity);
+        int capacity = getCapacity();
+        ids = new int[capacity];
+        positions = new double[capacity];
+        speeds = new float[capacity];
+        waitingTimes = new int[capacity];
+        next = new int[capacity];
+        spawnTimes = new int[capacity];
+        classTags = new byte[capacity];
+    }
+
+    @Override
+    public int getBytesPerVehicle() {
+        return Integer.BYTES + Double.BYTES + Float.BYTES + Integer.BYTES + Integer.BYTES + Integer.BYTES + Byte.BYTES;
+    }
+
+    @Override
+    public boolean isOffHeap() {
+        return false;
+    }
+
+    @Override
+    public int getId(int slot) { return ids[slot]; }
+
+    @Override
+    public double getPosition(int slot) { return positions[slot]; }
+
+    @Override
+    public float getSpeed(int slot) { return speeds[slot]; }
+
+    @Override
+    public int getWaitingTime(int slot) { return waitingTimes[slot]; }
+
+    @Override
+    public int getNext(int slot) { return next[slot]; }
+
+    @Override
+    public int getSpawnTime(int slot) { return spawnTimes[slot]; }
+
+    @Override
+    byte getClassTag(int slot) { return classTags[slot]; }
+
+    @Override
+    void setId(int slot, int id) { ids[slot] = id; }
+
+    @Override
+    public void setPosition(int slot, double position) { positions[slot] = position; }
+
+    @Override
+    void setSpeed(int slot, float speed) { speeds[slot] = speed; }
+
+    @Override
+    public void setWaitingTime(int slot, int waitingTime) { waitingTimes[slot] = waitingTime; }
+
+    @Override
+    public void setNext(int slot, int nextSlot) { next[slot] = nextSlot; }
+
+    @Override
+    void setSpawnTime(int slot, int spawnTime) { spawnTimes[slot] = spawnTime; }
+
+    @Override
+    void setClassTag(int slot, byte tag) { classTags[slot] = tag; }
+
+    @Override
+    protected void grow(int oldCapacity, int newCapacity) {
+        ids = Arrays.copyOf(ids, newCapacity);
+        positions = Arrays.copyOf(positions, newCapacity);
+        speeds = Arrays.copyOf(speeds, newCapacity);
+        waitingTimes = Arrays.copyOf(waitingTimes, newCapacity);
+        next = Arrays.copyOf(next, newCapacity);
+        spawnTimes = Arrays.copyOf(spawnTimes, newCapacity);
+        classTags = Arrays.copyOf(classTags, newCapacity);
+    }
+}
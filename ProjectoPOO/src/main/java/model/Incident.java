@@ -0,0 +1,119 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Um incidente numa estrada, ativo entre dois ticks da simulação (ver World.scheduleIncident).
+ *
+ * CLOSURE fecha a entrada da estrada (não são gerados nem recebidos veículos; os que já lá estão
+ * continuam a sair), BLOCKAGE bloqueia a via numa posição (os veículos param atrás dela) e
+ * SPEED_REDUCTION multiplica a velocidade de todos os veículos da estrada por um fator (obras,
+ * acidente na berma, mau tempo).
+ */
+public class Incident {
+
+    /**
+     * Tipo de incidente.
+     */
+    public enum Type {
+        CLOSURE,
+        BLOCKAGE,
+        SPEED_REDUCTION
+    }
+
+    private final Type type;
+    private final int roadId;
+    private final int startTick;
+    private final int endTick;
+    private final double value; // Posição do bloqueio ou fator de velocidade
+
+    /**
+     * Construtor para Incident.
+     * @param type O tipo de incidente.
+     * @param roadId O id da estrada afetada.
+     * @param startTick O primeiro tick em que está ativo.
+     * @param endTick O tick em que termina (Integer.MAX_VALUE = até ao fim da execução).
+     * @param value A posição do bloqueio (BLOCKAGE) ou o fator de velocidade (SPEED_REDUCTION); ignorado em CLOSURE.
+     */
+    public Incident(Type type, int roadId, int startTick, int endTick, double value) {
+        if (startTick < 0 || endTick <= startTick) {
+            throw new IllegalArgumentException("Duração de incidente inválida: " + startTick + "-" + endTick);
+        }
+        if (type == Type.SPEED_REDUCTION && (value <= 0 || value > 1)) {
+            throw new IllegalArgumentException("Fator de velocidade inválido: " + value);
+        }
+        if (type == Type.BLOCKAGE && value < 0) {
+            throw new IllegalArgumentException("Posição de bloqueio inválida: " + value);
+        }
+        this.type = type;
+        this.roadId = roadId;
+        this.startTick = startTick;
+        this.endTick = endTick;
+        this.value = value;
+    }
+
+    public static Incident closure(int roadId, int startTick, int endTick) {
+        return new Incident(Type.CLOSURE, roadId, startTick, endTick, 0.0);
+    }
+
+    public static Incident blockage(int roadId, double position, int startTick, int endTick) {
+        return new Incident(Type.BLOCKAGE, roadId, startTick, endTick, position);
+    }
+
+    public static Incident speedReduction(int roadId, double factor, int startTick, int endTick) {
+        return new Incident(Type.SPEED_REDUCTION, roadId, startTick, endTick, factor);
+    }
+
+    /**
+     * Lê uma lista de incidentes no formato "tipo:estrada:início:fim[:valor]", separados por vírgulas
+     * (ex.: "CLOSURE:5:600:1200,BLOCKAGE:1:300:900:60,SPEED_REDUCTION:3:0:3600:0.5"; fim "-" = sem fim).
+     * @param spec A descrição dos incidentes.
+     * @return Os incidentes.
+     * @throws IllegalArgumentException se a descrição for inválida.
+     */
+    public static List<Incident> parseList(String spec) {
+        List<Incident> incidents = new ArrayList<>();
+        for (String item : spec.split(",")) {
+            String[] parts = item.trim().split(":");
+            if (parts.length < 4) {
+                throw new IllegalArgumentException("Incidente inválido: " + item);
+            }
+            Type type = Type.valueOf(parts[0].toUpperCase());
+            int end = parts[3].equals("-") ? Integer.MAX_VALUE : Integer.parseInt(parts[3]);
+            double value = parts.length > 4 ? Double.parseDouble(parts[4]) : 0.0;
+            if (type != Type.CLOSURE && parts.length < 5) {
+                throw new IllegalArgumentException("Falta o valor do incidente: " + item);
+            }
+            incidents.add(new Incident(type, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), end, value));
+        }
+        return incidents;
+    }
+
+    // Getters
+    public Type getType() {
+        return type;
+    }
+
+    public int getRoadId() {
+        return roadId;
+    }
+
+    public int getStartTick() {
+        return startTick;
+    }
+
+    public int getEndTick() {
+        return endTick;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        String end = endTick == Integer.MAX_VALUE ? "-" : String.valueOf(endTick);
+        return type + ":" + roadId + ":" + startTick + ":" + end + (type == Type.CLOSURE ? "" : ":" + value);
+    }
+}
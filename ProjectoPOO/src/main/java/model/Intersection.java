@@ -1,6 +1,8 @@
 package model;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.List;
 
@@ -9,8 +11,10 @@ import java.util.List;
  */
 public class Intersection {
     private final int id;
-    // Mapeia a estrada de entrada para o semáforo que a controla
+    // Mapeia a estrada de entrada para o semáforo que a controla.
+    // A ordem de inserção é preservada: as estratégias assumem getRoads() = [R1, R2, R3, R4].
     private final Map<Road, TrafficLight> trafficLights;
+    private final List<Road> roads; // Estradas de entrada, pela ordem de inserção
 
     /**
      * Construtor para Intersection.
@@ -18,7 +22,8 @@ public class Intersection {
      */
     public Intersection(int id) {
         this.id = id;
-        this.trafficLights = new HashMap<>();
+        this.trafficLights = new LinkedHashMap<>();
+        this.roads = new ArrayList<>();
     }
 
     /**
@@ -27,8 +32,11 @@ public class Intersection {
      * @param light O semáforo que controla essa estrada.
      */
     public void addTrafficLight(Road road, TrafficLight light) {
-        trafficLights.put(road, light);
+        if (trafficLights.put(road, light) == null) {
+            roads.add(road);
+        }
         road.setEndIntersection(this);
+        road.setTrafficLight(light);
     }
 
     /**
@@ -63,6 +71,6 @@ public class Intersection {
      * @return A lista de estradas.
      */
     public List<Road> getRoads() {
-        return new java.util.ArrayList<>(trafficLights.keySet());
+        return Collections.unmodifiableList(roads);
     }
 }
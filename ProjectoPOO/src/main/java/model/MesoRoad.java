@@ -0,0 +1,255 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Estrada mesoscópica baseada num modelo de fila (queue-server).
+ * Os veículos não têm posição contínua: cada veículo percorre a estrada no tempo de
+ * percurso livre (comprimento / velocidade) e junta-se depois à fila junto à linha de paragem,
+ * que é escoada a uma capacidade fixa (veículos/tick) enquanto o semáforo o permitir.
+ * O custo por tick é proporcional aos veículos que mudam de estado e não ao total na estrada.
+ *
+ * O tempo de espera e a fila seguem as definições do modelo microscópico (Vehicle.move e
+ * Road.getVehiclesInQueue), para que as métricas dos dois modelos sejam comparáveis:
+ * - Espera: só contam os ticks parado. Um veículo na linha de paragem espera nos ticks em que a fila
+ *   não escoou nenhum veículo (semáforo fechado ou capacidade esgotada); nos ticks em que escoa, os
+ *   veículos de trás avançam. O atraso atrás de um veículo mais lento não conta (segue devagar mas
+ *   não para). Para não percorrer a fila em cada tick, a estrada conta os ticks parados desde o
+ *   início e cada veículo guarda essa contagem quando chega à linha de paragem.
+ * - Fila: veículos na primeira metade da estrada, isto é, que ainda não fizeram metade do percurso
+ *   livre (também sem ultrapassagens, pelo que basta um contador a partir da frente da fila).
+ */
+public class MesoRoad extends Road {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final double dischargeRate; // Capacidade de escoamento (veículos/tick)
+    private final int storageCapacity; // Número máximo de veículos na estrada
+    private final int halfStorage; // Veículos parados que cabem na segunda metade da estrada
+
+    // Fila FIFO circular: veículos e o tick a partir do qual podem sair
+    private Vehicle[] queue = new Vehicle[INITIAL_CAPACITY];
+    private int[] readyTick = new int[INITIAL_CAPACITY];
+    private int[] halfTick = new int[INITIAL_CAPACITY]; // Tick em que passa a metade da estrada
+    private long[] stoppedAtReady = new long[INITIAL_CAPACITY]; // stoppedTicks quando chegou à linha de paragem
+    private int head = 0;
+    private int size = 0;
+    private int readyCount = 0; // Veículos na frente da fila que já chegaram à linha de paragem
+    private int halfCount = 0; // Veículos na frente da fila que já passaram a metade da estrada
+    private long stoppedTicks = 0; // Ticks em que a fila da linha de paragem não escoou nenhum veículo
+
+    private int clock = 0; // Relógio local (um incremento por updateVehicles)
+    private int lastEntryTick = -1;
+    private double dischargeCredit = 0.0; // Fração de capacidade acumulada
+    private final List<Vehicle> discharged = new ArrayList<>();
+
+    /**
+     * Construtor para MesoRoad.
+     * @param id Identificador único da estrada.
+     * @param length O comprimento da estrada.
+     * @param dischargeRate Capacidade de escoamento na linha de paragem (veículos/tick).
+     */
+    public MesoRoad(int id, double length, double dischargeRate) {
+        super(id, length);
+        this.dischargeRate = dischargeRate;
+        // Em fila parada os veículos ficam separados pela distância mínima
+        this.storageCapacity = Math.max(1, (int) (length / Vehicle.getMinDistance()));
+        this.halfStorage = (int) (length / 2 / Vehicle.getMinDistance());
+    }
+
+    /**
+     * Construtor com a capacidade equivalente ao modelo microscópico: como o veículo da frente
+     * fica retido no final da estrada até ser removido, uma fila escoa 1 veículo por tick.
+     */
+    public MesoRoad(int id, double length) {
+        this(id, length, 1.0);
+    }
+
+    @Override
+    public void addVehicle(Vehicle vehicle) {
+        if (size == queue.length) {
+            grow();
+        }
+        // Sem ultrapassagens: não pode sair antes do veículo da frente
+        // A redução de velocidade de um incidente aplica-se aos veículos que entram enquanto está ativo
+        double speed = vehicle.getSpeed() * getSpeedFactor();
+        int travelTicks = (int) Math.ceil((getLength() - vehicle.getPosition()) / speed);
+        int ready = clock + Math.max(1, travelTicks);
+        int half = clock + Math.max(0, (int) Math.ceil((getLength() / 2 - vehicle.getPosition()) / speed));
+        if (size > 0) {
+            ready = Math.max(ready, readyTick[index(size - 1)]);
+            half = Math.max(half, halfTick[index(size - 1)]);
+        }
+        int tail = index(size);
+        queue[tail] = vehicle;
+        readyTick[tail] = ready;
+        halfTick[tail] = half;
+        size++;
+        lastEntryTick = clock;
+    }
+
+    @Override
+    public void removeVehicle(Vehicle vehicle) {
+        // Remoção arbitrária (rara): compacta a fila preservando a ordem
+        for (int i = 0; i < size; i++) {
+            if (queue[index(i)] == vehicle) {
+                for (int j = i; j < size - 1; j++) {
+                    queue[index(j)] = queue[index(j + 1)];
+                    readyTick[index(j)] = readyTick[index(j + 1)];
+                    halfTick[index(j)] = halfTick[index(j + 1)];
+                    stoppedAtReady[index(j)] = stoppedAtReady[index(j + 1)];
+                }
+                queue[index(size - 1)] = null;
+                size--;
+                if (i < readyCount) {
+                    readyCount--;
+                }
+                if (i < halfCount) {
+                    halfCount--;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return O número de veículos que mudaram de estado (chegaram à fila ou saíram).
+     */
+    @Override
+    public int updateVehicles(TrafficLight trafficLight) {
+        clock++;
+        int changed = 0;
+
+        // 1. Veículos que passaram a metade da estrada saem da zona de fila
+        while (halfCount < size && halfTick[index(halfCount)] <= clock) {
+            halfCount++;
+        }
+
+        // 2. Veículos que terminaram o percurso livre passam para a fila da linha de paragem
+        while (readyCount < size && readyTick[index(readyCount)] <= clock) {
+            queue[index(readyCount)].setPosition(getLength() - Vehicle.getMinDistance());
+            stoppedAtReady[index(readyCount)] = stoppedTicks;
+            readyCount++;
+            changed++;
+        }
+
+        // 3. Escoamento limitado pela capacidade e pelo semáforo
+        dischargeCredit = Math.min(dischargeCredit + dischargeRate, Math.max(1.0, dischargeRate));
+        int waiting = readyCount;
+        boolean dischargedAny = false;
+        while (readyCount > 0 && dischargeCredit >= 1.0) {
+            Vehicle first = queue[head];
+            if (!canDischarge(first, trafficLight)) {
+                break;
+            }
+            // Conta como espera os ticks em que a fila esteve parada desde que o veículo chegou a ela
+            first.addWaitingTime((int) (stoppedTicks - stoppedAtReady[head]));
+            dischargedAny = true;
+
+            queue[head] = null;
+            head = index(1);
+            size--;
+            readyCount--;
+            halfCount--;
+            dischargeCredit -= 1.0;
+            first.setPosition(getLength());
+            discharged.add(first);
+            changed++;
+        }
+        // Fila parada: todos os veículos nela esperaram este tick (incluindo os que lá chegaram agora)
+        if (waiting > 0 && !dischargedAny) {
+            stoppedTicks++;
+        }
+        return changed;
+    }
+
+    /**
+     * O custo de uma estrada mesoscópica já é proporcional às mudanças de estado;
+     * apenas a estrada vazia é saltada (o relógio local só avança quando há veículos).
+     */
+    @Override
+    public boolean canSkipTick(TrafficLight trafficLight) {
+        return size == 0 && discharged.isEmpty();
+    }
+
+    @Override
+    public void skipTick() {
+        // Nada a creditar: não há veículos
+    }
+
+    @Override
+    public void collectExitingVehicles(List<Vehicle> exited) {
+        exited.addAll(discharged);
+        discharged.clear();
+    }
+
+    @Override
+    public List<Vehicle> getVehicles() {
+        // Apenas para inspeção/visualização: cria uma cópia da fila
+        List<Vehicle> copy = new ArrayList<>(size + discharged.size());
+        for (int i = 0; i < size; i++) {
+            copy.add(queue[index(i)]);
+        }
+        copy.addAll(discharged);
+        return Collections.unmodifiableList(copy);
+    }
+
+    @Override
+    public int getVehicleCount() {
+        return size + discharged.size();
+    }
+
+    /**
+     * Veículos na primeira metade da estrada, como em Road.getVehiclesInQueue(). Além dos que ainda
+     * não fizeram metade do percurso livre, conta os que não cabem na segunda metade quando a fila
+     * parada (um veículo por distância mínima) chega à primeira metade.
+     */
+    @Override
+    public long getVehiclesInQueue() {
+        return Math.max(size - halfCount, size - halfStorage);
+    }
+
+    @Override
+    public boolean canAddVehicle() {
+        // No máximo uma entrada por tick e limitada pela capacidade de armazenamento
+        return size < storageCapacity && lastEntryTick != clock;
+    }
+
+    public double getDischargeRate() {
+        return dischargeRate;
+    }
+
+    public int getStorageCapacity() {
+        return storageCapacity;
+    }
+
+    private boolean canDischarge(Vehicle vehicle, TrafficLight trafficLight) {
+        if (trafficLight == null || vehicle.getVehicleClass().getLightCompliance() == VehicleClass.LightCompliance.IGNORE) {
+            return true; // Veículos que ignoram os semáforos não param no vermelho (como em Vehicle.move)
+        }
+        return trafficLight.getState() != TrafficLightState.RED;
+    }
+
+    private int index(int offset) {
+        return (head + offset) % queue.length;
+    }
+
+    private void grow() {
+        Vehicle[] newQueue = new Vehicle[queue.length * 2];
+        int[] newReady = new int[queue.length * 2];
+        int[] newHalf = new int[queue.length * 2];
+        long[] newStopped = new long[queue.length * 2];
+        for (int i = 0; i < size; i++) {
+            newQueue[i] = queue[index(i)];
+            newReady[i] = readyTick[index(i)];
+            newHalf[i] = halfTick[index(i)];
+            newStopped[i] = stoppedAtReady[index(i)];
+        }
+        queue = newQueue;
+        readyTick = newReady;
+        halfTick = newHalf;
+        stoppedAtReady = newStopped;
+        head = 0;
+    }
+}
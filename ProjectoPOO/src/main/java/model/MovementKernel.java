@@ -0,0 +1,84 @@
+package model;
+
+/**
+ * Regras de movimento de um veículo num tick, sobre valores primitivos e os dados da sua
+ * VehicleClass. Partilhadas pelo modelo de objetos (Vehicle.move) e pelo modo compacto
+ * (CompactTraffic), para que ambos produzam exatamente a mesma simulação.
+ */
+final class MovementKernel {
+    static final double MIN_DISTANCE = 2.0; // Distância mínima para evitar colisão
+    static final double STOPPED_THRESHOLD = 0.1; // Abaixo disto o veículo conta como parado
+
+    private MovementKernel() {
+    }
+
+    /**
+     * Obtém a velocidade pretendida neste tick: a velocidade de cruzeiro, limitada pela aceleração
+     * a partir da distância percorrida no tick anterior.
+     * @param cruiseSpeed A velocidade de cruzeiro (já com o fator de velocidade da estrada).
+     * @param currentSpeed A distância percorrida no tick anterior.
+     * @param acceleration A aceleração da classe do veículo.
+     * @return A velocidade pretendida.
+     */
+    static double desiredSpeed(double cruiseSpeed, double currentSpeed, double acceleration) {
+        return Math.min(cruiseSpeed, currentSpeed + acceleration);
+    }
+
+    /**
+     * Limita o avanço para manter a distância mínima ao veículo da frente.
+     * @param speed A velocidade do veículo.
+     * @param position A posição do veículo.
+     * @param leaderPosition A posição do veículo da frente, ou NaN se não houver.
+     * @param leaderLength O espaço ocupado pelo veículo da frente (MIN_DISTANCE para um automóvel).
+     * @return A distância que o veículo pode avançar.
+     */
+    static double limitByLeader(double speed, double position, double leaderPosition, double leaderLength) {
+        double distanceToMove = speed;
+        if (!Double.isNaN(leaderPosition)) {
+            double distanceToNext = leaderPosition - position;
+            if (distanceToNext < speed + leaderLength) {
+                // Reduz a velocidade para manter a distância mínima, garantindo que não ultrapasse o veículo da frente
+                distanceToMove = Math.min(distanceToMove, Math.max(0, distanceToNext - leaderLength));
+            }
+        }
+        return distanceToMove;
+    }
+
+    /**
+     * Limita o avanço para parar antes da intersecção quando o semáforo o exige.
+     * @param distanceToMove A distância já limitada pelo veículo da frente.
+     * @param speed A velocidade do veículo.
+     * @param position A posição do veículo.
+     * @param roadLength O comprimento da estrada.
+     * @param lightState O estado do semáforo no final da estrada, ou null se não houver.
+     * @param compliance A regra de cumprimento dos semáforos da classe do veículo.
+     * @return A distância que o veículo pode avançar.
+     */
+    static double limitByLight(double distanceToMove, double speed, double position, double roadLength,
+                               TrafficLightState lightState, VehicleClass.LightCompliance compliance) {
+        if (lightState == null || lightState == TrafficLightState.GREEN || compliance == VehicleClass.LightCompliance.IGNORE
+                || (lightState == TrafficLightState.YELLOW && compliance == VehicleClass.LightCompliance.RED_ONLY)) {
+            return distanceToMove;
+        }
+        double distanceToIntersection = roadLength - position;
+        if (distanceToIntersection <= distanceToMove + MIN_DISTANCE) {
+            if (lightState == TrafficLightState.RED) {
+                // Semáforo vermelho, para antes da intersecção
+                return Math.min(distanceToMove, Math.max(0, distanceToIntersection - MIN_DISTANCE));
+            }
+            // Semáforo amarelo, para antes da intersecção se não conseguir passar
+            if (distanceToIntersection > MIN_DISTANCE && distanceToIntersection >= speed) {
+                return Math.min(distanceToMove, Math.max(0, distanceToIntersection - MIN_DISTANCE));
+            }
+        }
+        return distanceToMove;
+    }
+
+    /**
+     * Aplica o avanço sem ultrapassar o final da estrada (a saída é tratada pelo World).
+     * @return A nova posição.
+     */
+    static double advance(double position, double distanceToMove, double roadLength) {
+        return Math.min(position + distanceToMove, roadLength);
+    }
+}
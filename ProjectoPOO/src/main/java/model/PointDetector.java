@@ -0,0 +1,58 @@
+package model;
+
+/**
+ * Detetor pontual (espira indutiva) numa posição da estrada.
+ *
+ * Conta os veículos que atravessam a posição e mede a velocidade de cada um no tick da passagem.
+ * A zona ocupada é a espira e o troço imediatamente antes, com o comprimento de um tick à
+ * velocidade da classe de veículo mais rápida (VehicleClass.getHighestMaxSpeed()), para que
+ * qualquer veículo a passar seja visto na espira em pelo menos um tick. As classes definidas
+ * depois de criado o detetor não são consideradas.
+ */
+public class PointDetector extends Detector {
+    private final double position;
+    private final double zoneLength; // Comprimento da zona de ocupação antes da espira
+    private final double zoneStart;
+
+    /**
+     * Construtor para PointDetector.
+     * @param name O nome do detetor.
+     * @param roadId O id da estrada.
+     * @param position A posição da espira.
+     * @param intervalTicks Os ticks de cada intervalo de agregação.
+     */
+    public PointDetector(String name, int roadId, double position, int intervalTicks) {
+        super(name, roadId, intervalTicks);
+        this.position = position;
+        this.zoneLength = VehicleClass.getHighestMaxSpeed();
+        this.zoneStart = position - zoneLength;
+    }
+
+    @Override
+    public boolean isInZone(double x) {
+        return x >= zoneStart && x < position;
+    }
+
+    @Override
+    void onMove(double from, double to) {
+        boolean wasInZone = isInZone(from);
+        boolean isInZone = isInZone(to);
+        if (wasInZone != isInZone) {
+            vehiclesPresent += isInZone ? 1 : -1;
+        }
+        // Passagem pela espira: conta e regista a velocidade nesse tick
+        if (from < position && to >= position) {
+            countVehicle();
+            distanceSum += to - from;
+            speedSamples++;
+        }
+    }
+
+    public double getPosition() {
+        return position;
+    }
+
+    public double getZoneLength() {
+        return zoneLength;
+    }
+}
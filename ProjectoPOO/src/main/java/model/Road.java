@@ -1,6 +1,9 @@
 package model;
 
+import model.state.LightState;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -11,6 +14,33 @@ public class Road {
     private final double length;
     private final List<Vehicle> vehicles;
     private Intersection endIntersection; // Interseção no final da estrada
+    private TrafficLight trafficLight; // Semáforo no final da estrada (cache de endIntersection)
+
+    // Controlo de atividade: uma estrada em que nenhum veículo se moveu "adormece" até que
+    // o semáforo mude de estado ou entre/saia um veículo, porque até lá cada tick seria idêntico.
+    private boolean asleep = false;
+    private LightState sleepingOn; // Estado do semáforo quando a estrada adormeceu
+    private int skippedTicks = 0; // Ticks saltados desde que adormeceu (tempo de espera por creditar)
+    private int vehiclesInQueue = 0; // Mantido em addVehicle/removeVehicle/updateVehicles
+
+    // Ligação à estrada seguinte (0 = os veículos saem da rede no fim desta estrada)
+    private int nextRoadId = 0;
+    private Road nextRoad; // A estrada seguinte, se pertencer ao mesmo World (null se for remota)
+    private boolean receivesTransfers = false; // Há uma estrada (local ou remota) que desagua nesta
+    private boolean acceptingTransfers = true; // Resultado de canAddVehicle() no fim do último tick
+    private boolean onRamp = false; // Também recebe veículos gerados, apesar de alimentada por outra estrada
+    private Vehicle exitBarrier; // Obstáculo virtual no fim da estrada quando a seguinte está cheia
+
+    // Detetores instalados: avisados de cada entrada, movimento e saída (array para o ciclo do tick)
+    private Detector[] detectors = new Detector[0];
+    private List<Detector> detectorList = List.of();
+
+    // Incidentes ativos (aplicados pelo World no tick de início e retirados no de fim) e o seu efeito combinado
+    private final List<Incident> incidents = new ArrayList<>(1);
+    private boolean closed = false;
+    private double speedFactor = 1.0;
+    private double blockagePosition = Double.NaN; // NaN = sem bloqueio
+    private Vehicle blockageBarrier; // Obstáculo virtual que para os veículos na posição do bloqueio
 
     /**
      * Construtor para Road.
@@ -28,9 +58,16 @@ public class Road {
      * @param vehicle O veículo a ser adicionado.
      */
     public void addVehicle(Vehicle vehicle) {
+        wake();
         vehicles.add(vehicle);
         // Ordena os veículos pela posição (do mais próximo ao mais distante do início)
         vehicles.sort((v1, v2) -> Double.compare(v1.getPosition(), v2.getPosition()));
+        if (isInQueueZone(vehicle)) {
+            vehiclesInQueue++;
+        }
+        for (Detector detector : detectors) {
+            detector.onEnter(vehicle.getPosition());
+        }
     }
 
     /**
@@ -38,26 +75,203 @@ public class Road {
      * @param vehicle O veículo a ser removido.
      */
     public void removeVehicle(Vehicle vehicle) {
-        vehicles.remove(vehicle);
+        wake();
+        if (vehicles.remove(vehicle)) {
+            if (isInQueueZone(vehicle)) {
+                vehiclesInQueue--;
+            }
+            for (Detector detector : detectors) {
+                detector.onLeave(vehicle.getPosition());
+            }
+        }
+    }
+
+    /**
+     * Atualiza a posição de todos os veículos na estrada.
+     * @param trafficLight O semáforo no final da estrada.
+     * @return O número de veículos que se moveram.
+     */
+    public int updateVehicles(TrafficLight trafficLight) {
+        return updateVehicles(trafficLight, false);
     }
 
     /**
      * Atualiza a posição de todos os veículos na estrada.
      * @param trafficLight O semáforo no final da estrada.
+     * @param exitBlocked true se a estrada seguinte não pode receber veículos: o primeiro veículo
+     *                    para no fim da estrada como se tivesse outro à frente.
+     * @return O número de veículos que se moveram.
      */
-    public void updateVehicles(TrafficLight trafficLight) {
+    public int updateVehicles(TrafficLight trafficLight, boolean exitBlocked) {
+        wake();
+
         // Ordena os veículos para garantir que a lógica de colisão funcione corretamente
         // (do mais distante para o mais próximo do final da estrada)
         vehicles.sort((v1, v2) -> Double.compare(v2.getPosition(), v1.getPosition()));
 
-        Vehicle nextVehicle = null;
+        int moved = 0;
+        int queued = 0;
+        Vehicle nextVehicle = exitBlocked ? getExitBarrier() : null;
+        double blockage = blockagePosition;
         for (Vehicle vehicle : vehicles) {
+            double previousPosition = vehicle.getPosition();
+            // O primeiro veículo atrás do bloqueio trata-o como o veículo da frente (os seguintes seguem-no)
+            if (!Double.isNaN(blockage) && previousPosition <= blockage) {
+                if (nextVehicle == null || nextVehicle.getPosition() > blockageBarrier.getPosition()) {
+                    nextVehicle = blockageBarrier;
+                }
+                blockage = Double.NaN;
+            }
             vehicle.move(nextVehicle, trafficLight);
+            if (vehicle.getPosition() != previousPosition) {
+                moved++;
+                for (Detector detector : detectors) {
+                    detector.onMove(previousPosition, vehicle.getPosition());
+                }
+            }
+            if (isInQueueZone(vehicle)) {
+                queued++;
+            }
             nextVehicle = vehicle;
         }
+        vehiclesInQueue = queued;
 
         // Reordena para o padrão (do mais próximo ao mais distante do início)
         vehicles.sort((v1, v2) -> Double.compare(v1.getPosition(), v2.getPosition()));
+
+        // Se nada se moveu, o próximo tick será igual enquanto o semáforo não mudar
+        if (moved == 0) {
+            asleep = true;
+            sleepingOn = trafficLight != null ? trafficLight.getCurrentState() : null;
+        }
+        return moved;
+    }
+
+    /**
+     * Indica se o tick atual pode ser saltado para esta estrada: está vazia, ou nenhum
+     * veículo se moveu no último tick e o semáforo no final continua no mesmo estado.
+     * @param trafficLight O semáforo no final da estrada.
+     * @return true se updateVehicles não alteraria nada além do tempo de espera.
+     */
+    public boolean canSkipTick(TrafficLight trafficLight) {
+        if (vehicles.isEmpty()) {
+            return true;
+        }
+        return asleep && (trafficLight == null || trafficLight.getCurrentState() == sleepingOn);
+    }
+
+    /**
+     * Regista um tick saltado. O tempo de espera correspondente é creditado aos veículos
+     * de uma só vez quando a estrada acordar.
+     */
+    public void skipTick() {
+        if (!vehicles.isEmpty()) {
+            skippedTicks++;
+        }
+    }
+
+    /**
+     * Acorda a estrada, creditando aos veículos parados os ticks em que esteve adormecida.
+     */
+    private void wake() {
+        if (skippedTicks > 0) {
+            for (Vehicle vehicle : vehicles) {
+                vehicle.addWaitingTime(skippedTicks);
+            }
+            skippedTicks = 0;
+        }
+        asleep = false;
+    }
+
+    /**
+     * Ativa um incidente nesta estrada.
+     */
+    void startIncident(Incident incident) {
+        incidents.add(incident);
+        applyIncidents();
+        wake();
+    }
+
+    /**
+     * Termina um incidente desta estrada.
+     */
+    void endIncident(Incident incident) {
+        incidents.remove(incident);
+        applyIncidents();
+        wake();
+    }
+
+    /**
+     * Recalcula o efeito combinado dos incidentes ativos (fecho se algum fechar a estrada, o menor
+     * fator de velocidade e o bloqueio mais próximo do início). Quem altera os incidentes acorda
+     * a estrada, que deixa de poder saltar ticks com base no estado anterior.
+     */
+    private void applyIncidents() {
+        closed = false;
+        speedFactor = 1.0;
+        blockagePosition = Double.NaN;
+        for (Incident incident : incidents) {
+            switch (incident.getType()) {
+                case CLOSURE -> closed = true;
+                case SPEED_REDUCTION -> speedFactor = Math.min(speedFactor, incident.getValue());
+                case BLOCKAGE -> blockagePosition = Double.isNaN(blockagePosition)
+                        ? incident.getValue() : Math.min(blockagePosition, incident.getValue());
+            }
+        }
+        if (!Double.isNaN(blockagePosition)) {
+            if (blockageBarrier == null) {
+                blockageBarrier = new Vehicle(-1, this, 0.0);
+            }
+            blockageBarrier.setPosition(blockagePosition + MovementKernel.MIN_DISTANCE);
+        }
+    }
+
+    /**
+     * Repõe o estado guardado num WorldSnapshot: veículos (já ordenados por posição), incidentes
+     * ativos e o controlo de atividade, sem avisar os detetores (cujo estado é reposto à parte).
+     */
+    void restore(List<Vehicle> restoredVehicles, List<Incident> activeIncidents, int vehiclesInQueue,
+                 boolean asleep, LightState sleepingOn, int skippedTicks, boolean acceptingTransfers) {
+        vehicles.clear();
+        vehicles.addAll(restoredVehicles);
+        incidents.clear();
+        incidents.addAll(activeIncidents);
+        applyIncidents();
+        this.vehiclesInQueue = vehiclesInQueue;
+        this.asleep = asleep;
+        this.sleepingOn = sleepingOn;
+        this.skippedTicks = skippedTicks;
+        this.acceptingTransfers = acceptingTransfers;
+    }
+
+    boolean isAsleep() {
+        return asleep;
+    }
+
+    LightState getSleepingOn() {
+        return sleepingOn;
+    }
+
+    int getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    private Vehicle getExitBarrier() {
+        if (exitBarrier == null) {
+            exitBarrier = new Vehicle(-1, this, length + MovementKernel.MIN_DISTANCE);
+        }
+        return exitBarrier;
+    }
+
+    /**
+     * Indica se o veículo da frente chegou ao fim da estrada (e espera pela estrada seguinte).
+     */
+    public boolean hasVehicleAtEnd() {
+        return !vehicles.isEmpty() && vehicles.get(vehicles.size() - 1).getPosition() >= length;
+    }
+
+    private boolean isInQueueZone(Vehicle vehicle) {
+        return vehicle.getPosition() < this.length / 2;
     }
 
     // Getters e Setters
@@ -73,6 +287,14 @@ public class Road {
         return vehicles;
     }
 
+    /**
+     * Obtém o número de veículos atualmente na estrada.
+     * @return O número de veículos.
+     */
+    public int getVehicleCount() {
+        return vehicles.size();
+    }
+
     public Intersection getEndIntersection() {
         return endIntersection;
     }
@@ -81,15 +303,104 @@ public class Road {
         this.endIntersection = endIntersection;
     }
 
+    /**
+     * Obtém o semáforo que controla o final da estrada, sem consultar o mapa da intersecção.
+     * @return O semáforo, ou null se não houver.
+     */
+    public TrafficLight getTrafficLight() {
+        return trafficLight;
+    }
+
+    void setTrafficLight(TrafficLight trafficLight) {
+        this.trafficLight = trafficLight;
+    }
+
+    /**
+     * Retira da estrada os veículos que chegaram ao seu final.
+     * Como a lista está ordenada por posição, basta percorrê-la a partir do fim.
+     * @param exited Lista onde são acrescentados os veículos retirados.
+     */
+    public void collectExitingVehicles(List<Vehicle> exited) {
+        for (int i = vehicles.size() - 1; i >= 0 && vehicles.get(i).getPosition() >= length; i--) {
+            Vehicle vehicle = vehicles.remove(i);
+            if (isInQueueZone(vehicle)) {
+                vehiclesInQueue--;
+            }
+            for (Detector detector : detectors) {
+                detector.onLeave(vehicle.getPosition());
+            }
+            exited.add(vehicle);
+        }
+    }
+
     /**
      * Obtém o número de veículos parados ou em fila na estrada.
      * (Simplificação: veículos na primeira metade da estrada)
      * @return O número de veículos.
      */
     public long getVehiclesInQueue() {
-        return vehicles.stream()
-                .filter(v -> v.getPosition() < this.length / 2)
-                .count();
+        return vehiclesInQueue;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Obtém o fator aplicado à velocidade dos veículos pelos incidentes ativos (1 = sem redução).
+     */
+    public double getSpeedFactor() {
+        return speedFactor;
+    }
+
+    /**
+     * Obtém a posição onde os veículos param por causa de um bloqueio, ou NaN se não houver.
+     */
+    public double getBlockagePosition() {
+        return blockagePosition;
+    }
+
+    /**
+     * Obtém os incidentes ativos nesta estrada.
+     */
+    public List<Incident> getIncidents() {
+        return incidents;
+    }
+
+    /**
+     * Obtém os detetores instalados na estrada (lista só de leitura).
+     */
+    public List<Detector> getDetectors() {
+        return detectorList;
+    }
+
+    /**
+     * Obtém o detetor com o nome indicado.
+     * @return O detetor, ou null se não existir.
+     */
+    public Detector getDetector(String name) {
+        for (Detector detector : detectors) {
+            if (detector.getName().equals(name)) {
+                return detector;
+            }
+        }
+        return null;
+    }
+
+    // Detetores: o World instala-os e o modo compacto usa o array diretamente
+    void addDetector(Detector detector) {
+        detectors = Arrays.copyOf(detectors, detectors.length + 1);
+        detectors[detectors.length - 1] = detector;
+        detectorList = List.of(detectors);
+    }
+
+    Detector[] getDetectorArray() {
+        return detectors;
+    }
+
+    // Usado pelo modo compacto, em que os veículos não estão na lista da estrada
+    void setVehiclesInQueue(int vehiclesInQueue) {
+        this.vehiclesInQueue = vehiclesInQueue;
     }
 
     /**
@@ -100,13 +411,63 @@ public class Road {
         if (vehicles.isEmpty()) {
             return true;
         }
-        // O primeiro veículo (o mais próximo do início) está na posição 0
-        Vehicle firstVehicle = vehicles.stream()
-                .min((v1, v2) -> Double.compare(v1.getPosition(), v2.getPosition()))
-                .orElse(null);
+        // O primeiro veículo (o mais próximo do início) é o primeiro da lista, que está ordenada por posição
+        Vehicle firstVehicle = vehicles.get(0);
+
+        // Pode adicionar se o primeiro veículo já deixou o seu comprimento e a distância mínima livres
+        return firstVehicle.getPosition() > firstVehicle.getVehicleClass().getLength() + Vehicle.getMinDistance();
+    }
+
+    /**
+     * Obtém o id da estrada para onde seguem os veículos que chegam ao fim desta.
+     * @return O id da estrada seguinte, ou 0 se os veículos saem da rede.
+     */
+    public int getNextRoadId() {
+        return nextRoadId;
+    }
+
+    /**
+     * Obtém a estrada seguinte, se pertencer ao mesmo World.
+     * @return A estrada seguinte, ou null se não existir ou estiver noutra partição.
+     */
+    public Road getNextRoad() {
+        return nextRoad;
+    }
 
-        // Se o primeiro veículo estiver a uma distância maior que a distância mínima, pode adicionar
-        return firstVehicle == null || firstVehicle.getPosition() > Vehicle.getMinDistance() * 2;
+    void setNextRoad(int nextRoadId, Road nextRoad) {
+        this.nextRoadId = nextRoadId;
+        this.nextRoad = nextRoad;
     }
 
+    public boolean receivesTransfers() {
+        return receivesTransfers;
+    }
+
+    void setReceivesTransfers(boolean receivesTransfers) {
+        this.receivesTransfers = receivesTransfers;
+    }
+
+    /**
+     * Indica se a estrada recebe veículos gerados (procura) além dos que vêm da estrada anterior.
+     */
+    public boolean isOnRamp() {
+        return onRamp;
+    }
+
+    void setOnRamp(boolean onRamp) {
+        this.onRamp = onRamp;
+    }
+
+    /**
+     * Indica se a estrada podia receber um veículo no fim do último tick.
+     * As transferências de um tick decidem-se com este valor, e não com o estado atual,
+     * para que o resultado não dependa da ordem (ou da partição) em que as estradas são atualizadas.
+     */
+    public boolean isAcceptingTransfers() {
+        return acceptingTransfers;
+    }
+
+    void updateAcceptingTransfers() {
+        this.acceptingTransfers = !closed && canAddVehicle();
+    }
 }
@@ -0,0 +1,11 @@
+package model;
+
+/**
+ * Enumeração dos modelos de estrada disponíveis num cenário.
+ */
+public enum RoadModel {
+    /** Cada veículo é movido individualmente (Vehicle.move) a cada tick. */
+    MICROSCOPIC,
+    /** Fila com tempo de percurso livre e capacidade de escoamento (MesoRoad). */
+    MESOSCOPIC
+}
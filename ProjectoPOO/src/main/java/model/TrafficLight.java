@@ -13,6 +13,7 @@ public class TrafficLight {
     private final int baseGreenDuration; // Duração base do verde (para estratégia adaptativa)
     private final int yellowDuration;
     private final int redDuration;
+    private long transitionCount = 0; // Mudanças de cor desde a criação
 
     /**
      * Construtor para TrafficLight.
@@ -54,6 +55,9 @@ public class TrafficLight {
      * @param newState O novo estado.
      */
     public void changeState(LightState newState) {
+        if (newState.getColor() != currentState.getColor()) {
+            transitionCount++;
+        }
         this.currentState = newState;
         this.timeInState = 0;
     }
@@ -74,6 +78,14 @@ public class TrafficLight {
         return currentState;
     }
 
+    /**
+     * Obtém o número de mudanças de cor do semáforo (não conta a renovação do mesmo estado).
+     * @return O número de transições.
+     */
+    public long getTransitionCount() {
+        return transitionCount;
+    }
+
     public int getTimeInState() {
         return timeInState;
     }
@@ -90,6 +102,15 @@ public class TrafficLight {
         return redDuration;
     }
 
+    /**
+     * Repõe o estado guardado num WorldSnapshot (os estados são imutáveis e podem ser partilhados).
+     */
+    void restore(LightState state, int timeInState, long transitionCount) {
+        this.currentState = state;
+        this.timeInState = timeInState;
+        this.transitionCount = transitionCount;
+    }
+
     // Método para testes
     public void resetTimeInState() {
         this.timeInState = 0;
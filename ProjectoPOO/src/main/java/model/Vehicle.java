@@ -2,16 +2,20 @@ package model;
 
 /**
  * Representa um veículo na simulação.
+ * O comportamento de cada tipo de veículo (automóvel, emergência, camião...) vem dos dados da sua
+ * VehicleClass e não de subclasses: a classe é final e move() é o mesmo para todos os veículos,
+ * pelo que a chamada no ciclo de Road.updateVehicles é monomórfica.
  */
-public class Vehicle {
+public final class Vehicle {
     private final int id;
+    private final VehicleClass vehicleClass;
     private double position; // Posição na estrada (0 a Road.length)
-    private double speed; // Velocidade em unidades/tick (sugerido 10)
+    private double speed; // Velocidade de cruzeiro em unidades/tick (sugerido 10)
+    private float currentSpeed; // Distância percorrida no último tick (float, como no modo compacto)
     private Road currentRoad;
     private boolean stoppedByTrafficLight;
     private int waitingTime = 0;
-
-    private static final double MIN_DISTANCE = 2.0; // Distância mínima para evitar colisão
+    private int spawnTime = 0; // Tick em que o veículo entrou na rede
 
     /**
      * Construtor para Vehicle.
@@ -21,18 +25,32 @@ public class Vehicle {
      * @param speed A velocidade do veículo.
      */
     public Vehicle(int id, Road initialRoad, double initialPosition, double speed) {
-        this.id = id;
-        this.currentRoad = initialRoad;
-        this.position = initialPosition;
-        this.speed = speed;
-        this.stoppedByTrafficLight = false;
+        this(id, initialRoad, initialPosition, VehicleClass.CAR, speed);
     }
 
     /**
      * Construtor com velocidade padrão sugerida (10 unidades/tick).
      */
     public Vehicle(int id, Road initialRoad, double initialPosition) {
-        this(id, initialRoad, initialPosition, 10.0);
+        this(id, initialRoad, initialPosition, VehicleClass.CAR);
+    }
+
+    /**
+     * Construtor para um veículo de uma classe, à velocidade máxima da classe.
+     * @param vehicleClass A classe do veículo.
+     */
+    public Vehicle(int id, Road initialRoad, double initialPosition, VehicleClass vehicleClass) {
+        this(id, initialRoad, initialPosition, vehicleClass, vehicleClass.getMaxSpeed());
+    }
+
+    private Vehicle(int id, Road initialRoad, double initialPosition, VehicleClass vehicleClass, double speed) {
+        this.id = id;
+        this.vehicleClass = vehicleClass;
+        this.currentRoad = initialRoad;
+        this.position = initialPosition;
+        this.speed = speed;
+        this.currentSpeed = (float) speed; // Entra na rede já em andamento
+        this.stoppedByTrafficLight = false;
     }
 
     /**
@@ -41,49 +59,33 @@ public class Vehicle {
      * @param trafficLight O semáforo no final da estrada (ou null se não houver).
      */
     public void move(Vehicle nextVehicle, TrafficLight trafficLight) {
-        double distanceToMove = speed;
-        stoppedByTrafficLight = false;
-
-        // 1. Verificar colisão com o veículo da frente
+        // 1. Velocidade pretendida: a de cruzeiro com a redução causada por incidentes na estrada,
+        // limitada pela aceleração da classe
+        double speed = MovementKernel.desiredSpeed(this.speed * currentRoad.getSpeedFactor(), currentSpeed,
+                vehicleClass.getAcceleration());
+
+        // 2. Verificar colisão com o veículo da frente
+        double leaderPosition = Double.NaN;
+        double leaderLength = 0.0;
         if (nextVehicle != null) {
-            double distanceToNext = nextVehicle.getPosition() - this.position;
-            if (distanceToNext < speed + MIN_DISTANCE) {
-                // Reduz a velocidade para manter a distância mínima, garantindo que não ultrapasse o veículo da frente
-                distanceToMove = Math.min(distanceToMove, Math.max(0, distanceToNext - MIN_DISTANCE));
-            }
+            leaderPosition = nextVehicle.position;
+            leaderLength = nextVehicle.vehicleClass.getLength();
         }
+        double limitedByLeader = MovementKernel.limitByLeader(speed, position, leaderPosition, leaderLength);
 
-        // 2. Verificar semáforo
-        if (trafficLight != null) {
-            double distanceToIntersection = currentRoad.getLength() - this.position;
-            if (distanceToIntersection <= distanceToMove + MIN_DISTANCE) {
-                if (trafficLight.getState() == TrafficLightState.RED) {
-                    // Semáforo vermelho, para antes da intersecção
-                    distanceToMove = Math.min(distanceToMove, Math.max(0, distanceToIntersection - MIN_DISTANCE));
-                    stoppedByTrafficLight = true;
-                } else if (trafficLight.getState() == TrafficLightState.YELLOW) {
-                    // Semáforo amarelo, para antes da intersecção se não conseguir passar
-                    if (distanceToIntersection > MIN_DISTANCE && distanceToIntersection < speed) {
-                        // Tenta passar (mantém distanceToMove)
-                    } else if (distanceToIntersection > MIN_DISTANCE) {
-                        // Para antes
-                        distanceToMove = Math.min(distanceToMove, Math.max(0, distanceToIntersection - MIN_DISTANCE));
-                        stoppedByTrafficLight = true;
-                    }
-                }
-            }
-        }
+        // 3. Verificar semáforo (segundo a regra da classe)
+        TrafficLightState lightState = trafficLight != null ? trafficLight.getState() : null;
+        double distanceToMove = MovementKernel.limitByLight(limitedByLeader, speed, position, currentRoad.getLength(),
+                lightState, vehicleClass.getLightCompliance());
+        stoppedByTrafficLight = distanceToMove < limitedByLeader;
 
-        // 3. Mover
-        if (distanceToMove < 0.1) {
+        // 4. Mover (os veículos prioritários não acumulam tempo de espera)
+        if (distanceToMove < MovementKernel.STOPPED_THRESHOLD && !vehicleClass.isPriority()) {
             waitingTime++;
         }
-        this.position += distanceToMove;
-
-        // 4. Verificar se chegou ao fim da estrada (para ser tratado pelo World)
-        if (this.position >= currentRoad.getLength()) {
-            this.position = currentRoad.getLength(); // Garante que não ultrapassa
-        }
+        currentSpeed = (float) distanceToMove;
+        // 5. Não ultrapassa o fim da estrada (a saída é tratada pelo World)
+        this.position = MovementKernel.advance(position, distanceToMove, currentRoad.getLength());
     }
 
     // Getters e Setters
@@ -91,6 +93,10 @@ public class Vehicle {
         return id;
     }
 
+    public VehicleClass getVehicleClass() {
+        return vehicleClass;
+    }
+
     public double getPosition() {
         return position;
     }
@@ -107,6 +113,17 @@ public class Vehicle {
         this.speed = speed;
     }
 
+    /**
+     * Obtém a distância percorrida no último tick (igual à velocidade de cruzeiro à entrada na rede).
+     */
+    public float getCurrentSpeed() {
+        return currentSpeed;
+    }
+
+    void setCurrentSpeed(float currentSpeed) {
+        this.currentSpeed = currentSpeed;
+    }
+
     public Road getCurrentRoad() {
         return currentRoad;
     }
@@ -116,6 +133,13 @@ public class Vehicle {
         this.position = 0; // Assume que começa no início da nova estrada
     }
 
+    /**
+     * Indica se o veículo esteve parado no último tick (avançou menos do que o limiar de paragem).
+     */
+    public boolean isStopped() {
+        return currentSpeed < MovementKernel.STOPPED_THRESHOLD;
+    }
+
     public boolean isStoppedByTrafficLight() {
         return stoppedByTrafficLight;
     }
@@ -124,7 +148,34 @@ public class Vehicle {
         return waitingTime;
     }
 
+    /**
+     * Acrescenta tempo de espera calculado fora de move() (ex.: pelo modelo mesoscópico).
+     * Ignorado nos veículos prioritários, tal como em move().
+     * @param ticks O número de ticks de espera a acrescentar.
+     */
+    void addWaitingTime(int ticks) {
+        if (!vehicleClass.isPriority()) {
+            this.waitingTime += ticks;
+        }
+    }
+
+    /**
+     * Obtém o tick em que o veículo entrou na rede (mantém-se ao passar para outra estrada).
+     * @return O tempo de simulação da entrada.
+     */
+    public int getSpawnTime() {
+        return spawnTime;
+    }
+
+    void setSpawnTime(int spawnTime) {
+        this.spawnTime = spawnTime;
+    }
+
+    void setStoppedByTrafficLight(boolean stoppedByTrafficLight) {
+        this.stoppedByTrafficLight = stoppedByTrafficLight;
+    }
+
     public static double getMinDistance() {
-        return MIN_DISTANCE;
+        return MovementKernel.MIN_DISTANCE;
     }
 }
@@ -0,0 +1,145 @@
+package model;
+
+/**
+ * Armazenamento compacto do estado dos veículos em memória primitiva, indexado por slot (int).
+ * Evita o cabeçalho de objeto e as referências de cada Vehicle; os slots libertados
+ * são reutilizados através de uma lista livre encadeada pelo próprio campo "next".
+ */
+public abstract class VehicleArena {
+    /** Valor de "next" que indica o fim de uma lista. */
+    public static final int NONE = -1;
+
+    private int capacity;
+    private int highWater = 0; // Slots já utilizados pelo menos uma vez
+    private int freeHead = NONE;
+    private int liveCount = 0;
+
+    protected VehicleArena(int initialCapacity) {
+        this.capacity = Math.max(16, initialCapacity);
+    }
+
+    /**
+     * Cria uma arena.
+     * @param offHeap true para guardar o estado fora do heap (ByteBuffer direto).
+     * @param initialCapacity O número inicial de slots.
+     * @return A arena criada.
+     */
+    public static VehicleArena create(boolean offHeap, int initialCapacity) {
+        return offHeap ? new DirectVehicleArena(initialCapacity) : new HeapVehicleArena(initialCapacity);
+    }
+
+    /**
+     * Reserva um slot e inicializa o estado do veículo.
+     * @param speed A velocidade atual (distância percorrida no último tick).
+     * @return O slot atribuído.
+     */
+    public int allocate(int id, double position, VehicleClass vehicleClass, double speed, int spawnTime) {
+        int slot;
+        if (freeHead != NONE) {
+            slot = freeHead;
+            freeHead = getNext(slot);
+        } else {
+            if (highWater == capacity) {
+                int newCapacity = capacity * 2;
+                grow(capacity, newCapacity);
+                capacity = newCapacity;
+            }
+            slot = highWater++;
+        }
+        setId(slot, id);
+        setPosition(slot, position);
+        setSpeed(slot, (float) speed);
+        setWaitingTime(slot, 0);
+        setSpawnTime(slot, spawnTime);
+        setClassTag(slot, vehicleClass.getTag());
+        setNext(slot, NONE);
+        liveCount++;
+        return slot;
+    }
+
+    /**
+     * Liberta um slot para reutilização.
+     * @param slot O slot a libertar.
+     */
+    public void free(int slot) {
+        setNext(slot, freeHead);
+        freeHead = slot;
+        liveCount--;
+    }
+
+    /**
+     * Liberta todos os slots.
+     */
+    public void clear() {
+        highWater = 0;
+        freeHead = NONE;
+        liveCount = 0;
+    }
+
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Obtém a memória total reservada pela arena (slots livres incluídos).
+     * @return O número de bytes.
+     */
+    public long getAllocatedBytes() {
+        return (long) capacity * getBytesPerVehicle();
+    }
+
+    public VehicleClass getVehicleClass(int slot) {
+        return VehicleClass.fromTag(getClassTag(slot));
+    }
+
+    /**
+     * Obtém o número de bytes ocupados pelo estado de um veículo.
+     * @return O número de bytes por slot.
+     */
+    public abstract int getBytesPerVehicle();
+
+    /**
+     * Indica se o estado está guardado fora do heap.
+     */
+    public abstract boolean isOffHeap();
+
+    public abstract int getId(int slot);
+
+    public abstract double getPosition(int slot);
+
+    /**
+     * Obtém a velocidade atual (a velocidade de cruzeiro é a da classe do veículo).
+     */
+    public abstract float getSpeed(int slot);
+
+    public abstract int getWaitingTime(int slot);
+
+    public abstract int getNext(int slot);
+
+    public abstract int getSpawnTime(int slot);
+
+    abstract byte getClassTag(int slot);
+
+    abstract void setId(int slot, int id);
+
+    public abstract void setPosition(int slot, double position);
+
+    abstract void setSpeed(int slot, float speed);
+
+    public abstract void setWaitingTime(int slot, int waitingTime);
+
+    public abstract void setNext(int slot, int next);
+
+    abstract void setSpawnTime(int slot, int spawnTime);
+
+    abstract void setClassTag(int slot, byte tag);
+
+    /**
+     * Aumenta a capacidade preservando os slots existentes.
+     */
+    protected abstract void grow(int oldCapacity, int newCapacity);
+}
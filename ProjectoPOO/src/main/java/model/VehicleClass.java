@@ -0,0 +1,159 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe de veículo definida por dados: comprimento, velocidade máxima, aceleração, prioridade e
+ * regra de cumprimento dos semáforos. Todos os veículos são movidos pelo mesmo código
+ * (Vehicle.move e CompactTraffic, através de MovementKernel), que lê estes valores; um tipo novo
+ * é apenas mais uma instância, sem subclasses de Vehicle.
+ *
+ * Cada classe tem uma etiqueta (getTag) que a identifica no modo compacto, nos snapshots e entre
+ * partições. As classes predefinidas têm sempre as mesmas etiquetas; as definidas com define()
+ * recebem as seguintes, pela ordem de definição (que tem de ser a mesma em todos os processos).
+ */
+public final class VehicleClass {
+
+    /**
+     * Regra de cumprimento dos semáforos.
+     */
+    public enum LightCompliance {
+        OBEY,     // Para no vermelho e no amarelo (se conseguir parar)
+        RED_ONLY, // Para só no vermelho
+        IGNORE    // Não para (veículos de emergência)
+    }
+
+    private static final List<VehicleClass> REGISTRY = new ArrayList<>();
+    private static volatile VehicleClass[] byTag = new VehicleClass[0]; // Cópia do registo para fromTag (sem bloqueio)
+
+    // O comprimento de um automóvel é MIN_DISTANCE e a aceleração igual à velocidade máxima:
+    // automóveis e veículos de emergência movem-se como antes da introdução das classes
+    public static final VehicleClass CAR = define("CAR", MovementKernel.MIN_DISTANCE, 10.0, 10.0, false, LightCompliance.OBEY);
+    public static final VehicleClass EMERGENCY = define("EMERGENCY", MovementKernel.MIN_DISTANCE, 15.0, 15.0, true, LightCompliance.IGNORE);
+    public static final VehicleClass TRUCK = define("TRUCK", 5.0, 7.0, 1.5, false, LightCompliance.OBEY);
+    public static final VehicleClass BUS = define("BUS", 4.5, 8.0, 2.0, false, LightCompliance.OBEY);
+    public static final VehicleClass BICYCLE = define("BICYCLE", 1.0, 4.0, 2.0, false, LightCompliance.OBEY);
+
+    private final byte tag;
+    private final String name;
+    private final double length;
+    private final double maxSpeed;
+    private final double acceleration;
+    private final boolean priority;
+    private final LightCompliance lightCompliance;
+
+    private VehicleClass(byte tag, String name, double length, double maxSpeed, double acceleration,
+                         boolean priority, LightCompliance lightCompliance) {
+        this.tag = tag;
+        this.name = name;
+        this.length = length;
+        this.maxSpeed = maxSpeed;
+        this.acceleration = acceleration;
+        this.priority = priority;
+        this.lightCompliance = lightCompliance;
+    }
+
+    /**
+     * Define uma nova classe de veículo.
+     * @param name O nome (único).
+     * @param length O espaço ocupado na fila, incluindo a distância ao veículo de trás.
+     * @param maxSpeed A velocidade máxima, em unidades/tick.
+     * @param acceleration O aumento máximo de velocidade por tick.
+     * @param priority true se o veículo tiver prioridade (não acumula tempo de espera e é desenhado
+     *                 como emergência).
+     * @param lightCompliance A regra de cumprimento dos semáforos.
+     * @return A classe definida.
+     * @throws IllegalArgumentException se o nome já existir ou os valores forem inválidos.
+     */
+    public static synchronized VehicleClass define(String name, double length, double maxSpeed, double acceleration,
+                                                   boolean priority, LightCompliance lightCompliance) {
+        if (!(length > 0) || !(maxSpeed > 0) || !(acceleration > 0)) {
+            throw new IllegalArgumentException("Parâmetros inválidos para a classe " + name);
+        }
+        if (REGISTRY.size() > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Demasiadas classes de veículo");
+        }
+        for (VehicleClass existing : REGISTRY) {
+            if (existing.name.equals(name)) {
+                throw new IllegalArgumentException("Classe de veículo repetida: " + name);
+            }
+        }
+        VehicleClass vehicleClass = new VehicleClass((byte) REGISTRY.size(), name, length, maxSpeed, acceleration,
+                priority, lightCompliance);
+        REGISTRY.add(vehicleClass);
+        byTag = REGISTRY.toArray(new VehicleClass[0]);
+        return vehicleClass;
+    }
+
+    /**
+     * Obtém a classe com a etiqueta indicada.
+     * @throws IllegalArgumentException se a etiqueta não existir.
+     */
+    public static VehicleClass fromTag(int tag) {
+        VehicleClass[] classes = byTag;
+        if (tag < 0 || tag >= classes.length) {
+            throw new IllegalArgumentException("Classe de veículo desconhecida: " + tag);
+        }
+        return classes[tag];
+    }
+
+    /**
+     * Obtém a classe com o nome indicado.
+     * @throws IllegalArgumentException se o nome não existir.
+     */
+    public static synchronized VehicleClass valueOf(String name) {
+        for (VehicleClass vehicleClass : REGISTRY) {
+            if (vehicleClass.name.equals(name)) {
+                return vehicleClass;
+            }
+        }
+        throw new IllegalArgumentException("Classe de veículo desconhecida: " + name);
+    }
+
+    /**
+     * Obtém a maior velocidade máxima entre as classes definidas (a maior distância que um veículo
+     * pode percorrer num tick).
+     */
+    public static synchronized double getHighestMaxSpeed() {
+        double highest = 0;
+        for (VehicleClass vehicleClass : REGISTRY) {
+            highest = Math.max(highest, vehicleClass.maxSpeed);
+        }
+        return highest;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    // Getters
+    public byte getTag() {
+        return tag;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getLength() {
+        return length;
+    }
+
+    public double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public double getAcceleration() {
+        return acceleration;
+    }
+
+    public boolean isPriority() {
+        return priority;
+    }
+
+    public LightCompliance getLightCompliance() {
+        return lightCompliance;
+    }
+}
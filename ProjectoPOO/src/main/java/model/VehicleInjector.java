@@ -0,0 +1,248 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Entrada de veículos vindos de fora da simulação (geradores de procura, dados ao vivo ou
+ * repetidos), pedida por qualquer número de threads (World.getVehicleInjector()).
+ *
+ * Os pedidos entram numa fila sem bloqueio (ConcurrentLinkedQueue) e são retirados de uma vez
+ * pela thread da simulação no início de cada tick, depois das transferências entre estradas e
+ * antes da geração automática. Cada estrada recebe no máximo um veículo por tick, se tiver espaço
+ * na entrada; os restantes esperam, por ordem de chegada, numa fila da estrada (backlog). Um pedido
+ * é rejeitado se a estrada não existir neste World, se a fila da estrada estiver cheia, ou logo no
+ * submit() se houver demasiados pedidos por retirar (para que um produtor mais rápido do que a
+ * simulação seja avisado em vez de encher a memória).
+ *
+ * Os pedidos em espera nas estradas fazem parte dos WorldSnapshot; os pedidos ainda por retirar da
+ * fila partilhada não (pertencem a quem os pediu, não ao estado da simulação). Ambos são descartados
+ * no reset().
+ */
+public class VehicleInjector {
+    private static final int DEFAULT_MAX_PENDING = 1 << 16;
+    private static final int DEFAULT_MAX_BACKLOG_PER_ROAD = 256;
+
+    /**
+     * Um pedido de entrada (queuedAt é o tick em que foi retirado da fila partilhada).
+     */
+    private record Request(int roadId, VehicleClass vehicleClass, int queuedAt) {
+    }
+
+    // Lado dos produtores (qualquer thread)
+    private final ConcurrentLinkedQueue<Request> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder refused = new LongAdder(); // Rejeitados no submit() (fila partilhada cheia)
+    private volatile int maxPending = DEFAULT_MAX_PENDING;
+
+    // Lado da simulação (só a thread que chama World.tick(); lidos por outras threads como valores recentes)
+    private final Map<Integer, ArrayDeque<Request>> backlogs = new LinkedHashMap<>(); // Só estradas com espera
+    private volatile int maxBacklogPerRoad = DEFAULT_MAX_BACKLOG_PER_ROAD;
+    private volatile long injected = 0;
+    private volatile long rejected = 0; // Estrada desconhecida ou com a fila cheia
+    private volatile int backlogged = 0;
+    private volatile long delayedTicks = 0; // Soma, pelos veículos que entraram, dos ticks em espera
+    private volatile int maxDelay = 0;
+
+    /**
+     * Pede a entrada de um veículo no início de uma estrada. Pode ser chamado de qualquer thread
+     * e não bloqueia; o veículo entra no primeiro tick em que a estrada tiver espaço.
+     * @param roadId O id da estrada de entrada.
+     * @param vehicleClass A classe do veículo.
+     * @return false se o pedido foi recusado porque há demasiados pedidos por retirar.
+     */
+    public boolean submit(int roadId, VehicleClass vehicleClass) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            refused.increment();
+            return false;
+        }
+        incoming.add(new Request(roadId, vehicleClass, -1));
+        submitted.increment();
+        return true;
+    }
+
+    /**
+     * Indica se há trabalho para o próximo tick (leitura barata, feita pelo World em todos os ticks).
+     */
+    boolean hasWork() {
+        return backlogged > 0 || pending.get() > 0;
+    }
+
+    /**
+     * Retira os pedidos novos para as filas das estradas e faz entrar um veículo em cada estrada com
+     * espera e espaço na entrada.
+     * @param world O mundo da simulação.
+     * @param tick O tick atual.
+     */
+    void drain(World world, int tick) {
+        Request request;
+        int drained = 0;
+        int waiting = backlogged;
+        long rejectedNow = 0;
+        while ((request = incoming.poll()) != null) {
+            drained++;
+            if (world.getRoad(request.roadId()) == null) {
+                rejectedNow++;
+                continue;
+            }
+            ArrayDeque<Request> backlog = backlogs.computeIfAbsent(request.roadId(), id -> new ArrayDeque<>());
+            if (backlog.size() >= maxBacklogPerRoad) {
+                rejectedNow++;
+                continue;
+            }
+            backlog.add(new Request(request.roadId(), request.vehicleClass(), tick));
+            waiting++;
+        }
+        if (drained > 0) {
+            pending.addAndGet(-drained);
+        }
+
+        long injectedNow = 0;
+        long delayNow = 0;
+        int longest = maxDelay;
+        Iterator<ArrayDeque<Request>> it = backlogs.values().iterator();
+        while (it.hasNext()) {
+            ArrayDeque<Request> backlog = it.next();
+            Request next = backlog.peek();
+            if (next != null && world.spawnAtEntry(next.roadId(), next.vehicleClass())) {
+                backlog.poll();
+                waiting--;
+                injectedNow++;
+                int delay = tick - next.queuedAt();
+                delayNow += delay;
+                longest = Math.max(longest, delay);
+            }
+            if (backlog.isEmpty()) {
+                it.remove();
+            }
+        }
+
+        backlogged = waiting;
+        injected += injectedNow;
+        rejected += rejectedNow;
+        delayedTicks += delayNow;
+        maxDelay = longest;
+    }
+
+    /**
+     * Descarta os pedidos por retirar e em espera (reset do World). As estatísticas mantêm-se.
+     */
+    void clear() {
+        int drained = 0;
+        while (incoming.poll() != null) {
+            drained++;
+        }
+        pending.addAndGet(-drained);
+        backlogs.clear();
+        backlogged = 0;
+    }
+
+    /**
+     * Copia os pedidos em espera nas estradas, por estrada e por ordem de chegada (World.snapshot()).
+     * @return {estrada, etiqueta da classe, tick em que foi retirado} de cada pedido, seguidos.
+     */
+    int[] copyBacklog() {
+        int[] copy = new int[backlogged * 3];
+        int k = 0;
+        for (ArrayDeque<Request> backlog : backlogs.values()) {
+            for (Request request : backlog) {
+                copy[k++] = request.roadId();
+                copy[k++] = request.vehicleClass().getTag();
+                copy[k++] = request.queuedAt();
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Substitui os pedidos em espera nas estradas pelos de uma cópia (World.restore()). Os pedidos
+     * por retirar e as estatísticas mantêm-se.
+     * @param copy Os pedidos, no formato de copyBacklog().
+     */
+    void restoreBacklog(int[] copy) {
+        backlogs.clear();
+        for (int k = 0; k < copy.length; k += 3) {
+            backlogs.computeIfAbsent(copy[k], id -> new ArrayDeque<>())
+                    .add(new Request(copy[k], VehicleClass.fromTag(copy[k + 1]), copy[k + 2]));
+        }
+        backlogged = copy.length / 3;
+    }
+
+    /**
+     * Define o número máximo de pedidos por retirar (acima dele submit() devolve false).
+     */
+    public void setMaxPending(int maxPending) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("O limite de pedidos tem de ser positivo");
+        }
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Define o número máximo de pedidos em espera por estrada (acima dele são rejeitados).
+     */
+    public void setMaxBacklogPerRoad(int maxBacklogPerRoad) {
+        if (maxBacklogPerRoad < 1) {
+            throw new IllegalArgumentException("O limite de espera tem de ser positivo");
+        }
+        this.maxBacklogPerRoad = maxBacklogPerRoad;
+    }
+
+    // Getters
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    /**
+     * Obtém o número de pedidos recusados no submit() por haver demasiados por retirar.
+     */
+    public long getRefusedCount() {
+        return refused.sum();
+    }
+
+    /**
+     * Obtém o número de veículos que já entraram na simulação.
+     */
+    public long getInjectedCount() {
+        return injected;
+    }
+
+    /**
+     * Obtém o número de pedidos rejeitados ao serem retirados (estrada desconhecida ou com a fila cheia).
+     */
+    public long getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * Obtém o número de pedidos ainda não retirados da fila partilhada.
+     */
+    public int getPendingCount() {
+        return Math.max(0, pending.get());
+    }
+
+    /**
+     * Obtém o número de pedidos à espera de espaço na entrada da sua estrada.
+     */
+    public int getBackloggedCount() {
+        return backlogged;
+    }
+
+    /**
+     * Obtém a espera média, em ticks, entre a retirada de um pedido e a entrada do veículo.
+     */
+    public double getAverageDelay() {
+        return injected > 0 ? (double) delayedTicks / injected : 0.0;
+    }
+
+    public int getMaxDelay() {
+        return maxDelay;
+    }
+}
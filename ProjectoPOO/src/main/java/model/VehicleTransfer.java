@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * Um veículo que chegou ao fim de uma estrada e entra, no tick seguinte, no início da estrada seguinte.
+ * Contém apenas o que o veículo leva consigo, para poder atravessar fronteiras entre partições.
+ * @param roadId A estrada de destino.
+ * @param vehicleId O identificador do veículo.
+ * @param waitingTime O tempo de espera acumulado até aqui.
+ * @param vehicleClass A classe do veículo.
+ * @param speed A distância percorrida no último tick (velocidade com que entra na estrada seguinte).
+ */
+public record VehicleTransfer(int roadId, int vehicleId, int waitingTime, int spawnTime, VehicleClass vehicleClass,
+                              float speed) {
+}
@@ -3,10 +3,24 @@ package model;
 import controller.Strategy;
 import controller.FixedCycle;
 import util.Metrics;
+import util.RandomStream;
+import util.TelemetrySnapshot;
+import util.TickProfiler;
+import util.TripLog;
+import util.TrajectoryFrame;
+import util.TrajectoryRecorder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 
 /**
  * Representa o mundo da simulação, contendo todas as estradas, intersecções e veículos.
@@ -14,22 +28,102 @@ import java.util.stream.Collectors;
 public class World {
     private final List<Road> roads;
     private final List<Intersection> intersections;
-    private final List<Vehicle> vehicles;
+    private final Map<Integer, Road> roadsById = new HashMap<>();
+    private final Map<Integer, Integer> roadIndexById = new HashMap<>(); // Posição em roads (e roadStreams)
     private int simulationTime;
     private boolean isRunning;
     private int nextVehicleId = 1; // Contador para IDs de veículos
+    private int firstVehicleId = 1;
+    private int vehicleIdStep = 1; // Partições diferentes usam sequências de ids intercaladas
     private int vehicleGenerationInterval = 5; // Intervalo de ticks para gerar um novo veículo
     private int lastGenerationTime = 0; // Tempo do último tick de geração
+    private FleetMix fleetMix = FleetMix.DEFAULT; // Composição da frota gerada nas estradas de entrada
+    private final Map<Integer, FleetMix> roadFleetMixes = new HashMap<>(); // Composições próprias por estrada
     private Strategy trafficStrategy; // Padrão Strategy
     private final Metrics metrics = new Metrics();
+    private final TickProfiler profiler = new TickProfiler();
+    private final List<Vehicle> vehiclesToRemove = new ArrayList<>(); // Reutilizada entre ticks
+    private final long seed; // Semente da execução (permite repetir exatamente uma simulação)
+    private final boolean antithetic; // Geradores antitéticos (1 - u) para a mesma semente
+    // Geradores da procura de cada estrada (pela mesma ordem de roads), um por finalidade: classes dos
+    // veículos (roadStreams) e instantes de chegada (arrivalStreams). A geração numa estrada não depende
+    // das outras, pelo que o resultado é o mesmo com a rede inteira ou partida, e as chegadas e as
+    // classes de uma estrada não dependem da estratégia (números aleatórios comuns entre execuções)
+    private final List<RandomStream> roadStreams = new ArrayList<>();
+    private final List<RandomStream> arrivalStreams = new ArrayList<>();
+    private int[] nextArrival = new int[0]; // Tick da próxima chegada POISSON de cada estrada (-1 = por sortear)
+    private ArrivalProcess arrivalProcess = ArrivalProcess.FIXED;
+    private static final long ARRIVAL_STREAMS = 1L << 32; // Somado ao id da estrada no fluxo das chegadas
+    private int scenarioCrossings = 1; // Número de cruzamentos do cenário atual (usado no reset)
+    private RoadModel scenarioRoadModel = RoadModel.MICROSCOPIC; // Modelo de estrada do cenário atual
+    private boolean scenarioCorridor = false; // Cruzamentos ligados em corredor (em vez de independentes)
+    private int scenarioFirstCrossing = 0; // Cruzamentos da grelha ou do corredor que pertencem a este World
+    private int scenarioEndCrossing = 1;
+    private boolean scenarioRing = false; // Corredor fechado em anel (ver setupRingScenario)
+
+    // Transferências entre estradas: decididas num tick e aplicadas no início do seguinte
+    private final List<VehicleTransfer> pendingTransfers = new ArrayList<>();
+    private final List<VehicleTransfer> outgoingTransfers = new ArrayList<>(); // Destino noutra partição
+    private final Set<Integer> blockedRemoteRoads = new HashSet<>(); // Estradas remotas cheias no último tick
+    private final List<Road> boundaryEntryRoads = new ArrayList<>(); // Estradas alimentadas por outra partição
+    private final List<Vehicle> exitingVehicles = new ArrayList<>(); // Reutilizada entre ticks
+    private final GridlockMonitor gridlockMonitor = new GridlockMonitor(); // Vigia as estradas ligadas
+    private final VehicleInjector vehicleInjector = new VehicleInjector(); // Veículos pedidos por outras threads
+    private DemandSource demandSource; // Procura externa (null = geração automática por intervalo)
+    private CompactTraffic compactTraffic; // Modo compacto (null = um objeto Vehicle por veículo)
+    private TrajectoryRecorder trajectoryRecorder; // Gravação de trajetórias (null = desativada)
+    private TrajectoryFrame recordingFrame; // Frame do tick atual, preenchido durante a atualização das estradas
+    private TripLog tripLog; // Registo de viagens (null = desativado)
+    private final List<Detector> detectors = new ArrayList<>(); // Reinstalados nas novas estradas no reset
+
+    // Cronograma de incidentes: início e fim de cada incidente, pela ordem dos ticks. Só a estrada
+    // afetada é alterada quando um evento chega; entre eventos o custo por tick é um peek().
+    private record IncidentEvent(int tick, long sequence, Incident incident, boolean start) {
+    }
+
+    private final List<Incident> incidents = new ArrayList<>(); // Reprogramados no reset
+    private final PriorityQueue<IncidentEvent> incidentEvents = new PriorityQueue<>(
+            Comparator.comparingInt(IncidentEvent::tick).thenComparingLong(IncidentEvent::sequence));
+    private long incidentSequence = 0;
+
+    // Telemetria: outras threads leem o último snapshot publicado e pedem alterações através de
+    // comandos, executados pela thread da simulação no início do tick seguinte
+    private final ConcurrentLinkedQueue<Consumer<World>> commands = new ConcurrentLinkedQueue<>();
+    private volatile TelemetrySnapshot telemetrySnapshot;
+    private long telemetryPeriodNanos = 0; // 0 = telemetria desativada
+    private long lastTelemetryNanos;
+    private int lastTelemetryTime;
+
+    // Estimativa do custo de um Vehicle no modo de objetos (JVM 64 bits com compressed oops):
+    // cabeçalho 12 + campos 33 -> 48 bytes alinhados, mais a referência (e folga) na lista da estrada.
+    private static final int OBJECT_BYTES_PER_VEHICLE = 56;
 
     /**
-     * Construtor para World.
+     * Construtor para World com uma semente arbitrária.
      */
     public World() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * Construtor para World.
+     * @param seed A semente dos números aleatórios (mesma semente, mesma simulação).
+     */
+    public World(long seed) {
+        this(seed, false);
+    }
+
+    /**
+     * Construtor para World com geradores antitéticos (ver RandomStream): com a mesma semente,
+     * a execução antitética é negativamente correlacionada com a normal.
+     * @param seed A semente dos números aleatórios.
+     * @param antithetic Se os geradores devolvem os valores antitéticos.
+     */
+    public World(long seed, boolean antithetic) {
+        this.seed = seed;
+        this.antithetic = antithetic;
         this.roads = new ArrayList<>();
         this.intersections = new ArrayList<>();
-        this.vehicles = new ArrayList<>();
         this.simulationTime = 0;
         this.isRunning = false; // Adicionado controle de estado
         this.trafficStrategy = new FixedCycle(); // Estratégia padrão
@@ -50,7 +144,16 @@ public class World {
      * @param road A estrada a ser adicionada.
      */
     public void addRoad(Road road) {
+        roadIndexById.put(road.getId(), roads.size());
         roads.add(road);
+        roadsById.put(road.getId(), road);
+        roadStreams.add(RandomStream.forStream(seed, road.getId(), antithetic));
+        arrivalStreams.add(RandomStream.forStream(seed, ARRIVAL_STREAMS + road.getId(), antithetic));
+        nextArrival = Arrays.copyOf(nextArrival, roads.size());
+        nextArrival[roads.size() - 1] = -1;
+        if (compactTraffic != null) {
+            compactTraffic.ensureRoads(roads.size());
+        }
     }
 
     /**
@@ -66,65 +169,498 @@ public class World {
      * @param vehicle O veículo a ser adicionado.
      */
     public void addVehicle(Vehicle vehicle) {
-        vehicles.add(vehicle);
+        vehicle.setSpawnTime(simulationTime); // Entra na rede neste tick
         vehicle.getCurrentRoad().addVehicle(vehicle);
-        nextVehicleId++; // Incrementa o ID para o próximo veículo
+        nextVehicleId += vehicleIdStep; // Incrementa o ID para o próximo veículo
+    }
+
+    /**
+     * Ativa o modo compacto: o estado dos veículos passa a viver na arena indicada
+     * (arrays primitivos ou memória fora do heap) em vez de objetos Vehicle.
+     * Neste modo getVehicles() devolve uma lista vazia; destina-se a execuções sem interface.
+     * @param arena A arena onde guardar os veículos.
+     * @throws IllegalStateException se já existirem veículos ou houver estradas mesoscópicas.
+     */
+    public void enableCompactMode(VehicleArena arena) {
+        if (getVehicleCount() > 0) {
+            throw new IllegalStateException("O modo compacto tem de ser ativado antes de existirem veículos");
+        }
+        for (Road road : roads) {
+            if (road instanceof MesoRoad) {
+                throw new IllegalStateException("O modo compacto só suporta estradas microscópicas");
+            }
+            if (road.getNextRoadId() != 0) {
+                throw new IllegalStateException("O modo compacto não suporta estradas ligadas entre si");
+            }
+        }
+        this.compactTraffic = new CompactTraffic(arena);
+        this.compactTraffic.ensureRoads(roads.size());
+    }
+
+    public boolean isCompactMode() {
+        return compactTraffic != null;
+    }
+
+    /**
+     * Obtém o número de bytes usados por veículo: exato no modo compacto,
+     * estimado no modo de objetos.
+     * @return Os bytes por veículo.
+     */
+    public int getBytesPerVehicle() {
+        return compactTraffic != null ? compactTraffic.getArena().getBytesPerVehicle() : OBJECT_BYTES_PER_VEHICLE;
     }
 
     /**
      * Executa um passo da simulação (um "tick").
      */
     public void tick() {
+        // Comandos pedidos por outras threads (executados mesmo com a simulação parada, ex.: "start")
+        if (!commands.isEmpty()) {
+            runCommands();
+        }
         if (!isRunning) {
             return; // Não executa se não estiver rodando
         }
+        trafficStrategy.beforeTick(this);
         simulationTime++;
+        long phaseStart = profiler.beginTick();
+        int servedBefore = metrics.getTotalVehiclesServed();
 
-        // 1. Geração de veículos
+        // 1. Entrada dos veículos transferidos no tick anterior, dos pedidos externos e geração de veículos
+        applyTransfers();
+        if (!incidentEvents.isEmpty() && incidentEvents.peek().tick() <= simulationTime) {
+            applyIncidentEvents();
+        }
+        if (demandSource != null) {
+            demandSource.generate(this, simulationTime);
+        }
+        if (vehicleInjector.hasWork()) {
+            vehicleInjector.drain(this, simulationTime);
+        }
         generateVehicles();
+        phaseStart = profiler.endPhase(TickProfiler.Phase.GENERATION, phaseStart);
 
         // 2. Atualiza semáforos usando a estratégia
         for (Intersection intersection : intersections) {
             trafficStrategy.applyStrategy(intersection);
         }
+        phaseStart = profiler.endPhase(TickProfiler.Phase.STRATEGY, phaseStart);
 
-        // 2. Atualiza veículos e trata a transição de estradas
-        List<Vehicle> vehiclesToRemove = new ArrayList<>();
-        List<Vehicle> vehiclesToMove = new ArrayList<>();
+        // 3. Atualiza veículos e trata a transição de estradas
+        // (com gravação ativa, cada estrada é copiada para o frame logo após ser atualizada, enquanto está em cache)
+        if (trajectoryRecorder != null) {
+            recordingFrame = trajectoryRecorder.acquireFrame();
+            recordingFrame.reset(simulationTime);
+        }
+        int moved = compactTraffic != null ? updateCompactRoads() : updateRoads();
+        phaseStart = profiler.endPhase(TickProfiler.Phase.ROAD_UPDATE, phaseStart);
 
+        // 4. Regista os veículos que chegaram ao final da estrada
+        // (no modo compacto já foram registados durante a atualização)
+        for (Vehicle vehicle : vehiclesToRemove) {
+            metrics.recordVehicleServed(vehicle.getWaitingTime());
+            if (tripLog != null) {
+                tripLog.record(vehicle.getId(), vehicle.getVehicleClass(), vehicle.getCurrentRoad().getId(),
+                        vehicle.getSpawnTime(), simulationTime, vehicle.getWaitingTime());
+            }
+        }
+        vehiclesToRemove.clear();
+        phaseStart = profiler.endPhase(TickProfiler.Phase.REMOVAL, phaseStart);
+
+        // 5. Registar comprimentos de fila
+        long transitions = 0;
         for (Road road : roads) {
+            metrics.recordQueueLength((int) road.getVehiclesInQueue());
+            if (road.getTrafficLight() != null) {
+                transitions += road.getTrafficLight().getTransitionCount();
+            }
+            // Capacidade de receber veículos no próximo tick, fixada no fim deste
+            if (road.receivesTransfers()) {
+                road.updateAcceptingTransfers();
+            }
+        }
+        // Spillback e gridlock (sem custo se não houver estradas ligadas)
+        if (gridlockMonitor.getWatchedRoadCount() > 0) {
+            gridlockMonitor.update(this, simulationTime);
+        }
+        // Fecha o tick dos detetores (custo proporcional ao número de detetores, não de veículos)
+        for (Detector detector : detectors) {
+            detector.endTick();
+        }
+        phaseStart = profiler.endPhase(TickProfiler.Phase.METRICS, phaseStart);
+
+        // 6. Entrega o frame do tick ao gravador de trajetórias (codificado e escrito noutra thread)
+        if (recordingFrame != null) {
+            trajectoryRecorder.record(recordingFrame);
+            recordingFrame = null;
+            profiler.endPhase(TickProfiler.Phase.RECORDING, phaseStart);
+        }
+        profiler.endTick(simulationTime, moved, metrics.getTotalVehiclesServed() - servedBefore, transitions);
+
+        // 7. Publica a telemetria, no máximo uma vez por período (o custo é uma leitura do relógio por tick)
+        if (telemetryPeriodNanos > 0 && System.nanoTime() - lastTelemetryNanos >= telemetryPeriodNanos) {
+            publishTelemetry();
+        }
+
+        // Trata a transição de estradas (lógica simplificada: remove do mundo)
+        // Em uma simulação real, a lógica de intersecção determinaria a próxima estrada.
+        // Por enquanto, os veículos que chegam ao fim já foram retirados das estradas acima.
+    }
+
+    private void runCommands() {
+        Consumer<World> command;
+        while ((command = commands.poll()) != null) {
+            try {
+                command.accept(this);
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao executar comando: " + e.getMessage());
+            }
+        }
+        if (telemetryPeriodNanos > 0) {
+            publishTelemetry(); // O efeito do comando fica visível mesmo com a simulação parada
+        }
+    }
+
+    /**
+     * Pede a execução de uma operação sobre o mundo pela thread da simulação, no início do
+     * próximo tick. Pode ser chamado de qualquer thread; é a única forma segura de alterar o
+     * World a partir de fora da thread que chama tick().
+     * @param command A operação a executar.
+     */
+    public void submitCommand(Consumer<World> command) {
+        commands.add(command);
+    }
+
+    /**
+     * Ativa a publicação periódica de snapshots de telemetria (ver getTelemetrySnapshot()).
+     * @param periodMillis O intervalo mínimo entre snapshots, ou 0 para desativar.
+     */
+    public void setTelemetryPeriod(long periodMillis) {
+        this.telemetryPeriodNanos = periodMillis * 1_000_000L;
+        if (periodMillis > 0) {
+            lastTelemetryNanos = System.nanoTime();
+            lastTelemetryTime = simulationTime;
+            publishTelemetry();
+        }
+    }
+
+    /**
+     * Obtém o último snapshot publicado. Pode ser chamado de qualquer thread e nunca bloqueia.
+     * @return O snapshot, ou null se a telemetria nunca foi ativada.
+     */
+    public TelemetrySnapshot getTelemetrySnapshot() {
+        return telemetrySnapshot;
+    }
+
+    private void publishTelemetry() {
+        long now = System.nanoTime();
+        double ticksPerSecond = now > lastTelemetryNanos
+                ? (simulationTime - lastTelemetryTime) * 1e9 / (now - lastTelemetryNanos) : 0.0;
+        int[] roadIds = new int[roads.size()];
+        int[] roadVehicles = new int[roads.size()];
+        int[] roadQueues = new int[roads.size()];
+        for (int i = 0; i < roads.size(); i++) {
+            Road road = roads.get(i);
+            roadIds[i] = road.getId();
+            roadVehicles[i] = compactTraffic != null ? compactTraffic.getVehicleCount(i) : road.getVehicleCount();
+            roadQueues[i] = (int) road.getVehiclesInQueue();
+        }
+        telemetrySnapshot = new TelemetrySnapshot(simulationTime, ticksPerSecond, isRunning,
+                trafficStrategy != null ? trafficStrategy.getName() : "", vehicleGenerationInterval,
+                getVehicleCount(), metrics.getTotalVehiclesServed(), metrics.getAverageWaitingTime(),
+                metrics.getAverageQueueLength(), roadIds, roadVehicles, roadQueues);
+        lastTelemetryNanos = now;
+        lastTelemetryTime = simulationTime;
+    }
+
+    private int updateRoads() {
+        int moved = 0;
+        for (int i = 0; i < roads.size(); i++) {
+            Road road = roads.get(i);
             // Obtém o semáforo no final da estrada, se houver
-            TrafficLight light = (road.getEndIntersection() != null)
-                    ? road.getEndIntersection().getTrafficLight(road)
-                    : null;
+            TrafficLight light = road.getTrafficLight();
 
-            // Atualiza a posição dos veículos na estrada
-            road.updateVehicles(light);
+            // Uma estrada ligada a outra só pode largar o veículo da frente se a seguinte o puder receber
+            boolean connected = road.getNextRoadId() != 0;
+            boolean exitOpen = !connected || isExitOpen(road);
 
-            // Verifica veículos que chegaram ao final da estrada
-            for (Vehicle vehicle : road.getVehicles()) {
-                if (vehicle.getPosition() >= road.getLength()) {
-                    vehiclesToRemove.add(vehicle);
-                    vehiclesToMove.add(vehicle);
+            // Estradas vazias ou adormecidas (fila parada no vermelho ou à espera da estrada seguinte)
+            // são saltadas, exceto se o veículo da frente puder agora passar para a estrada seguinte
+            if (road.canSkipTick(light) && !(connected && exitOpen && road.hasVehicleAtEnd())) {
+                road.skipTick();
+            } else {
+                // Atualiza a posição dos veículos na estrada
+                profiler.beginRoad();
+                moved += connected ? road.updateVehicles(light, !exitOpen) : road.updateVehicles(light);
+                profiler.endRoad(road.getId(), road.getVehicleCount());
+
+                // Retira os veículos que chegaram ao final da estrada (saem da rede ou passam à seguinte)
+                if (!connected) {
+                    road.collectExitingVehicles(vehiclesToRemove);
+                } else if (exitOpen) {
+                    transferExitingVehicles(road);
                 }
             }
+            if (recordingFrame != null) {
+                captureRoad(i, road, recordingFrame);
+            }
         }
+        return moved;
+    }
 
-        // Remove veículos que chegaram ao final da estrada
-        for (Vehicle vehicle : vehiclesToRemove) {
-            metrics.recordVehicleServed(vehicle.getWaitingTime());
-            vehicle.getCurrentRoad().removeVehicle(vehicle);
+    /**
+     * Programa um incidente. Os incidentes em estradas que não pertencem a este World são ignorados,
+     * pelo que todas as partições de uma rede podem receber a mesma lista. Os incidentes mantêm-se
+     * programados depois de reset().
+     * @param incident O incidente.
+     * @throws IllegalArgumentException se for um bloqueio numa estrada mesoscópica (sem posições).
+     */
+    public void scheduleIncident(Incident incident) {
+        if (incident.getType() == Incident.Type.BLOCKAGE && roadsById.get(incident.getRoadId()) instanceof MesoRoad) {
+            throw new IllegalArgumentException("Bloqueios só são suportados em estradas microscópicas");
+        }
+        incidents.add(incident);
+        queueIncident(incident);
+    }
+
+    private void queueIncident(Incident incident) {
+        incidentEvents.add(new IncidentEvent(incident.getStartTick(), incidentSequence++, incident, true));
+        if (incident.getEndTick() != Integer.MAX_VALUE) {
+            incidentEvents.add(new IncidentEvent(incident.getEndTick(), incidentSequence++, incident, false));
         }
-        
-        // Registar comprimentos de fila
+    }
+
+    /**
+     * Aplica os eventos de incidentes que chegaram ao tick atual. Cada evento altera apenas a sua
+     * estrada (que é acordada); as estradas que desaguam numa estrada fechada veem-na cheia a partir
+     * do fim deste tick, pela mesma regra das transferências (os veículos já transferidos ainda entram).
+     */
+    private void applyIncidentEvents() {
+        while (!incidentEvents.isEmpty() && incidentEvents.peek().tick() <= simulationTime) {
+            IncidentEvent event = incidentEvents.poll();
+            Road road = roadsById.get(event.incident().getRoadId());
+            if (road == null) {
+                continue; // Estrada de outra partição
+            }
+            if (event.start()) {
+                road.startIncident(event.incident());
+            } else {
+                road.endIncident(event.incident());
+            }
+        }
+    }
+
+    /**
+     * Obtém os incidentes programados (ativos, futuros e terminados).
+     */
+    public List<Incident> getIncidents() {
+        return incidents;
+    }
+
+    private boolean isExitOpen(Road road) {
+        Road next = road.getNextRoad();
+        return next != null ? next.isAcceptingTransfers() : !blockedRemoteRoads.contains(road.getNextRoadId());
+    }
+
+    private void transferExitingVehicles(Road road) {
+        road.collectExitingVehicles(exitingVehicles);
+        for (Vehicle vehicle : exitingVehicles) {
+            VehicleTransfer transfer = new VehicleTransfer(road.getNextRoadId(), vehicle.getId(),
+                    vehicle.getWaitingTime(), vehicle.getSpawnTime(), vehicle.getVehicleClass(), vehicle.getCurrentSpeed());
+            if (road.getNextRoad() != null) {
+                pendingTransfers.add(transfer);
+            } else {
+                outgoingTransfers.add(transfer);
+            }
+        }
+        exitingVehicles.clear();
+    }
+
+    /**
+     * Coloca no início das estradas de destino os veículos transferidos no tick anterior.
+     * A estrada de destino tinha espaço no fim desse tick e recebe no máximo um veículo por tick,
+     * pelo que a entrada é sempre possível.
+     */
+    private void applyTransfers() {
+        for (VehicleTransfer transfer : pendingTransfers) {
+            Road road = roadsById.get(transfer.roadId());
+            Vehicle vehicle = new Vehicle(transfer.vehicleId(), road, 0.0, transfer.vehicleClass());
+            vehicle.setCurrentSpeed(transfer.speed());
+            vehicle.addWaitingTime(transfer.waitingTime());
+            vehicle.setSpawnTime(transfer.spawnTime());
+            road.addVehicle(vehicle);
+        }
+        pendingTransfers.clear();
+    }
+
+    /**
+     * Recebe um veículo vindo de uma estrada de outra partição; entra no próximo tick.
+     * @param transfer A transferência recebida.
+     * @throws IllegalArgumentException se a estrada de destino não pertencer a este World.
+     */
+    public void receiveTransfer(VehicleTransfer transfer) {
+        if (!roadsById.containsKey(transfer.roadId())) {
+            throw new IllegalArgumentException("Estrada de destino desconhecida: " + transfer.roadId());
+        }
+        pendingTransfers.add(transfer);
+    }
+
+    /**
+     * Retira as transferências produzidas no último tick para estradas de outras partições.
+     * @param into A lista onde as acrescentar.
+     */
+    public void drainOutgoingTransfers(List<VehicleTransfer> into) {
+        into.addAll(outgoingTransfers);
+        outgoingTransfers.clear();
+    }
+
+    /**
+     * Define se uma estrada de outra partição podia receber veículos no fim do último tick.
+     * @param roadId O id da estrada remota.
+     * @param accepting O valor de isAcceptingTransfers() dessa estrada.
+     */
+    public void setRemoteAcceptance(int roadId, boolean accepting) {
+        if (accepting) {
+            blockedRemoteRoads.remove(roadId);
+        } else {
+            blockedRemoteRoads.add(roadId);
+        }
+    }
+
+    /**
+     * Obtém as estradas deste World alimentadas por estradas de outra partição,
+     * cujo isAcceptingTransfers() tem de ser enviado às partições vizinhas em cada tick.
+     */
+    public List<Road> getBoundaryEntryRoads() {
+        return boundaryEntryRoads;
+    }
+
+    /**
+     * Obtém as estradas deste World cujos veículos seguem para estradas de outra partição.
+     */
+    public List<Road> getBoundaryExitRoads() {
+        List<Road> exits = new ArrayList<>();
         for (Road road : roads) {
-            metrics.recordQueueLength((int) road.getVehiclesInQueue());
+            if (road.getNextRoadId() != 0 && road.getNextRoad() == null) {
+                exits.add(road);
+            }
         }
+        return exits;
+    }
 
-        // Trata a transição de estradas (lógica simplificada: remove do mundo)
-        // Em uma simulação real, a lógica de intersecção determinaria a próxima estrada.
-        // Por enquanto, apenas removemos os veículos que chegam ao fim.
-        vehicles.removeAll(vehiclesToMove);
+    private int updateCompactRoads() {
+        int moved = 0;
+        for (int i = 0; i < roads.size(); i++) {
+            Road road = roads.get(i);
+            // As saídas são registadas nas métricas diretamente a partir da arena
+            profiler.beginRoad();
+            moved += compactTraffic.update(i, road, road.getTrafficLight(), metrics, tripLog, simulationTime);
+            profiler.endRoad(road.getId(), compactTraffic.getVehicleCount(i));
+            if (recordingFrame != null) {
+                captureRoad(i, road, recordingFrame);
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Preenche um frame com o estado visível atual: veículos de todas as estradas
+     * e o semáforo de cada estrada (ou NO_LIGHT).
+     * @param frame O frame a preencher (é limpo primeiro).
+     */
+    public void captureFrame(TrajectoryFrame frame) {
+        frame.reset(simulationTime);
+        for (int i = 0; i < roads.size(); i++) {
+            captureRoad(i, roads.get(i), frame);
+        }
+    }
+
+    private void captureRoad(int index, Road road, TrajectoryFrame frame) {
+        TrafficLight light = road.getTrafficLight();
+        if (light == null) {
+            frame.addLight(road.getId(), TrajectoryFrame.NO_LIGHT, 0);
+        } else {
+            int remaining = light.getCurrentState().getDuration() - light.getTimeInState();
+            frame.addLight(road.getId(), (byte) light.getState().ordinal(), Math.max(0, remaining));
+        }
+        if (compactTraffic != null) {
+            compactTraffic.capture(index, road.getId(), frame);
+        } else if (road.getVehicleCount() > 0) {
+            for (Vehicle vehicle : road.getVehicles()) {
+                frame.addVehicle(vehicle.getId(), road.getId(), vehicle.getPosition(), vehicle.getVehicleClass());
+            }
+        }
+    }
+
+    /**
+     * Define o gravador de trajetórias: no fim de cada tick o estado é acrescentado à gravação.
+     * @param recorder O gravador, ou null para parar de gravar (fechar o gravador é da responsabilidade de quem o criou).
+     */
+    public void setTrajectoryRecorder(TrajectoryRecorder recorder) {
+        this.trajectoryRecorder = recorder;
+    }
+
+    public TrajectoryRecorder getTrajectoryRecorder() {
+        return trajectoryRecorder;
+    }
+
+    /**
+     * Ativa o registo de viagens: cada veículo que sai da rede é entregue ao TripLog.
+     * @param tripLog O registo, ou null para desativar. Fechá-lo é responsabilidade de quem o criou.
+     */
+    public void setTripLog(TripLog tripLog) {
+        this.tripLog = tripLog;
+    }
+
+    public TripLog getTripLog() {
+        return tripLog;
+    }
+
+    /**
+     * Instala um detetor na estrada com o id getRoadId(). O detetor passa a ser atualizado em cada
+     * tick e mantém-se instalado depois de reset().
+     * @param detector O detetor.
+     * @throws IllegalArgumentException se a estrada não existir ou for mesoscópica.
+     */
+    public void addDetector(Detector detector) {
+        attachDetector(detector);
+        detectors.add(detector);
+    }
+
+    private void attachDetector(Detector detector) {
+        Road road = roadsById.get(detector.getRoadId());
+        if (road == null) {
+            throw new IllegalArgumentException("Estrada desconhecida: " + detector.getRoadId());
+        }
+        if (road instanceof MesoRoad) {
+            throw new IllegalArgumentException("Os detetores só suportam estradas microscópicas");
+        }
+        if (compactTraffic != null ? compactTraffic.getVehicleCount(roads.indexOf(road)) > 0 : road.getVehicleCount() > 0) {
+            throw new IllegalStateException("Os detetores têm de ser instalados com a estrada vazia");
+        }
+        road.addDetector(detector);
+    }
+
+    /**
+     * Instala em cada estrada com semáforo os detetores usados pelos controladores: uma zona "fila"
+     * na primeira metade da estrada (a mesma zona de Road.getVehiclesInQueue()) e uma espira
+     * "linha de paragem" no fim da estrada, que conta os veículos que passam o semáforo.
+     * @param intervalTicks Os ticks de cada intervalo de agregação.
+     */
+    public void installControllerDetectors(int intervalTicks) {
+        for (Road road : roads) {
+            if (road.getTrafficLight() != null) {
+                addDetector(new AreaDetector(Detector.QUEUE, road.getId(), 0.0, road.getLength() / 2, intervalTicks));
+                addDetector(new PointDetector(Detector.STOP_LINE, road.getId(), road.getLength(), intervalTicks));
+            }
+        }
+    }
+
+    /**
+     * Obtém todos os detetores instalados, pela ordem de instalação.
+     */
+    public List<Detector> getDetectors() {
+        return detectors;
     }
 
     // Getters
@@ -136,18 +672,137 @@ public class World {
         return intersections;
     }
 
+    /**
+     * Obtém todos os veículos do mundo, recolhidos das estradas.
+     * As estradas são a única fonte de verdade, pelo que a lista devolvida é uma cópia.
+     * @return A lista de veículos.
+     */
     public List<Vehicle> getVehicles() {
-        return vehicles;
+        List<Vehicle> all = new ArrayList<>(getVehicleCount());
+        for (Road road : roads) {
+            all.addAll(road.getVehicles());
+        }
+        return all;
+    }
+
+    /**
+     * Obtém o número de veículos no mundo sem criar a lista completa.
+     * @return O número de veículos.
+     */
+    public int getVehicleCount() {
+        if (compactTraffic != null) {
+            return compactTraffic.getArena().getLiveCount();
+        }
+        int count = 0;
+        for (Road road : roads) {
+            count += road.getVehicleCount();
+        }
+        return count;
+    }
+
+    /**
+     * Obtém uma estrada pelo seu id.
+     * @return A estrada, ou null se não pertencer a este World.
+     */
+    public Road getRoad(int id) {
+        return roadsById.get(id);
     }
 
     public int getSimulationTime() {
         return simulationTime;
     }
 
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Indica se os geradores deste mundo são antitéticos (ver World(long, boolean)).
+     */
+    public boolean isAntithetic() {
+        return antithetic;
+    }
+
     public Metrics getMetrics() {
         return metrics;
     }
 
+    /**
+     * Define uma fonte externa de procura (ex.: contagens de detetores), que substitui a geração
+     * automática por intervalo.
+     * @param demandSource A fonte, ou null para voltar à geração automática.
+     */
+    public void setDemandSource(DemandSource demandSource) {
+        this.demandSource = demandSource;
+    }
+
+    public DemandSource getDemandSource() {
+        return demandSource;
+    }
+
+    /**
+     * Obtém a entrada de veículos pedidos por outras threads (ver VehicleInjector).
+     */
+    public VehicleInjector getVehicleInjector() {
+        return vehicleInjector;
+    }
+
+    /**
+     * Faz entrar um veículo no início de uma estrada, se ela estiver aberta e tiver espaço
+     * (usado pelo VehicleInjector, na thread da simulação).
+     * @return false se a estrada não puder receber o veículo neste tick.
+     */
+    boolean spawnAtEntry(int roadId, VehicleClass vehicleClass) {
+        Road road = roadsById.get(roadId);
+        if (road.isClosed()) {
+            return false;
+        }
+        if (compactTraffic != null) {
+            int i = roadIndexById.get(roadId);
+            if (!compactTraffic.canAddVehicle(i)) {
+                return false;
+            }
+            compactTraffic.addVehicle(i, road, nextVehicleId, 0.0, vehicleClass, simulationTime);
+            nextVehicleId += vehicleIdStep;
+            return true;
+        }
+        if (!road.canAddVehicle()) {
+            return false;
+        }
+        addVehicle(new Vehicle(nextVehicleId, road, 0.0, vehicleClass));
+        return true;
+    }
+
+    /**
+     * Obtém o monitor de spillback e gridlock (política, eventos e métricas das estradas ligadas).
+     */
+    public GridlockMonitor getGridlockMonitor() {
+        return gridlockMonitor;
+    }
+
+    /**
+     * Obtém a instrumentação do tick (contadores sempre ativos e tempos por fase opcionais).
+     * @return O profiler deste mundo.
+     */
+    public TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Define a sequência de ids dos veículos gerados: first, first + step, first + 2 * step, ...
+     * Partições da mesma rede usam o mesmo step e first diferentes, para que os ids sejam únicos.
+     * @param first O primeiro id.
+     * @param step O incremento entre ids.
+     */
+    public void setVehicleIdSequence(int first, int step) {
+        if (first < 1 || step < 1) {
+            throw new IllegalArgumentException("Sequência de ids inválida: " + first + ", " + step);
+        }
+        this.firstVehicleId = first;
+        this.vehicleIdStep = step;
+        this.nextVehicleId = first;
+    }
+
     public int getVehicleGenerationInterval() {
         return vehicleGenerationInterval;
     }
@@ -156,6 +811,47 @@ public class World {
         this.vehicleGenerationInterval = interval;
     }
 
+    /**
+     * Define o processo de chegada da geração automática (por omissão FIXED).
+     * @param arrivalProcess O processo de chegada.
+     */
+    public void setArrivalProcess(ArrivalProcess arrivalProcess) {
+        this.arrivalProcess = arrivalProcess;
+    }
+
+    public ArrivalProcess getArrivalProcess() {
+        return arrivalProcess;
+    }
+
+    /**
+     * Define a composição da frota gerada em todas as estradas de entrada sem composição própria.
+     * @param fleetMix A composição.
+     */
+    public void setFleetMix(FleetMix fleetMix) {
+        this.fleetMix = fleetMix;
+    }
+
+    /**
+     * Define a composição da frota gerada numa estrada de entrada (o seu fluxo de procura).
+     * @param roadId A estrada.
+     * @param fleetMix A composição, ou null para voltar à composição geral.
+     */
+    public void setFleetMix(int roadId, FleetMix fleetMix) {
+        if (fleetMix == null) {
+            roadFleetMixes.remove(roadId);
+        } else {
+            roadFleetMixes.put(roadId, fleetMix);
+        }
+    }
+
+    /**
+     * Obtém a composição da frota gerada numa estrada.
+     * @param roadId A estrada.
+     */
+    public FleetMix getFleetMix(int roadId) {
+        return roadFleetMixes.getOrDefault(roadId, fleetMix);
+    }
+
     public boolean isRunning() {
         return isRunning;
     }
@@ -180,33 +876,364 @@ public class World {
     public void reset() {
         // Lógica de reset: recria o mundo
         this.roads.clear();
+        this.roadsById.clear();
+        this.roadIndexById.clear();
+        this.roadStreams.clear();
+        this.arrivalStreams.clear();
+        this.nextArrival = new int[0];
         this.intersections.clear();
-        this.vehicles.clear();
+        this.pendingTransfers.clear();
+        this.outgoingTransfers.clear();
+        this.blockedRemoteRoads.clear();
+        this.boundaryEntryRoads.clear();
+        this.gridlockMonitor.clear();
+        this.vehicleInjector.clear();
         this.simulationTime = 0;
+        this.lastTelemetryTime = 0;
         this.isRunning = false;
-        this.nextVehicleId = 1; // Reseta o contador de IDs
+        this.nextVehicleId = firstVehicleId; // Reseta o contador de IDs
         this.lastGenerationTime = 0; // Reseta o tempo de geração
-        setupSimpleScenario(); // Recarrega o cenário inicial
+        this.profiler.reset();
+        if (compactTraffic != null) {
+            compactTraffic.clear();
+        }
+        // Recarrega o cenário inicial (os geradores das estradas são recriados com a mesma semente)
+        if (scenarioRing) {
+            setupRingScenario(scenarioCrossings);
+        } else if (scenarioCorridor) {
+            setupCorridorScenario(scenarioCrossings, scenarioFirstCrossing, scenarioEndCrossing);
+        } else {
+            setupGridScenario(scenarioCrossings, scenarioFirstCrossing, scenarioEndCrossing, scenarioRoadModel);
+        }
+        for (Detector detector : detectors) {
+            detector.reset();
+            attachDetector(detector);
+        }
+        incidentEvents.clear();
+        for (Incident incident : incidents) {
+            queueIncident(incident);
+        }
+    }
+
+    /**
+     * Cria um mundo com o mesmo cenário (estradas, ligações, incidentes programados, composição da
+     * frota, sequência de ids e uma cópia da fonte de procura), sem veículos, detetores nem gravação,
+     * pronto a receber snapshots deste com restore() (ex.: simulações de previsão). Só os cenários
+     * criados pelos métodos setup*Scenario são reproduzidos.
+     * @return A réplica.
+     * @throws IllegalStateException se a fonte de procura não puder ser copiada (DemandSource.copy()).
+     */
+    public World createReplica() {
+        World replica = new World(seed, antithetic);
+        replica.firstVehicleId = firstVehicleId;
+        replica.vehicleIdStep = vehicleIdStep;
+        if (scenarioRing) {
+            replica.setupRingScenario(scenarioCrossings);
+        } else if (scenarioCorridor) {
+            replica.setupCorridorScenario(scenarioCrossings, scenarioFirstCrossing, scenarioEndCrossing);
+        } else {
+            replica.setupGridScenario(scenarioCrossings, scenarioFirstCrossing, scenarioEndCrossing, scenarioRoadModel);
+        }
+        for (Incident incident : incidents) {
+            replica.scheduleIncident(incident);
+        }
+        replica.fleetMix = fleetMix;
+        replica.roadFleetMixes.putAll(roadFleetMixes);
+        replica.arrivalProcess = arrivalProcess;
+        if (demandSource != null) {
+            replica.demandSource = demandSource.copy();
+            if (replica.demandSource == null) {
+                throw new IllegalStateException("A fonte de procura não pode ser copiada para uma réplica");
+            }
+        }
+        return replica;
+    }
+
+    /**
+     * Guarda o estado completo do mundo no fim do tick atual (ver WorldSnapshot).
+     * @return O snapshot.
+     * @throws IllegalStateException no modo compacto ou com estradas mesoscópicas (não suportados).
+     */
+    public WorldSnapshot snapshot() {
+        if (compactTraffic != null) {
+            throw new IllegalStateException("Os snapshots não suportam o modo compacto");
+        }
+        Detector[] detectorCopies = new Detector[detectors.size()];
+        for (int i = 0; i < detectorCopies.length; i++) {
+            detectorCopies[i] = detectors.get(i).copyState();
+        }
+        WorldSnapshot s = new WorldSnapshot(simulationTime, nextVehicleId, lastGenerationTime,
+                vehicleGenerationInterval, trafficStrategy, metrics.getTotalVehiclesServed(),
+                metrics.getTotalWaitingTime(), metrics.getTotalQueueLength(), metrics.getQueueSamples(),
+                roads.size(), getVehicleCount(), pendingTransfers.toArray(new VehicleTransfer[0]),
+                outgoingTransfers.toArray(new VehicleTransfer[0]), Set.copyOf(blockedRemoteRoads), detectorCopies,
+                vehicleInjector.copyBacklog());
+        int v = 0;
+        for (int r = 0; r < roads.size(); r++) {
+            Road road = roads.get(r);
+            if (road instanceof MesoRoad) {
+                throw new IllegalStateException("Os snapshots só suportam estradas microscópicas");
+            }
+            s.roadIds[r] = road.getId();
+            s.randomStates[r] = roadStreams.get(r).getState();
+            s.arrivalStates[r] = arrivalStreams.get(r).getState();
+            s.nextArrivals[r] = nextArrival[r];
+            s.firstVehicle[r] = v;
+            s.vehiclesInQueue[r] = (int) road.getVehiclesInQueue();
+            s.asleep[r] = road.isAsleep();
+            s.sleepingOn[r] = road.getSleepingOn();
+            s.skippedTicks[r] = road.getSkippedTicks();
+            s.acceptingTransfers[r] = road.isAcceptingTransfers();
+            TrafficLight light = road.getTrafficLight();
+            if (light != null) {
+                s.lightStates[r] = light.getCurrentState();
+                s.lightTimeInState[r] = light.getTimeInState();
+                s.lightTransitions[r] = light.getTransitionCount();
+            }
+            for (Vehicle vehicle : road.getVehicles()) {
+                s.vehicleIds[v] = vehicle.getId();
+                s.positions[v] = vehicle.getPosition();
+                s.speeds[v] = vehicle.getSpeed();
+                s.currentSpeeds[v] = vehicle.getCurrentSpeed();
+                s.vehicleClasses[v] = vehicle.getVehicleClass().getTag();
+                s.waitingTimes[v] = vehicle.getWaitingTime();
+                s.spawnTimes[v] = vehicle.getSpawnTime();
+                s.stoppedByLight[v] = vehicle.isStoppedByTrafficLight();
+                v++;
+            }
+        }
+        s.firstVehicle[roads.size()] = v;
+        return s;
+    }
+
+    /**
+     * Repõe um snapshot tirado deste mundo (ou de outro com o mesmo cenário). O estado de execução
+     * (isRunning), a gravação, o registo de viagens e a telemetria não são alterados.
+     * @param s O snapshot.
+     * @throws IllegalArgumentException se as estradas do snapshot não forem as deste mundo.
+     */
+    public void restore(WorldSnapshot s) {
+        if (s.roadIds.length != roads.size()) {
+            throw new IllegalArgumentException("O snapshot pertence a outro cenário");
+        }
+        for (int r = 0; r < roads.size(); r++) {
+            if (roads.get(r).getId() != s.roadIds[r]) {
+                throw new IllegalArgumentException("O snapshot pertence a outro cenário");
+            }
+        }
+        simulationTime = s.simulationTime;
+        nextVehicleId = s.nextVehicleId;
+        lastGenerationTime = s.lastGenerationTime;
+        vehicleGenerationInterval = s.vehicleGenerationInterval;
+        trafficStrategy = s.strategy;
+        metrics.reset();
+        metrics.addTotals(s.vehiclesServed, s.waitingTime, s.queueLength, s.queueSamples);
+
+        // Incidentes ativos e eventos futuros, a partir do cronograma
+        incidentEvents.clear();
+        List<List<Incident>> active = new ArrayList<>(roads.size());
+        Map<Integer, Integer> roadIndex = new HashMap<>();
+        for (int r = 0; r < roads.size(); r++) {
+            active.add(new ArrayList<>());
+            roadIndex.put(roads.get(r).getId(), r);
+        }
+        for (Incident incident : incidents) {
+            if (incident.getStartTick() > simulationTime) {
+                queueIncident(incident);
+                continue;
+            }
+            if (incident.getEndTick() > simulationTime) {
+                incidentEvents.add(new IncidentEvent(incident.getEndTick(), incidentSequence++, incident, false));
+                Integer r = roadIndex.get(incident.getRoadId());
+                if (r != null) {
+                    active.get(r).add(incident);
+                }
+            }
+        }
+
+        for (int r = 0; r < roads.size(); r++) {
+            Road road = roads.get(r);
+            roadStreams.get(r).setState(s.randomStates[r]);
+            arrivalStreams.get(r).setState(s.arrivalStates[r]);
+            nextArrival[r] = s.nextArrivals[r];
+            List<Vehicle> restored = new ArrayList<>(s.firstVehicle[r + 1] - s.firstVehicle[r]);
+            for (int v = s.firstVehicle[r]; v < s.firstVehicle[r + 1]; v++) {
+                Vehicle vehicle = new Vehicle(s.vehicleIds[v], road, s.positions[v], VehicleClass.fromTag(s.vehicleClasses[v]));
+                vehicle.setSpeed(s.speeds[v]);
+                vehicle.setCurrentSpeed(s.currentSpeeds[v]);
+                vehicle.addWaitingTime(s.waitingTimes[v]);
+                vehicle.setSpawnTime(s.spawnTimes[v]);
+                vehicle.setStoppedByTrafficLight(s.stoppedByLight[v]);
+                restored.add(vehicle);
+            }
+            road.restore(restored, active.get(r), s.vehiclesInQueue[r], s.asleep[r], s.sleepingOn[r],
+                    s.skippedTicks[r], s.acceptingTransfers[r]);
+            TrafficLight light = road.getTrafficLight();
+            if (light != null && s.lightStates[r] != null) {
+                light.restore(s.lightStates[r], s.lightTimeInState[r], s.lightTransitions[r]);
+            }
+        }
+
+        pendingTransfers.clear();
+        pendingTransfers.addAll(List.of(s.pendingTransfers));
+        outgoingTransfers.clear();
+        outgoingTransfers.addAll(List.of(s.outgoingTransfers));
+        blockedRemoteRoads.clear();
+        blockedRemoteRoads.addAll(s.blockedRemoteRoads);
+        vehicleInjector.restoreBacklog(s.injectorBacklog);
+        vehiclesToRemove.clear();
+        exitingVehicles.clear();
+        for (int i = 0; i < detectors.size() && i < s.detectors.length; i++) {
+            detectors.get(i).restoreState(s.detectors[i]);
+        }
+        gridlockMonitor.resync();
+        lastTelemetryTime = simulationTime;
     }
 
     /**
      * Método de inicialização para criar um cenário de teste simples.
      */
     public void setupSimpleScenario() {
-        // Cria 4 estradas para a intersecção em cruz (todas com 100 unidades de comprimento)
-        
-        // Remove a criação inicial de veículos para que a geração automática funcione
-        // (As estradas serão criadas, mas os veículos serão gerados pelo tick)
-        
+        setupGridScenario(1, RoadModel.MICROSCOPIC);
+    }
+
+    /**
+     * Cria um cenário com vários cruzamentos independentes, cada um com 4 estradas e 4 semáforos.
+     * @param crossings O número de cruzamentos.
+     * @param roadModel O modelo de estrada a usar (microscópico ou mesoscópico).
+     */
+    public void setupGridScenario(int crossings, RoadModel roadModel) {
+        setupGridScenario(crossings, 0, crossings, roadModel);
+    }
+
+    /**
+     * Configura apenas a parte [firstCrossing, endCrossing) de uma grelha de cruzamentos independentes
+     * (ver setupGridScenario(int, RoadModel)), para simular a grelha repartida por vários mundos.
+     * Os ids das estradas e os geradores aleatórios são os mesmos que na grelha inteira: com a mesma
+     * semente, a união das partes evolui como a grelha inteira.
+     * @param crossings O número de cruzamentos da grelha inteira.
+     * @param firstCrossing O primeiro cruzamento deste World.
+     * @param endCrossing O cruzamento seguinte ao último deste World.
+     * @param roadModel O modelo de estrada a usar (microscópico ou mesoscópico).
+     */
+    public void setupGridScenario(int crossings, int firstCrossing, int endCrossing, RoadModel roadModel) {
+        if (firstCrossing < 0 || endCrossing > crossings || firstCrossing >= endCrossing) {
+            throw new IllegalArgumentException("Cruzamentos inválidos: [" + firstCrossing + ", " + endCrossing + ")");
+        }
+        this.scenarioCrossings = crossings;
+        this.scenarioRoadModel = roadModel;
+        this.scenarioCorridor = false;
+        this.scenarioRing = false;
+        this.scenarioFirstCrossing = firstCrossing;
+        this.scenarioEndCrossing = endCrossing;
+
+        for (int c = firstCrossing; c < endCrossing; c++) {
+            addCrossing(c, roadModel);
+        }
+
+        // Os veículos não são criados aqui: são gerados automaticamente pelo tick
+    }
+
+    /**
+     * Configura um corredor de cruzamentos ligados: os veículos da estrada R1 (Oeste -> Leste) de um
+     * cruzamento seguem para a R1 do cruzamento seguinte, e os da R2 (Leste -> Oeste) para a R2 do
+     * anterior. As estradas verticais (R3 e R4) e as extremidades do corredor saem da rede.
+     * @param crossings O número de cruzamentos do corredor.
+     */
+    public void setupCorridorScenario(int crossings) {
+        setupCorridorScenario(crossings, 0, crossings);
+    }
+
+    /**
+     * Configura apenas a parte [firstCrossing, endCrossing) de um corredor de cruzamentos (ver
+     * setupCorridorScenario(int)), para simular a rede partida por vários processos. As estradas
+     * que seguem para cruzamentos fora da parte ficam ligadas a estradas remotas: os veículos que
+     * lhes chegam saem por drainOutgoingTransfers e os que vêm de fora entram por receiveTransfer.
+     * Os ids das estradas e os geradores aleatórios são os mesmos que no corredor inteiro.
+     * @param crossings O número de cruzamentos do corredor inteiro.
+     * @param firstCrossing O primeiro cruzamento deste World.
+     * @param endCrossing O cruzamento seguinte ao último deste World.
+     */
+    public void setupCorridorScenario(int crossings, int firstCrossing, int endCrossing) {
+        if (firstCrossing < 0 || endCrossing > crossings || firstCrossing >= endCrossing) {
+            throw new IllegalArgumentException("Cruzamentos inválidos: [" + firstCrossing + ", " + endCrossing + ")");
+        }
+        if (compactTraffic != null) {
+            throw new IllegalStateException("O modo compacto não suporta estradas ligadas entre si");
+        }
+        this.scenarioCrossings = crossings;
+        this.scenarioRoadModel = RoadModel.MICROSCOPIC;
+        this.scenarioCorridor = true;
+        this.scenarioRing = false;
+        this.scenarioFirstCrossing = firstCrossing;
+        this.scenarioEndCrossing = endCrossing;
+
+        for (int c = firstCrossing; c < endCrossing; c++) {
+            addCrossing(c, RoadModel.MICROSCOPIC);
+        }
+        for (int c = firstCrossing; c < endCrossing; c++) {
+            int firstRoadId = 4 * c + 1;
+            if (c + 1 < crossings) {
+                connect(roadsById.get(firstRoadId), firstRoadId + 4); // R1 -> R1 do cruzamento seguinte
+            }
+            if (c > 0) {
+                connect(roadsById.get(firstRoadId + 1), firstRoadId - 3); // R2 -> R2 do cruzamento anterior
+            }
+        }
+        // Estradas alimentadas por estradas de outra partição
+        if (firstCrossing > 0) {
+            markBoundaryEntry(roadsById.get(4 * firstCrossing + 1));
+        }
+        if (endCrossing < crossings) {
+            markBoundaryEntry(roadsById.get(4 * (endCrossing - 1) + 2));
+        }
+    }
+
+    /**
+     * Configura um corredor de cruzamentos fechado em anel: como em setupCorridorScenario(int), mas a
+     * R1 do último cruzamento segue para a R1 do primeiro. Os veículos entram no anel pela R1 do
+     * primeiro cruzamento e nunca saem, pelo que o anel acaba por encher e ficar em gridlock
+     * (cenário de teste do GridlockMonitor e das suas políticas).
+     * @param crossings O número de cruzamentos do anel.
+     */
+    public void setupRingScenario(int crossings) {
+        setupCorridorScenario(crossings, 0, crossings);
+        this.scenarioRing = true;
+        connect(roadsById.get(4 * (crossings - 1) + 1), 1); // R1 do último -> R1 do primeiro
+        roadsById.get(1).setOnRamp(true);
+    }
+
+    private void connect(Road road, int nextRoadId) {
+        Road next = roadsById.get(nextRoadId); // null se a estrada seguinte for remota
+        road.setNextRoad(nextRoadId, next);
+        gridlockMonitor.watch(road);
+        if (next != null) {
+            next.setReceivesTransfers(true);
+            gridlockMonitor.watch(next);
+        }
+    }
+
+    private void markBoundaryEntry(Road road) {
+        road.setReceivesTransfers(true);
+        boundaryEntryRoads.add(road);
+        gridlockMonitor.watch(road);
+    }
+
+    /**
+     * Cria as 4 estradas (ids 4c+1 a 4c+4) e a intersecção do cruzamento c.
+     */
+    private void addCrossing(int c, RoadModel roadModel) {
+        int firstRoadId = 4 * c + 1;
+
         // Cria 4 estradas para a intersecção em cruz (todas com 100 unidades de comprimento)
         // R1: Oeste -> Leste (Horizontal)
-        Road road1 = new Road(1, 100.0);
+        Road road1 = createRoad(firstRoadId, 100.0, roadModel);
         // R2: Leste -> Oeste (Horizontal)
-        Road road2 = new Road(2, 100.0);
+        Road road2 = createRoad(firstRoadId + 1, 100.0, roadModel);
         // R3: Norte -> Sul (Vertical)
-        Road road3 = new Road(3, 100.0);
+        Road road3 = createRoad(firstRoadId + 2, 100.0, roadModel);
         // R4: Sul -> Norte (Vertical)
-        Road road4 = new Road(4, 100.0);
+        Road road4 = createRoad(firstRoadId + 3, 100.0, roadModel);
 
         addRoad(road1);
         addRoad(road2);
@@ -214,8 +1241,8 @@ public class World {
         addRoad(road4);
 
         // Cria intersecção e semáforos
-        Intersection intersection1 = new Intersection(1);
-        
+        Intersection intersection = new Intersection(c + 1);
+
         // Semáforos (durações base: Green=10s, Yellow=2s, Red=5s)
         // Fase 1: Horizontal (R1 e R2) GREEN, Vertical (R3 e R4) RED
         TrafficLight light1 = new TrafficLight(TrafficLightState.GREEN, 10, 2, 5); // R1: Horizontal (W->E)
@@ -223,38 +1250,77 @@ public class World {
         TrafficLight light3 = new TrafficLight(TrafficLightState.RED, 10, 2, 5);   // R3: Vertical (N->S)
         TrafficLight light4 = new TrafficLight(TrafficLightState.RED, 10, 2, 5);   // R4: Vertical (S->N)
 
-        intersection1.addTrafficLight(road1, light1);
-        intersection1.addTrafficLight(road2, light2);
-        intersection1.addTrafficLight(road3, light3);
-        intersection1.addTrafficLight(road4, light4);
-        addIntersection(intersection1);
+        intersection.addTrafficLight(road1, light1);
+        intersection.addTrafficLight(road2, light2);
+        intersection.addTrafficLight(road3, light3);
+        intersection.addTrafficLight(road4, light4);
+        addIntersection(intersection);
+    }
 
-        // Remove a criação inicial de veículos para que a geração automática funcione
-        // (Os veículos serão gerados pelo tick)
+    private static Road createRoad(int id, double length, RoadModel roadModel) {
+        return roadModel == RoadModel.MESOSCOPIC ? new MesoRoad(id, length) : new Road(id, length);
     }
 
     /**
-     * Tenta gerar um novo veículo em uma estrada de entrada aleatória.
+     * Gera as chegadas do tick nas estradas de entrada, segundo o processo de chegada.
      */
     private void generateVehicles() {
-        if (simulationTime - lastGenerationTime >= vehicleGenerationInterval) {
-            // Lista de estradas de onde os veículos podem entrar (todas as estradas neste cenário)
-            List<Road> entryRoads = roads;
-            
-            // Tenta gerar um veículo em cada estrada de entrada
-            for (Road road : entryRoads) {
-                if (road.canAddVehicle()) {
-                    if (Math.random() < 0.1) { // 10% de chance de ser emergência
-                        addVehicle(new EmergencyVehicle(nextVehicleId, road, 0.0));
-                    } else {
-                        addVehicle(new Vehicle(nextVehicleId, road, 0.0));
-                    }
+        if (demandSource != null) {
+            return;
+        }
+        boolean fixed = arrivalProcess == ArrivalProcess.FIXED;
+        if (fixed && simulationTime - lastGenerationTime < vehicleGenerationInterval) {
+            return;
+        }
+        // Os veículos entram na rede por todas as estradas que não são alimentadas por outra estrada
+        // (e pelas entradas de um anel, que também o são)
+        for (int i = 0; i < roads.size(); i++) {
+            Road road = roads.get(i);
+            if (road.receivesTransfers() && !road.isOnRamp()) {
+                continue;
+            }
+            if (!fixed) {
+                if (nextArrival[i] < 0) {
+                    nextArrival[i] = interArrivalTime(arrivalStreams.get(i)); // Primeira chegada, contada do tick 0
+                }
+                if (simulationTime < nextArrival[i]) {
+                    continue;
+                }
+                nextArrival[i] = simulationTime + interArrivalTime(arrivalStreams.get(i));
+            }
+            // A classe é sorteada em todas as chegadas, mesmo nas que não entram (estrada fechada ou
+            // cheia), para que a n-ésima chegada de cada estrada tenha a mesma classe com qualquer estratégia
+            VehicleClass vehicleClass = getFleetMix(road.getId()).sample(roadStreams.get(i));
+            if (road.isClosed()) {
+                continue;
+            }
+            if (compactTraffic != null) {
+                if (compactTraffic.canAddVehicle(i)) {
+                    compactTraffic.addVehicle(i, road, nextVehicleId, 0.0, vehicleClass, simulationTime);
+                    nextVehicleId += vehicleIdStep;
                 }
+            } else if (road.canAddVehicle()) {
+                addVehicle(new Vehicle(nextVehicleId, road, 0.0, vehicleClass));
             }
+        }
+        if (fixed) {
             lastGenerationTime = simulationTime;
         }
     }
 
+    /**
+     * Sorteia o número de ticks até à próxima chegada POISSON: geométrico (>= 1), com média
+     * vehicleGenerationInterval (por inversão, para que os valores antitéticos deem intervalos opostos).
+     */
+    private int interArrivalTime(RandomStream random) {
+        double u = random.nextDouble();
+        if (vehicleGenerationInterval <= 1) {
+            return 1;
+        }
+        double p = 1.0 / vehicleGenerationInterval; // Probabilidade de chegada em cada tick
+        return 1 + (int) Math.min(Integer.MAX_VALUE / 2, Math.floor(Math.log1p(-u) / Math.log1p(-p)));
+    }
+
 
 
     /**
@@ -263,6 +1329,8 @@ public class World {
     public static void main(String[] args) {
         World world = new World();
         world.setupSimpleScenario();
+        world.getProfiler().setPhaseTimingEnabled(true);
+        world.start();
 
         System.out.println("Início da Simulação de Tráfego");
         System.out.println("--------------------------------");
@@ -290,6 +1358,7 @@ public class World {
             System.out.println("--------------------------------");
         }
 
-        System.out.println("Fim da Simulação. Veículos restantes: " + world.getVehicles().size());
+        System.out.println("Fim da Simulação. Veículos restantes: " + world.getVehicleCount());
+        System.out.print(world.getProfiler().summary());
     }
 }
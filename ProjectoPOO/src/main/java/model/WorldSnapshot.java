@@ -0,0 +1,127 @@
+package model;
+
+import controller.Strategy;
+import model.state.LightState;
+
+import java.util.Set;
+
+/**
+ * Estado completo de um World num tick (ver World.snapshot() e World.restore()): veículos, semáforos,
+ * controlo de atividade das estradas, geradores aleatórios, métricas, detetores, transferências
+ * pendentes e pedidos do VehicleInjector em espera nas estradas. Repor um snapshot e simular os ticks seguintes produz exatamente a mesma simulação.
+ *
+ * Os veículos são guardados em arrays primitivos (cerca de 35 bytes por veículo), sem objetos por
+ * veículo. Os incidentes não são copiados: os ativos num tick decorrem do cronograma do World.
+ * A estratégia é guardada por referência, pelo que só as estratégias sem estado próprio
+ * (FixedCycle, AdaptiveCycle e PredictiveCycle com prazo 0) são repostas exatamente.
+ */
+public class WorldSnapshot {
+    // Estado geral
+    final int simulationTime;
+    final int nextVehicleId;
+    final int lastGenerationTime;
+    final int vehicleGenerationInterval;
+    final Strategy strategy;
+    final int vehiclesServed;
+    final long waitingTime;
+    final long queueLength;
+    final long queueSamples;
+
+    // Por estrada (pela ordem de World.getRoads())
+    final int[] roadIds;
+    final long[] randomStates;
+    final long[] arrivalStates;
+    final int[] nextArrivals;
+    final int[] firstVehicle; // Índice do primeiro veículo de cada estrada (length = estradas + 1)
+    final int[] vehiclesInQueue;
+    final boolean[] asleep;
+    final LightState[] sleepingOn;
+    final int[] skippedTicks;
+    final boolean[] acceptingTransfers;
+    final LightState[] lightStates; // null nas estradas sem semáforo
+    final int[] lightTimeInState;
+    final long[] lightTransitions;
+
+    // Veículos, por estrada e por posição
+    final int[] vehicleIds;
+    final double[] positions;
+    final double[] speeds;
+    final float[] currentSpeeds;
+    final byte[] vehicleClasses; // Etiqueta da VehicleClass
+    final int[] waitingTimes;
+    final int[] spawnTimes;
+    final boolean[] stoppedByLight;
+
+    // Transferências e detetores
+    final VehicleTransfer[] pendingTransfers;
+    final VehicleTransfer[] outgoingTransfers;
+    final Set<Integer> blockedRemoteRoads;
+    final Detector[] detectors;
+    final int[] injectorBacklog; // Ver VehicleInjector.copyBacklog()
+
+    WorldSnapshot(int simulationTime, int nextVehicleId, int lastGenerationTime, int vehicleGenerationInterval,
+                  Strategy strategy, int vehiclesServed, long waitingTime, long queueLength, long queueSamples,
+                  int roadCount, int vehicleCount, VehicleTransfer[] pendingTransfers,
+                  VehicleTransfer[] outgoingTransfers, Set<Integer> blockedRemoteRoads, Detector[] detectors,
+                  int[] injectorBacklog) {
+        this.simulationTime = simulationTime;
+        this.nextVehicleId = nextVehicleId;
+        this.lastGenerationTime = lastGenerationTime;
+        this.vehicleGenerationInterval = vehicleGenerationInterval;
+        this.strategy = strategy;
+        this.vehiclesServed = vehiclesServed;
+        this.waitingTime = waitingTime;
+        this.queueLength = queueLength;
+        this.queueSamples = queueSamples;
+        this.roadIds = new int[roadCount];
+        this.randomStates = new long[roadCount];
+        this.arrivalStates = new long[roadCount];
+        this.nextArrivals = new int[roadCount];
+        this.firstVehicle = new int[roadCount + 1];
+        this.vehiclesInQueue = new int[roadCount];
+        this.asleep = new boolean[roadCount];
+        this.sleepingOn = new LightState[roadCount];
+        this.skippedTicks = new int[roadCount];
+        this.acceptingTransfers = new boolean[roadCount];
+        this.lightStates = new LightState[roadCount];
+        this.lightTimeInState = new int[roadCount];
+        this.lightTransitions = new long[roadCount];
+        this.vehicleIds = new int[vehicleCount];
+        this.positions = new double[vehicleCount];
+        this.speeds = new double[vehicleCount];
+        this.currentSpeeds = new float[vehicleCount];
+        this.vehicleClasses = new byte[vehicleCount];
+        this.waitingTimes = new int[vehicleCount];
+        this.spawnTimes = new int[vehicleCount];
+        this.stoppedByLight = new boolean[vehicleCount];
+        this.pendingTransfers = pendingTransfers;
+        this.outgoingTransfers = outgoingTransfers;
+        this.blockedRemoteRoads = blockedRemoteRoads;
+        this.detectors = detectors;
+        this.injectorBacklog = injectorBacklog;
+    }
+
+    /**
+     * Obtém o tick do snapshot.
+     */
+    public int getSimulationTime() {
+        return simulationTime;
+    }
+
+    public int getVehicleCount() {
+        return vehicleIds.length;
+    }
+
+    /**
+     * Estima a memória ocupada pelo snapshot (arrays e cabeçalhos), para orçamentos de memória.
+     * @return O número aproximado de bytes.
+     */
+    public long getEstimatedBytes() {
+        long bytes = 128; // Objeto e campos escalares
+        bytes += 13L * 16 + roadIds.length * (4L + 8 + 8 + 4 + 4 + 4 + 1 + 4 + 4 + 1 + 4 + 4 + 8) + 4L; // Arrays por estrada
+        bytes += 8L * 16 + vehicleIds.length * (4L + 8 + 8 + 4 + 1 + 4 + 4 + 1); // Arrays de veículos
+        bytes += (pendingTransfers.length + outgoingTransfers.length) * 40L + detectors.length * 160L;
+        bytes += 16 + injectorBacklog.length * 4L;
+        return bytes;
+    }
+}
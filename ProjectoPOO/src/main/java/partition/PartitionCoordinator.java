@@ -0,0 +1,305 @@
+package partition;
+
+import controller.PredictiveCycle;
+import controller.StrategyFactory;
+import model.VehicleTransfer;
+import model.World;
+import util.CommandLine;
+import util.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simula um corredor de cruzamentos (World.setupCorridorScenario) partido por vários processos JVM.
+ * Cada PartitionWorker fica com um intervalo contíguo de cruzamentos, incluindo as estradas que
+ * chegam a esses cruzamentos e os respetivos semáforos, pelo que só os veículos atravessam fronteiras.
+ *
+ * O coordenador sincroniza os processos no fim de cada tick (barreira): recebe de cada um os veículos
+ * que passaram para estradas de outra partição e a capacidade das suas estradas de fronteira, e
+ * reencaminha-os para as partições donas dessas estradas. Como as transferências só entram no tick
+ * seguinte e decidem-se com a capacidade do fim do tick anterior, o resultado é exatamente o de uma
+ * simulação num só processo (verificável com --verify true).
+ *
+ * Uso: java partition.PartitionCoordinator [opções]
+ *   --crossings 8
+ *   --partitions 2
+ *   --ticks 3600
+ *   --seed 1
+ *   --strategy FixedCycle
+ *   --interval 2
+ *   --verify false        (repete a simulação num só processo e compara as métricas)
+ */
+public class PartitionCoordinator {
+
+    /**
+     * Uma partição em execução: o seu intervalo de cruzamentos e a ligação ao processo.
+     */
+    private static class Partition {
+        final int index;
+        final int firstCrossing;
+        final int endCrossing;
+        Process process;
+        Socket socket;
+        DataInputStream in;
+        DataOutputStream out;
+
+        // Entradas a enviar no fim do tick atual
+        final List<VehicleTransfer> inboundTransfers = new ArrayList<>();
+        final Map<Integer, Boolean> inboundAcceptance = new LinkedHashMap<>();
+
+        // Tempos de simulação por tick (para medir o desequilíbrio de carga)
+        long totalTickNanos = 0;
+        long maxTickNanos = 0;
+        long waitNanos = 0;
+        int vehicles = 0;
+
+        Partition(int index, int firstCrossing, int endCrossing) {
+            this.index = index;
+            this.firstCrossing = firstCrossing;
+            this.endCrossing = endCrossing;
+        }
+    }
+
+    private final int crossings;
+    private final int ticks;
+    private final long seed;
+    private final String strategy;
+    private final int interval;
+    private final List<Partition> partitions = new ArrayList<>();
+    private final Map<Integer, List<Partition>> acceptanceSubscribers = new HashMap<>(); // Estrada -> partições a montante
+    private final Metrics metrics = new Metrics();
+    private double imbalanceSum = 0; // Soma, por tick, de (tempo máximo / tempo médio) das partições
+
+    public PartitionCoordinator(int crossings, int partitionCount, int ticks, long seed, String strategy, int interval) {
+        if (partitionCount < 1 || partitionCount > crossings) {
+            throw new IllegalArgumentException("Número de partições inválido: " + partitionCount);
+        }
+        this.crossings = crossings;
+        this.ticks = ticks;
+        this.seed = seed;
+        this.strategy = strategy;
+        this.interval = interval;
+        // Intervalos contíguos de cruzamentos com tamanhos que diferem no máximo em um
+        for (int p = 0; p < partitionCount; p++) {
+            partitions.add(new Partition(p, p * crossings / partitionCount, (p + 1) * crossings / partitionCount));
+        }
+    }
+
+    /**
+     * Lança os processos, executa a simulação e junta as métricas de todas as partições.
+     * @return As métricas da rede inteira.
+     */
+    public Metrics run() throws IOException, InterruptedException {
+        try (ServerSocket server = new ServerSocket(0, partitions.size(), InetAddress.getLoopbackAddress())) {
+            launchWorkers(server.getLocalPort());
+            for (int i = 0; i < partitions.size(); i++) {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                Partition partition = partitions.get(in.readInt());
+                partition.socket = socket;
+                partition.in = in;
+                partition.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            }
+            handshake();
+            for (int t = 0; t < ticks; t++) {
+                exchange();
+            }
+            collectMetrics();
+        } finally {
+            for (Partition partition : partitions) {
+                if (partition.socket != null) {
+                    partition.socket.close();
+                }
+                if (partition.process != null && !partition.process.waitFor(10, TimeUnit.SECONDS)) {
+                    partition.process.destroyForcibly();
+                }
+            }
+        }
+        return metrics;
+    }
+
+    private void launchWorkers(int port) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classPath = System.getProperty("java.class.path");
+        for (Partition partition : partitions) {
+            ProcessBuilder builder = new ProcessBuilder(java, "-cp", classPath, PartitionWorker.class.getName(),
+                    String.valueOf(port), String.valueOf(partition.index));
+            builder.inheritIO();
+            partition.process = builder.start();
+        }
+    }
+
+    private void handshake() throws IOException {
+        for (Partition partition : partitions) {
+            DataOutputStream out = partition.out;
+            out.writeInt(partition.index);
+            out.writeInt(partitions.size());
+            out.writeInt(crossings);
+            out.writeInt(partition.firstCrossing);
+            out.writeInt(partition.endCrossing);
+            out.writeInt(ticks);
+            out.writeLong(seed);
+            out.writeUTF(strategy);
+            out.writeInt(interval);
+            out.flush();
+        }
+        // Cada partição indica as estradas remotas para onde envia veículos; a capacidade dessas
+        // estradas passa a ser-lhe reencaminhada em cada tick
+        for (Partition partition : partitions) {
+            int count = partition.in.readInt();
+            for (int i = 0; i < count; i++) {
+                acceptanceSubscribers.computeIfAbsent(partition.in.readInt(), k -> new ArrayList<>()).add(partition);
+            }
+        }
+    }
+
+    /**
+     * Barreira de um tick: lê o relatório de todas as partições e envia a cada uma as suas entradas.
+     */
+    private void exchange() throws IOException {
+        long maxNanos = 0;
+        long sumNanos = 0;
+        for (Partition partition : partitions) {
+            DataInputStream in = partition.in;
+            long tickNanos = in.readLong();
+            partition.vehicles = in.readInt();
+            partition.totalTickNanos += tickNanos;
+            partition.maxTickNanos = Math.max(partition.maxTickNanos, tickNanos);
+            maxNanos = Math.max(maxNanos, tickNanos);
+            sumNanos += tickNanos;
+
+            int transfers = in.readInt();
+            for (int i = 0; i < transfers; i++) {
+                VehicleTransfer transfer = PartitionWorker.readTransfer(in);
+                ownerOf(transfer.roadId()).inboundTransfers.add(transfer);
+            }
+            int acceptances = in.readInt();
+            for (int i = 0; i < acceptances; i++) {
+                int roadId = in.readInt();
+                boolean accepting = in.readBoolean();
+                for (Partition subscriber : acceptanceSubscribers.getOrDefault(roadId, List.of())) {
+                    subscriber.inboundAcceptance.put(roadId, accepting);
+                }
+            }
+        }
+        if (sumNanos > 0) {
+            imbalanceSum += (double) maxNanos * partitions.size() / sumNanos;
+        }
+
+        for (Partition partition : partitions) {
+            DataOutputStream out = partition.out;
+            PartitionWorker.writeTransfers(out, partition.inboundTransfers);
+            out.writeInt(partition.inboundAcceptance.size());
+            for (Map.Entry<Integer, Boolean> entry : partition.inboundAcceptance.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeBoolean(entry.getValue());
+            }
+            out.flush();
+            partition.inboundTransfers.clear();
+            partition.inboundAcceptance.clear();
+        }
+    }
+
+    private Partition ownerOf(int roadId) {
+        int crossing = (roadId - 1) / 4;
+        for (Partition partition : partitions) {
+            if (crossing >= partition.firstCrossing && crossing < partition.endCrossing) {
+                return partition;
+            }
+        }
+        throw new IllegalStateException("Estrada sem partição: " + roadId);
+    }
+
+    private void collectMetrics() throws IOException {
+        for (Partition partition : partitions) {
+            DataInputStream in = partition.in;
+            metrics.addTotals(in.readInt(), in.readLong(), in.readLong(), in.readLong());
+            partition.waitNanos = in.readLong();
+        }
+    }
+
+    /**
+     * Escreve, por partição, o tempo de simulação por tick e a fração do tempo passada à espera
+     * das outras partições na barreira.
+     */
+    public void printLoadReport() {
+        System.out.println("Partição  Cruzamentos  Veículos  Tick médio (ms)  Tick máximo (ms)  Espera na barreira");
+        for (Partition partition : partitions) {
+            double total = partition.totalTickNanos + partition.waitNanos;
+            System.out.printf("%8d  %5d-%-5d  %8d  %15.3f  %16.3f  %17.1f%%%n", partition.index,
+                    partition.firstCrossing, partition.endCrossing - 1, partition.vehicles,
+                    partition.totalTickNanos / 1e6 / ticks, partition.maxTickNanos / 1e6,
+                    total == 0 ? 0.0 : 100.0 * partition.waitNanos / total);
+        }
+        System.out.printf("Desequilíbrio médio por tick (máximo / média): %.3f%n", ticks == 0 ? 1.0 : imbalanceSum / ticks);
+    }
+
+    /**
+     * Executa o mesmo corredor num só processo, para comparação.
+     */
+    public static Metrics simulateSingleProcess(int crossings, int ticks, long seed, String strategy, int interval) {
+        World world = new World(seed);
+        world.setupCorridorScenario(crossings);
+        world.setTrafficStrategy(StrategyFactory.create(strategy, PredictiveCycle.NO_DEADLINE));
+        world.setVehicleGenerationInterval(interval);
+        world.start();
+        for (int t = 0; t < ticks; t++) {
+            world.tick();
+        }
+        return world.getMetrics();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = CommandLine.parseOptions(args);
+        int crossings = Integer.parseInt(options.getOrDefault("crossings", "8"));
+        int partitionCount = Integer.parseInt(options.getOrDefault("partitions", "2"));
+        int ticks = Integer.parseInt(options.getOrDefault("ticks", "3600"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        String strategy = options.getOrDefault("strategy", "FixedCycle");
+        int interval = Integer.parseInt(options.getOrDefault("interval", "2"));
+        boolean verify = Boolean.parseBoolean(options.getOrDefault("verify", "false"));
+
+        PartitionCoordinator coordinator = new PartitionCoordinator(crossings, partitionCount, ticks, seed, strategy, interval);
+        System.out.printf("A simular %d cruzamentos em %d processos durante %d ticks...%n", crossings, partitionCount, ticks);
+        long start = System.nanoTime();
+        Metrics metrics = coordinator.run();
+        System.out.printf("Concluído em %.1f s%n", (System.nanoTime() - start) / 1e9);
+        coordinator.printLoadReport();
+        printMetrics("Rede partida", metrics);
+
+        if (verify) {
+            start = System.nanoTime();
+            Metrics single = simulateSingleProcess(crossings, ticks, seed, strategy, interval);
+            System.out.printf("Processo único concluído em %.1f s%n", (System.nanoTime() - start) / 1e9);
+            printMetrics("Processo único", single);
+            boolean equal = single.getTotalVehiclesServed() == metrics.getTotalVehiclesServed()
+                    && single.getTotalWaitingTime() == metrics.getTotalWaitingTime()
+                    && single.getTotalQueueLength() == metrics.getTotalQueueLength()
+                    && single.getQueueSamples() == metrics.getQueueSamples();
+            System.out.println(equal ? "Resultados idênticos." : "ERRO: os resultados diferem!");
+            if (!equal) {
+                System.exit(1);
+            }
+        }
+    }
+
+    private static void printMetrics(String label, Metrics metrics) {
+        System.out.printf("%s: %d veículos servidos, tempo de espera médio %.4f, fila média %.4f%n", label,
+                metrics.getTotalVehiclesServed(), metrics.getAverageWaitingTime(), metrics.getAverageQueueLength());
+    }
+}
@@ -0,0 +1,130 @@
+package partition;
+
+import controller.PredictiveCycle;
+import controller.StrategyFactory;
+import model.Road;
+import model.VehicleClass;
+import model.VehicleTransfer;
+import model.World;
+import util.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Processo que simula uma parte contígua de um corredor de cruzamentos, sob o controlo de um
+ * PartitionCoordinator. Em cada tick: simula, envia ao coordenador os veículos que passaram para
+ * estradas de outras partições e a capacidade das suas estradas de fronteira, e espera pelos
+ * veículos e capacidades vindos das partições vizinhas antes do tick seguinte.
+ *
+ * Uso (lançado pelo coordenador): java partition.PartitionWorker porta índice
+ */
+public class PartitionWorker {
+
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(args[0]);
+        int index = Integer.parseInt(args[1]);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(index);
+            out.flush();
+            run(in, out);
+        }
+    }
+
+    private static void run(DataInputStream in, DataOutputStream out) throws IOException {
+        // Configuração enviada pelo coordenador
+        int index = in.readInt();
+        int partitions = in.readInt();
+        int crossings = in.readInt();
+        int firstCrossing = in.readInt();
+        int endCrossing = in.readInt();
+        int ticks = in.readInt();
+        long seed = in.readLong();
+        String strategy = in.readUTF();
+        int interval = in.readInt();
+
+        World world = new World(seed);
+        world.setupCorridorScenario(crossings, firstCrossing, endCrossing);
+        world.setTrafficStrategy(StrategyFactory.create(strategy, PredictiveCycle.NO_DEADLINE));
+        world.setVehicleGenerationInterval(interval);
+        world.setVehicleIdSequence(index + 1, partitions); // Ids únicos em toda a rede
+
+        // Estradas remotas para onde seguem veículos desta partição (o coordenador envia-nos a sua capacidade)
+        List<Road> exits = world.getBoundaryExitRoads();
+        out.writeInt(exits.size());
+        for (Road road : exits) {
+            out.writeInt(road.getNextRoadId());
+        }
+        out.flush();
+
+        List<Road> entries = world.getBoundaryEntryRoads();
+        List<VehicleTransfer> outgoing = new ArrayList<>();
+        long waitNanos = 0;
+        world.start();
+        for (int t = 0; t < ticks; t++) {
+            long start = System.nanoTime();
+            world.tick();
+            long tickNanos = System.nanoTime() - start;
+
+            // Relatório do tick
+            world.drainOutgoingTransfers(outgoing);
+            out.writeLong(tickNanos);
+            out.writeInt(world.getVehicleCount());
+            writeTransfers(out, outgoing);
+            out.writeInt(entries.size());
+            for (Road road : entries) {
+                out.writeInt(road.getId());
+                out.writeBoolean(road.isAcceptingTransfers());
+            }
+            out.flush();
+            outgoing.clear();
+
+            // Entradas das partições vizinhas, aplicadas no próximo tick
+            long waitStart = System.nanoTime();
+            int transfers = in.readInt();
+            for (int i = 0; i < transfers; i++) {
+                world.receiveTransfer(readTransfer(in));
+            }
+            int acceptances = in.readInt();
+            for (int i = 0; i < acceptances; i++) {
+                world.setRemoteAcceptance(in.readInt(), in.readBoolean());
+            }
+            waitNanos += System.nanoTime() - waitStart;
+        }
+
+        Metrics metrics = world.getMetrics();
+        out.writeInt(metrics.getTotalVehiclesServed());
+        out.writeLong(metrics.getTotalWaitingTime());
+        out.writeLong(metrics.getTotalQueueLength());
+        out.writeLong(metrics.getQueueSamples());
+        out.writeLong(waitNanos);
+        out.flush();
+    }
+
+    static void writeTransfers(DataOutputStream out, List<VehicleTransfer> transfers) throws IOException {
+        out.writeInt(transfers.size());
+        for (VehicleTransfer transfer : transfers) {
+            out.writeInt(transfer.roadId());
+            out.writeInt(transfer.vehicleId());
+            out.writeInt(transfer.waitingTime());
+            out.writeInt(transfer.spawnTime());
+            out.writeByte(transfer.vehicleClass().getTag());
+            out.writeFloat(transfer.speed());
+        }
+    }
+
+    static VehicleTransfer readTransfer(DataInputStream in) throws IOException {
+        return new VehicleTransfer(in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                VehicleClass.fromTag(in.readByte()), in.readFloat());
+    }
+}
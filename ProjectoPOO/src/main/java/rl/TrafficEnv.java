@@ -0,0 +1,162 @@
+package rl;
+
+import controller.ExternalPhaseControl;
+import model.Intersection;
+import model.Road;
+import model.RoadModel;
+import model.World;
+
+import java.util.List;
+
+/**
+ * Ambiente de aprendizagem por reforço (no estilo gym) sobre o cenário em grelha do World.
+ *
+ * Ação: para cada intersecção, a fase desejada (0 = verde horizontal, 1 = verde vertical),
+ * aplicada por ExternalPhaseControl com a transição pelo amarelo.
+ * Observação: para cada intersecção, OBSERVATIONS_PER_INTERSECTION valores
+ * [fila R1, fila R2, fila R3, fila R4, fase, em transição (0/1), ticks na fase].
+ * Recompensa: menos a soma das filas de todas as estradas, em média pelos ticks do passo.
+ *
+ * Os arrays de observação são reutilizados entre passos: quem os lê tem de os copiar se precisar
+ * de os guardar. Uma instância não é thread-safe (ver VectorTrafficEnv para vários ambientes).
+ */
+public class TrafficEnv {
+    /** Número de valores da observação por intersecção. */
+    public static final int OBSERVATIONS_PER_INTERSECTION = 7;
+
+    private final int crossings;
+    private final int generationInterval;
+    private final int ticksPerStep;
+    private final int episodeTicks;
+    private final ExternalPhaseControl control = new ExternalPhaseControl();
+    private final float[] observation;
+    private World world;
+    private float lastReward;
+    private boolean done = true;
+
+    /**
+     * Construtor para TrafficEnv.
+     * @param crossings O número de cruzamentos (intersecções controladas).
+     * @param generationInterval O intervalo de geração de veículos.
+     * @param ticksPerStep Os ticks simulados por cada passo (decisão do agente).
+     * @param episodeTicks A duração de um episódio em ticks.
+     */
+    public TrafficEnv(int crossings, int generationInterval, int ticksPerStep, int episodeTicks) {
+        if (crossings < 1 || ticksPerStep < 1 || episodeTicks < ticksPerStep) {
+            throw new IllegalArgumentException("Configuração do ambiente inválida");
+        }
+        this.crossings = crossings;
+        this.generationInterval = generationInterval;
+        this.ticksPerStep = ticksPerStep;
+        this.episodeTicks = episodeTicks;
+        this.observation = new float[getObservationSize()];
+    }
+
+    /**
+     * Começa um novo episódio.
+     * @param seed A semente do episódio.
+     * @return A observação inicial (array reutilizado).
+     */
+    public float[] reset(long seed) {
+        world = new World(seed);
+        world.setupGridScenario(crossings, RoadModel.MICROSCOPIC);
+        control.clear();
+        world.setTrafficStrategy(control);
+        world.setVehicleGenerationInterval(generationInterval);
+        world.start();
+        lastReward = 0;
+        done = false;
+        writeObservation(observation, 0);
+        return observation;
+    }
+
+    /**
+     * Aplica as ações e simula ticksPerStep ticks.
+     * @param actions A fase desejada de cada intersecção (0 ou 1).
+     * @return A observação seguinte (array reutilizado); a recompensa e o fim do episódio
+     *         obtêm-se com getLastReward() e isDone().
+     */
+    public float[] step(int[] actions) {
+        step(actions, 0);
+        writeObservation(observation, 0);
+        return observation;
+    }
+
+    /**
+     * Aplica as ações lidas de actions[offset..] e simula ticksPerStep ticks, sem escrever a observação.
+     * @return A recompensa do passo.
+     * @throws IllegalArgumentException se faltarem ações ou alguma não for 0 nem 1 (nenhuma é aplicada).
+     */
+    float step(int[] actions, int offset) {
+        if (done) {
+            throw new IllegalStateException("O episódio terminou: é preciso chamar reset()");
+        }
+        validateActions(actions, offset, crossings);
+        for (int i = 0; i < crossings; i++) {
+            control.setDesiredPhase(i, actions[offset + i]);
+        }
+        // A soma das filas de todas as estradas em cada tick já é acumulada pelas métricas
+        long queueBefore = world.getMetrics().getTotalQueueLength();
+        for (int t = 0; t < ticksPerStep; t++) {
+            world.tick();
+        }
+        lastReward = -(float) (world.getMetrics().getTotalQueueLength() - queueBefore) / ticksPerStep;
+        done = world.getSimulationTime() >= episodeTicks;
+        return lastReward;
+    }
+
+    /**
+     * Escreve a observação atual em dest[offset..offset + getObservationSize()).
+     */
+    void writeObservation(float[] dest, int offset) {
+        List<Intersection> intersections = world.getIntersections();
+        int k = offset;
+        for (int i = 0; i < intersections.size(); i++) {
+            List<Road> roads = intersections.get(i).getRoads();
+            for (int r = 0; r < 4; r++) {
+                dest[k++] = roads.get(r).getVehiclesInQueue();
+            }
+            dest[k++] = control.getPhase(i);
+            dest[k++] = control.isInTransition(i) ? 1f : 0f;
+            dest[k++] = control.getTimeInPhase(i);
+        }
+    }
+
+    /**
+     * Valida as ações antes de aplicar alguma, para que um passo inválido não deixe as
+     * intersecções com fases de dois passos diferentes.
+     * @throws IllegalArgumentException se faltarem ações ou alguma não for 0 nem 1.
+     */
+    static void validateActions(int[] actions, int offset, int count) {
+        if (actions.length < offset + count) {
+            throw new IllegalArgumentException("Esperadas " + count + " ações");
+        }
+        for (int i = 0; i < count; i++) {
+            int action = actions[offset + i];
+            if (action != 0 && action != 1) {
+                throw new IllegalArgumentException("Ação inválida na posição " + (offset + i) + ": " + action + " (esperado 0 ou 1)");
+            }
+        }
+    }
+
+    // Getters
+    public int getObservationSize() {
+        return crossings * OBSERVATIONS_PER_INTERSECTION;
+    }
+
+    public int getActionSize() {
+        return crossings;
+    }
+
+    public float getLastReward() {
+        return lastReward;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public World getWorld() {
+        return world;
+    }
+}
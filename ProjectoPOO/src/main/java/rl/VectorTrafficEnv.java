@@ -0,0 +1,161 @@
+package rl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Vários TrafficEnv independentes avançados em paralelo numa só chamada.
+ *
+ * As observações, recompensas e indicadores de fim de episódio de todos os ambientes ficam em
+ * arrays únicos (o ambiente i ocupa observations[i * getObservationSize() ..]), reutilizados entre
+ * passos. Um ambiente cujo episódio termina é reiniciado automaticamente com a semente seguinte:
+ * nesse passo, dones[i] é true, rewards[i] é a recompensa final e a observação já é a do novo episódio.
+ *
+ * Os ambientes são divididos em blocos contíguos, um por thread, para que cada thread trabalhe
+ * sempre sobre os mesmos World (e a mesma zona dos arrays).
+ */
+public class VectorTrafficEnv implements AutoCloseable {
+    private final TrafficEnv[] envs;
+    private final long[] seeds;
+    private final float[] observations;
+    private final float[] rewards;
+    private final boolean[] dones;
+    private final int observationSize;
+    private final int actionSize;
+    private final ExecutorService pool;
+    private final List<Callable<Void>> tasks = new ArrayList<>();
+    private int[] actions; // Ações do passo em curso, lidas pelas tarefas
+
+    /**
+     * Construtor para VectorTrafficEnv.
+     * @param count O número de ambientes.
+     * @param threads O número de threads (1 = sequencial, sem pool).
+     * @param crossings Os cruzamentos de cada ambiente.
+     * @param generationInterval O intervalo de geração de veículos.
+     * @param ticksPerStep Os ticks simulados por passo.
+     * @param episodeTicks A duração de um episódio em ticks.
+     */
+    public VectorTrafficEnv(int count, int threads, int crossings, int generationInterval, int ticksPerStep,
+                            int episodeTicks) {
+        this.envs = new TrafficEnv[count];
+        for (int i = 0; i < count; i++) {
+            envs[i] = new TrafficEnv(crossings, generationInterval, ticksPerStep, episodeTicks);
+        }
+        this.seeds = new long[count];
+        this.observationSize = envs[0].getObservationSize();
+        this.actionSize = envs[0].getActionSize();
+        this.observations = new float[count * observationSize];
+        this.rewards = new float[count];
+        this.dones = new boolean[count];
+
+        int workers = Math.max(1, Math.min(threads, count));
+        this.pool = workers > 1 ? Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "traffic-env");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        for (int w = 0; w < workers; w++) {
+            int from = w * count / workers;
+            int to = (w + 1) * count / workers;
+            tasks.add(() -> {
+                stepRange(from, to);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Reinicia todos os ambientes: o ambiente i usa as sementes seed + i, seed + i + count, ...
+     * @param seed A semente base.
+     * @return As observações iniciais (array reutilizado).
+     */
+    public float[] reset(long seed) {
+        for (int i = 0; i < envs.length; i++) {
+            seeds[i] = seed + i;
+            envs[i].reset(seeds[i]);
+            envs[i].writeObservation(observations, i * observationSize);
+            rewards[i] = 0;
+            dones[i] = false;
+        }
+        return observations;
+    }
+
+    /**
+     * Avança todos os ambientes um passo.
+     * @param actions As ações de todos os ambientes (o ambiente i lê actions[i * getActionSize() ..]).
+     * @return As observações seguintes (array reutilizado).
+     */
+    public float[] step(int[] actions) {
+        // Valida antes de avançar qualquer ambiente (nas threads do pool o erro chegaria embrulhado)
+        TrafficEnv.validateActions(actions, 0, envs.length * actionSize);
+        this.actions = actions;
+        if (pool == null) {
+            stepRange(0, envs.length);
+        } else {
+            try {
+                for (Future<Void> future : pool.invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Passo interrompido", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Falha num ambiente", e.getCause());
+            }
+        }
+        return observations;
+    }
+
+    private void stepRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            TrafficEnv env = envs[i];
+            rewards[i] = env.step(actions, i * actionSize);
+            dones[i] = env.isDone();
+            if (dones[i]) {
+                seeds[i] += envs.length;
+                env.reset(seeds[i]);
+            }
+            env.writeObservation(observations, i * observationSize);
+        }
+    }
+
+    /**
+     * Termina as threads do pool.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    // Getters
+    public int getCount() {
+        return envs.length;
+    }
+
+    public int getObservationSize() {
+        return observationSize;
+    }
+
+    public int getActionSize() {
+        return actionSize;
+    }
+
+    public float[] getObservations() {
+        return observations;
+    }
+
+    public float[] getRewards() {
+        return rewards;
+    }
+
+    public boolean[] getDones() {
+        return dones;
+    }
+}
@@ -0,0 +1,66 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leitura das opções de linha de comando comuns aos pontos de entrada sem interface
+ * (pares "--chave valor" e listas de números).
+ */
+public final class CommandLine {
+
+    private CommandLine() {
+    }
+
+    /**
+     * Lê os argumentos como pares "--chave valor", pela ordem em que aparecem.
+     * @param args Os argumentos de main.
+     * @return As opções, sem o prefixo "--".
+     * @throws IllegalArgumentException se uma chave não começar por "--".
+     */
+    public static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Opção inválida: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Lê uma lista de inteiros (ver parseLongs).
+     */
+    public static List<Integer> parseInts(String spec) {
+        List<Integer> values = new ArrayList<>();
+        for (long v : parseLongs(spec)) {
+            values.add(Math.toIntExact(v));
+        }
+        return values;
+    }
+
+    /**
+     * Lê uma lista separada por vírgulas, em que cada elemento é um número ou um intervalo "a-b".
+     * @param spec A lista (ex.: "1-10" ou "2,5,10").
+     * @return Os valores, pela ordem indicada.
+     */
+    public static List<Long> parseLongs(String spec) {
+        List<Long> values = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            int dash = part.indexOf('-', 1);
+            if (dash > 0) {
+                long from = Long.parseLong(part.substring(0, dash).trim());
+                long to = Long.parseLong(part.substring(dash + 1).trim());
+                for (long v = from; v <= to; v++) {
+                    values.add(v);
+                }
+            } else {
+                values.add(Long.parseLong(part.trim()));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,429 @@
+package util;
+
+import model.DemandSource;
+import model.FleetMix;
+import model.World;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Procura a partir de contagens de detetores: cada registo (tick de início, estrada, contagem) diz
+ * quantos veículos entraram numa estrada num período de intervalo ticks, e essas chegadas são
+ * pedidas ao World (pelo VehicleInjector) espalhadas uniformemente pelo período.
+ *
+ * O ficheiro é mapeado em memória (em segmentos de 1 GB, pelo que pode ter vários GB) e lido à
+ * medida que o tempo da simulação avança: o heap guarda apenas o cursor e a contagem em curso de
+ * cada estrada. Os registos têm de estar ordenados pelo tick de início, o que permite encontrar o
+ * ponto de partida por pesquisa binária diretamente no ficheiro, sem índice em memória (também
+ * depois de um salto no tempo, ex.: restore de um snapshot).
+ *
+ * Vários registos da mesma estrada com o mesmo tick de início (ex.: um por via ou por detetor)
+ * somam-se; um registo que comece antes do fim do período em curso da estrada é um erro.
+ *
+ * A classe de cada chegada é sorteada a partir de (estrada, início do período, índice da chegada no
+ * período) e não da sequência de chegadas anteriores, pelo que um salto no tempo sorteia as mesmas
+ * classes que a execução original. Pela mesma razão, copy() (réplicas do World para previsão) só
+ * precisa de partilhar o ficheiro mapeado: cada cópia tem o seu cursor.
+ *
+ * Formatos:
+ *   - binário: int MAGIC, int versão, int intervalo, seguido de registos de 3 ints big-endian
+ *     (tick, estrada, contagem); ver convertCsv();
+ *   - CSV: linhas "tick,estrada,contagem", com cabeçalho opcional; o intervalo é indicado ao abrir.
+ *
+ * Uso (conversão de CSV para binário): java util.CountTraceDemand contagens.csv contagens.bin intervalo
+ */
+public class CountTraceDemand implements DemandSource, AutoCloseable {
+    public static final int MAGIC = 0x434E5431; // "CNT1"
+    public static final int VERSION = 1;
+    private static final int BINARY_HEADER = 12;
+    private static final int RECORD_BYTES = 12;
+    private static final int SEGMENT_SHIFT = 30; // Segmentos de 1 GB
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private static final long CLASS_STREAM = 0x7472616365L; // Fluxo aleatório das classes dos veículos ("trace")
+
+    private final FileChannel channel;
+    private final boolean sharedChannel; // Cópia: o canal pertence à fonte original
+    private final MappedByteBuffer[] segments;
+    private final long size;
+    private final boolean binary;
+    private final long dataStart;
+    private final int interval;
+    private FleetMix fleetMix; // null = a composição de cada estrada no World
+
+    // Cursor e contagens em curso (por estrada)
+    private long position = -1; // Próximo registo por ler (-1 = ainda não posicionado)
+    private int lastTick = Integer.MIN_VALUE;
+    private int lastRecordTick = Integer.MIN_VALUE;
+    private final Map<Integer, int[]> active = new HashMap<>(); // Estrada -> {início, contagem, emitidos}
+    private final int[] record = new int[3]; // Último registo lido (reutilizado)
+    private RandomStream random; // Estado reposto em cada chegada (ver classSeed)
+    private long classSeed;
+
+    // Estatísticas
+    private long recordsRead = 0;
+    private long arrivals = 0;
+    private long refused = 0;
+    private long foreignRecords = 0; // Registos de estradas que não pertencem a este World
+
+    /**
+     * Abre um ficheiro de contagens binário (com o intervalo no cabeçalho).
+     * @param file O ficheiro.
+     * @throws IOException se o ficheiro não puder ser lido ou não for um ficheiro binário de contagens.
+     */
+    public CountTraceDemand(Path file) throws IOException {
+        this(file, -1);
+    }
+
+    /**
+     * Abre um ficheiro de contagens binário ou CSV (detetado pelo conteúdo).
+     * @param file O ficheiro.
+     * @param csvInterval A duração, em ticks, do período de cada contagem no formato CSV.
+     * @throws IOException se o ficheiro não puder ser lido ou for inválido.
+     */
+    public CountTraceDemand(Path file, int csvInterval) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.sharedChannel = false;
+        try {
+            this.size = channel.size();
+            int segmentCount = (int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            this.segments = new MappedByteBuffer[segmentCount];
+            for (int s = 0; s < segmentCount; s++) {
+                long start = (long) s << SEGMENT_SHIFT;
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, SEGMENT_MASK + 1));
+                segments[s].order(ByteOrder.BIG_ENDIAN);
+            }
+            this.binary = size >= BINARY_HEADER && intAt(0) == MAGIC;
+            if (binary) {
+                if (intAt(4) != VERSION) {
+                    throw new IOException("Versão de contagens não suportada: " + intAt(4));
+                }
+                this.interval = intAt(8);
+                this.dataStart = BINARY_HEADER;
+                if ((size - dataStart) % RECORD_BYTES != 0) {
+                    throw new IOException("Ficheiro de contagens truncado: " + file);
+                }
+            } else {
+                this.interval = csvInterval;
+                this.dataStart = size > 0 && !isDigit(byteAt(0)) ? nextLineStart(0) : 0; // Salta o cabeçalho
+            }
+            if (interval < 1) {
+                throw new IOException("Intervalo das contagens inválido: " + interval);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Construtor de cópia: partilha o ficheiro mapeado (só de leitura) e começa sem cursor.
+     */
+    private CountTraceDemand(CountTraceDemand source) {
+        this.channel = source.channel;
+        this.sharedChannel = true;
+        this.segments = source.segments;
+        this.size = source.size;
+        this.binary = source.binary;
+        this.dataStart = source.dataStart;
+        this.interval = source.interval;
+        this.fleetMix = source.fleetMix;
+    }
+
+    /**
+     * Cria uma cópia com o seu próprio cursor, que se posiciona no primeiro tick pedido (para as
+     * réplicas do World). Só a original fecha o ficheiro.
+     */
+    @Override
+    public CountTraceDemand copy() {
+        return new CountTraceDemand(this);
+    }
+
+    /**
+     * Define a composição da frota das chegadas (por omissão, a de cada estrada no World).
+     */
+    public void setFleetMix(FleetMix fleetMix) {
+        this.fleetMix = fleetMix;
+    }
+
+    @Override
+    public void generate(World world, int tick) {
+        if (random == null) {
+            random = RandomStream.forStream(world.getSeed(), CLASS_STREAM, world.isAntithetic());
+            classSeed = random.getState();
+        }
+        if (position < 0 || tick != lastTick + 1) {
+            // Primeiro tick ou salto no tempo: recomeça nos registos cujo período ainda não terminou
+            active.clear();
+            position = seek(tick - interval + 1);
+            lastRecordTick = Integer.MIN_VALUE;
+        }
+        lastTick = tick;
+
+        // Novos períodos que começam até este tick
+        while (position < size && peekTick() <= tick) {
+            position = readRecord(position);
+            recordsRead++;
+            if (record[0] < lastRecordTick) {
+                throw new IllegalStateException("Contagens fora de ordem no tick " + record[0]);
+            }
+            lastRecordTick = record[0];
+            if (world.getRoad(record[1]) == null) {
+                foreignRecords++;
+                continue;
+            }
+            if (record[2] > 0 && record[0] + interval > tick) {
+                int[] period = active.get(record[1]);
+                if (period == null) {
+                    active.put(record[1], period = new int[] {record[0], 0, 0});
+                } else if (period[0] != record[0]) {
+                    throw new IllegalStateException("Contagens sobrepostas na estrada " + record[1] + ": o período do tick "
+                            + record[0] + " começa antes do fim do período do tick " + period[0]);
+                }
+                // Vários registos da mesma estrada e período (ex.: um por via) somam-se. Depois de um
+                // salto, as chegadas dos ticks anteriores do período já não são pedidas
+                period[1] += record[2];
+                period[2] = (int) ((long) period[1] * Math.max(0, tick - record[0]) / interval);
+            }
+        }
+
+        // Chegadas do tick: a contagem acumulada até ao fim do tick, espalhada pelo período
+        Iterator<Map.Entry<Integer, int[]>> it = active.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, int[]> entry = it.next();
+            int[] period = entry.getValue();
+            int elapsed = tick - period[0] + 1;
+            int due = (int) ((long) period[1] * Math.min(elapsed, interval) / interval);
+            for (; period[2] < due; period[2]++) {
+                FleetMix mix = fleetMix != null ? fleetMix : world.getFleetMix(entry.getKey());
+                random.setState(classSeed ^ entry.getKey() * 0xD1B54A32D192ED03L
+                        ^ period[0] * 0x9E3779B97F4A7C15L ^ period[2] * 0xC2B2AE3D27D4EB4FL);
+                if (world.getVehicleInjector().submit(entry.getKey(), mix.sample(random))) {
+                    arrivals++;
+                } else {
+                    refused++;
+                }
+            }
+            if (elapsed >= interval) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Encontra o primeiro registo com tick de início >= tick, por pesquisa binária no ficheiro.
+     */
+    private long seek(int tick) {
+        if (binary) {
+            long lo = 0;
+            long hi = (size - dataStart) / RECORD_BYTES;
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (intAt(dataStart + mid * RECORD_BYTES) >= tick) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return dataStart + lo * RECORD_BYTES;
+        }
+        // CSV: pesquisa sobre as posições em bytes, alinhando cada uma ao início da linha seguinte
+        long lo = dataStart;
+        long hi = size;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            long line = lineStartAtOrAfter(mid);
+            if (line >= size || csvTickAt(line) >= tick) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lineStartAtOrAfter(lo);
+    }
+
+    /**
+     * Obtém o tick do próximo registo (o cursor tem de estar antes do fim).
+     */
+    private int peekTick() {
+        return binary ? intAt(position) : csvTickAt(position);
+    }
+
+    /**
+     * Lê o registo na posição indicada para record e devolve a posição do seguinte.
+     */
+    private long readRecord(long pos) {
+        if (binary) {
+            record[0] = intAt(pos);
+            record[1] = intAt(pos + 4);
+            record[2] = intAt(pos + 8);
+            return pos + RECORD_BYTES;
+        }
+        for (int field = 0; field < 3; field++) {
+            int value = 0;
+            while (pos < size && !isDigit(byteAt(pos))) {
+                pos++;
+            }
+            while (pos < size && isDigit(byteAt(pos))) {
+                value = value * 10 + (byteAt(pos) - '0');
+                pos++;
+            }
+            record[field] = value;
+        }
+        return lineStartAtOrAfter(pos);
+    }
+
+    private int csvTickAt(long pos) {
+        int value = 0;
+        while (pos < size && isDigit(byteAt(pos))) {
+            value = value * 10 + (byteAt(pos) - '0');
+            pos++;
+        }
+        return value;
+    }
+
+    /**
+     * Obtém o início da primeira linha que começa em pos ou depois (saltando linhas vazias).
+     */
+    private long lineStartAtOrAfter(long pos) {
+        if (pos <= dataStart) {
+            pos = dataStart;
+        } else if (byteAt(pos - 1) != '\n') {
+            pos = nextLineStart(pos);
+        }
+        while (pos < size && !isDigit(byteAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private long nextLineStart(long pos) {
+        while (pos < size && byteAt(pos) != '\n') {
+            pos++;
+        }
+        return Math.min(size, pos + 1);
+    }
+
+    private byte byteAt(long pos) {
+        return segments[(int) (pos >>> SEGMENT_SHIFT)].get((int) (pos & SEGMENT_MASK));
+    }
+
+    private int intAt(long pos) {
+        int offset = (int) (pos & SEGMENT_MASK);
+        MappedByteBuffer segment = segments[(int) (pos >>> SEGMENT_SHIFT)];
+        if (offset + 4 <= segment.limit()) {
+            return segment.getInt(offset);
+        }
+        // Inteiro partido entre dois segmentos
+        return (byteAt(pos) & 0xFF) << 24 | (byteAt(pos + 1) & 0xFF) << 16
+                | (byteAt(pos + 2) & 0xFF) << 8 | (byteAt(pos + 3) & 0xFF);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Converte contagens CSV ("tick,estrada,contagem", ordenadas por tick) para o formato binário,
+     * linha a linha (sem carregar o ficheiro).
+     * @param csv O ficheiro CSV.
+     * @param binaryFile O ficheiro binário a criar.
+     * @param interval A duração, em ticks, do período de cada contagem.
+     * @return O número de registos escritos.
+     * @throws IOException se a leitura ou a escrita falhar.
+     */
+    public static long convertCsv(Path csv, Path binaryFile, int interval) throws IOException {
+        long records = 0;
+        try (BufferedReader reader = Files.newBufferedReader(csv);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     Files.newOutputStream(binaryFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(interval);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || !Character.isDigit(line.charAt(0))) {
+                    continue; // Cabeçalho ou linha vazia
+                }
+                String[] fields = line.split(",");
+                out.writeInt(Integer.parseInt(fields[0].trim()));
+                out.writeInt(Integer.parseInt(fields[1].trim()));
+                out.writeInt(Integer.parseInt(fields[2].trim()));
+                records++;
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!sharedChannel) {
+            channel.close(); // Os segmentos mapeados são libertados pelo GC
+        }
+    }
+
+    // Getters
+    public boolean isBinary() {
+        return binary;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public long getFileSize() {
+        return size;
+    }
+
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+    /**
+     * Obtém o número de chegadas pedidas ao World.
+     */
+    public long getArrivals() {
+        return arrivals;
+    }
+
+    /**
+     * Obtém o número de chegadas recusadas pelo VehicleInjector (demasiados pedidos por retirar).
+     */
+    public long getRefused() {
+        return refused;
+    }
+
+    /**
+     * Obtém o número de registos de estradas que não pertencem a este World (ignorados).
+     */
+    public long getForeignRecords() {
+        return foreignRecords;
+    }
+
+    /**
+     * Obtém o número de estradas com um período de contagem em curso.
+     */
+    public int getActiveRoadCount() {
+        return active.size();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Uso: java util.CountTraceDemand contagens.csv contagens.bin intervalo");
+            return;
+        }
+        long records = convertCsv(Path.of(args[0]), Path.of(args[1]), Integer.parseInt(args[2]));
+        System.out.println(records + " registos convertidos para " + args[1]);
+    }
+}
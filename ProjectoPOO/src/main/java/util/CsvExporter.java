@@ -1,8 +1,12 @@
 package util;
 
+import model.Detector;
+
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Utilitário para exportar métricas para CSV.
@@ -19,4 +23,25 @@ public class CsvExporter {
             System.err.println("Erro ao exportar CSV: " + e.getMessage());
         }
     }
+
+    /**
+     * Exporta as leituras dos detetores: o último intervalo e a média de todos os intervalos completos.
+     */
+    public static void exportDetectors(List<Detector> detectors, String filename) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            writer.println("Road,Detector,Intervals,Count,Flow,Occupancy,Density,MeanSpeed,"
+                    + "TotalCount,TotalOccupancy,TotalDensity,TotalMeanSpeed");
+            for (Detector d : detectors) {
+                writer.println(d.getRoadId() + "," + d.getName() + "," + d.getIntervals() + "," + d.getCount() + ","
+                        + String.format(Locale.ROOT, "%.4f,%.4f,%.4f,%.4f,", d.getFlow(), d.getOccupancy(),
+                                d.getDensity(), d.getMeanSpeed())
+                        + d.getTotalCount() + ","
+                        + String.format(Locale.ROOT, "%.4f,%.4f,%.4f", d.getTotalOccupancy(),
+                                d.getTotalDensity(), d.getTotalMeanSpeed()));
+            }
+            System.out.println("Detetores exportados para " + filename);
+        } catch (IOException e) {
+            System.err.println("Erro ao exportar CSV: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,362 @@
+package util;
+
+import controller.PredictiveCycle;
+import controller.StrategyFactory;
+import model.ArrivalProcess;
+import model.FleetMix;
+import model.Incident;
+import model.RoadModel;
+import model.World;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Executa uma grelha de experiências (estratégia x intervalo de geração x cenário x semente)
+ * com instâncias de World independentes em paralelo, num ForkJoinPool com um trabalhador por núcleo.
+ * Cada execução é escrita no CSV de execuções assim que termina; no fim é gerado um resumo
+ * com a média e o intervalo de confiança a 95% de cada configuração (agregando as sementes).
+ *
+ * Uso: java util.ExperimentRunner [opções]
+ *   --strategies FixedCycle,AdaptiveCycle
+ *   --intervals 2,5,10
+ *   --seeds 1-10          (lista ou intervalo)
+ *   --crossings 1,4
+ *   --model MICROSCOPIC   (ou MESOSCOPIC)
+ *   --ticks 3600          (com --precision, o máximo de ticks de cada execução)
+ *   --precision 0.05      (termina cada execução quando os IC95 da espera e da fila, depois do
+ *                          aquecimento detetado por MSER, têm semi-amplitude relativa <= 5%)
+ *   --batch 10            (ticks por lote na deteção do estado estacionário)
+ *   --threads N           (por omissão, o número de núcleos)
+ *   --trips CSV           (ou BINARY: grava as viagens de cada execução em prefixo_trips_*.gz)
+ *   --incidents CLOSURE:5:600:1200,BLOCKAGE:1:300:900:60   (tipo:estrada:início:fim[:valor], em todas as execuções)
+ *   --fleet CAR:0.8,TRUCK:0.1,EMERGENCY:0.1   (composição da frota; por omissão EMERGENCY:0.1,CAR:0.9)
+ *   --out experiment      (prefixo dos ficheiros _runs.csv e _summary.csv)
+ */
+public class ExperimentRunner {
+
+    /**
+     * Cenário de uma execução: número de cruzamentos e modelo de estrada.
+     */
+    public record Scenario(int crossings, RoadModel roadModel) {
+        @Override
+        public String toString() {
+            return crossings + "x" + roadModel;
+        }
+    }
+
+    /**
+     * Configuração de uma execução individual.
+     * @param antithetic Se a execução usa os geradores antitéticos (ver World(long, boolean)).
+     */
+    public record RunConfig(String strategy, int generationInterval, Scenario scenario, long seed, boolean antithetic) {
+        public RunConfig(String strategy, int generationInterval, Scenario scenario, long seed) {
+            this(strategy, generationInterval, scenario, seed, false);
+        }
+    }
+
+    /**
+     * Regra de paragem: aquecimento por MSER e precisão relativa dos intervalos de confiança.
+     */
+    public record StoppingRule(int batchTicks, double relativePrecision, int minBatches) {
+    }
+
+    /**
+     * Resultado de uma execução individual. Com regra de paragem, as médias são as do estado
+     * estacionário (sem os warmupTicks iniciais) e os intervalos de confiança são os da própria execução.
+     */
+    public record RunResult(RunConfig config, int ticks, int vehiclesServed, double averageWaitingTime,
+                            double averageQueueLength, long wallNanos, int warmupTicks,
+                            double waitingTimeHalfWidth, double queueLengthHalfWidth) {
+    }
+
+    private final List<String> strategies;
+    private final List<Integer> intervals;
+    private final List<Scenario> scenarios;
+    private final List<Long> seeds;
+    private final int ticks;
+    private TripLog.Format tripFormat; // null = sem registo de viagens
+    private String tripPrefix;
+    private StoppingRule stoppingRule; // null = execuções com duração fixa
+    private List<Incident> incidents = List.of();
+    private FleetMix fleetMix = FleetMix.DEFAULT;
+
+    public ExperimentRunner(List<String> strategies, List<Integer> intervals, List<Scenario> scenarios,
+                            List<Long> seeds, int ticks) {
+        this.strategies = strategies;
+        this.intervals = intervals;
+        this.scenarios = scenarios;
+        this.seeds = seeds;
+        this.ticks = ticks;
+    }
+
+    /**
+     * Ativa o registo de viagens de cada execução (um ficheiro por execução).
+     * @param format O formato dos ficheiros.
+     * @param prefix O prefixo dos nomes dos ficheiros.
+     */
+    public void setTripLog(TripLog.Format format, String prefix) {
+        this.tripFormat = format;
+        this.tripPrefix = prefix;
+    }
+
+    /**
+     * Ativa a paragem automática de cada execução (ticks passa a ser o máximo).
+     * @param rule A regra de paragem, ou null para duração fixa.
+     */
+    public void setStoppingRule(StoppingRule rule) {
+        this.stoppingRule = rule;
+    }
+
+    /**
+     * Define os incidentes programados em todas as execuções.
+     * @param incidents Os incidentes (lista vazia = sem incidentes).
+     */
+    public void setIncidents(List<Incident> incidents) {
+        this.incidents = incidents;
+    }
+
+    /**
+     * Define a composição da frota gerada em todas as execuções.
+     * @param fleetMix A composição.
+     */
+    public void setFleetMix(FleetMix fleetMix) {
+        this.fleetMix = fleetMix;
+    }
+
+    /**
+     * Gera todas as combinações da grelha.
+     * @return A lista de configurações a executar.
+     */
+    public List<RunConfig> expandGrid() {
+        List<RunConfig> configs = new ArrayList<>();
+        for (String strategy : strategies) {
+            for (int interval : intervals) {
+                for (Scenario scenario : scenarios) {
+                    for (long seed : seeds) {
+                        configs.add(new RunConfig(strategy, interval, scenario, seed));
+                    }
+                }
+            }
+        }
+        return configs;
+    }
+
+    /**
+     * Executa a grelha em paralelo, escrevendo cada execução no CSV à medida que termina.
+     * @param threads O número de trabalhadores do pool.
+     * @param runsFile O ficheiro CSV das execuções individuais.
+     * @return Os resultados de todas as execuções.
+     */
+    public List<RunResult> run(int threads, String runsFile) throws IOException, InterruptedException {
+        List<RunConfig> configs = expandGrid();
+        List<RunResult> results = new ArrayList<>(configs.size());
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (PrintWriter writer = new PrintWriter(new FileWriter(runsFile))) {
+            CompletionService<RunResult> completion = new ExecutorCompletionService<>(pool);
+            for (RunConfig config : configs) {
+                completion.submit(() -> simulate(config, ticks, tripFile(config), stoppingRule, incidents, fleetMix));
+            }
+
+            writer.println("Strategy,GenerationInterval,Scenario,Seed,Ticks,VehiclesServed,AverageWaitingTime,"
+                    + "AverageQueueLength,WallMillis,WarmupTicks,WaitingTimeCI95,QueueLengthCI95");
+            for (int i = 0; i < configs.size(); i++) {
+                RunResult result = completion.take().get();
+                results.add(result);
+                RunConfig c = result.config();
+                writer.printf("%s,%d,%s,%d,%d,%d,%.4f,%.4f,%.1f,%d,%.4f,%.4f%n",
+                        c.strategy(), c.generationInterval(), c.scenario(), c.seed(), result.ticks(),
+                        result.vehiclesServed(), result.averageWaitingTime(), result.averageQueueLength(),
+                        result.wallNanos() / 1e6, result.warmupTicks(), result.waitingTimeHalfWidth(),
+                        result.queueLengthHalfWidth());
+                writer.flush();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha numa execução da experiência", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    private String tripFile(RunConfig c) {
+        if (tripFormat == null) {
+            return null;
+        }
+        return String.format("%s_trips_%s_%d_%s_%d.%s.gz", tripPrefix, c.strategy(), c.generationInterval(),
+                c.scenario(), c.seed(), tripFormat == TripLog.Format.CSV ? "csv" : "bin");
+    }
+
+    /**
+     * Executa uma simulação completa sem interface gráfica.
+     * @param config A configuração da execução.
+     * @param ticks O número de ticks a simular.
+     * @return O resultado da execução.
+     */
+    public static RunResult simulate(RunConfig config, int ticks) {
+        return simulate(config, ticks, ArrivalProcess.FIXED);
+    }
+
+    /**
+     * Executa uma simulação completa sem interface gráfica, com o processo de chegada indicado
+     * (usado também pelo StrategyComparison).
+     * @see #simulate(RunConfig, int)
+     */
+    static RunResult simulate(RunConfig config, int ticks, ArrivalProcess arrivalProcess) {
+        try {
+            return simulate(config, ticks, null, null, List.of(), FleetMix.DEFAULT, arrivalProcess);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Não acontece sem registo de viagens
+        }
+    }
+
+    /**
+     * Executa uma simulação completa sem interface gráfica, gravando opcionalmente as viagens.
+     * @param config A configuração da execução.
+     * @param ticks O número de ticks a simular.
+     * @param tripFile O ficheiro de viagens (formato pela extensão: .csv.gz ou binário), ou null.
+     * @param stoppingRule A regra de paragem antecipada, ou null para simular todos os ticks.
+     * @return O resultado da execução.
+     * @throws IOException se o registo de viagens falhar.
+     */
+    public static RunResult simulate(RunConfig config, int ticks, String tripFile, StoppingRule stoppingRule)
+            throws IOException {
+        return simulate(config, ticks, tripFile, stoppingRule, List.of(), FleetMix.DEFAULT);
+    }
+
+    /**
+     * Executa uma simulação completa sem interface gráfica, com incidentes programados.
+     * @param incidents Os incidentes a programar no World da execução.
+     * @param fleetMix A composição da frota gerada.
+     * @see #simulate(RunConfig, int, String, StoppingRule)
+     */
+    public static RunResult simulate(RunConfig config, int ticks, String tripFile, StoppingRule stoppingRule,
+                                     List<Incident> incidents, FleetMix fleetMix) throws IOException {
+        return simulate(config, ticks, tripFile, stoppingRule, incidents, fleetMix, ArrivalProcess.FIXED);
+    }
+
+    private static RunResult simulate(RunConfig config, int ticks, String tripFile, StoppingRule stoppingRule,
+                                      List<Incident> incidents, FleetMix fleetMix, ArrivalProcess arrivalProcess)
+            throws IOException {
+        long start = System.nanoTime();
+        World world = new World(config.seed(), config.antithetic());
+        world.setupGridScenario(config.scenario().crossings(), config.scenario().roadModel());
+        for (Incident incident : incidents) {
+            world.scheduleIncident(incident);
+        }
+        world.setTrafficStrategy(StrategyFactory.create(config.strategy(), PredictiveCycle.NO_DEADLINE));
+        world.setVehicleGenerationInterval(config.generationInterval());
+        world.setFleetMix(fleetMix);
+        world.setArrivalProcess(arrivalProcess);
+        TripLog tripLog = null;
+        if (tripFile != null) {
+            tripLog = new TripLog(tripFile, tripFile.endsWith(".csv.gz") ? TripLog.Format.CSV : TripLog.Format.BINARY);
+            world.setTripLog(tripLog);
+        }
+        SteadyStateDetector detector = stoppingRule == null ? null : new SteadyStateDetector(
+                stoppingRule.batchTicks(), stoppingRule.relativePrecision(), stoppingRule.minBatches());
+        world.start();
+        int executed = 0;
+        try {
+            while (executed < ticks) {
+                world.tick();
+                executed++;
+                if (detector != null && detector.observe(world.getMetrics())) {
+                    break; // Estimativas estáveis: o resto da execução não mudaria a resposta
+                }
+            }
+        } finally {
+            if (tripLog != null) {
+                tripLog.close();
+            }
+        }
+        Metrics metrics = world.getMetrics();
+        if (detector != null && detector.hasEstimate()) {
+            return new RunResult(config, executed, metrics.getTotalVehiclesServed(), detector.getWaitingTimeEstimate(),
+                    detector.getQueueLengthEstimate(), System.nanoTime() - start, detector.getWarmupTicks(),
+                    detector.getWaitingTimeHalfWidth(), detector.getQueueLengthHalfWidth());
+        }
+        return new RunResult(config, executed, metrics.getTotalVehiclesServed(), metrics.getAverageWaitingTime(),
+                metrics.getAverageQueueLength(), System.nanoTime() - start, 0, 0.0, 0.0);
+    }
+
+    /**
+     * Escreve o resumo por configuração (sementes agregadas) com intervalos de confiança a 95%.
+     * @param results Os resultados das execuções.
+     * @param filename O ficheiro CSV de destino.
+     */
+    public static void exportSummary(List<RunResult> results, String filename) {
+        // Agrupa por configuração ignorando a semente, preservando a ordem da grelha
+        Map<String, List<RunResult>> groups = new LinkedHashMap<>();
+        for (RunResult result : results) {
+            RunConfig c = result.config();
+            String key = c.strategy() + "," + c.generationInterval() + "," + c.scenario();
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(result);
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            writer.println("Strategy,GenerationInterval,Scenario,Runs,AverageWaitingTime,AverageWaitingTimeCI95,"
+                    + "AverageQueueLength,AverageQueueLengthCI95,VehiclesServed,VehiclesServedCI95");
+            for (Map.Entry<String, List<RunResult>> entry : groups.entrySet()) {
+                List<RunResult> group = entry.getValue();
+                double[] waits = group.stream().mapToDouble(RunResult::averageWaitingTime).toArray();
+                double[] queues = group.stream().mapToDouble(RunResult::averageQueueLength).toArray();
+                double[] served = group.stream().mapToDouble(RunResult::vehiclesServed).toArray();
+                writer.printf("%s,%d,%.4f,%.4f,%.4f,%.4f,%.1f,%.1f%n", entry.getKey(), group.size(),
+                        Statistics.mean(waits), Statistics.halfWidth95(waits),
+                        Statistics.mean(queues), Statistics.halfWidth95(queues),
+                        Statistics.mean(served), Statistics.halfWidth95(served));
+            }
+            System.out.println("Resumo exportado para " + filename);
+        } catch (IOException e) {
+            System.err.println("Erro ao exportar CSV: " + e.getMessage());
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = CommandLine.parseOptions(args);
+        List<String> strategies = Arrays.asList(options.getOrDefault("strategies", "FixedCycle,AdaptiveCycle").split(","));
+        List<Integer> intervals = CommandLine.parseInts(options.getOrDefault("intervals", "2,5,10"));
+        List<Long> seeds = CommandLine.parseLongs(options.getOrDefault("seeds", "1-10"));
+        RoadModel model = RoadModel.valueOf(options.getOrDefault("model", "MICROSCOPIC"));
+        List<Scenario> scenarios = new ArrayList<>();
+        for (int crossings : CommandLine.parseInts(options.getOrDefault("crossings", "1"))) {
+            scenarios.add(new Scenario(crossings, model));
+        }
+        int ticks = Integer.parseInt(options.getOrDefault("ticks", "3600"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        String out = options.getOrDefault("out", "experiment");
+
+        ExperimentRunner runner = new ExperimentRunner(strategies, intervals, scenarios, seeds, ticks);
+        if (options.containsKey("precision")) {
+            runner.setStoppingRule(new StoppingRule(Integer.parseInt(options.getOrDefault("batch", "10")),
+                    Double.parseDouble(options.get("precision")), 10));
+        }
+        if (options.containsKey("trips")) {
+            runner.setTripLog(TripLog.Format.valueOf(options.get("trips")), out);
+        }
+        if (options.containsKey("incidents")) {
+            runner.setIncidents(Incident.parseList(options.get("incidents")));
+        }
+        if (options.containsKey("fleet")) {
+            runner.setFleetMix(FleetMix.parse(options.get("fleet")));
+        }
+        int runs = runner.expandGrid().size();
+        System.out.printf("A executar %d simulações em %d threads...%n", runs, threads);
+        long start = System.nanoTime();
+        List<RunResult> results = runner.run(threads, out + "_runs.csv");
+        System.out.printf("Concluído em %.1f s%n", (System.nanoTime() - start) / 1e9);
+        exportSummary(results, out + "_summary.csv");
+    }
+}
@@ -0,0 +1,192 @@
+package util;
+
+import model.World;
+import model.WorldSnapshot;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Recuo no tempo em memória: guarda um WorldSnapshot (keyframe) a cada interval ticks e, para
+ * mostrar um tick qualquer, repõe o keyframe anterior e simula os ticks que faltam. Como a
+ * simulação é determinista, o resultado é o estado exato desse tick, e um salto custa no máximo
+ * interval - 1 ticks de simulação. A exceção é o PredictiveCycle com prazo (o da interface): os ticks
+ * refeitos depois do keyframe podem tomar decisões diferentes das originais.
+ *
+ * A memória dos keyframes é limitada por um orçamento: quando é ultrapassado, os keyframes mais
+ * antigos são descartados (e deixa de ser possível recuar até eles).
+ */
+public class KeyframeHistory {
+    private final int interval;
+    private final long memoryBudgetBytes;
+    private final TreeMap<Integer, WorldSnapshot> keyframes = new TreeMap<>();
+    private long usedBytes = 0;
+    private int lastTick = 0; // Último tick simulado (o limite dos saltos para a frente)
+    private long evicted = 0;
+
+    /**
+     * Construtor para KeyframeHistory.
+     * @param interval Os ticks entre keyframes.
+     * @param memoryBudgetBytes A memória máxima ocupada pelos keyframes.
+     */
+    public KeyframeHistory(int interval, long memoryBudgetBytes) {
+        if (interval < 1 || memoryBudgetBytes < 1) {
+            throw new IllegalArgumentException("Parâmetros de recuo inválidos");
+        }
+        this.interval = interval;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /**
+     * Regista o fim de um tick: guarda um keyframe se já passaram interval ticks desde o último.
+     * @param world O mundo da simulação.
+     */
+    public void onTick(World world) {
+        int time = world.getSimulationTime();
+        lastTick = Math.max(lastTick, time);
+        Map.Entry<Integer, WorldSnapshot> latest = keyframes.lastEntry();
+        if (latest == null || time - latest.getKey() >= interval) {
+            capture(world);
+        }
+    }
+
+    /**
+     * Guarda um keyframe do tick atual. Deve ser chamado depois de qualquer alteração feita de fora
+     * da simulação (estratégia, intervalo de geração), para que a repetição dos ticks seguintes a use.
+     * @param world O mundo da simulação.
+     */
+    public void capture(World world) {
+        WorldSnapshot snapshot = world.snapshot();
+        WorldSnapshot replaced = keyframes.put(snapshot.getSimulationTime(), snapshot);
+        if (replaced != null) {
+            usedBytes -= replaced.getEstimatedBytes();
+        }
+        usedBytes += snapshot.getEstimatedBytes();
+        lastTick = Math.max(lastTick, snapshot.getSimulationTime());
+        while (usedBytes > memoryBudgetBytes && keyframes.size() > 1) {
+            usedBytes -= keyframes.pollFirstEntry().getValue().getEstimatedBytes();
+            evicted++;
+        }
+    }
+
+    /**
+     * Leva o mundo ao estado de um tick entre getFirstTick() e getLastTick().
+     * A gravação de trajetórias e o registo de viagens ficam suspensos durante a repetição.
+     * @param world O mundo (do mesmo cenário dos keyframes).
+     * @param tick O tick pretendido (limitado ao intervalo disponível).
+     * @return O tick efetivamente mostrado.
+     * @throws IllegalStateException se ainda não houver keyframes.
+     */
+    public int seek(World world, int tick) {
+        return seek(world, tick, null);
+    }
+
+    /**
+     * Como seek(World, int), mas deixa também o histórico dos gráficos no tick mostrado: as amostras
+     * posteriores são descartadas e as que faltam são registadas durante a repetição. Se o histórico
+     * acabar longe do tick pretendido (mais do que a janela dos gráficos) ou antes do keyframe mais
+     * antigo, recomeça no keyframe de onde parte a repetição.
+     * @param history O histórico dos gráficos (pode ser null).
+     */
+    public int seek(World world, int tick, SimulationHistory history) {
+        if (keyframes.isEmpty()) {
+            throw new IllegalStateException("Não há keyframes");
+        }
+        int target = Math.max(getFirstTick(), Math.min(tick, lastTick));
+        Map.Entry<Integer, WorldSnapshot> keyframe = keyframes.floorEntry(target);
+        int recordedUpTo = -1; // Último tick que o histórico já tem
+        boolean restartHistory = false;
+        if (history != null) {
+            recordedUpTo = history.truncate(target);
+            Map.Entry<Integer, WorldSnapshot> earlier = keyframes.floorEntry(recordedUpTo);
+            if (earlier == null || target - recordedUpTo > history.getWindowTicks()) {
+                restartHistory = true;
+            } else {
+                keyframe = earlier; // A repetição parte de antes do fim do histórico
+            }
+        }
+        world.restore(keyframe.getValue());
+        if (restartHistory) {
+            history.clear(world);
+            recordedUpTo = keyframe.getKey();
+        } else if (history != null && recordedUpTo == keyframe.getKey()) {
+            history.resume(world);
+        }
+
+        TrajectoryRecorder recorder = world.getTrajectoryRecorder();
+        TripLog tripLog = world.getTripLog();
+        boolean running = world.isRunning();
+        world.setTrajectoryRecorder(null);
+        world.setTripLog(null);
+        world.start();
+        try {
+            while (world.getSimulationTime() < target) {
+                world.tick();
+                int time = world.getSimulationTime();
+                if (history != null && time > recordedUpTo) {
+                    history.record(world);
+                } else if (history != null && time == recordedUpTo) {
+                    history.resume(world);
+                }
+            }
+        } finally {
+            if (!running) {
+                world.stop();
+            }
+            world.setTrajectoryRecorder(recorder);
+            world.setTripLog(tripLog);
+        }
+        return world.getSimulationTime();
+    }
+
+    /**
+     * Descarta o futuro depois do tick indicado (a simulação continua a partir daí e pode divergir).
+     * @param tick O tick atual.
+     */
+    public void truncateAfter(int tick) {
+        while (!keyframes.isEmpty() && keyframes.lastKey() > tick) {
+            usedBytes -= keyframes.pollLastEntry().getValue().getEstimatedBytes();
+        }
+        lastTick = tick;
+    }
+
+    /**
+     * Remove todos os keyframes (ex.: depois de reiniciar a simulação).
+     */
+    public void clear() {
+        keyframes.clear();
+        usedBytes = 0;
+        lastTick = 0;
+    }
+
+    // Getters
+    /**
+     * Obtém o tick mais antigo a que se pode voltar.
+     */
+    public int getFirstTick() {
+        return keyframes.isEmpty() ? 0 : keyframes.firstKey();
+    }
+
+    /**
+     * Obtém o tick mais recente simulado.
+     */
+    public int getLastTick() {
+        return lastTick;
+    }
+
+    public int getKeyframeCount() {
+        return keyframes.size();
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getEvictedCount() {
+        return evicted;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+}
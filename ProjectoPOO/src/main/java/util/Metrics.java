@@ -1,15 +1,14 @@
 package util;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Classe para recolha e cálculo de métricas da simulação.
  */
 public class Metrics {
     private int totalVehiclesServed = 0;
     private long totalWaitingTime = 0;
-    private final List<Integer> queueLengths = new ArrayList<>();
+    // Soma e número de amostras de fila (a média não requer guardar cada amostra)
+    private long totalQueueLength = 0;
+    private long queueSamples = 0;
 
     public void recordVehicleServed(int waitingTime) {
         totalVehiclesServed++;
@@ -17,7 +16,8 @@ public class Metrics {
     }
 
     public void recordQueueLength(int length) {
-        queueLengths.add(length);
+        totalQueueLength += length;
+        queueSamples++;
     }
 
     public double getAverageWaitingTime() {
@@ -29,12 +29,36 @@ public class Metrics {
     }
 
     public double getAverageQueueLength() {
-        return queueLengths.stream().mapToInt(Integer::intValue).average().orElse(0.0);
+        return queueSamples == 0 ? 0.0 : (double) totalQueueLength / queueSamples;
+    }
+
+    /**
+     * Acrescenta os totais de outra simulação (ex.: de outra partição da mesma rede).
+     * Como todas as métricas são somas, o resultado é igual ao de uma simulação única.
+     */
+    public void addTotals(int vehiclesServed, long waitingTime, long queueLength, long samples) {
+        totalVehiclesServed += vehiclesServed;
+        totalWaitingTime += waitingTime;
+        totalQueueLength += queueLength;
+        queueSamples += samples;
+    }
+
+    public long getTotalWaitingTime() {
+        return totalWaitingTime;
+    }
+
+    public long getTotalQueueLength() {
+        return totalQueueLength;
+    }
+
+    public long getQueueSamples() {
+        return queueSamples;
     }
 
     public void reset() {
         totalVehiclesServed = 0;
         totalWaitingTime = 0;
-        queueLengths.clear();
+        totalQueueLength = 0;
+        queueSamples = 0;
     }
 }
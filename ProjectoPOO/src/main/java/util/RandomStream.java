@@ -0,0 +1,90 @@
+package util;
+
+/**
+ * Gerador pseudo-aleatório SplitMix64 com semente explícita.
+ * Ao contrário de Math.random(), permite repetir exatamente uma execução a partir da semente
+ * e ler/repor o estado interno.
+ *
+ * Um gerador antitético devolve 1.0 - u em vez de cada u do gerador normal com a mesma semente
+ * (exato, porque u é múltiplo de 2^-53). A única exceção é u = 0, em que devolve o maior double
+ * abaixo de 1 para se manter em [0, 1). Duas execuções com a mesma semente, uma normal e outra
+ * antitética, ficam negativamente correlacionadas, e a média das duas varia menos do que a média de
+ * duas execuções independentes.
+ */
+public class RandomStream {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+    private final boolean antithetic;
+
+    public RandomStream(long seed) {
+        this(seed, false);
+    }
+
+    /**
+     * Construtor para RandomStream.
+     * @param seed A semente.
+     * @param antithetic Se nextDouble() devolve os valores antitéticos (1 - u).
+     */
+    public RandomStream(long seed, boolean antithetic) {
+        this.state = seed;
+        this.antithetic = antithetic;
+    }
+
+    /**
+     * Cria um gerador independente para um fluxo identificado dentro da mesma execução
+     * (ex.: a procura de uma estrada). O resultado depende apenas da semente e do id do fluxo,
+     * e não da ordem em que os fluxos são usados.
+     * @param seed A semente da execução.
+     * @param streamId O identificador do fluxo.
+     * @return O gerador do fluxo.
+     */
+    public static RandomStream forStream(long seed, long streamId) {
+        return forStream(seed, streamId, false);
+    }
+
+    /**
+     * Cria um gerador independente para um fluxo, normal ou antitético.
+     * @param antithetic Se o gerador devolve os valores antitéticos do fluxo.
+     * @see #forStream(long, long)
+     */
+    public static RandomStream forStream(long seed, long streamId, boolean antithetic) {
+        RandomStream mixer = new RandomStream(seed ^ (streamId * 0xD1B54A32D192ED03L));
+        return new RandomStream(mixer.nextLong(), antithetic);
+    }
+
+    /**
+     * Obtém o próximo valor uniforme em [0, 1).
+     * @return O valor gerado.
+     */
+    public double nextDouble() {
+        double u = (nextLong() >>> 11) * 0x1.0p-53;
+        if (!antithetic) {
+            return u;
+        }
+        return u == 0.0 ? Math.nextDown(1.0) : 1.0 - u;
+    }
+
+    /**
+     * Obtém o próximo valor de 64 bits.
+     * @return O valor gerado.
+     */
+    public long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public boolean isAntithetic() {
+        return antithetic;
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,24 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento JFR da atualização de uma estrada. Com o limiar por omissão só as estradas
+ * anormalmente lentas (outliers) são gravadas.
+ */
+@Name("traffic.RoadUpdate")
+@Label("Road Update")
+@Category("Traffic Simulation")
+@Description("Atualização dos veículos de uma estrada que excedeu o limiar")
+@Threshold("100 us")
+class RoadUpdateEvent extends jdk.jfr.Event {
+    @Label("Road Id")
+    int roadId;
+
+    @Label("Vehicles")
+    int vehicles;
+}
@@ -0,0 +1,162 @@
+package util;
+
+import model.Intersection;
+import model.Road;
+import model.TrafficLight;
+import model.World;
+
+import java.util.List;
+
+/**
+ * Histórico recente da simulação para os gráficos da interface: débito (veículos servidos por
+ * tick), tempo de espera médio, fila de cada aproximação e fase do semáforo de cada aproximação.
+ * Cada série é um TimeSeriesBuffer, pelo que a memória e o custo de desenho são constantes.
+ * As aproximações são as estradas da primeira intersecção.
+ *
+ * Cada amostra corresponde a um tick e os ticks são consecutivos; ao recuar no tempo,
+ * truncate() descarta as amostras posteriores ao tick mostrado (ver KeyframeHistory.seek).
+ */
+public class SimulationHistory {
+    private final int approaches;
+    private final TimeSeriesBuffer throughput;
+    private final TimeSeriesBuffer waitingTime;
+    private final TimeSeriesBuffer[] queues;
+    private final TimeSeriesBuffer[] phases; // Ordinal de TrafficLightState (o último do balde)
+    private int lastServed;
+    private int samples; // Amostras registadas desde a última limpeza
+    private int lastTick = -1; // Tick da amostra mais recente
+
+    /**
+     * Construtor para SimulationHistory.
+     * @param capacity O número de pontos de cada série.
+     * @param ticksPerBucket Os ticks agregados em cada ponto (a janela tem capacity * ticksPerBucket ticks).
+     * @param approaches O número de aproximações a seguir.
+     */
+    public SimulationHistory(int capacity, int ticksPerBucket, int approaches) {
+        this.approaches = approaches;
+        this.throughput = new TimeSeriesBuffer(capacity, ticksPerBucket);
+        this.waitingTime = new TimeSeriesBuffer(capacity, ticksPerBucket);
+        this.queues = new TimeSeriesBuffer[approaches];
+        this.phases = new TimeSeriesBuffer[approaches];
+        for (int i = 0; i < approaches; i++) {
+            queues[i] = new TimeSeriesBuffer(capacity, ticksPerBucket);
+            phases[i] = new TimeSeriesBuffer(capacity, ticksPerBucket);
+        }
+    }
+
+    /**
+     * Regista o estado do mundo depois de um tick (custo proporcional ao número de aproximações).
+     * @param world O mundo da simulação.
+     */
+    public void record(World world) {
+        samples++;
+        lastTick = world.getSimulationTime();
+        Metrics metrics = world.getMetrics();
+        int served = metrics.getTotalVehiclesServed();
+        throughput.add(served - lastServed);
+        lastServed = served;
+        waitingTime.add(metrics.getAverageWaitingTime());
+
+        List<Intersection> intersections = world.getIntersections();
+        List<Road> roads = intersections.isEmpty() ? List.of() : intersections.get(0).getRoads();
+        for (int i = 0; i < approaches; i++) {
+            Road road = i < roads.size() ? roads.get(i) : null;
+            TrafficLight light = road != null ? road.getTrafficLight() : null;
+            queues[i].add(road != null ? road.getVehiclesInQueue() : 0);
+            phases[i].add(light != null ? light.getState().ordinal() : -1);
+        }
+    }
+
+    /**
+     * Limpa o histórico (ex.: depois de reiniciar a simulação).
+     * @param world O mundo, cujos totais atuais passam a ser a referência.
+     */
+    public void clear(World world) {
+        throughput.clear();
+        waitingTime.clear();
+        for (int i = 0; i < approaches; i++) {
+            queues[i].clear();
+            phases[i].clear();
+        }
+        samples = 0;
+        lastTick = -1;
+        resume(world);
+    }
+
+    /**
+     * Descarta as amostras dos ticks posteriores a tick. Só se guardam baldes completos, pelo que
+     * o balde que contém tick também é descartado: os ticks a partir de getLastTick() + 1 têm de
+     * voltar a ser registados (depois de resume() no estado desse tick).
+     * @param tick O último tick a manter.
+     * @return O tick da amostra mais recente que ficou, ou -1 se o histórico ficou vazio.
+     */
+    public int truncate(int tick) {
+        if (samples == 0 || tick >= lastTick) {
+            return lastTick;
+        }
+        int ticksPerBucket = throughput.getSamplesPerBucket();
+        int firstTick = lastTick - samples + 1;
+        int keptBuckets = Math.max(0, tick - firstTick + 1) / ticksPerBucket;
+        int removed = samples / ticksPerBucket - keptBuckets;
+        throughput.removeNewest(removed);
+        waitingTime.removeNewest(removed);
+        for (int i = 0; i < approaches; i++) {
+            queues[i].removeNewest(removed);
+            phases[i].removeNewest(removed);
+        }
+        samples = keptBuckets * ticksPerBucket;
+        lastTick = samples == 0 ? -1 : firstTick + samples - 1;
+        return lastTick;
+    }
+
+    /**
+     * Retoma o registo a partir do estado atual do mundo, que deve estar no tick getLastTick()
+     * (o débito da amostra seguinte é medido a partir dos totais atuais).
+     * @param world O mundo da simulação.
+     */
+    public void resume(World world) {
+        lastServed = world.getMetrics().getTotalVehiclesServed();
+    }
+
+    // Getters
+    public int getApproaches() {
+        return approaches;
+    }
+
+    /**
+     * Obtém o tick da amostra mais recente (-1 se o histórico estiver vazio).
+     */
+    public int getLastTick() {
+        return lastTick;
+    }
+
+    /**
+     * Obtém o número de ticks que o histórico consegue mostrar.
+     */
+    public int getWindowTicks() {
+        return throughput.getCapacity() * throughput.getSamplesPerBucket();
+    }
+
+    public TimeSeriesBuffer getThroughput() {
+        return throughput;
+    }
+
+    public TimeSeriesBuffer getWaitingTime() {
+        return waitingTime;
+    }
+
+    public TimeSeriesBuffer getQueue(int approach) {
+        return queues[approach];
+    }
+
+    public TimeSeriesBuffer getPhase(int approach) {
+        return phases[approach];
+    }
+
+    /**
+     * Obtém a versão da série de débito, que muda a cada ponto novo (todas as séries avançam juntas).
+     */
+    public long getVersion() {
+        return throughput.getVersion();
+    }
+}
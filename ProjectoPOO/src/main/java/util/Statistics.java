@@ -0,0 +1,74 @@
+package util;
+
+/**
+ * Funções estatísticas simples sobre amostras de execuções independentes.
+ */
+public class Statistics {
+    // Valores críticos t de Student (bilateral, 95%) para 1..30 graus de liberdade
+    private static final double[] T_95 = {
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+    private static final double Z_975 = 1.959964; // Quantil 97.5% da normal padrão
+
+    private Statistics() {
+    }
+
+    public static double mean(double[] values) {
+        if (values.length == 0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (double v : values) {
+            sum += v;
+        }
+        return sum / values.length;
+    }
+
+    /**
+     * Desvio padrão amostral (divisor n - 1).
+     */
+    public static double stdDev(double[] values) {
+        if (values.length < 2) {
+            return 0.0;
+        }
+        double mean = mean(values);
+        double sumSq = 0.0;
+        for (double v : values) {
+            sumSq += (v - mean) * (v - mean);
+        }
+        return Math.sqrt(sumSq / (values.length - 1));
+    }
+
+    /**
+     * Semi-amplitude do intervalo de confiança a 95% para a média.
+     * @param values As amostras (uma por execução).
+     * @return A semi-amplitude, ou 0 se houver menos de 2 amostras.
+     */
+    public static double halfWidth95(double[] values) {
+        if (values.length < 2) {
+            return 0.0;
+        }
+        return tCritical95(values.length - 1) * stdDev(values) / Math.sqrt(values.length);
+    }
+
+    /**
+     * Valor crítico t de Student a 95% (bilateral).
+     * @param degreesOfFreedom Os graus de liberdade (>= 1).
+     * @return O valor crítico (tabela até 30; acima, expansão de Cornish–Fisher em torno do
+     *         quantil normal, com erro inferior a 0.001).
+     */
+    public static double tCritical95(int degreesOfFreedom) {
+        if (degreesOfFreedom <= T_95.length) {
+            return T_95[Math.max(1, degreesOfFreedom) - 1];
+        }
+        double z = Z_975;
+        double z2 = z * z;
+        double v = degreesOfFreedom;
+        return z
+                + z * (z2 + 1) / (4 * v)
+                + z * ((5 * z2 + 16) * z2 + 3) / (96 * v * v)
+                + z * (((3 * z2 + 19) * z2 + 17) * z2 - 15) / (384 * v * v * v);
+    }
+}
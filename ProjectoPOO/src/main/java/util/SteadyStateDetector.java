@@ -0,0 +1,217 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Deteção do fim do aquecimento e do momento em que uma execução já tem precisão suficiente.
+ *
+ * As métricas acumuladas são lidas a cada batchTicks ticks e transformadas em médias por lote
+ * (tempo de espera dos veículos servidos no lote e fila média por estrada e tick). Os lotes sem
+ * saídas não têm observações de espera e ficam fora da série de espera. O aquecimento
+ * é cortado pela regra MSER (Marginal Standard Error Rule): o corte d minimiza
+ * sum_{i>d} (x_i - média_d)^2 / (n - d)^2, procurado na primeira metade da série (um corte no
+ * limite dessa metade significa que o aquecimento ainda não terminou); o corte final é o maior dos
+ * dois, contado em lotes da série de fila. Depois do corte,
+ * as médias por lote são agrupadas em até MAX_ESTIMATE_BATCHES lotes maiores (método das médias
+ * por lotes) para o intervalo de confiança a 95%. A execução pode terminar quando a semi-amplitude
+ * relativa dos dois intervalos (espera e fila) for menor ou igual à precisão pedida.
+ */
+public class SteadyStateDetector {
+    private static final int MAX_ESTIMATE_BATCHES = 20;
+
+    private final int batchTicks;
+    private final double relativePrecision;
+    private final int minBatches; // Mínimo de lotes depois do aquecimento para aceitar o resultado
+
+    private int ticksInBatch = 0;
+    private int batchCount = 0;
+    private int waitingCount = 0; // Lotes com saídas
+    private double[] waitingMeans = new double[256]; // Apenas dos lotes com saídas
+    private int[] waitingBatches = new int[256]; // Lote de cada média de espera
+    private double[] queueMeans = new double[256];
+    private long lastServed;
+    private long lastWaiting;
+    private long lastQueueLength;
+    private long lastQueueSamples;
+
+    // Resultado da última análise
+    private boolean analyzed = false; // Já há lotes suficientes para estimar
+    private boolean converged = false;
+    private int warmupBatches = 0;
+    private double waitingEstimate;
+    private double waitingHalfWidth;
+    private double queueEstimate;
+    private double queueHalfWidth;
+
+    /**
+     * Construtor para SteadyStateDetector.
+     * @param batchTicks Os ticks de cada lote.
+     * @param relativePrecision A semi-amplitude relativa pretendida (ex.: 0.05 para +-5%).
+     * @param minBatches O número mínimo de lotes depois do aquecimento.
+     */
+    public SteadyStateDetector(int batchTicks, double relativePrecision, int minBatches) {
+        if (batchTicks < 1 || relativePrecision <= 0 || minBatches < 2) {
+            throw new IllegalArgumentException("Parâmetros de deteção inválidos");
+        }
+        this.batchTicks = batchTicks;
+        this.relativePrecision = relativePrecision;
+        this.minBatches = minBatches;
+    }
+
+    /**
+     * Regista um tick. A cada batchTicks ticks fecha um lote e reavalia o aquecimento e a precisão.
+     * @param metrics As métricas da execução (apenas os totais são lidos).
+     * @return true se a execução já pode terminar.
+     */
+    public boolean observe(Metrics metrics) {
+        if (++ticksInBatch < batchTicks) {
+            return converged;
+        }
+        ticksInBatch = 0;
+
+        long served = metrics.getTotalVehiclesServed();
+        long waiting = metrics.getTotalWaitingTime();
+        long queueLength = metrics.getTotalQueueLength();
+        long queueSamples = metrics.getQueueSamples();
+        long servedInBatch = served - lastServed;
+        long samplesInBatch = queueSamples - lastQueueSamples;
+        double queueMean = samplesInBatch > 0 ? (double) (queueLength - lastQueueLength) / samplesInBatch : 0.0;
+        if (servedInBatch > 0) {
+            if (waitingCount == waitingMeans.length) {
+                waitingMeans = Arrays.copyOf(waitingMeans, waitingCount * 2);
+                waitingBatches = Arrays.copyOf(waitingBatches, waitingCount * 2);
+            }
+            waitingMeans[waitingCount] = (double) (waiting - lastWaiting) / servedInBatch;
+            waitingBatches[waitingCount] = batchCount;
+            waitingCount++;
+        }
+        lastServed = served;
+        lastWaiting = waiting;
+        lastQueueLength = queueLength;
+        lastQueueSamples = queueSamples;
+
+        if (batchCount == queueMeans.length) {
+            queueMeans = Arrays.copyOf(queueMeans, batchCount * 2);
+        }
+        queueMeans[batchCount] = queueMean;
+        batchCount++;
+
+        analyze();
+        return converged;
+    }
+
+    private void analyze() {
+        if (batchCount < 2 * minBatches || waitingCount < 2 * minBatches) {
+            return;
+        }
+        analyzed = true;
+        int waitingCut = mserTruncation(waitingMeans, waitingCount);
+        int queueCut = mserTruncation(queueMeans, batchCount);
+        int cut = Math.max(queueCut, waitingBatches[waitingCut]); // O corte da espera passa a lotes
+        int firstWaiting = waitingCut; // Primeira média de espera depois do corte
+        while (firstWaiting < waitingCount && waitingBatches[firstWaiting] < cut) {
+            firstWaiting++;
+        }
+        int waitingAfterCut = waitingCount - firstWaiting;
+        warmupBatches = cut;
+        double[] waiting = estimate(waitingMeans, waitingAfterCut > 0 ? firstWaiting : waitingCut, waitingCount);
+        double[] queue = estimate(queueMeans, cut, batchCount);
+        waitingEstimate = waiting[0];
+        waitingHalfWidth = waiting[1];
+        queueEstimate = queue[0];
+        queueHalfWidth = queue[1];
+        // Um corte no limite da procura indica que a série ainda está em transição
+        converged = cut < batchCount / 2 && waitingCut < waitingCount / 2
+                && batchCount - cut >= minBatches && waitingAfterCut >= minBatches
+                && waitingHalfWidth <= relativePrecision * Math.abs(waitingEstimate)
+                && queueHalfWidth <= relativePrecision * Math.abs(queueEstimate);
+    }
+
+    /**
+     * Corte MSER: o número de lotes iniciais a descartar (entre 0 e n / 2).
+     */
+    static int mserTruncation(double[] x, int n) {
+        // Somas a partir do fim, para avaliar todos os cortes numa só passagem
+        double sum = 0.0;
+        double sumSq = 0.0;
+        double[] suffixSum = new double[n + 1];
+        double[] suffixSumSq = new double[n + 1];
+        for (int i = n - 1; i >= 0; i--) {
+            sum += x[i];
+            sumSq += x[i] * x[i];
+            suffixSum[i] = sum;
+            suffixSumSq[i] = sumSq;
+        }
+        int best = 0;
+        double bestValue = Double.MAX_VALUE;
+        for (int d = 0; d <= n / 2; d++) {
+            int m = n - d;
+            double squares = suffixSumSq[d] - suffixSum[d] * suffixSum[d] / m; // sum (x_i - média)^2
+            double value = squares / ((double) m * m);
+            if (value < bestValue) {
+                bestValue = value;
+                best = d;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Média e semi-amplitude a 95% pelas médias de lotes, depois de descartar os primeiros "cut".
+     */
+    private static double[] estimate(double[] x, int cut, int n) {
+        int m = n - cut;
+        int groups = Math.min(MAX_ESTIMATE_BATCHES, m);
+        int size = m / groups;
+        int start = n - groups * size; // Os lotes excedentes são descartados no início (mais perto do aquecimento)
+        double[] means = new double[groups];
+        for (int g = 0; g < groups; g++) {
+            double sum = 0.0;
+            for (int i = 0; i < size; i++) {
+                sum += x[start + g * size + i];
+            }
+            means[g] = sum / size;
+        }
+        return new double[]{Statistics.mean(means), Statistics.halfWidth95(means)};
+    }
+
+    // Getters
+    /**
+     * Indica se já houve lotes suficientes para cortar o aquecimento e estimar as médias
+     * (mesmo que ainda sem a precisão pedida).
+     */
+    public boolean hasEstimate() {
+        return analyzed;
+    }
+
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * Obtém os ticks descartados como aquecimento (segundo a última análise).
+     */
+    public int getWarmupTicks() {
+        return warmupBatches * batchTicks;
+    }
+
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    public double getWaitingTimeEstimate() {
+        return waitingEstimate;
+    }
+
+    public double getWaitingTimeHalfWidth() {
+        return waitingHalfWidth;
+    }
+
+    public double getQueueLengthEstimate() {
+        return queueEstimate;
+    }
+
+    public double getQueueLengthHalfWidth() {
+        return queueHalfWidth;
+    }
+}
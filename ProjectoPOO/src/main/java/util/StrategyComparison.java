@@ -0,0 +1,270 @@
+package util;
+
+import model.ArrivalProcess;
+import model.RoadModel;
+import util.ExperimentRunner.RunConfig;
+import util.ExperimentRunner.RunResult;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compara estratégias com números aleatórios comuns (CRN): em cada replicação, todas as estratégias
+ * correm com a mesma semente e, como cada estrada tem geradores próprios para as chegadas e para as
+ * classes dos veículos (ver World), recebem exatamente a mesma procura. A diferença entre estratégias
+ * é então estimada pelas diferenças emparelhadas por replicação, cuja variância é muito menor do que
+ * a da diferença entre médias de execuções independentes.
+ *
+ * Com variáveis antitéticas, cada replicação é um par de execuções com a mesma semente (geradores
+ * normais e antitéticos, ver RandomStream) e a observação é a média do par.
+ *
+ * O resumo indica, por métrica, a diferença média para a estratégia de referência (a primeira) com
+ * o intervalo de confiança a 95% emparelhado, o intervalo que se obteria com o mesmo número de
+ * execuções independentes (estimado a partir das execuções normais), o fator de redução da variância
+ * e o número de execuções independentes por estratégia que dariam a mesma precisão.
+ *
+ * Uso: java util.StrategyComparison [opções]
+ *   --strategies FixedCycle,AdaptiveCycle   (a primeira é a referência)
+ *   --interval 5
+ *   --crossings 1
+ *   --model MICROSCOPIC   (ou MESOSCOPIC)
+ *   --arrivals POISSON    (ou FIXED: só as classes dos veículos são aleatórias)
+ *   --ticks 3600
+ *   --seeds 1-10          (lista ou intervalo; uma replicação por semente)
+ *   --antithetic true     (pares antitéticos em cada replicação)
+ *   --threads N           (por omissão, o número de núcleos)
+ *   --out comparison      (prefixo dos ficheiros _runs.csv e _summary.csv)
+ */
+public class StrategyComparison {
+    private static final String[] METRICS = {"AverageWaitingTime", "AverageQueueLength", "VehiclesServed"};
+
+    /**
+     * Comparação de uma estratégia com a referência numa métrica.
+     */
+    public record Difference(String strategy, String baseline, String metric, int replications,
+                             double baselineMean, double strategyMean, double meanDifference,
+                             double pairedHalfWidth, double independentHalfWidth, double varianceReduction,
+                             double equivalentIndependentRuns) {
+    }
+
+    private final List<String> strategies;
+    private final int generationInterval;
+    private final ExperimentRunner.Scenario scenario;
+    private final List<Long> seeds;
+    private final int ticks;
+    private ArrivalProcess arrivalProcess = ArrivalProcess.POISSON;
+    private boolean antithetic = true;
+
+    public StrategyComparison(List<String> strategies, int generationInterval, ExperimentRunner.Scenario scenario,
+                              List<Long> seeds, int ticks) {
+        if (strategies.size() < 2) {
+            throw new IllegalArgumentException("São precisas pelo menos duas estratégias");
+        }
+        if (seeds.size() < 2) {
+            throw new IllegalArgumentException("São precisas pelo menos duas replicações");
+        }
+        this.strategies = strategies;
+        this.generationInterval = generationInterval;
+        this.scenario = scenario;
+        this.seeds = seeds;
+        this.ticks = ticks;
+    }
+
+    /**
+     * Define o processo de chegada de todas as execuções (por omissão POISSON).
+     */
+    public void setArrivalProcess(ArrivalProcess arrivalProcess) {
+        this.arrivalProcess = arrivalProcess;
+    }
+
+    /**
+     * Ativa ou desativa os pares antitéticos (por omissão ativos).
+     */
+    public void setAntithetic(boolean antithetic) {
+        this.antithetic = antithetic;
+    }
+
+    /**
+     * Executa todas as replicações em paralelo, escrevendo cada execução no CSV assim que termina.
+     * @param threads O número de trabalhadores do pool.
+     * @param runsFile O ficheiro CSV das execuções individuais.
+     * @return Os resultados de todas as execuções.
+     */
+    public List<RunResult> run(int threads, String runsFile) throws IOException, InterruptedException {
+        int runs = 0;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<RunResult> results = new ArrayList<>();
+        try (PrintWriter writer = new PrintWriter(new FileWriter(runsFile))) {
+            CompletionService<RunResult> completion = new ExecutorCompletionService<>(pool);
+            for (long seed : seeds) {
+                for (String strategy : strategies) {
+                    completion.submit(() -> simulate(strategy, seed, false));
+                    runs++;
+                    if (antithetic) {
+                        completion.submit(() -> simulate(strategy, seed, true));
+                        runs++;
+                    }
+                }
+            }
+
+            writer.println("Strategy,Seed,Antithetic,VehiclesServed,AverageWaitingTime,AverageQueueLength,WallMillis");
+            for (int i = 0; i < runs; i++) {
+                RunResult result = completion.take().get();
+                results.add(result);
+                RunConfig c = result.config();
+                writer.printf("%s,%d,%b,%d,%.4f,%.4f,%.1f%n", c.strategy(), c.seed(), c.antithetic(),
+                        result.vehiclesServed(), result.averageWaitingTime(), result.averageQueueLength(),
+                        result.wallNanos() / 1e6);
+                writer.flush();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha numa execução da comparação", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Executa uma simulação completa sem interface gráfica (ver ExperimentRunner.simulate).
+     * @param strategy O nome da estratégia.
+     * @param seed A semente (a mesma para todas as estratégias da replicação).
+     * @param antitheticRun Se a execução usa os geradores antitéticos.
+     * @return O resultado da execução.
+     */
+    public RunResult simulate(String strategy, long seed, boolean antitheticRun) {
+        return ExperimentRunner.simulate(new RunConfig(strategy, generationInterval, scenario, seed, antitheticRun),
+                ticks, arrivalProcess);
+    }
+
+    /**
+     * Calcula as diferenças emparelhadas de cada estratégia para a referência, por métrica.
+     * @param results Os resultados de run().
+     * @return Uma diferença por estratégia (exceto a referência) e por métrica.
+     */
+    public List<Difference> compare(List<RunResult> results) {
+        Map<String, RunResult> byRun = new HashMap<>();
+        for (RunResult result : results) {
+            RunConfig c = result.config();
+            byRun.put(key(c.strategy(), c.seed(), c.antithetic()), result);
+        }
+        int n = seeds.size();
+        int runsPerStrategy = antithetic ? 2 * n : n;
+        String baseline = strategies.get(0);
+
+        List<Difference> differences = new ArrayList<>();
+        for (int s = 1; s < strategies.size(); s++) {
+            String strategy = strategies.get(s);
+            for (int m = 0; m < METRICS.length; m++) {
+                double[] base = new double[n];
+                double[] other = new double[n];
+                double[] paired = new double[n];
+                double[] baseSingle = new double[n]; // Só as execuções normais (independentes entre sementes)
+                double[] otherSingle = new double[n];
+                for (int i = 0; i < n; i++) {
+                    long seed = seeds.get(i);
+                    baseSingle[i] = metric(byRun.get(key(baseline, seed, false)), m);
+                    otherSingle[i] = metric(byRun.get(key(strategy, seed, false)), m);
+                    base[i] = observation(byRun, baseline, seed, m);
+                    other[i] = observation(byRun, strategy, seed, m);
+                    paired[i] = other[i] - base[i];
+                }
+
+                // Variância da diferença de médias com o mesmo número de execuções independentes
+                double sdBase = Statistics.stdDev(baseSingle);
+                double sdOther = Statistics.stdDev(otherSingle);
+                double independentVariance = (sdBase * sdBase + sdOther * sdOther) / runsPerStrategy;
+                double sdPaired = Statistics.stdDev(paired);
+                double pairedVariance = sdPaired * sdPaired / n;
+                double reduction = pairedVariance > 0 ? independentVariance / pairedVariance
+                        : independentVariance > 0 ? Double.POSITIVE_INFINITY : 1.0;
+
+                differences.add(new Difference(strategy, baseline, METRICS[m], n, Statistics.mean(base),
+                        Statistics.mean(other), Statistics.mean(paired), Statistics.halfWidth95(paired),
+                        Statistics.tCritical95(2 * runsPerStrategy - 2) * Math.sqrt(independentVariance),
+                        reduction, runsPerStrategy * reduction));
+            }
+        }
+        return differences;
+    }
+
+    private double observation(Map<String, RunResult> byRun, String strategy, long seed, int m) {
+        double value = metric(byRun.get(key(strategy, seed, false)), m);
+        if (antithetic) {
+            value = (value + metric(byRun.get(key(strategy, seed, true)), m)) / 2.0;
+        }
+        return value;
+    }
+
+    // Métrica m de METRICS
+    private static double metric(RunResult result, int m) {
+        return switch (m) {
+            case 0 -> result.averageWaitingTime();
+            case 1 -> result.averageQueueLength();
+            default -> result.vehiclesServed();
+        };
+    }
+
+    private static String key(String strategy, long seed, boolean antithetic) {
+        return strategy + "," + seed + "," + antithetic;
+    }
+
+    /**
+     * Escreve as diferenças emparelhadas num CSV e mostra-as na consola.
+     * @param differences As diferenças calculadas por compare().
+     * @param filename O ficheiro CSV de destino.
+     */
+    public static void exportSummary(List<Difference> differences, String filename) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            writer.println("Strategy,Baseline,Metric,Replications,BaselineMean,StrategyMean,MeanDifference,"
+                    + "PairedCI95,IndependentCI95,VarianceReduction,EquivalentIndependentRuns");
+            for (Difference d : differences) {
+                writer.printf("%s,%s,%s,%d,%.4f,%.4f,%.4f,%.4f,%.4f,%.2f,%.1f%n", d.strategy(), d.baseline(),
+                        d.metric(), d.replications(), d.baselineMean(), d.strategyMean(), d.meanDifference(),
+                        d.pairedHalfWidth(), d.independentHalfWidth(), d.varianceReduction(),
+                        d.equivalentIndependentRuns());
+                System.out.printf("%s - %s | %s: %.4f ± %.4f (independentes: ± %.4f) | Variância / %.1f"
+                                + " | Equivale a %.0f execuções independentes por estratégia%n",
+                        d.strategy(), d.baseline(), d.metric(), d.meanDifference(), d.pairedHalfWidth(),
+                        d.independentHalfWidth(), d.varianceReduction(), d.equivalentIndependentRuns());
+            }
+            System.out.println("Resumo exportado para " + filename);
+        } catch (IOException e) {
+            System.err.println("Erro ao exportar CSV: " + e.getMessage());
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = CommandLine.parseOptions(args);
+        List<String> strategies = Arrays.asList(options.getOrDefault("strategies", "FixedCycle,AdaptiveCycle").split(","));
+        int interval = Integer.parseInt(options.getOrDefault("interval", "5"));
+        ExperimentRunner.Scenario scenario = new ExperimentRunner.Scenario(
+                Integer.parseInt(options.getOrDefault("crossings", "1")),
+                RoadModel.valueOf(options.getOrDefault("model", "MICROSCOPIC")));
+        List<Long> seeds = CommandLine.parseLongs(options.getOrDefault("seeds", "1-10"));
+        int ticks = Integer.parseInt(options.getOrDefault("ticks", "3600"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        String out = options.getOrDefault("out", "comparison");
+
+        StrategyComparison comparison = new StrategyComparison(strategies, interval, scenario, seeds, ticks);
+        comparison.setArrivalProcess(ArrivalProcess.valueOf(options.getOrDefault("arrivals", "POISSON")));
+        comparison.setAntithetic(Boolean.parseBoolean(options.getOrDefault("antithetic", "true")));
+        System.out.printf("A comparar %s em %d replicações%s...%n", strategies, seeds.size(),
+                comparison.antithetic ? " (pares antitéticos)" : "");
+        long start = System.nanoTime();
+        List<RunResult> results = comparison.run(threads, out + "_runs.csv");
+        System.out.printf("%d execuções em %.1f s%n", results.size(), (System.nanoTime() - start) / 1e9);
+        exportSummary(comparison.compare(results), out + "_summary.csv");
+    }
+}
@@ -0,0 +1,246 @@
+package util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import controller.StrategyFactory;
+import model.RoadModel;
+import model.World;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Servidor HTTP embutido para observar e controlar uma simulação a correr (ex.: sem interface
+ * gráfica, num servidor). As leituras devolvem o último TelemetrySnapshot publicado pelo World,
+ * pelo que nunca bloqueiam a thread da simulação; as operações de controlo são entregues ao
+ * World como comandos e executadas no início do tick seguinte.
+ *
+ * O endpoint /control altera a simulação e não tem autenticação, pelo que por omissão o servidor só
+ * aceita ligações locais (endereço de loopback); ouvir noutra interface tem de ser pedido com --bind.
+ *
+ * Endpoints:
+ *   GET  /metrics   agregados (ticks/s, veículos, métricas)
+ *   GET  /status    agregados e fila/veículos de cada estrada
+ *   POST /control?action=start|stop|reset
+ *   POST /control?action=strategy&amp;value=AdaptiveCycle
+ *   POST /control?action=interval&amp;value=3
+ *
+ * Uso sem interface gráfica: java util.TelemetryServer [opções]
+ *   --port 8080
+ *   --bind 127.0.0.1      (endereço onde ouvir; 0.0.0.0 expõe o controlo sem autenticação a toda a rede)
+ *   --crossings 4
+ *   --model MICROSCOPIC
+ *   --strategy FixedCycle
+ *   --interval 5
+ *   --seed N
+ *   --tps 0               (ticks por segundo; 0 = o mais rápido possível)
+ *   --ticks 0             (0 = até ser terminado)
+ *   --period 250          (milissegundos entre snapshots)
+ */
+public class TelemetryServer implements AutoCloseable {
+    private final World world;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Inicia o servidor para um World, só acessível localmente (loopback).
+     * A telemetria do World tem de estar ativa (setTelemetryPeriod).
+     * @param world O mundo a observar.
+     * @param port A porta TCP (0 = escolhida pelo sistema).
+     * @throws IOException se a porta não puder ser usada.
+     */
+    public TelemetryServer(World world, int port) throws IOException {
+        this(world, InetAddress.getLoopbackAddress(), port);
+    }
+
+    /**
+     * Inicia o servidor para um World num endereço escolhido.
+     * @param world O mundo a observar.
+     * @param bindAddress O endereço onde ouvir (o controlo não tem autenticação: evitar endereços públicos).
+     * @param port A porta TCP (0 = escolhida pelo sistema).
+     * @throws IOException se a porta não puder ser usada.
+     */
+    public TelemetryServer(World world, InetAddress bindAddress, int port) throws IOException {
+        this.world = world;
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        // Uma única thread chega: cada pedido só serializa um snapshot já pronto
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "telemetry-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", exchange -> handleSnapshot(exchange, false));
+        server.createContext("/status", exchange -> handleSnapshot(exchange, true));
+        server.createContext("/control", this::handleControl);
+        server.start();
+    }
+
+    private void handleSnapshot(HttpExchange exchange, boolean includeRoads) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "{\"error\":\"Método não suportado\"}");
+            return;
+        }
+        TelemetrySnapshot snapshot = world.getTelemetrySnapshot();
+        if (snapshot == null) {
+            respond(exchange, 503, "{\"error\":\"Telemetria desativada\"}");
+            return;
+        }
+        respond(exchange, 200, snapshot.toJson(includeRoads));
+    }
+
+    private void handleControl(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, 405, "{\"error\":\"Método não suportado\"}");
+            return;
+        }
+        Consumer<World> command;
+        try {
+            Map<String, String> query = parseQuery(exchange.getRequestURI());
+            command = parseCommand(query.getOrDefault("action", ""), query.get("value"));
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, "{\"error\":\"" + e.getMessage().replace("\"", "'") + "\"}");
+            return;
+        }
+        world.submitCommand(command);
+        respond(exchange, 202, "{\"accepted\":true}");
+    }
+
+    /**
+     * Converte um pedido de controlo num comando, validando-o já na thread do servidor
+     * para que os erros sejam devolvidos ao cliente.
+     */
+    private static Consumer<World> parseCommand(String action, String value) {
+        switch (action) {
+            case "start":
+                return World::start;
+            case "stop":
+                return World::stop;
+            case "reset":
+                return World::reset;
+            case "strategy": {
+                StrategyFactory.create(value == null ? "" : value); // Valida o nome
+                String name = value;
+                return w -> w.setTrafficStrategy(StrategyFactory.create(name));
+            }
+            case "interval": {
+                int interval;
+                try {
+                    interval = Integer.parseInt(value == null ? "" : value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Intervalo inválido: " + value);
+                }
+                if (interval < 1) {
+                    throw new IllegalArgumentException("Intervalo inválido: " + value);
+                }
+                return w -> w.setVehicleGenerationInterval(interval);
+            }
+            default:
+                throw new IllegalArgumentException("Ação desconhecida: " + action);
+        }
+    }
+
+    private static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> query = new LinkedHashMap<>();
+        String raw = uri.getRawQuery(); // Separa pelos '&' antes de descodificar (um valor pode conter %26)
+        if (raw == null) {
+            return query;
+        }
+        try {
+            for (String pair : raw.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                } else if (!pair.isEmpty()) {
+                    query.put(URLDecoder.decode(pair, StandardCharsets.UTF_8), "");
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Parâmetros mal codificados: " + raw);
+        }
+        return query;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Obtém a porta em que o servidor está a ouvir.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Para o servidor.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = CommandLine.parseOptions(args);
+        int port = Integer.parseInt(options.getOrDefault("port", "8080"));
+        InetAddress bind = options.containsKey("bind") ? InetAddress.getByName(options.get("bind"))
+                : InetAddress.getLoopbackAddress();
+        int crossings = Integer.parseInt(options.getOrDefault("crossings", "4"));
+        RoadModel model = RoadModel.valueOf(options.getOrDefault("model", "MICROSCOPIC"));
+        long seed = options.containsKey("seed") ? Long.parseLong(options.get("seed")) : System.nanoTime();
+        int tps = Integer.parseInt(options.getOrDefault("tps", "0"));
+        long ticks = Long.parseLong(options.getOrDefault("ticks", "0"));
+        int period = Integer.parseInt(options.getOrDefault("period", "250"));
+
+        World world = new World(seed);
+        world.setupGridScenario(crossings, model);
+        world.setTrafficStrategy(StrategyFactory.create(options.getOrDefault("strategy", "FixedCycle")));
+        world.setVehicleGenerationInterval(Integer.parseInt(options.getOrDefault("interval", "5")));
+        world.setTelemetryPeriod(period);
+        world.start();
+
+        try (TelemetryServer server = new TelemetryServer(world, bind, port)) {
+            String host = bind instanceof Inet6Address ? "[" + bind.getHostAddress() + "]" : bind.getHostAddress();
+            System.out.println("Telemetria em http://" + host + ":" + server.getPort() + "/status");
+            long tickNanos = tps > 0 ? 1_000_000_000L / tps : 0;
+            long next = System.nanoTime();
+            for (long t = 0; ticks == 0 || t < ticks; ) {
+                world.tick();
+                if (!world.isRunning()) {
+                    Thread.sleep(50); // Parada: só processa comandos (ex.: "start")
+                    next = System.nanoTime();
+                    continue;
+                }
+                t++;
+                if (tickNanos > 0) {
+                    next += tickNanos;
+                    long sleep = next - System.nanoTime();
+                    if (sleep > 0) {
+                        Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+                    }
+                }
+            }
+        }
+        Metrics metrics = world.getMetrics();
+        System.out.printf("Concluído: %d ticks, %d veículos servidos, tempo de espera médio %.2f%n",
+                world.getSimulationTime(), metrics.getTotalVehiclesServed(), metrics.getAverageWaitingTime());
+    }
+}
@@ -0,0 +1,133 @@
+package util;
+
+import java.util.Locale;
+
+/**
+ * Estado agregado da simulação num instante, publicado pela thread da simulação e lido por
+ * outras threads (ex.: TelemetryServer). É imutável depois de criado, pelo que pode ser lido
+ * sem sincronização: quem consulta nunca espera pelo tick nem vê um tick a meio.
+ */
+public class TelemetrySnapshot {
+    private final long publishedAtMillis;
+    private final int simulationTime;
+    private final double ticksPerSecond;
+    private final boolean running;
+    private final String strategy;
+    private final int generationInterval;
+    private final int vehicleCount;
+    private final int vehiclesServed;
+    private final double averageWaitingTime;
+    private final double averageQueueLength;
+    private final int[] roadIds;
+    private final int[] roadVehicles;
+    private final int[] roadQueues;
+
+    public TelemetrySnapshot(int simulationTime, double ticksPerSecond, boolean running, String strategy,
+                             int generationInterval, int vehicleCount, int vehiclesServed, double averageWaitingTime,
+                             double averageQueueLength, int[] roadIds, int[] roadVehicles, int[] roadQueues) {
+        this.publishedAtMillis = System.currentTimeMillis();
+        this.simulationTime = simulationTime;
+        this.ticksPerSecond = ticksPerSecond;
+        this.running = running;
+        this.strategy = strategy;
+        this.generationInterval = generationInterval;
+        this.vehicleCount = vehicleCount;
+        this.vehiclesServed = vehiclesServed;
+        this.averageWaitingTime = averageWaitingTime;
+        this.averageQueueLength = averageQueueLength;
+        this.roadIds = roadIds;
+        this.roadVehicles = roadVehicles;
+        this.roadQueues = roadQueues;
+    }
+
+    /**
+     * Converte o snapshot em JSON.
+     * @param includeRoads true para incluir os valores de cada estrada.
+     * @return O objeto JSON.
+     */
+    public String toJson(boolean includeRoads) {
+        StringBuilder json = new StringBuilder(128 + (includeRoads ? roadIds.length * 40 : 0));
+        json.append('{');
+        json.append("\"publishedAt\":").append(publishedAtMillis);
+        json.append(",\"simulationTime\":").append(simulationTime);
+        json.append(",\"ticksPerSecond\":").append(String.format(Locale.ROOT, "%.1f", ticksPerSecond));
+        json.append(",\"running\":").append(running);
+        json.append(",\"strategy\":\"").append(strategy).append('"');
+        json.append(",\"generationInterval\":").append(generationInterval);
+        json.append(",\"vehicles\":").append(vehicleCount);
+        json.append(",\"vehiclesServed\":").append(vehiclesServed);
+        json.append(",\"averageWaitingTime\":").append(String.format(Locale.ROOT, "%.4f", averageWaitingTime));
+        json.append(",\"averageQueueLength\":").append(String.format(Locale.ROOT, "%.4f", averageQueueLength));
+        if (includeRoads) {
+            json.append(",\"roads\":[");
+            for (int i = 0; i < roadIds.length; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append("{\"id\":").append(roadIds[i])
+                        .append(",\"vehicles\":").append(roadVehicles[i])
+                        .append(",\"queue\":").append(roadQueues[i]).append('}');
+            }
+            json.append(']');
+        }
+        json.append('}');
+        return json.toString();
+    }
+
+    // Getters
+    public long getPublishedAtMillis() {
+        return publishedAtMillis;
+    }
+
+    public int getSimulationTime() {
+        return simulationTime;
+    }
+
+    public double getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public int getGenerationInterval() {
+        return generationInterval;
+    }
+
+    public int getVehicleCount() {
+        return vehicleCount;
+    }
+
+    public int getVehiclesServed() {
+        return vehiclesServed;
+    }
+
+    public double getAverageWaitingTime() {
+        return averageWaitingTime;
+    }
+
+    public double getAverageQueueLength() {
+        return averageQueueLength;
+    }
+
+    public int getRoadCount() {
+        return roadIds.length;
+    }
+
+    public int getRoadId(int i) {
+        return roadIds[i];
+    }
+
+    public int getRoadVehicles(int i) {
+        return roadVehicles[i];
+    }
+
+    public int getRoadQueue(int i) {
+        return roadQueues[i];
+    }
+}
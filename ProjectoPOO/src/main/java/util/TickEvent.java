@@ -0,0 +1,56 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Evento JFR de um tick do World, com a duração de cada fase.
+ * Só tem custo quando uma gravação JFR com este evento ativo está em curso.
+ */
+@Name("traffic.Tick")
+@Label("Simulation Tick")
+@Category("Traffic Simulation")
+@Description("Duração de um World.tick() repartida pelas suas fases")
+class TickEvent extends jdk.jfr.Event {
+    @Label("Simulation Time")
+    int simulationTime;
+
+    @Label("Generation")
+    @Timespan(Timespan.NANOSECONDS)
+    long generationNanos;
+
+    @Label("Strategy")
+    @Timespan(Timespan.NANOSECONDS)
+    long strategyNanos;
+
+    @Label("Road Update")
+    @Timespan(Timespan.NANOSECONDS)
+    long roadUpdateNanos;
+
+    @Label("Removal")
+    @Timespan(Timespan.NANOSECONDS)
+    long removalNanos;
+
+    @Label("Metrics")
+    @Timespan(Timespan.NANOSECONDS)
+    long metricsNanos;
+
+    @Label("Recording")
+    @Timespan(Timespan.NANOSECONDS)
+    long recordingNanos;
+
+    @Label("Vehicles Moved")
+    int vehiclesMoved;
+
+    @Label("Vehicles Removed")
+    int vehiclesRemoved;
+
+    @Label("Light Transitions")
+    int lightTransitions;
+
+    @Label("Allocated Bytes")
+    long allocatedBytes;
+}
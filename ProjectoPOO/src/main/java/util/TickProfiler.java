@@ -0,0 +1,342 @@
+package util;
+
+import jdk.jfr.FlightRecorder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Instrumentação do World.tick().
+ * Os contadores (veículos movidos/retirados, transições de semáforo, bytes alocados) estão sempre
+ * ativos e custam umas poucas somas por tick. A medição de tempo por fase e por estrada só é feita
+ * quando ativada explicitamente ou quando uma gravação JFR com os eventos traffic.* está em curso;
+ * caso contrário cada ponto de medição é apenas um teste de um campo booleano.
+ */
+public class TickProfiler {
+
+    /**
+     * Fases de um tick, pela ordem em que são executadas.
+     */
+    public enum Phase {
+        GENERATION,
+        STRATEGY,
+        ROAD_UPDATE,
+        REMOVAL,
+        METRICS,
+        RECORDING
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private boolean phaseTimingEnabled = false;
+    private boolean timing = false; // Medição ativa no tick atual
+    // Instâncias usadas apenas para consultar se os eventos JFR estão ativos (nunca são gravadas).
+    // Só são criadas depois de o JFR estar inicializado: carregar uma classe de evento arranca o JFR,
+    // o que atrasaria o primeiro tick de execuções sem gravação em centenas de milissegundos.
+    private TickEvent tickProbe;
+    private RoadUpdateEvent roadProbe;
+    private TickEvent tickEvent;
+    private RoadUpdateEvent roadEvent;
+    private long roadStart;
+
+    // Contadores sempre ativos
+    private long ticks;
+    private long vehiclesMoved;
+    private long vehiclesRemoved;
+    private long lightTransitions;
+    private long allocatedBytes;
+    private long lastTransitionTotal = -1;
+    private long tickAllocationStart;
+
+    // Valores do último tick
+    private int lastVehiclesMoved;
+    private int lastVehiclesRemoved;
+    private int lastLightTransitions;
+    private long lastAllocatedBytes;
+
+    // Tempos (apenas quando a medição está ativa)
+    private final long[] phaseNanos = new long[PHASES.length];
+    private final long[] lastPhaseNanos = new long[PHASES.length];
+    private long timedTicks;
+    private int slowestRoadId = -1;
+    private long slowestRoadNanos;
+
+    /**
+     * Ativa ou desativa a medição de tempo por fase e por estrada.
+     * @param enabled true para medir em todos os ticks.
+     */
+    public void setPhaseTimingEnabled(boolean enabled) {
+        this.phaseTimingEnabled = enabled;
+    }
+
+    public boolean isPhaseTimingEnabled() {
+        return phaseTimingEnabled;
+    }
+
+    /**
+     * Início de um tick.
+     * @return O instante inicial da primeira fase (0 se a medição estiver inativa).
+     */
+    public long beginTick() {
+        tickAllocationStart = AllocationCounter.currentThreadAllocatedBytes();
+        boolean jfrEnabled = jfrProbesReady() && tickProbe.isEnabled();
+        timing = phaseTimingEnabled || jfrEnabled;
+        // Fases que não correm neste tick (ex.: gravação inativa) não herdam o tempo de um tick anterior
+        Arrays.fill(lastPhaseNanos, 0);
+        if (jfrEnabled) {
+            tickEvent = new TickEvent();
+            tickEvent.begin();
+        }
+        return timing ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Fim de uma fase.
+     * @param phase A fase terminada.
+     * @param start O instante de início da fase (devolvido por beginTick ou pela fase anterior).
+     * @return O instante de início da fase seguinte.
+     */
+    public long endPhase(Phase phase, long start) {
+        if (!timing) {
+            return 0L;
+        }
+        long now = System.nanoTime();
+        lastPhaseNanos[phase.ordinal()] = now - start;
+        phaseNanos[phase.ordinal()] += now - start;
+        return now;
+    }
+
+    /**
+     * Cria as instâncias de consulta dos eventos quando o JFR já está inicializado (por
+     * -XX:StartFlightRecording ou por uma gravação iniciada com jcmd durante a execução).
+     * @return true se os eventos puderem estar ativos.
+     */
+    private boolean jfrProbesReady() {
+        if (tickProbe == null) {
+            if (!FlightRecorder.isInitialized()) {
+                return false;
+            }
+            tickProbe = new TickEvent();
+            roadProbe = new RoadUpdateEvent();
+        }
+        return true;
+    }
+
+    /**
+     * Início da atualização de uma estrada (apenas com medição ativa).
+     */
+    public void beginRoad() {
+        if (!timing) {
+            return;
+        }
+        if (roadProbe != null && roadProbe.isEnabled()) {
+            roadEvent = new RoadUpdateEvent();
+            roadEvent.begin();
+        }
+        roadStart = System.nanoTime();
+    }
+
+    /**
+     * Fim da atualização de uma estrada; regista a estrada mais lenta da execução.
+     * @param roadId O identificador da estrada.
+     * @param vehicles O número de veículos na estrada.
+     */
+    public void endRoad(int roadId, int vehicles) {
+        if (!timing) {
+            return;
+        }
+        long elapsed = System.nanoTime() - roadStart;
+        if (elapsed > slowestRoadNanos) {
+            slowestRoadNanos = elapsed;
+            slowestRoadId = roadId;
+        }
+        if (roadEvent != null) {
+            roadEvent.end();
+            if (roadEvent.shouldCommit()) {
+                roadEvent.roadId = roadId;
+                roadEvent.vehicles = vehicles;
+                roadEvent.commit();
+            }
+            roadEvent = null;
+        }
+    }
+
+    /**
+     * Fim de um tick: atualiza os contadores e, se ativo, emite o evento JFR.
+     * @param simulationTime O tempo de simulação do tick.
+     * @param moved Os veículos que se moveram neste tick.
+     * @param removed Os veículos retirados neste tick.
+     * @param transitionTotal O total acumulado de transições de todos os semáforos.
+     */
+    public void endTick(int simulationTime, int moved, int removed, long transitionTotal) {
+        ticks++;
+        lastVehiclesMoved = moved;
+        lastVehiclesRemoved = removed;
+        lastLightTransitions = lastTransitionTotal < 0 ? 0 : (int) (transitionTotal - lastTransitionTotal);
+        lastTransitionTotal = transitionTotal;
+        lastAllocatedBytes = AllocationCounter.currentThreadAllocatedBytes() - tickAllocationStart;
+        vehiclesMoved += moved;
+        vehiclesRemoved += removed;
+        lightTransitions += lastLightTransitions;
+        allocatedBytes += lastAllocatedBytes;
+        if (timing) {
+            timedTicks++;
+        }
+
+        if (tickEvent != null) {
+            tickEvent.end();
+            if (tickEvent.shouldCommit()) {
+                tickEvent.simulationTime = simulationTime;
+                tickEvent.generationNanos = lastPhaseNanos[Phase.GENERATION.ordinal()];
+                tickEvent.strategyNanos = lastPhaseNanos[Phase.STRATEGY.ordinal()];
+                tickEvent.roadUpdateNanos = lastPhaseNanos[Phase.ROAD_UPDATE.ordinal()];
+                tickEvent.removalNanos = lastPhaseNanos[Phase.REMOVAL.ordinal()];
+                tickEvent.metricsNanos = lastPhaseNanos[Phase.METRICS.ordinal()];
+                tickEvent.recordingNanos = lastPhaseNanos[Phase.RECORDING.ordinal()];
+                tickEvent.vehiclesMoved = moved;
+                tickEvent.vehiclesRemoved = removed;
+                tickEvent.lightTransitions = lastLightTransitions;
+                tickEvent.allocatedBytes = lastAllocatedBytes;
+                tickEvent.commit();
+            }
+            tickEvent = null;
+        }
+        timing = false;
+    }
+
+    /**
+     * Repõe todos os contadores e tempos.
+     */
+    public void reset() {
+        ticks = vehiclesMoved = vehiclesRemoved = lightTransitions = allocatedBytes = 0;
+        lastTransitionTotal = -1;
+        lastVehiclesMoved = lastVehiclesRemoved = lastLightTransitions = 0;
+        lastAllocatedBytes = 0;
+        Arrays.fill(phaseNanos, 0);
+        Arrays.fill(lastPhaseNanos, 0);
+        timedTicks = 0;
+        slowestRoadId = -1;
+        slowestRoadNanos = 0;
+    }
+
+    // Getters
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getVehiclesMoved() {
+        return vehiclesMoved;
+    }
+
+    public long getVehiclesRemoved() {
+        return vehiclesRemoved;
+    }
+
+    public long getLightTransitions() {
+        return lightTransitions;
+    }
+
+    /**
+     * Obtém o total de bytes alocados pela thread da simulação durante os ticks
+     * (0 se a JVM não suportar a medição).
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public int getLastVehiclesMoved() {
+        return lastVehiclesMoved;
+    }
+
+    public int getLastVehiclesRemoved() {
+        return lastVehiclesRemoved;
+    }
+
+    public int getLastLightTransitions() {
+        return lastLightTransitions;
+    }
+
+    public long getLastAllocatedBytes() {
+        return lastAllocatedBytes;
+    }
+
+    /**
+     * Obtém o tempo total gasto numa fase, nos ticks em que a medição esteve ativa.
+     */
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Obtém o tempo gasto numa fase no último tick medido (0 se a fase não correu nesse tick).
+     */
+    public long getLastPhaseNanos(Phase phase) {
+        return lastPhaseNanos[phase.ordinal()];
+    }
+
+    public long getTimedTicks() {
+        return timedTicks;
+    }
+
+    public int getSlowestRoadId() {
+        return slowestRoadId;
+    }
+
+    public long getSlowestRoadNanos() {
+        return slowestRoadNanos;
+    }
+
+    /**
+     * Obtém os tempos médios por tick de cada fase, em microssegundos.
+     * @return Um mapa fase -> tempo médio.
+     */
+    public Map<Phase, Double> getAveragePhaseMicros() {
+        Map<Phase, Double> averages = new EnumMap<>(Phase.class);
+        for (Phase phase : PHASES) {
+            averages.put(phase, timedTicks == 0 ? 0.0 : phaseNanos[phase.ordinal()] / 1e3 / timedTicks);
+        }
+        return averages;
+    }
+
+    /**
+     * Resumo em texto para execuções sem interface.
+     * @return O resumo formatado.
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Ticks: %d | Veículos movidos: %d | Retirados: %d | Transições de semáforo: %d%n",
+                ticks, vehiclesMoved, vehiclesRemoved, lightTransitions));
+        sb.append(String.format("Alocação: %.1f KB/tick%n", ticks == 0 ? 0.0 : allocatedBytes / 1024.0 / ticks));
+        if (timedTicks > 0) {
+            sb.append(String.format("Tempo médio por fase (%d ticks medidos):%n", timedTicks));
+            for (Map.Entry<Phase, Double> entry : getAveragePhaseMicros().entrySet()) {
+                sb.append(String.format("  %-12s %10.2f us%n", entry.getKey(), entry.getValue()));
+            }
+            sb.append(String.format("Estrada mais lenta: %d (%.2f us)%n", slowestRoadId, slowestRoadNanos / 1e3));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Acesso preguiçoso ao contador de alocação por thread da JVM (extensão com.sun.management).
+     */
+    private static final class AllocationCounter {
+        private static final com.sun.management.ThreadMXBean THREADS = lookup();
+
+        static long currentThreadAllocatedBytes() {
+            return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0L;
+        }
+
+        private static com.sun.management.ThreadMXBean lookup() {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()) {
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+                return sunBean;
+            }
+            return null;
+        }
+    }
+}
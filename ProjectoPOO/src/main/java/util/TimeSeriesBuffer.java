@@ -0,0 +1,157 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Série temporal de tamanho fixo para gráficos ao vivo.
+ *
+ * As amostras são agrupadas em baldes de samplesPerBucket amostras (mínimo, máximo, média e último
+ * valor de cada balde) guardados num anel de arrays primitivos: quando o anel enche, o balde mais
+ * antigo é substituído. A série cobre sempre as últimas capacity * samplesPerBucket amostras com
+ * memória constante, e desenhá-la custa no máximo capacity pontos, seja qual for a duração da execução.
+ */
+public class TimeSeriesBuffer {
+    private final int capacity;
+    private final int samplesPerBucket;
+    private final float[] min;
+    private final float[] max;
+    private final float[] mean;
+    private final float[] last;
+    private int oldest = 0; // Índice do balde mais antigo
+    private int size = 0;
+    private long version = 0; // Número de baldes completos (muda sempre que a série muda)
+
+    // Balde em construção
+    private int pending = 0;
+    private double pendingSum;
+    private float pendingMin;
+    private float pendingMax;
+    private float pendingLast;
+
+    /**
+     * Construtor para TimeSeriesBuffer.
+     * @param capacity O número de baldes guardados.
+     * @param samplesPerBucket O número de amostras agregadas em cada balde.
+     */
+    public TimeSeriesBuffer(int capacity, int samplesPerBucket) {
+        if (capacity < 1 || samplesPerBucket < 1) {
+            throw new IllegalArgumentException("Dimensões inválidas: " + capacity + "x" + samplesPerBucket);
+        }
+        this.capacity = capacity;
+        this.samplesPerBucket = samplesPerBucket;
+        this.min = new float[capacity];
+        this.max = new float[capacity];
+        this.mean = new float[capacity];
+        this.last = new float[capacity];
+    }
+
+    /**
+     * Acrescenta uma amostra.
+     * @param value O valor.
+     */
+    public void add(double value) {
+        float v = (float) value;
+        if (pending == 0) {
+            pendingSum = 0.0;
+            pendingMin = v;
+            pendingMax = v;
+        } else {
+            pendingMin = Math.min(pendingMin, v);
+            pendingMax = Math.max(pendingMax, v);
+        }
+        pendingSum += value;
+        pendingLast = v;
+        if (++pending == samplesPerBucket) {
+            int index;
+            if (size < capacity) {
+                index = (oldest + size) % capacity;
+                size++;
+            } else {
+                index = oldest; // Substitui o balde mais antigo
+                oldest = (oldest + 1) % capacity;
+            }
+            min[index] = pendingMin;
+            max[index] = pendingMax;
+            mean[index] = (float) (pendingSum / samplesPerBucket);
+            last[index] = pendingLast;
+            pending = 0;
+            version++;
+        }
+    }
+
+    /**
+     * Remove todas as amostras.
+     */
+    public void clear() {
+        oldest = 0;
+        size = 0;
+        pending = 0;
+        Arrays.fill(min, 0f);
+        Arrays.fill(max, 0f);
+        Arrays.fill(mean, 0f);
+        Arrays.fill(last, 0f);
+        version++;
+    }
+
+    /**
+     * Remove os baldes mais recentes e o balde em construção (ex.: ao recuar no tempo).
+     * @param buckets O número de baldes completos a remover.
+     */
+    public void removeNewest(int buckets) {
+        size = Math.max(0, size - buckets);
+        pending = 0;
+        version++;
+    }
+
+    private int index(int i) {
+        return (oldest + i) % capacity;
+    }
+
+    // Getters (i = 0 é o balde mais antigo, size() - 1 o mais recente)
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSamplesPerBucket() {
+        return samplesPerBucket;
+    }
+
+    /**
+     * Obtém um valor que muda sempre que um balde é acrescentado ou a série é limpa
+     * (permite redesenhar apenas quando há dados novos).
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public float getMin(int i) {
+        return min[index(i)];
+    }
+
+    public float getMax(int i) {
+        return max[index(i)];
+    }
+
+    public float getMean(int i) {
+        return mean[index(i)];
+    }
+
+    public float getLast(int i) {
+        return last[index(i)];
+    }
+
+    /**
+     * Obtém o maior máximo dos baldes guardados (0 se a série estiver vazia).
+     */
+    public float getPeak() {
+        float peak = 0f;
+        for (int i = 0; i < size; i++) {
+            peak = Math.max(peak, max[i]);
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,452 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Codificação delta + varint dos frames de trajetória, partilhada pelo gravador e pela reprodução.
+ *
+ * Os veículos de cada estrada são codificados relativamente aos da mesma estrada no frame anterior
+ * do bloco (chunk). Como os veículos não se ultrapassam, a lista de uma estrada é quase sempre a
+ * anterior com alguns veículos novos numa ponta e alguns saídos na outra, pelo que se grava:
+ * - sequências copiadas do frame anterior (início e comprimento), gravando apenas os veículos que
+ *   se afastam da previsão de posição a velocidade constante (os parados e os que seguem à mesma
+ *   velocidade não custam nada);
+ * - veículos novos com id (diferença para o anterior), classe (etiqueta da VehicleClass) e posição
+ *   absoluta. Na versão 1 do formato este campo era 1 para emergência e 0 para os restantes, que
+ *   coincidem com as etiquetas de EMERGENCY e CAR, pelo que as gravações antigas continuam legíveis.
+ * O estado anterior é guardado por estrada e percorrido sequencialmente, sem tabelas indexadas por id.
+ * Semáforos cuja contagem decrescente segue a previsão gravam um único 0.
+ * O primeiro frame de cada bloco não depende de nada anterior, o que permite saltar para qualquer bloco.
+ */
+class TrajectoryCodec {
+    static final int MAGIC = 0x54524A31; // "TRJ1"
+    static final double POSITION_SCALE = 100.0; // Posições gravadas em centésimas de unidade
+
+    private static final int MAX_SEARCH = 64; // Procura máxima de um veículo na lista anterior da estrada
+
+    // Veículos do frame anterior e do atual, agrupados por estrada pela ordem do frame
+    private VehicleBuffer previous = new VehicleBuffer();
+    private VehicleBuffer current = new VehicleBuffer();
+
+    // Estado dos semáforos no frame anterior
+    private int[] lastLightRoad = new int[16];
+    private byte[] lastLightColor = new byte[16];
+    private int[] lastLightRemaining = new int[16];
+    private int lastLightCount = 0;
+
+    private int frameNumber = 1;
+    private int chunkStartFrame = 1;
+    private int lastTick = 0;
+
+    /**
+     * Inicia um novo bloco: o próximo frame é codificado sem referências anteriores.
+     */
+    void beginChunk() {
+        chunkStartFrame = frameNumber;
+        lastLightCount = 0;
+        lastTick = 0;
+    }
+
+    void encode(TrajectoryFrame frame, ByteSink out) {
+        boolean first = frameNumber == chunkStartFrame;
+        out.writeSignedVarInt(frame.getTick() - lastTick);
+        lastTick = frame.getTick();
+        encodeVehicles(frame, out, first);
+        encodeLights(frame, out, first);
+        endFrame();
+    }
+
+    void decode(ByteSource in, TrajectoryFrame frame) {
+        boolean first = frameNumber == chunkStartFrame;
+        lastTick += in.readSignedVarInt();
+        frame.reset(lastTick);
+        decodeVehicles(in, frame, first);
+        decodeLights(in, frame, first);
+        endFrame();
+    }
+
+    private void endFrame() {
+        VehicleBuffer swap = previous;
+        previous = current;
+        current = swap;
+        current.clear();
+        frameNumber++;
+    }
+
+    private void encodeVehicles(TrajectoryFrame frame, ByteSink out, boolean first) {
+        int total = frame.getVehicleCount();
+        // Número de grupos (sequências de veículos da mesma estrada)
+        int groups = 0;
+        for (int i = 0; i < total; i++) {
+            if (i == 0 || frame.getVehicleRoadId(i) != frame.getVehicleRoadId(i - 1)) {
+                groups++;
+            }
+        }
+        out.writeVarInt(groups);
+
+        int previousRoadId = 0;
+        int i = 0;
+        while (i < total) {
+            int roadId = frame.getVehicleRoadId(i);
+            int end = i + 1;
+            while (end < total && frame.getVehicleRoadId(end) == roadId) {
+                end++;
+            }
+            out.writeSignedVarInt(roadId - previousRoadId);
+            out.writeVarInt(end - i);
+            previousRoadId = roadId;
+            encodeRoad(frame, out, first, roadId, i, end);
+            i = end;
+        }
+    }
+
+    // Codifica os veículos [start, end) do frame, todos da mesma estrada
+    private void encodeRoad(TrajectoryFrame frame, ByteSink out, boolean first, int roadId, int start, int end) {
+        int i = start;
+        // Lista desta estrada no frame anterior
+        int prevStart = 0;
+        int prevCount = 0;
+        if (!first && previous.hasRoad(roadId, frameNumber - 1)) {
+            prevStart = previous.getRoadStart(roadId);
+            prevCount = previous.getRoadCount(roadId);
+        }
+        current.beginRoad(roadId, frameNumber);
+
+        int cursor = 0; // Próximo veículo esperado na lista anterior (relativo a prevStart)
+        int previousId = 0;
+        while (i < end) {
+            int id = frame.getVehicleId(i);
+            int match = find(id, prevStart, prevCount, cursor);
+            if (match < 0) {
+                // Veículo novo nesta estrada
+                int position = quantize(frame.getVehiclePosition(i));
+                byte flags = frame.getVehicleClassTag(i);
+                out.writeVarInt(0);
+                out.writeSignedVarInt(id - previousId);
+                out.writeVarInt(flags);
+                out.writeVarInt(position);
+                current.add(id, position, 0, flags);
+                previousId = id;
+                i++;
+                continue;
+            }
+            // Sequência copiada: veículos consecutivos na lista anterior
+            int length = 1;
+            while (i + length < end && match + length < prevCount
+                    && frame.getVehicleId(i + length) == previous.getId(prevStart + match + length)) {
+                length++;
+            }
+            out.writeVarInt((length << 1) | 1);
+            out.writeSignedVarInt(match - cursor);
+            // Só se gravam as exceções à previsão: (distância à exceção anterior, resíduo), terminadas por 0
+            int lastException = -1;
+            for (int k = 0; k < length; k++, i++) {
+                int p = prevStart + match + k;
+                int lastPosition = previous.getPosition(p);
+                int position = quantize(frame.getVehiclePosition(i));
+                int residual = position - (lastPosition + previous.getVelocity(p));
+                if (residual != 0) {
+                    out.writeVarInt(k - lastException);
+                    out.writeSignedVarInt(residual);
+                    lastException = k;
+                }
+                current.add(previous.getId(p), position, position - lastPosition, previous.getFlags(p));
+            }
+            out.writeVarInt(0);
+            previousId = previous.getId(prevStart + match + length - 1);
+            cursor = match + length;
+        }
+        current.endRoad();
+    }
+
+    private void decodeVehicles(ByteSource in, TrajectoryFrame frame, boolean first) {
+        int groups = in.readVarInt();
+        int roadId = 0;
+        for (int g = 0; g < groups; g++) {
+            roadId += in.readSignedVarInt();
+            int count = in.readVarInt();
+            int prevStart = 0;
+            if (!first && previous.hasRoad(roadId, frameNumber - 1)) {
+                prevStart = previous.getRoadStart(roadId);
+            }
+            current.beginRoad(roadId, frameNumber);
+
+            int cursor = 0;
+            int previousId = 0;
+            int produced = 0;
+            while (produced < count) {
+                int token = in.readVarInt();
+                if (token == 0) {
+                    int id = previousId + in.readSignedVarInt();
+                    byte flags = (byte) in.readVarInt();
+                    int position = in.readVarInt();
+                    current.add(id, position, 0, flags);
+                    frame.addVehicle(id, roadId, position / POSITION_SCALE, flags);
+                    previousId = id;
+                    produced++;
+                    continue;
+                }
+                int length = token >>> 1;
+                int match = cursor + in.readSignedVarInt();
+                int gap = in.readVarInt();
+                int nextException = gap == 0 ? -1 : gap - 1;
+                for (int k = 0; k < length; k++) {
+                    int p = prevStart + match + k;
+                    int lastPosition = previous.getPosition(p);
+                    int position = lastPosition + previous.getVelocity(p);
+                    if (k == nextException) {
+                        position += in.readSignedVarInt();
+                        gap = in.readVarInt();
+                        nextException = gap == 0 ? -1 : k + gap;
+                    }
+                    int id = previous.getId(p);
+                    byte flags = previous.getFlags(p);
+                    current.add(id, position, position - lastPosition, flags);
+                    frame.addVehicle(id, roadId, position / POSITION_SCALE, flags);
+                }
+                previousId = previous.getId(prevStart + match + length - 1);
+                cursor = match + length;
+                produced += length;
+            }
+            current.endRoad();
+        }
+    }
+
+    // Procura o id na lista anterior da estrada, a partir do cursor e depois desde o início
+    private int find(int id, int prevStart, int prevCount, int cursor) {
+        int limit = Math.min(prevCount, cursor + MAX_SEARCH);
+        for (int j = cursor; j < limit; j++) {
+            if (previous.getId(prevStart + j) == id) {
+                return j;
+            }
+        }
+        limit = Math.min(cursor, MAX_SEARCH);
+        for (int j = 0; j < limit; j++) {
+            if (previous.getId(prevStart + j) == id) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    // As posições nunca são negativas, pelo que basta somar 0.5 e truncar
+    private static int quantize(double position) {
+        return (int) (position * POSITION_SCALE + 0.5);
+    }
+
+    private void encodeLights(TrajectoryFrame frame, ByteSink out, boolean first) {
+        int lights = frame.getLightCount();
+        boolean sameLayout = !first && lights == lastLightCount;
+        for (int i = 0; sameLayout && i < lights; i++) {
+            sameLayout = frame.getLightRoadId(i) == lastLightRoad[i];
+        }
+        out.writeVarInt(lights);
+        out.writeVarInt(sameLayout ? 1 : 0);
+        ensureLightCapacity(lights);
+        for (int i = 0; i < lights; i++) {
+            int roadId = frame.getLightRoadId(i);
+            byte color = frame.getLightColor(i);
+            int remaining = frame.getLightRemaining(i);
+            if (!sameLayout) {
+                out.writeVarInt(roadId);
+            }
+            if (sameLayout && color == lastLightColor[i] && remaining == lastLightRemaining[i] - 1) {
+                out.writeVarInt(0);
+            } else {
+                out.writeVarInt(1 + ((color + 1) | (remaining << 2)));
+            }
+            lastLightRoad[i] = roadId;
+            lastLightColor[i] = color;
+            lastLightRemaining[i] = remaining;
+        }
+        lastLightCount = lights;
+    }
+
+    private void decodeLights(ByteSource in, TrajectoryFrame frame, boolean first) {
+        int lights = in.readVarInt();
+        boolean sameLayout = in.readVarInt() == 1 && !first;
+        ensureLightCapacity(lights);
+        for (int i = 0; i < lights; i++) {
+            int roadId = sameLayout ? lastLightRoad[i] : in.readVarInt();
+            int value = in.readVarInt();
+            byte color;
+            int remaining;
+            if (value == 0) {
+                color = lastLightColor[i];
+                remaining = lastLightRemaining[i] - 1;
+            } else {
+                value -= 1;
+                color = (byte) ((value & 3) - 1);
+                remaining = value >>> 2;
+            }
+            frame.addLight(roadId, color, remaining);
+            lastLightRoad[i] = roadId;
+            lastLightColor[i] = color;
+            lastLightRemaining[i] = remaining;
+        }
+        lastLightCount = lights;
+    }
+
+    private void ensureLightCapacity(int lights) {
+        if (lights > lastLightRoad.length) {
+            lastLightRoad = Arrays.copyOf(lastLightRoad, lights);
+            lastLightColor = Arrays.copyOf(lastLightColor, lights);
+            lastLightRemaining = Arrays.copyOf(lastLightRemaining, lights);
+        }
+    }
+
+    /**
+     * Veículos de um frame (id, posição quantizada, velocidade e tipo), agrupados por estrada,
+     * com o início e o número de veículos de cada estrada.
+     */
+    private static final class VehicleBuffer {
+        private int size;
+        private int[] ids = new int[1024];
+        private int[] positions = new int[1024];
+        private int[] velocities = new int[1024];
+        private byte[] flags = new byte[1024];
+
+        // Por id de estrada
+        private int[] roadFrame = new int[64]; // Frame em que a estrada foi escrita (0 = nunca)
+        private int[] roadStart = new int[64];
+        private int[] roadCount = new int[64];
+        private int currentRoad = -1;
+
+        void clear() {
+            size = 0;
+            currentRoad = -1;
+        }
+
+        void beginRoad(int roadId, int frameNumber) {
+            if (roadId >= roadFrame.length) {
+                int capacity = Math.max(roadId + 1, roadFrame.length * 2);
+                roadFrame = Arrays.copyOf(roadFrame, capacity);
+                roadStart = Arrays.copyOf(roadStart, capacity);
+                roadCount = Arrays.copyOf(roadCount, capacity);
+            }
+            roadFrame[roadId] = frameNumber;
+            roadStart[roadId] = size;
+            roadCount[roadId] = 0;
+            currentRoad = roadId;
+        }
+
+        void add(int id, int position, int velocity, byte vehicleFlags) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                positions = Arrays.copyOf(positions, capacity);
+                velocities = Arrays.copyOf(velocities, capacity);
+                flags = Arrays.copyOf(flags, capacity);
+            }
+            ids[size] = id;
+            positions[size] = position;
+            velocities[size] = velocity;
+            flags[size] = vehicleFlags;
+            size++;
+        }
+
+        void endRoad() {
+            roadCount[currentRoad] = size - roadStart[currentRoad];
+        }
+
+        boolean hasRoad(int roadId, int frameNumber) {
+            return roadId < roadFrame.length && roadFrame[roadId] == frameNumber;
+        }
+
+        int getRoadStart(int roadId) {
+            return roadStart[roadId];
+        }
+
+        int getRoadCount(int roadId) {
+            return roadCount[roadId];
+        }
+
+        int getId(int i) {
+            return ids[i];
+        }
+
+        int getPosition(int i) {
+            return positions[i];
+        }
+
+        int getVelocity(int i) {
+            return velocities[i];
+        }
+
+        byte getFlags(int i) {
+            return flags[i];
+        }
+    }
+
+    /**
+     * Buffer de bytes crescente com escrita de varints.
+     */
+    static final class ByteSink {
+        private byte[] data;
+        private int size;
+
+        ByteSink(int initialCapacity) {
+            data = new byte[initialCapacity];
+        }
+
+        void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        void writeSignedVarInt(int value) {
+            writeVarInt((value << 1) ^ (value >> 31)); // zigzag
+        }
+
+        byte[] getData() {
+            return data;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+            }
+        }
+    }
+
+    /**
+     * Leitura de varints de um array de bytes.
+     */
+    static final class ByteSource {
+        private final byte[] data;
+        private int position;
+
+        ByteSource(byte[] data) {
+            this.data = data;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        int readSignedVarInt() {
+            int raw = readVarInt();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+    }
+}
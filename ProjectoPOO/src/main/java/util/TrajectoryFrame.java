@@ -0,0 +1,130 @@
+package util;
+
+import model.VehicleClass;
+
+import java.util.Arrays;
+
+/**
+ * Fotografia do estado visível da simulação num tick: veículos (id, estrada, posição, classe)
+ * e semáforos (cor e tempo restante) de cada estrada. Os arrays são reutilizados entre ticks.
+ */
+public class TrajectoryFrame {
+    /** Cor usada para estradas sem semáforo. */
+    public static final byte NO_LIGHT = -1;
+
+    private int tick;
+
+    private int vehicleCount;
+    private int[] vehicleIds = new int[64];
+    private int[] vehicleRoadIds = new int[64];
+    private double[] vehiclePositions = new double[64];
+    private byte[] vehicleClasses = new byte[64]; // Etiqueta da VehicleClass
+
+    private int lightCount;
+    private int[] lightRoadIds = new int[16];
+    private byte[] lightColors = new byte[16]; // Ordinal de TrafficLightState, ou NO_LIGHT
+    private int[] lightRemaining = new int[16];
+
+    /**
+     * Limpa o frame para um novo tick.
+     * @param tick O tempo de simulação.
+     */
+    public void reset(int tick) {
+        this.tick = tick;
+        this.vehicleCount = 0;
+        this.lightCount = 0;
+    }
+
+    public void addVehicle(int id, int roadId, double position, VehicleClass vehicleClass) {
+        addVehicle(id, roadId, position, vehicleClass.getTag());
+    }
+
+    /**
+     * Acrescenta um veículo a partir da etiqueta da sua classe (VehicleClass.getTag()).
+     */
+    public void addVehicle(int id, int roadId, double position, byte vehicleClassTag) {
+        if (vehicleCount == vehicleIds.length) {
+            int capacity = vehicleCount * 2;
+            vehicleIds = Arrays.copyOf(vehicleIds, capacity);
+            vehicleRoadIds = Arrays.copyOf(vehicleRoadIds, capacity);
+            vehiclePositions = Arrays.copyOf(vehiclePositions, capacity);
+            vehicleClasses = Arrays.copyOf(vehicleClasses, capacity);
+        }
+        vehicleIds[vehicleCount] = id;
+        vehicleRoadIds[vehicleCount] = roadId;
+        vehiclePositions[vehicleCount] = position;
+        vehicleClasses[vehicleCount] = vehicleClassTag;
+        vehicleCount++;
+    }
+
+    /**
+     * Acrescenta o semáforo de uma estrada (pela ordem das estradas no World).
+     * @param roadId A estrada controlada.
+     * @param color O ordinal da cor, ou NO_LIGHT.
+     * @param remaining Os ticks que faltam para o fim do estado atual.
+     */
+    public void addLight(int roadId, byte color, int remaining) {
+        if (lightCount == lightRoadIds.length) {
+            int capacity = lightCount * 2;
+            lightRoadIds = Arrays.copyOf(lightRoadIds, capacity);
+            lightColors = Arrays.copyOf(lightColors, capacity);
+            lightRemaining = Arrays.copyOf(lightRemaining, capacity);
+        }
+        lightRoadIds[lightCount] = roadId;
+        lightColors[lightCount] = color;
+        lightRemaining[lightCount] = remaining;
+        lightCount++;
+    }
+
+    // Getters
+    public int getTick() {
+        return tick;
+    }
+
+    public int getVehicleCount() {
+        return vehicleCount;
+    }
+
+    public int getVehicleId(int i) {
+        return vehicleIds[i];
+    }
+
+    public int getVehicleRoadId(int i) {
+        return vehicleRoadIds[i];
+    }
+
+    public double getVehiclePosition(int i) {
+        return vehiclePositions[i];
+    }
+
+    public VehicleClass getVehicleClass(int i) {
+        return VehicleClass.fromTag(vehicleClasses[i]);
+    }
+
+    public byte getVehicleClassTag(int i) {
+        return vehicleClasses[i];
+    }
+
+    /**
+     * Indica se o veículo é de uma classe com prioridade (desenhado como emergência).
+     */
+    public boolean isVehicleEmergency(int i) {
+        return getVehicleClass(i).isPriority();
+    }
+
+    public int getLightCount() {
+        return lightCount;
+    }
+
+    public int getLightRoadId(int i) {
+        return lightRoadIds[i];
+    }
+
+    public byte getLightColor(int i) {
+        return lightColors[i];
+    }
+
+    public int getLightRemaining(int i) {
+        return lightRemaining[i];
+    }
+}
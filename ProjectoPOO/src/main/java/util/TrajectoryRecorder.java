@@ -0,0 +1,248 @@
+package util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Grava as trajetórias da simulação (um TrajectoryFrame por tick) num ficheiro comprimido.
+ *
+ * A thread da simulação apenas preenche um frame (arrays primitivos) e entrega-o; a codificação
+ * delta/varint, a compressão (Deflate) por blocos e a escrita em disco são feitas por uma thread
+ * dedicada. Os frames circulam num conjunto fixo: se a thread de escrita ficar para trás, a simulação
+ * espera por um frame livre em vez de acumular memória.
+ *
+ * Se a thread de escrita falhar (erro de E/S ou qualquer outra exceção), a falha fica guardada,
+ * os frames seguintes são descartados e devolvidos ao conjunto, e close() lança a falha: a
+ * simulação nunca fica bloqueada à espera de uma thread que já não consome.
+ *
+ * Formato: int MAGIC, int versão; depois blocos com
+ * int primeiroTick, int últimoTick, int frames, int bytesOriginais, int bytesComprimidos, bytes.
+ */
+public class TrajectoryRecorder implements AutoCloseable {
+    static final int VERSION = 2; // 2: classe do veículo em vez da marca de emergência (ver TrajectoryCodec)
+    /** Número de frames por bloco (cada bloco começa sem referências e permite saltar para ele). */
+    public static final int FRAMES_PER_CHUNK = 64;
+    private static final int FRAME_POOL_SIZE = 3;
+    private static final long WAIT_MILLIS = 100; // Intervalo para voltar a verificar a thread de escrita
+
+    private final DataOutputStream out;
+    private final Thread writer;
+    private final BlockingQueue<TrajectoryFrame> freeFrames = new ArrayBlockingQueue<>(FRAME_POOL_SIZE);
+    private final BlockingQueue<TrajectoryFrame> pendingFrames = new ArrayBlockingQueue<>(FRAME_POOL_SIZE + 1);
+    private final TrajectoryFrame endMarker = new TrajectoryFrame();
+
+    // Estado usado apenas pela thread de escrita
+    private final TrajectoryCodec codec = new TrajectoryCodec();
+    private final TrajectoryCodec.ByteSink sink = new TrajectoryCodec.ByteSink(64 * 1024);
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private byte[] compressBuffer = new byte[64 * 1024];
+    private int framesInChunk = 0;
+    private int chunkFirstTick;
+    private int chunkLastTick;
+
+    private volatile long framesRecorded = 0;
+    private volatile long rawBytes = 0;
+    private volatile long compressedBytes = 0;
+    private volatile Throwable failure;
+    private boolean closed = false;
+
+    /**
+     * Construtor para TrajectoryRecorder.
+     * @param filename O ficheiro de destino (é substituído se existir).
+     * @throws IOException se o ficheiro não puder ser criado.
+     */
+    public TrajectoryRecorder(String filename) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 256 * 1024));
+        out.writeInt(TrajectoryCodec.MAGIC);
+        out.writeInt(VERSION);
+        for (int i = 0; i < FRAME_POOL_SIZE; i++) {
+            freeFrames.add(new TrajectoryFrame());
+        }
+        this.writer = new Thread(this::writeLoop, "trajectory-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Obtém um frame livre para preencher, esperando se a thread de escrita estiver atrasada.
+     * @return O frame a preencher e entregar com record().
+     */
+    public TrajectoryFrame acquireFrame() {
+        try {
+            while (true) {
+                TrajectoryFrame frame = freeFrames.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (frame != null) {
+                    return frame;
+                }
+                if (writerStopped()) {
+                    return new TrajectoryFrame(); // Será descartado por record()
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new TrajectoryFrame();
+        }
+    }
+
+    /**
+     * Entrega um frame preenchido para gravação. O frame deixa de poder ser usado por quem o entregou.
+     * @param frame O frame obtido com acquireFrame().
+     */
+    public void record(TrajectoryFrame frame) {
+        if (closed || failure != null) {
+            freeFrames.offer(frame);
+            return;
+        }
+        try {
+            while (!pendingFrames.offer(frame, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (writerStopped()) {
+                    freeFrames.offer(frame);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                TrajectoryFrame frame = pendingFrames.take();
+                if (frame == endMarker) {
+                    break;
+                }
+                try {
+                    if (failure == null) {
+                        encode(frame);
+                    }
+                } catch (Throwable t) {
+                    fail(t);
+                } finally {
+                    freeFrames.offer(frame);
+                }
+            }
+            flushChunk();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void fail(Throwable t) {
+        if (failure == null) {
+            failure = t;
+            System.err.println("Erro ao gravar trajetórias: " + t);
+        }
+    }
+
+    // A thread de escrita já não grava frames (falhou ou terminou)
+    private boolean writerStopped() {
+        return failure != null || !writer.isAlive();
+    }
+
+    private void encode(TrajectoryFrame frame) {
+        if (framesInChunk > 0 && frame.getTick() != chunkLastTick + 1) {
+            flushChunk(); // Os ticks de um bloco têm de ser consecutivos
+        }
+        if (framesInChunk == 0) {
+            codec.beginChunk();
+            chunkFirstTick = frame.getTick();
+        }
+        codec.encode(frame, sink);
+        chunkLastTick = frame.getTick();
+        framesInChunk++;
+        framesRecorded++;
+        if (framesInChunk == FRAMES_PER_CHUNK) {
+            flushChunk();
+        }
+    }
+
+    private void flushChunk() {
+        if (framesInChunk == 0 || failure != null) {
+            return;
+        }
+        deflater.reset();
+        deflater.setInput(sink.getData(), 0, sink.size());
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressBuffer.length) {
+                compressBuffer = Arrays.copyOf(compressBuffer, compressBuffer.length * 2);
+            }
+            length += deflater.deflate(compressBuffer, length, compressBuffer.length - length);
+        }
+        try {
+            out.writeInt(chunkFirstTick);
+            out.writeInt(chunkLastTick);
+            out.writeInt(framesInChunk);
+            out.writeInt(sink.size());
+            out.writeInt(length);
+            out.write(compressBuffer, 0, length);
+            rawBytes += sink.size();
+            compressedBytes += length + 20;
+        } catch (IOException e) {
+            fail(e);
+        }
+        sink.clear();
+        framesInChunk = 0;
+    }
+
+    /**
+     * Grava os frames pendentes e fecha o ficheiro, esperando pela thread de escrita.
+     * @throws IOException se a escrita tiver falhado (outras falhas da thread de escrita vêm como causa).
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // A thread de escrita continua a esvaziar a fila mesmo depois de uma falha
+            boolean queued = false;
+            while (!queued && writer.isAlive()) {
+                queued = pendingFrames.offer(endMarker, WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        deflater.end();
+        out.close();
+        Throwable t = failure;
+        if (t instanceof IOException e) {
+            throw e;
+        }
+        if (t != null) {
+            throw new IOException("Falha na gravação de trajetórias", t);
+        }
+    }
+
+    // Getters
+    public long getFramesRecorded() {
+        return framesRecorded;
+    }
+
+    /**
+     * Obtém o tamanho dos frames codificados antes da compressão (blocos já escritos).
+     */
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    /**
+     * Obtém os bytes já escritos no ficheiro (blocos comprimidos e cabeçalhos).
+     */
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+}
@@ -0,0 +1,168 @@
+package util;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reprodução de uma gravação de TrajectoryRecorder sem voltar a simular.
+ * Ao abrir, lê apenas os cabeçalhos dos blocos para construir um índice por tick; um salto
+ * descomprime um único bloco e descodifica os frames desde o seu início.
+ */
+public class TrajectoryReplay implements AutoCloseable {
+    private final RandomAccessFile file;
+    private final Inflater inflater = new Inflater();
+    private final TrajectoryCodec codec = new TrajectoryCodec();
+    private final TrajectoryFrame frame = new TrajectoryFrame();
+
+    // Índice dos blocos
+    private int chunkCount = 0;
+    private int[] chunkFirstTick = new int[64];
+    private int[] chunkLastTick = new int[64];
+    private int[] chunkFrames = new int[64];
+    private int[] chunkRawLength = new int[64];
+    private int[] chunkCompressedLength = new int[64];
+    private long[] chunkOffset = new long[64];
+    private long frameCount = 0;
+
+    // Bloco atualmente descomprimido
+    private int currentChunk = -1;
+    private int decodedFrames = 0; // Frames já descodificados do bloco atual
+    private TrajectoryCodec.ByteSource source;
+    private byte[] compressed = new byte[0];
+
+    /**
+     * Abre uma gravação e indexa os seus blocos.
+     * @param filename O ficheiro gravado.
+     * @throws IOException se o ficheiro não existir ou não for uma gravação válida.
+     */
+    public TrajectoryReplay(String filename) throws IOException {
+        this.file = new RandomAccessFile(filename, "r");
+        if (file.length() < 8 || file.readInt() != TrajectoryCodec.MAGIC) {
+            file.close();
+            throw new IOException("Ficheiro de trajetórias inválido: " + filename);
+        }
+        int version = file.readInt();
+        if (version < 1 || version > TrajectoryRecorder.VERSION) {
+            file.close();
+            throw new IOException("Versão de gravação não suportada: " + version);
+        }
+        buildIndex();
+    }
+
+    private void buildIndex() throws IOException {
+        long length = file.length();
+        long offset = file.getFilePointer();
+        while (offset + 20 <= length) {
+            file.seek(offset);
+            if (chunkCount == chunkFirstTick.length) {
+                int capacity = chunkCount * 2;
+                chunkFirstTick = Arrays.copyOf(chunkFirstTick, capacity);
+                chunkLastTick = Arrays.copyOf(chunkLastTick, capacity);
+                chunkFrames = Arrays.copyOf(chunkFrames, capacity);
+                chunkRawLength = Arrays.copyOf(chunkRawLength, capacity);
+                chunkCompressedLength = Arrays.copyOf(chunkCompressedLength, capacity);
+                chunkOffset = Arrays.copyOf(chunkOffset, capacity);
+            }
+            chunkFirstTick[chunkCount] = file.readInt();
+            chunkLastTick[chunkCount] = file.readInt();
+            chunkFrames[chunkCount] = file.readInt();
+            chunkRawLength[chunkCount] = file.readInt();
+            chunkCompressedLength[chunkCount] = file.readInt();
+            chunkOffset[chunkCount] = offset + 20;
+            offset += 20 + chunkCompressedLength[chunkCount];
+            if (offset > length) {
+                break; // Bloco incompleto (gravação interrompida): é ignorado
+            }
+            frameCount += chunkFrames[chunkCount];
+            chunkCount++;
+        }
+    }
+
+    /**
+     * Obtém o frame gravado para um tick: o último frame com tick menor ou igual ao pedido.
+     * Avançar tick a tick só descodifica o frame seguinte; recuar ou saltar descodifica
+     * desde o início do bloco que contém o tick.
+     * @param tick O tick pretendido.
+     * @return O frame (reutilizado entre chamadas), ou null se a gravação estiver vazia.
+     * @throws IOException se o ficheiro não puder ser lido.
+     */
+    public TrajectoryFrame frameAt(int tick) throws IOException {
+        if (chunkCount == 0) {
+            return null;
+        }
+        int chunk = findChunk(tick);
+        if (chunk != currentChunk || (decodedFrames > 0 && frame.getTick() > tick)) {
+            loadChunk(chunk);
+        }
+        // Dentro de um bloco os ticks são consecutivos, pelo que nunca se descodifica além do pedido
+        while (decodedFrames < chunkFrames[chunk] && (decodedFrames == 0 || frame.getTick() < tick)) {
+            codec.decode(source, frame);
+            decodedFrames++;
+        }
+        return frame;
+    }
+
+    private int findChunk(int tick) {
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (chunkFirstTick[mid] <= tick) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private void loadChunk(int chunk) throws IOException {
+        int length = chunkCompressedLength[chunk];
+        if (compressed.length < length) {
+            compressed = new byte[length];
+        }
+        file.seek(chunkOffset[chunk]);
+        file.readFully(compressed, 0, length);
+        byte[] raw = new byte[chunkRawLength[chunk]];
+        inflater.reset();
+        inflater.setInput(compressed, 0, length);
+        try {
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                read += inflater.inflate(raw, read, raw.length - read);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Bloco de trajetórias corrompido no tick " + chunkFirstTick[chunk], e);
+        }
+        source = new TrajectoryCodec.ByteSource(raw);
+        codec.beginChunk();
+        currentChunk = chunk;
+        decodedFrames = 0;
+    }
+
+    /**
+     * Fecha o ficheiro.
+     * @throws IOException se ocorrer um erro ao fechar.
+     */
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        file.close();
+    }
+
+    // Getters
+    public int getFirstTick() {
+        return chunkCount == 0 ? 0 : chunkFirstTick[0];
+    }
+
+    public int getLastTick() {
+        return chunkCount == 0 ? 0 : chunkLastTick[chunkCount - 1];
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+}
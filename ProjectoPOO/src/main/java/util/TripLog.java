@@ -0,0 +1,356 @@
+package util;
+
+import model.VehicleClass;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Registo de viagens: uma linha por veículo que sai da rede (id, classe, estrada de saída,
+ * tick de entrada, tick de saída, tempo de espera), gravada num ficheiro comprimido (gzip)
+ * em CSV ou binário.
+ *
+ * A thread da simulação escreve cada viagem num anel de tamanho fixo (arrays primitivos, um
+ * produtor e um consumidor, sem locks nem objetos por viagem); uma thread dedicada esvazia o anel
+ * em lotes para o ficheiro. Quando o anel enche, a política de contrapressão decide entre esperar
+ * (BLOCK), descartar (DROP) ou amostrar (SAMPLE).
+ *
+ * Se a escrita falhar (erro de E/S ou outro), a thread de escrita guarda a falha, continua a
+ * esvaziar o anel sem gravar e close() relança-a; a simulação nunca fica à espera de uma thread
+ * que já não escreve.
+ *
+ * Formato binário: int MAGIC, int versão, e depois registos de 6 ints
+ * (id, flags, estrada, entrada, saída, espera) até ao fim do ficheiro. Nas flags, o bit 0 marca as
+ * classes com prioridade e os bits 8-15 guardam a etiqueta da VehicleClass. No CSV a coluna Type
+ * tem o nome da classe.
+ */
+public class TripLog implements AutoCloseable {
+
+    /**
+     * Formato do ficheiro.
+     */
+    public enum Format {
+        CSV,
+        BINARY
+    }
+
+    /**
+     * Comportamento quando a thread de escrita não acompanha a simulação.
+     */
+    public enum Backpressure {
+        /** A simulação espera por espaço no anel: nenhuma viagem é perdida. */
+        BLOCK,
+        /** As viagens que não cabem no anel são descartadas (e contadas). */
+        DROP,
+        /** Com o anel acima de metade, só uma em cada sampleEvery viagens é registada; cheio, descarta. */
+        SAMPLE
+    }
+
+    /**
+     * Recebe as viagens lidas de um ficheiro binário.
+     */
+    public interface TripVisitor {
+        void visit(int vehicleId, VehicleClass vehicleClass, int roadId, int spawnTime, int exitTime, int waitingTime);
+    }
+
+    static final int MAGIC = 0x54524950; // "TRIP"
+    static final int VERSION = 2;
+    private static final int FLAG_EMERGENCY = 1;
+    private static final int CLASS_SHIFT = 8; // Posição da etiqueta da classe nas flags
+    private static final long IDLE_PARK_NANOS = 200_000; // Espera da thread de escrita com o anel vazio
+
+    private final Format format;
+    private final Backpressure backpressure;
+    private final int sampleEvery;
+    private final OutputStream out;
+    private final DataOutputStream dataOut; // Apenas no formato binário
+    private final Thread writer;
+
+    // Anel: um array por campo, capacidade potência de 2
+    private final int mask;
+    private final int[] vehicleIds;
+    private final int[] flags;
+    private final int[] roadIds;
+    private final int[] spawnTimes;
+    private final int[] exitTimes;
+    private final int[] waitingTimes;
+    private final AtomicLong head = new AtomicLong(); // Próxima posição a ler (só a thread de escrita avança)
+    private final AtomicLong tail = new AtomicLong(); // Próxima posição a escrever (só a simulação avança)
+    private long cachedHead = 0; // Cópia de head vista pela simulação (evita ler o atómico em cada viagem)
+    private long sampleCounter = 0;
+
+    private long tripsOffered = 0;
+    private volatile long tripsDropped = 0;
+    private volatile long tripsSampledOut = 0;
+    private volatile long tripsWritten = 0;
+    private volatile boolean closing = false;
+    private volatile Throwable failure;
+    private boolean closed = false;
+
+    /**
+     * Construtor para TripLog.
+     * @param filename O ficheiro de destino (é substituído se existir).
+     * @param format O formato do ficheiro.
+     * @param backpressure A política quando o anel está cheio.
+     * @param ringCapacity O número de viagens que cabem no anel (arredondado para potência de 2).
+     * @param sampleEvery Na política SAMPLE, a fração de viagens mantidas sob pressão (1 em cada N).
+     * @throws IOException se o ficheiro não puder ser criado.
+     */
+    public TripLog(String filename, Format format, Backpressure backpressure, int ringCapacity, int sampleEvery)
+            throws IOException {
+        this.format = format;
+        this.backpressure = backpressure;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        int capacity = Integer.highestOneBit(Math.max(16, ringCapacity - 1)) << 1;
+        this.mask = capacity - 1;
+        this.vehicleIds = new int[capacity];
+        this.flags = new int[capacity];
+        this.roadIds = new int[capacity];
+        this.spawnTimes = new int[capacity];
+        this.exitTimes = new int[capacity];
+        this.waitingTimes = new int[capacity];
+
+        // Compressão rápida: o registo é dominado por números repetitivos e a thread de escrita não deve atrasar-se
+        GZIPOutputStream gzip = new GZIPOutputStream(new FileOutputStream(filename), 64 * 1024) {
+            {
+                def.setLevel(Deflater.BEST_SPEED);
+            }
+        };
+        this.out = new BufferedOutputStream(gzip, 64 * 1024);
+        if (format == Format.BINARY) {
+            this.dataOut = new DataOutputStream(out);
+            dataOut.writeInt(MAGIC);
+            dataOut.writeInt(VERSION);
+        } else {
+            this.dataOut = null;
+            out.write("VehicleId,Type,ExitRoad,SpawnTime,ExitTime,TravelTime,WaitingTime\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        this.writer = new Thread(this::writeLoop, "trip-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Construtor com anel de 64K viagens e política BLOCK.
+     */
+    public TripLog(String filename, Format format) throws IOException {
+        this(filename, format, Backpressure.BLOCK, 1 << 16, 1);
+    }
+
+    /**
+     * Regista uma viagem. Deve ser chamado sempre pela mesma thread (a da simulação).
+     * @param vehicleId O id do veículo.
+     * @param vehicleClass A classe do veículo.
+     * @param roadId A estrada por onde saiu da rede.
+     * @param spawnTime O tick em que entrou na rede.
+     * @param exitTime O tick em que saiu.
+     * @param waitingTime Os ticks em que esteve parado.
+     */
+    public void record(int vehicleId, VehicleClass vehicleClass, int roadId, int spawnTime, int exitTime, int waitingTime) {
+        if (closed) {
+            return;
+        }
+        tripsOffered++;
+        long position = tail.get();
+        long used = position - cachedHead;
+        if (used > (mask >> 1)) { // Aparentemente acima de metade: atualiza a cópia de head
+            cachedHead = head.get();
+            used = position - cachedHead;
+        }
+        if (backpressure == Backpressure.SAMPLE && used > (mask >> 1) && sampleCounter++ % sampleEvery != 0) {
+            tripsSampledOut++;
+            return;
+        }
+        if (used > mask) {
+            if (backpressure != Backpressure.BLOCK || failure != null) {
+                tripsDropped++;
+                return;
+            }
+            while (used > mask) { // Espera que a thread de escrita liberte espaço
+                if (failure != null || !writer.isAlive()) {
+                    tripsDropped++;
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS / 4);
+                cachedHead = head.get();
+                used = position - cachedHead;
+            }
+        }
+        int index = (int) position & mask;
+        vehicleIds[index] = vehicleId;
+        flags[index] = (vehicleClass.getTag() << CLASS_SHIFT) | (vehicleClass.isPriority() ? FLAG_EMERGENCY : 0);
+        roadIds[index] = roadId;
+        spawnTimes[index] = spawnTime;
+        exitTimes[index] = exitTime;
+        waitingTimes[index] = waitingTime;
+        tail.lazySet(position + 1); // Publica o registo (escrita ordenada depois dos campos)
+    }
+
+    private void writeLoop() {
+        try {
+            drain();
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void drain() {
+        StringBuilder line = new StringBuilder(64);
+        byte[] lineBytes = new byte[128];
+        while (true) {
+            long end = tail.get();
+            long position = head.get();
+            if (position == end) {
+                if (closing && tail.get() == end) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            // Lote: todos os registos publicados até agora
+            long written = 0;
+            try {
+                for (; position < end; position++) {
+                    int i = (int) position & mask;
+                    if (failure != null) {
+                        continue;
+                    }
+                    if (format == Format.BINARY) {
+                        dataOut.writeInt(vehicleIds[i]);
+                        dataOut.writeInt(flags[i]);
+                        dataOut.writeInt(roadIds[i]);
+                        dataOut.writeInt(spawnTimes[i]);
+                        dataOut.writeInt(exitTimes[i]);
+                        dataOut.writeInt(waitingTimes[i]);
+                    } else {
+                        line.setLength(0);
+                        line.append(vehicleIds[i]).append(',')
+                                .append(VehicleClass.fromTag(flags[i] >>> CLASS_SHIFT).getName()).append(',')
+                                .append(roadIds[i]).append(',')
+                                .append(spawnTimes[i]).append(',')
+                                .append(exitTimes[i]).append(',')
+                                .append(exitTimes[i] - spawnTimes[i]).append(',')
+                                .append(waitingTimes[i]).append('\n');
+                        int length = line.length();
+                        if (length > lineBytes.length) {
+                            lineBytes = new byte[length * 2]; // Nomes de classes longos
+                        }
+                        for (int c = 0; c < length; c++) {
+                            lineBytes[c] = (byte) line.charAt(c); // Apenas ASCII
+                        }
+                        out.write(lineBytes, 0, length);
+                    }
+                    written++;
+                }
+            } catch (Throwable t) {
+                fail(t); // O resto do lote é descartado; os lotes seguintes só avançam head
+            }
+            tripsWritten += written;
+            head.lazySet(end);
+        }
+    }
+
+    // Guarda a primeira falha da thread de escrita
+    private void fail(Throwable t) {
+        if (failure == null) {
+            failure = t;
+            System.err.println("Erro ao gravar viagens: " + t);
+        }
+    }
+
+    /**
+     * Grava as viagens pendentes e fecha o ficheiro, esperando pela thread de escrita.
+     * @throws IOException se a escrita tiver falhado.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closing = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+        Throwable t = failure;
+        if (t instanceof IOException e) {
+            throw e;
+        }
+        if (t != null) {
+            throw new IOException("Falha na gravação de viagens", t);
+        }
+    }
+
+    /**
+     * Lê um ficheiro de viagens em formato binário.
+     * @param filename O ficheiro.
+     * @param visitor Recebe cada viagem, pela ordem de gravação.
+     * @return O número de viagens lidas.
+     * @throws IOException se o ficheiro não existir ou não for um registo de viagens.
+     */
+    public static long readBinary(String filename, TripVisitor visitor) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(filename), 64 * 1024)))) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version != VERSION) {
+                throw new IOException("Ficheiro de viagens inválido: " + filename);
+            }
+            long count = 0;
+            while (true) {
+                int vehicleId;
+                try {
+                    vehicleId = in.readInt();
+                } catch (EOFException e) {
+                    return count;
+                }
+                VehicleClass vehicleClass = VehicleClass.fromTag((in.readInt() >>> CLASS_SHIFT) & 0xFF);
+                visitor.visit(vehicleId, vehicleClass, in.readInt(), in.readInt(), in.readInt(), in.readInt());
+                count++;
+            }
+        }
+    }
+
+    // Getters
+    public Format getFormat() {
+        return format;
+    }
+
+    public Backpressure getBackpressure() {
+        return backpressure;
+    }
+
+    /**
+     * Obtém o número de viagens entregues a record() (registadas ou não).
+     */
+    public long getTripsOffered() {
+        return tripsOffered;
+    }
+
+    public long getTripsDropped() {
+        return tripsDropped;
+    }
+
+    public long getTripsSampledOut() {
+        return tripsSampledOut;
+    }
+
+    public long getTripsWritten() {
+        return tripsWritten;
+    }
+}
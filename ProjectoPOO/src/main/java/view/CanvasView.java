@@ -1,13 +1,25 @@
 package view;
 
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import model.*;
+import util.TrajectoryFrame;
+
+import java.util.Arrays;
 
 /**
  * Componente de visualização que desenha o estado atual do World
- * em um Canvas JavaFX.
+ * em um Canvas JavaFX. O desenho é feito a partir de um TrajectoryFrame,
+ * pelo que o mesmo código serve a simulação ao vivo e a reprodução de gravações.
+ *
+ * O desenho é feito em camadas. A camada estática (fundo, estradas, marcas das vias e linhas de
+ * paragem) é desenhada uma vez numa imagem e só é refeita quando o tamanho do Canvas muda ou quando
+ * é pedido (invalidateStaticLayer, por exemplo ao reconstruir o cenário). Em cada frame copia-se a
+ * imagem e desenham-se por cima os semáforos e os veículos; os veículos são agrupados por cor, para
+ * mudar o preenchimento do GraphicsContext uma vez por cor e não uma vez por veículo.
  */
 public class CanvasView extends Canvas {
     private final World world;
@@ -27,20 +39,82 @@ public class CanvasView extends Canvas {
     private final double roadX_R3 = intersectionCenterX - laneWidth / 2;
     private final double roadX_R4 = intersectionCenterX + laneWidth / 2;
 
+    private final TrajectoryFrame liveFrame = new TrajectoryFrame(); // Reutilizado entre desenhos
+
+    // Camada estática (null quando tem de ser refeita)
+    private WritableImage staticLayer;
+
+    // Cores dos veículos: as tonalidades (id * 50) % 360 são múltiplos de 10, logo há 36 cores
+    // normais, seguidas da cor dos veículos de emergência
+    private static final int HUE_STEP = 10;
+    private static final Color[] VEHICLE_COLORS = new Color[360 / HUE_STEP + 1];
+    private static final int EMERGENCY_COLOR = VEHICLE_COLORS.length - 1;
+
+    static {
+        for (int c = 0; c < EMERGENCY_COLOR; c++) {
+            VEHICLE_COLORS[c] = Color.hsb(c * HUE_STEP, 0.8, 0.9);
+        }
+        VEHICLE_COLORS[EMERGENCY_COLOR] = Color.BLUE; // Veículos de emergência são azuis
+    }
+
+    // Veículos do frame agrupados por cor (reutilizados entre desenhos)
+    private final int[] colorStart = new int[VEHICLE_COLORS.length + 1];
+    private int[] vehicleColor = new int[0];
+    private double[] sortedX = new double[0];
+    private double[] sortedY = new double[0];
+
     public CanvasView(World world, double roadLength) {
         super(800, 700);
         this.world = world;
         this.roadLength = roadLength;
+        widthProperty().addListener((obs, old, val) -> invalidateStaticLayer());
+        heightProperty().addListener((obs, old, val) -> invalidateStaticLayer());
+    }
+
+    /**
+     * Obriga a camada estática a ser redesenhada no próximo frame (mudança de cenário ou de escala).
+     */
+    public void invalidateStaticLayer() {
+        staticLayer = null;
     }
 
+    /**
+     * Desenha o estado atual do World.
+     */
     public void draw() {
+        world.captureFrame(liveFrame);
+        draw(liveFrame);
+    }
+
+    /**
+     * Desenha um frame (ao vivo ou de uma gravação).
+     * @param frame O frame a desenhar.
+     */
+    public void draw(TrajectoryFrame frame) {
+        if (staticLayer == null) {
+            staticLayer = renderStaticLayer();
+        }
         GraphicsContext gc = getGraphicsContext2D();
-        gc.setFill(Color.web("#F0F0F0"));
-        gc.fillRect(0, 0, canvasWidth, canvasHeight);
+        gc.drawImage(staticLayer, 0, 0, getWidth(), getHeight());
 
+        drawIntersections(gc, frame);
+        drawVehicles(gc, frame);
+    }
+
+    /**
+     * Desenha o fundo e as estradas num Canvas auxiliar (fora da cena) e guarda o resultado numa imagem,
+     * à escala do ecrã da janela para não ficar desfocada em ecrãs de alta densidade.
+     */
+    private WritableImage renderStaticLayer() {
+        double scale = getScene() != null && getScene().getWindow() != null
+                ? getScene().getWindow().getOutputScaleX() : 1.0;
+        Canvas layer = new Canvas(getWidth() * scale, getHeight() * scale);
+        GraphicsContext gc = layer.getGraphicsContext2D();
+        gc.scale(scale, scale);
+        gc.setFill(Color.web("#F0F0F0"));
+        gc.fillRect(0, 0, getWidth(), getHeight());
         drawRoads(gc);
-        drawIntersections(gc);
-        drawVehicles(gc);
+        return layer.snapshot(new SnapshotParameters(), null);
     }
 
     private void drawRoads(GraphicsContext gc) {
@@ -65,70 +139,95 @@ public class CanvasView extends Canvas {
         gc.strokeLine(roadX_R4 - laneWidth / 2, intersectionCenterY + stopLineOffset, roadX_R4 + laneWidth / 2, intersectionCenterY + stopLineOffset);
     }
 
-    private void drawIntersections(GraphicsContext gc) {
-        if (world.getIntersections().isEmpty()) return;
-        Intersection intersection = world.getIntersections().get(0);
-        
-        Road road1 = world.getRoads().get(0);
-        Road road2 = world.getRoads().get(1);
-        Road road3 = world.getRoads().get(2);
-        Road road4 = world.getRoads().get(3);
+    private void drawIntersections(GraphicsContext gc, TrajectoryFrame frame) {
+        // Os quatro primeiros semáforos do frame são os das estradas R1..R4 do primeiro cruzamento
+        if (frame.getLightCount() < 4) return;
 
         double stopLineX = intersectionCenterX - totalRoadWidth / 2 - 5;
         double stopLineY = intersectionCenterY - totalRoadWidth / 2 - 5;
 
-        drawLight(gc, intersection.getTrafficLight(road1), stopLineX - trafficLightRadius - 5, roadY_R1 - laneWidth / 2, -20, 5);
-        drawLight(gc, intersection.getTrafficLight(road2), intersectionCenterX + totalRoadWidth / 2 + 5 + trafficLightRadius + 5, roadY_R2 + laneWidth / 2, 20, 5);
-        drawLight(gc, intersection.getTrafficLight(road3), roadX_R3 - laneWidth / 2, stopLineY - trafficLightRadius - 5, -20, -10);
-        drawLight(gc, intersection.getTrafficLight(road4), roadX_R4 + laneWidth / 2, intersectionCenterY + totalRoadWidth / 2 + 5 + trafficLightRadius + 5, 20, 10);
+        drawLight(gc, frame, 0, stopLineX - trafficLightRadius - 5, roadY_R1 - laneWidth / 2, -20, 5);
+        drawLight(gc, frame, 1, intersectionCenterX + totalRoadWidth / 2 + 5 + trafficLightRadius + 5, roadY_R2 + laneWidth / 2, 20, 5);
+        drawLight(gc, frame, 2, roadX_R3 - laneWidth / 2, stopLineY - trafficLightRadius - 5, -20, -10);
+        drawLight(gc, frame, 3, roadX_R4 + laneWidth / 2, intersectionCenterY + totalRoadWidth / 2 + 5 + trafficLightRadius + 5, 20, 10);
     }
 
-    private void drawLight(GraphicsContext gc, TrafficLight light, double x, double y, double tx, double ty) {
-        if (light == null) return;
+    private void drawLight(GraphicsContext gc, TrajectoryFrame frame, int light, double x, double y, double tx, double ty) {
+        byte color = frame.getLightColor(light);
+        if (color == TrajectoryFrame.NO_LIGHT) return;
         gc.setFill(Color.BLACK);
         gc.fillOval(x - trafficLightRadius - 1, y - trafficLightRadius - 1, 2 * trafficLightRadius + 2, 2 * trafficLightRadius + 2);
 
-        switch (light.getState()) {
+        switch (TrafficLightState.values()[color]) {
             case RED -> gc.setFill(Color.RED);
             case YELLOW -> gc.setFill(Color.YELLOW);
             case GREEN -> gc.setFill(Color.GREEN);
         }
         gc.fillOval(x - trafficLightRadius, y - trafficLightRadius, 2 * trafficLightRadius, 2 * trafficLightRadius);
 
-        int timeRemaining = light.getCurrentState().getDuration() - light.getTimeInState();
         gc.setFill(Color.BLACK);
-        gc.fillText(String.valueOf(Math.max(0, timeRemaining)), x + tx, y + ty);
+        gc.fillText(String.valueOf(frame.getLightRemaining(light)), x + tx, y + ty);
     }
 
-    private void drawVehicles(GraphicsContext gc) {
-        for (Vehicle vehicle : world.getVehicles()) {
-            Road currentRoad = vehicle.getCurrentRoad();
-            double normalizedPosition = vehicle.getPosition() / roadLength;
-            double x = 0, y = 0;
+    private void drawVehicles(GraphicsContext gc, TrajectoryFrame frame) {
+        int count = frame.getVehicleCount();
+        if (vehicleColor.length < count) {
+            int capacity = Math.max(count, vehicleColor.length * 2);
+            vehicleColor = new int[capacity];
+            sortedX = new double[capacity];
+            sortedY = new double[capacity];
+        }
 
-            if (vehicle instanceof EmergencyVehicle) {
-                gc.setFill(Color.BLUE); // Veículos de emergência são azuis
-            } else {
-                gc.setFill(Color.hsb((vehicle.getId() * 50) % 360, 0.8, 0.9));
-            }
+        // Ordenação por contagem: conta os veículos de cada cor e calcula o início de cada grupo
+        Arrays.fill(colorStart, 0);
+        for (int i = 0; i < count; i++) {
+            int color = frame.isVehicleEmergency(i) ? EMERGENCY_COLOR
+                    : Math.floorMod(frame.getVehicleId(i) * 50, 360) / HUE_STEP;
+            vehicleColor[i] = color;
+            colorStart[color + 1]++;
+        }
+        for (int c = 0; c < VEHICLE_COLORS.length; c++) {
+            colorStart[c + 1] += colorStart[c];
+        }
+
+        // Coloca as posições de cada veículo no grupo da sua cor
+        int[] next = Arrays.copyOf(colorStart, VEHICLE_COLORS.length);
+        for (int i = 0; i < count; i++) {
+            int roadId = frame.getVehicleRoadId(i);
+            double normalizedPosition = frame.getVehiclePosition(i) / roadLength;
+            double x = 0, y = 0;
 
-            if (currentRoad.getId() == 1) {
+            if (roadId == 1) {
                 x = normalizedPosition * intersectionCenterX;
                 y = roadY_R1 - vehicleSize / 2;
-            } else if (currentRoad.getId() == 2) {
+            } else if (roadId == 2) {
                 x = canvasWidth - (normalizedPosition * intersectionCenterX);
                 y = roadY_R2 - vehicleSize / 2;
-            } else if (currentRoad.getId() == 3) {
+            } else if (roadId == 3) {
                 x = roadX_R3 - vehicleSize / 2;
                 y = normalizedPosition * intersectionCenterY;
-            } else if (currentRoad.getId() == 4) {
+            } else if (roadId == 4) {
                 x = roadX_R4 - vehicleSize / 2;
                 y = canvasHeight - (normalizedPosition * intersectionCenterY);
             }
 
-            gc.fillRect(x, y, vehicleSize, vehicleSize);
-            gc.setStroke(Color.BLACK);
-            gc.strokeRect(x, y, vehicleSize, vehicleSize);
+            int slot = next[vehicleColor[i]]++;
+            sortedX[slot] = x;
+            sortedY[slot] = y;
+        }
+
+        // Um preenchimento por cor e um único contorno para todos os veículos
+        for (int c = 0; c < VEHICLE_COLORS.length; c++) {
+            if (colorStart[c] == colorStart[c + 1]) continue;
+            gc.setFill(VEHICLE_COLORS[c]);
+            for (int slot = colorStart[c]; slot < colorStart[c + 1]; slot++) {
+                gc.fillRect(sortedX[slot], sortedY[slot], vehicleSize, vehicleSize);
+            }
+        }
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(4.0); // A espessura com que os contornos eram desenhados (a das linhas de paragem)
+        for (int slot = 0; slot < count; slot++) {
+            gc.strokeRect(sortedX[slot], sortedY[slot], vehicleSize, vehicleSize);
         }
     }
 }
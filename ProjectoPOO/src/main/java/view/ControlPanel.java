@@ -5,18 +5,47 @@ import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.scene.control.Separator;
+import javafx.scene.paint.Color;
+import util.SimulationHistory;
+import util.TimeSeriesBuffer;
 
 public class ControlPanel extends VBox {
     private final Button startButton = new Button("Iniciar");
     private final Button stopButton = new Button("Parar");
     private final Button restartButton = new Button("Reiniciar");
-    private final Slider speedSlider = new Slider(0.1, 5.0, 1.0);
+    private final Slider speedSlider = new Slider(0.1, 20.0, 1.0);
     private final Label speedLabel = new Label("Velocidade: 1.0x");
+    private final CheckBox maxSpeedCheckBox = new CheckBox("Velocidade máxima");
+    private final Label ticksPerSecondLabel = new Label("Ticks/s: 0");
     private final ComboBox<String> strategyComboBox = new ComboBox<>();
     private final Slider generationSlider = new Slider(1, 20, 5);
     private final Label generationLabel = new Label("Intervalo de Geração: 5 ticks");
     private final Label statsLabel = new Label("Estatísticas:\n- Espera Média: 0.0\n- Veículos: 0");
     private final Button exportButton = new Button("Exportar CSV");
+    private final CheckBox recordCheckBox = new CheckBox("Gravar trajetórias");
+    private final Button replayButton = new Button("Reproduzir gravação");
+    private final Slider replaySlider = new Slider(0, 1, 0);
+    private final Label replayLabel = new Label("Reprodução: -");
+    private final Slider rewindSlider = new Slider(0, 1, 0);
+    private final Label rewindLabel = new Label("Recuar: -");
+
+    // Gráficos do histórico recente (redesenhados apenas quando há pontos novos)
+    private static final double CHART_WIDTH = 200;
+    private static final double CHART_HEIGHT = 70;
+    private static final Color[] APPROACH_COLORS = {Color.STEELBLUE, Color.DARKORANGE, Color.SEAGREEN, Color.PURPLE};
+    private final TimeSeriesChart throughputChart = new TimeSeriesChart("Veículos/tick", CHART_WIDTH, CHART_HEIGHT);
+    private final TimeSeriesChart waitingChart = new TimeSeriesChart("Espera média", CHART_WIDTH, CHART_HEIGHT);
+    private final TimeSeriesChart queueChart = new TimeSeriesChart("Filas R1-R4", CHART_WIDTH, CHART_HEIGHT);
+    private final TimeSeriesChart phaseChart = new TimeSeriesChart("Fases R1-R4", CHART_WIDTH, CHART_HEIGHT);
+    private static final Color[] WAITING_COLORS = {Color.FIREBRICK};
+    private TimeSeriesBuffer[] throughputSeries;
+    private TimeSeriesBuffer[] waitingSeries;
+    private TimeSeriesBuffer[] queueSeries;
+    private TimeSeriesBuffer[] phaseSeries;
+
+    // Últimos valores mostrados (o texto só é refeito quando mudam)
+    private double shownAvgWait = -1;
+    private int shownTotalServed = -1;
 
     public ControlPanel() {
         setPadding(new Insets(10));
@@ -28,6 +57,8 @@ public class ControlPanel extends VBox {
         speedSlider.setShowTickMarks(true);
         speedSlider.valueProperty().addListener((obs, oldVal, newVal) -> 
             speedLabel.setText(String.format("Velocidade: %.1fx", newVal.doubleValue())));
+        // No modo de velocidade máxima o slider deixa de ter efeito
+        maxSpeedCheckBox.selectedProperty().addListener((obs, oldVal, newVal) -> speedSlider.setDisable(newVal));
 
         generationSlider.setShowTickLabels(true);
         generationSlider.setShowTickMarks(true);
@@ -40,17 +71,28 @@ public class ControlPanel extends VBox {
         stopButton.setDisable(true);
         restartButton.setMaxWidth(Double.MAX_VALUE);
 
-        strategyComboBox.getItems().addAll("FixedCycle", "AdaptiveCycle");
+        replayButton.setMaxWidth(Double.MAX_VALUE);
+        replaySlider.setDisable(true); // Só ativo durante a reprodução
+        rewindSlider.setDisable(true); // Só ativo com a simulação parada
+
+        strategyComboBox.getItems().addAll("FixedCycle", "AdaptiveCycle", "PredictiveCycle");
         strategyComboBox.setValue("FixedCycle");
 
         getChildren().addAll(
             startButton, stopButton, restartButton,
             new Label("Estratégia:"), strategyComboBox,
             new Label("Velocidade:"), speedSlider, speedLabel,
+            maxSpeedCheckBox, ticksPerSecondLabel,
             new Label("Geração (ticks):"), generationSlider, generationLabel,
             new Separator(),
             statsLabel,
-            exportButton
+            exportButton,
+            new Separator(),
+            recordCheckBox, replayButton, replaySlider, replayLabel,
+            new Separator(),
+            rewindSlider, rewindLabel,
+            new Separator(),
+            throughputChart, waitingChart, queueChart, phaseChart
         );
     }
 
@@ -58,12 +100,57 @@ public class ControlPanel extends VBox {
     public Button getStopButton() { return stopButton; }
     public Button getRestartButton() { return restartButton; }
     public Slider getSpeedSlider() { return speedSlider; }
+    public CheckBox getMaxSpeedCheckBox() { return maxSpeedCheckBox; }
     public ComboBox<String> getStrategyComboBox() { return strategyComboBox; }
     public Slider getGenerationSlider() { return generationSlider; }
 
     public void updateStats(double avgWait, int totalServed) {
+        if (avgWait == shownAvgWait && totalServed == shownTotalServed) {
+            return;
+        }
+        shownAvgWait = avgWait;
+        shownTotalServed = totalServed;
         statsLabel.setText(String.format("Estatísticas:\n- Espera Média: %.2f\n- Veículos: %d", avgWait, totalServed));
     }
 
+    /**
+     * Atualiza os gráficos com o histórico (só redesenha se houver pontos novos).
+     * @param history O histórico da simulação.
+     */
+    public void updateCharts(SimulationHistory history) {
+        if (queueSeries == null) {
+            throughputSeries = new TimeSeriesBuffer[]{history.getThroughput()};
+            waitingSeries = new TimeSeriesBuffer[]{history.getWaitingTime()};
+            queueSeries = new TimeSeriesBuffer[history.getApproaches()];
+            phaseSeries = new TimeSeriesBuffer[history.getApproaches()];
+            for (int i = 0; i < queueSeries.length; i++) {
+                queueSeries[i] = history.getQueue(i);
+                phaseSeries[i] = history.getPhase(i);
+            }
+        }
+        long version = history.getVersion();
+        throughputChart.redrawIfChanged(version, throughputSeries, APPROACH_COLORS);
+        waitingChart.redrawIfChanged(version, waitingSeries, WAITING_COLORS);
+        queueChart.redrawIfChanged(version, queueSeries, APPROACH_COLORS);
+        phaseChart.redrawPhasesIfChanged(version, phaseSeries);
+    }
+
+    public void updateTicksPerSecond(double ticksPerSecond) {
+        ticksPerSecondLabel.setText(String.format("Ticks/s: %.0f", ticksPerSecond));
+    }
+
+    public void updateReplayPosition(int tick, int lastTick) {
+        replayLabel.setText(String.format("Reprodução: tick %d / %d", tick, lastTick));
+    }
+
     public Button getExportButton() { return exportButton; }
+    public CheckBox getRecordCheckBox() { return recordCheckBox; }
+    public Button getReplayButton() { return replayButton; }
+    public Slider getReplaySlider() { return replaySlider; }
+    public Label getReplayLabel() { return replayLabel; }
+    public Slider getRewindSlider() { return rewindSlider; }
+
+    public void updateRewindPosition(int tick, int lastTick) {
+        rewindLabel.setText(String.format("Recuar: tick %d / %d", tick, lastTick));
+    }
 }
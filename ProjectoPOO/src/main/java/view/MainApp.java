@@ -3,45 +3,161 @@ package view;
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.scene.Scene;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.Slider;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 import model.World;
 import controller.*;
 import util.CsvExporter;
+import util.KeyframeHistory;
+import util.SimulationHistory;
+import util.TrajectoryFrame;
+import util.TrajectoryRecorder;
+import util.TrajectoryReplay;
+
+import java.io.IOException;
 
 public class MainApp extends Application {
     private World world;
     private CanvasView canvasView;
     private ControlPanel controlPanel;
     private SimulationTimer timer;
+    // Histórico dos gráficos: 360 pontos de 5 ticks = últimos 30 minutos de simulação
+    private final SimulationHistory history = new SimulationHistory(360, 5, 4);
+    // Recuo no tempo: um keyframe a cada 60 ticks, no máximo 64 MB (os mais antigos são descartados)
+    private final KeyframeHistory keyframes = new KeyframeHistory(60, 64L * 1024 * 1024);
+    private boolean updatingRewindSlider = false;
 
     private long lastUpdate = 0;
     private double timeScale = 1.0;
+    private boolean maxSpeed = false;
+
+    // Gravação e reprodução de trajetórias
+    private TrajectoryRecorder recorder;
+    private TrajectoryReplay replay; // Não nulo enquanto se reproduz uma gravação
+    private int replayTick;
+    private boolean updatingReplaySlider = false; // Distingue o avanço da reprodução de um salto do utilizador
+
+    // Passo fixo: 1 tick corresponde a 1 segundo de simulação à escala 1.0x
+    private static final double SECONDS_PER_TICK = 1.0;
+    // Limite de ticks em atraso processados num frame (evita a "espiral da morte")
+    private static final int MAX_CATCH_UP_TICKS = 100;
+    // Orçamento de tempo por frame no modo de velocidade máxima (~12 ms para manter 60 fps)
+    private static final long MAX_SPEED_FRAME_BUDGET_NANOS = 12_000_000L;
+    // Número de ticks entre verificações do relógio no modo de velocidade máxima
+    private static final int TICKS_PER_CLOCK_CHECK = 8;
+    // Janela de medição da leitura de ticks/s
+    private static final long TPS_WINDOW_NANOS = 500_000_000L;
+    // Ficheiro usado para gravar e reproduzir trajetórias
+    private static final String TRAJECTORY_FILE = "simulation.trj";
 
     private class SimulationTimer extends AnimationTimer {
+        private double accumulator = 0.0; // Tempo de simulação ainda não convertido em ticks
+        private long tpsWindowStart = 0;
+        private int ticksInWindow = 0;
+
         @Override
         public void handle(long now) {
             if (lastUpdate == 0) {
                 lastUpdate = now;
+                tpsWindowStart = now;
                 return;
             }
             long elapsedNanos = now - lastUpdate;
             lastUpdate = now;
-            
-            double elapsedSeconds = elapsedNanos / 1_000_000_000.0;
-            double simulationTime = elapsedSeconds * timeScale;
-            
-            // Processar ticks (1 tick por segundo base)
-            int ticksToProcess = (int) (simulationTime / 1.0);
-            if (ticksToProcess > 0) {
-                for (int i = 0; i < ticksToProcess; i++) world.tick();
-            } else if (simulationTime > 0 && Math.random() < simulationTime) {
-                // Para escalas menores que 1.0, processar probabilisticamente ou acumular
-                world.tick();
+
+            if (replay != null) {
+                advanceReplay(elapsedNanos / 1_000_000_000.0);
+                return;
+            }
+
+            if (maxSpeed) {
+                ticksInWindow += runForBudget();
+                accumulator = 0.0;
+            } else {
+                ticksInWindow += runAccumulated(elapsedNanos / 1_000_000_000.0);
+            }
+
+            if (now - tpsWindowStart >= TPS_WINDOW_NANOS) {
+                double windowSeconds = (now - tpsWindowStart) / 1_000_000_000.0;
+                controlPanel.updateTicksPerSecond(ticksInWindow / windowSeconds);
+                tpsWindowStart = now;
+                ticksInWindow = 0;
             }
 
             canvasView.draw();
             controlPanel.updateStats(world.getMetrics().getAverageWaitingTime(), world.getMetrics().getTotalVehiclesServed());
+            controlPanel.updateCharts(history);
+        }
+
+        /**
+         * Acumula o tempo decorrido (escalado) e processa um tick por cada passo fixo completo.
+         * A sequência de ticks não depende da taxa de frames, apenas do tempo acumulado.
+         * @param elapsedSeconds Tempo real decorrido desde o último frame.
+         * @return O número de ticks processados.
+         */
+        private int runAccumulated(double elapsedSeconds) {
+            accumulator += elapsedSeconds * timeScale;
+            int ticks = 0;
+            while (accumulator >= SECONDS_PER_TICK && ticks < MAX_CATCH_UP_TICKS) {
+                world.tick();
+                history.record(world);
+                keyframes.onTick(world);
+                accumulator -= SECONDS_PER_TICK;
+                ticks++;
+            }
+            if (ticks == MAX_CATCH_UP_TICKS) {
+                // Descarta o atraso restante em vez de bloquear a interface
+                accumulator = 0.0;
+            }
+            return ticks;
+        }
+
+        /**
+         * Processa tantos ticks quantos couberem no orçamento de tempo do frame.
+         * @return O número de ticks processados.
+         */
+        private int runForBudget() {
+            long deadline = System.nanoTime() + MAX_SPEED_FRAME_BUDGET_NANOS;
+            int ticks = 0;
+            do {
+                for (int i = 0; i < TICKS_PER_CLOCK_CHECK; i++) {
+                    world.tick();
+                    history.record(world);
+                    keyframes.onTick(world);
+                }
+                ticks += TICKS_PER_CLOCK_CHECK;
+            } while (System.nanoTime() < deadline);
+            return ticks;
+        }
+
+        /**
+         * Avança a reprodução com o mesmo passo fixo da simulação (sem simular nada).
+         * @param elapsedSeconds Tempo real decorrido desde o último frame.
+         */
+        private void advanceReplay(double elapsedSeconds) {
+            int ticks;
+            if (maxSpeed) {
+                ticks = MAX_CATCH_UP_TICKS;
+            } else {
+                accumulator += elapsedSeconds * timeScale;
+                ticks = (int) Math.min(accumulator / SECONDS_PER_TICK, MAX_CATCH_UP_TICKS);
+                accumulator -= ticks * SECONDS_PER_TICK;
+            }
+            replayTick = Math.min(replayTick + ticks, replay.getLastTick());
+            showReplayFrame();
+            if (replayTick == replay.getLastTick()) {
+                stop(); // Fim da gravação
+                controlPanel.getStartButton().setDisable(false);
+                controlPanel.getStopButton().setDisable(true);
+            }
+        }
+
+        void resetClock() {
+            accumulator = 0.0;
+            ticksInWindow = 0;
+            lastUpdate = 0;
         }
     }
 
@@ -49,6 +165,7 @@ public class MainApp extends Application {
     public void start(Stage primaryStage) {
         world = new World();
         world.setupSimpleScenario();
+        keyframes.capture(world); // Permite recuar até ao início
 
         controlPanel = new ControlPanel();
         canvasView = new CanvasView(world, world.getRoads().get(0).getLength());
@@ -58,7 +175,9 @@ public class MainApp extends Application {
 
         BorderPane root = new BorderPane();
         root.setCenter(canvasView);
-        root.setRight(controlPanel);
+        ScrollPane sidePanel = new ScrollPane(controlPanel); // Os gráficos podem não caber na altura da janela
+        sidePanel.setFitToWidth(true);
+        root.setRight(sidePanel);
 
         Scene scene = new Scene(root, 1000, 700);
         primaryStage.setTitle("Simulação de Tráfego Inteligente");
@@ -68,9 +187,11 @@ public class MainApp extends Application {
 
     private void setupControls() {
         controlPanel.getStartButton().setOnAction(e -> {
+            closeReplay(); // Voltar a iniciar regressa à simulação ao vivo
+            resumeFromRewind();
             world.start();
+            timer.resetClock();
             timer.start();
-            lastUpdate = 0;
             controlPanel.getStartButton().setDisable(true);
             controlPanel.getStopButton().setDisable(false);
         });
@@ -78,28 +199,201 @@ public class MainApp extends Application {
         controlPanel.getStopButton().setOnAction(e -> {
             world.stop();
             timer.stop();
+            enableRewind();
             controlPanel.getStartButton().setDisable(false);
             controlPanel.getStopButton().setDisable(true);
         });
 
         controlPanel.getRestartButton().setOnAction(e -> {
             timer.stop();
+            timer.resetClock();
+            closeReplay();
+            controlPanel.getRecordCheckBox().setSelected(false); // Os ticks recomeçam: a gravação termina aqui
             world.reset();
+            keyframes.clear();
+            keyframes.capture(world);
+            disableRewind();
+            history.clear(world);
+            controlPanel.updateCharts(history);
+            canvasView.invalidateStaticLayer(); // O cenário foi reconstruído
             canvasView.draw();
             controlPanel.getStartButton().setDisable(false);
             controlPanel.getStopButton().setDisable(true);
         });
 
         controlPanel.getSpeedSlider().valueProperty().addListener((obs, old, val) -> timeScale = val.doubleValue());
-        controlPanel.getGenerationSlider().valueProperty().addListener((obs, old, val) -> world.setVehicleGenerationInterval(val.intValue()));
+        controlPanel.getMaxSpeedCheckBox().selectedProperty().addListener((obs, old, val) -> maxSpeed = val);
+        controlPanel.getGenerationSlider().valueProperty().addListener((obs, old, val) -> {
+            world.setVehicleGenerationInterval(val.intValue());
+            keyframeAfterChange();
+        });
         controlPanel.getStrategyComboBox().valueProperty().addListener((obs, old, val) -> {
-            if ("AdaptiveCycle".equals(val)) world.setTrafficStrategy(new AdaptiveCycle());
-            else world.setTrafficStrategy(new FixedCycle());
+            world.setTrafficStrategy(StrategyFactory.create(val));
+            keyframeAfterChange();
         });
 
         controlPanel.getExportButton().setOnAction(e -> {
             CsvExporter.exportMetrics(world.getMetrics(), "simulation_metrics.csv");
         });
+
+        controlPanel.getRecordCheckBox().selectedProperty().addListener((obs, old, val) -> {
+            if (val) {
+                startRecording();
+            } else {
+                stopRecording();
+            }
+        });
+
+        controlPanel.getReplayButton().setOnAction(e -> openReplay());
+
+        controlPanel.getRewindSlider().valueProperty().addListener((obs, old, val) -> {
+            if (replay == null && !world.isRunning() && !updatingRewindSlider) {
+                int tick = keyframes.seek(world, val.intValue(), history); // Os gráficos acompanham o tick mostrado
+                canvasView.draw();
+                controlPanel.updateStats(world.getMetrics().getAverageWaitingTime(), world.getMetrics().getTotalVehiclesServed());
+                controlPanel.updateCharts(history);
+                controlPanel.updateRewindPosition(tick, keyframes.getLastTick());
+            }
+        });
+
+        controlPanel.getReplaySlider().valueProperty().addListener((obs, old, val) -> {
+            if (replay != null && !updatingReplaySlider) {
+                replayTick = val.intValue(); // Salto pedido pelo utilizador
+                showReplayFrame();
+            }
+        });
+    }
+
+    /**
+     * Ativa o controlo de recuo com o intervalo de ticks que ainda tem keyframes.
+     */
+    private void enableRewind() {
+        Slider slider = controlPanel.getRewindSlider();
+        updatingRewindSlider = true;
+        slider.setMin(keyframes.getFirstTick());
+        slider.setMax(Math.max(keyframes.getFirstTick() + 1, keyframes.getLastTick()));
+        slider.setValue(world.getSimulationTime());
+        updatingRewindSlider = false;
+        slider.setDisable(false);
+        controlPanel.updateRewindPosition(world.getSimulationTime(), keyframes.getLastTick());
+    }
+
+    private void disableRewind() {
+        controlPanel.getRewindSlider().setDisable(true);
+    }
+
+    /**
+     * Ao continuar a partir de um tick anterior, o futuro guardado deixa de ser válido e a
+     * gravação de trajetórias termina (os ticks voltariam atrás).
+     */
+    private void resumeFromRewind() {
+        disableRewind();
+        int time = world.getSimulationTime();
+        if (time < keyframes.getLastTick()) {
+            keyframes.truncateAfter(time); // O histórico dos gráficos já termina neste tick (ver seek)
+            controlPanel.getRecordCheckBox().setSelected(false);
+        }
+    }
+
+    /**
+     * Uma alteração feita pelo utilizador (estratégia, geração) muda o futuro: guarda um keyframe
+     * com o novo valor para que os saltos repitam a simulação com ele.
+     */
+    private void keyframeAfterChange() {
+        if (world == null || replay != null) {
+            return;
+        }
+        keyframes.truncateAfter(world.getSimulationTime());
+        keyframes.capture(world);
+        if (!world.isRunning()) {
+            enableRewind();
+        }
+    }
+
+    private void startRecording() {
+        try {
+            recorder = new TrajectoryRecorder(TRAJECTORY_FILE);
+            world.setTrajectoryRecorder(recorder);
+        } catch (IOException ex) {
+            System.err.println("Erro ao iniciar a gravação: " + ex.getMessage());
+            controlPanel.getRecordCheckBox().setSelected(false);
+        }
+    }
+
+    private void stopRecording() {
+        if (recorder == null) {
+            return;
+        }
+        world.setTrajectoryRecorder(null);
+        try {
+            recorder.close();
+            System.out.println("Trajetórias gravadas em " + TRAJECTORY_FILE + " (" + recorder.getFramesRecorded() + " ticks)");
+        } catch (IOException ex) {
+            System.err.println("Erro ao terminar a gravação: " + ex.getMessage());
+        }
+        recorder = null;
+    }
+
+    /**
+     * Para a simulação e passa a mostrar a última gravação, a partir do primeiro tick gravado.
+     */
+    private void openReplay() {
+        world.stop();
+        timer.stop();
+        controlPanel.getRecordCheckBox().setSelected(false); // Fecha o ficheiro antes de o ler
+        closeReplay();
+        disableRewind();
+        try {
+            replay = new TrajectoryReplay(TRAJECTORY_FILE);
+        } catch (IOException ex) {
+            System.err.println("Erro ao abrir a gravação: " + ex.getMessage());
+            return;
+        }
+        if (replay.getFrameCount() == 0) {
+            System.err.println("A gravação está vazia");
+            closeReplay();
+            return;
+        }
+        replayTick = replay.getFirstTick();
+        Slider slider = controlPanel.getReplaySlider();
+        slider.setMin(replay.getFirstTick());
+        slider.setMax(replay.getLastTick());
+        slider.setDisable(false);
+        showReplayFrame();
+
+        timer.resetClock();
+        timer.start();
+        controlPanel.getStartButton().setDisable(false);
+        controlPanel.getStopButton().setDisable(false);
+    }
+
+    private void showReplayFrame() {
+        try {
+            TrajectoryFrame frame = replay.frameAt(replayTick);
+            canvasView.draw(frame);
+        } catch (IOException ex) {
+            System.err.println("Erro ao ler a gravação: " + ex.getMessage());
+            closeReplay();
+            return;
+        }
+        updatingReplaySlider = true;
+        controlPanel.getReplaySlider().setValue(replayTick);
+        updatingReplaySlider = false;
+        controlPanel.updateReplayPosition(replayTick, replay.getLastTick());
+    }
+
+    private void closeReplay() {
+        if (replay == null) {
+            return;
+        }
+        try {
+            replay.close();
+        } catch (IOException ex) {
+            System.err.println("Erro ao fechar a gravação: " + ex.getMessage());
+        }
+        replay = null;
+        controlPanel.getReplaySlider().setDisable(true);
+        controlPanel.getReplayLabel().setText("Reprodução: -");
     }
 
     public static void main(String[] args) { launch(args); }
@@ -0,0 +1,169 @@
+package view;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import model.TrafficLightState;
+import util.TimeSeriesBuffer;
+
+/**
+ * Gráfico ao vivo desenhado num Canvas a partir de séries TimeSeriesBuffer.
+ *
+ * Cada coluna de píxeis agrega os baldes que lhe correspondem (mínimo, máximo e média), pelo que
+ * o desenho custa no máximo uma linha por série e uma faixa por coluna, qualquer que seja o
+ * comprimento da série. Os arrays das linhas são reutilizados entre desenhos, e o gráfico só é
+ * redesenhado quando as séries mudam (ver redrawIfChanged).
+ */
+public class TimeSeriesChart extends Canvas {
+    private static final double MARGIN_TOP = 14;
+    private static final double MARGIN_BOTTOM = 2;
+
+    private final String title;
+    private final double[] xs;
+    private final double[] ys;
+    private long drawnVersion = -1;
+
+    public TimeSeriesChart(String title, double width, double height) {
+        super(width, height);
+        this.title = title;
+        int columns = (int) width;
+        this.xs = new double[columns];
+        this.ys = new double[columns];
+    }
+
+    /**
+     * Redesenha as linhas das séries se tiverem mudado desde o último desenho.
+     * @param version A versão atual das séries.
+     * @param series As séries (partilham o eixo vertical).
+     * @param colors A cor de cada série.
+     */
+    public void redrawIfChanged(long version, TimeSeriesBuffer[] series, Color[] colors) {
+        if (version != drawnVersion) {
+            drawnVersion = version;
+            drawLines(series, colors);
+        }
+    }
+
+    /**
+     * Redesenha as faixas de fase dos semáforos se tiverem mudado desde o último desenho.
+     * @param version A versão atual das séries.
+     * @param phases Uma série por aproximação, com o ordinal de TrafficLightState.
+     */
+    public void redrawPhasesIfChanged(long version, TimeSeriesBuffer[] phases) {
+        if (version != drawnVersion) {
+            drawnVersion = version;
+            drawPhases(phases);
+        }
+    }
+
+    private void drawLines(TimeSeriesBuffer[] series, Color[] colors) {
+        GraphicsContext gc = clear();
+        double plotHeight = getHeight() - MARGIN_TOP - MARGIN_BOTTOM;
+        float peak = 1f;
+        for (TimeSeriesBuffer s : series) {
+            peak = Math.max(peak, s.getPeak());
+        }
+        gc.setFill(Color.GRAY);
+        gc.fillText(String.format("%s (máx. %.1f)", title, peak), 2, MARGIN_TOP - 3);
+
+        for (int k = 0; k < series.length; k++) {
+            TimeSeriesBuffer s = series[k];
+            int size = s.size();
+            if (size == 0) {
+                continue;
+            }
+            // Uma coluna por píxel (ou por balde, se houver menos baldes do que píxeis)
+            int columns = columnCount(s);
+            double step = getWidth() / Math.min(s.getCapacity(), xs.length);
+            double scale = plotHeight / peak;
+            double bottom = getHeight() - MARGIN_BOTTOM;
+            Color color = colors[k % colors.length];
+            gc.setStroke(color.deriveColor(0, 1, 1, 0.35));
+            gc.setLineWidth(1.0);
+            for (int c = 0; c < columns; c++) {
+                int from = (int) ((long) c * size / columns);
+                int to = (int) ((long) (c + 1) * size / columns);
+                float min = s.getMin(from);
+                float max = s.getMax(from);
+                double sum = 0.0;
+                for (int i = from; i < to; i++) {
+                    min = Math.min(min, s.getMin(i));
+                    max = Math.max(max, s.getMax(i));
+                    sum += s.getMean(i);
+                }
+                double x = c * step;
+                xs[c] = x;
+                ys[c] = bottom - sum / (to - from) * scale;
+                if (max > min) {
+                    gc.strokeLine(x, bottom - min * scale, x, bottom - max * scale); // Faixa mínimo-máximo
+                }
+            }
+            gc.setStroke(color);
+            gc.setLineWidth(1.5);
+            gc.strokePolyline(xs, ys, columns);
+        }
+    }
+
+    private void drawPhases(TimeSeriesBuffer[] phases) {
+        GraphicsContext gc = clear();
+        gc.setFill(Color.GRAY);
+        gc.fillText(title, 2, MARGIN_TOP - 3);
+        double laneHeight = (getHeight() - MARGIN_TOP - MARGIN_BOTTOM) / Math.max(1, phases.length);
+        for (int k = 0; k < phases.length; k++) {
+            TimeSeriesBuffer s = phases[k];
+            int size = s.size();
+            if (size == 0) {
+                continue;
+            }
+            int columns = columnCount(s);
+            double step = getWidth() / Math.min(s.getCapacity(), xs.length);
+            double y = MARGIN_TOP + k * laneHeight;
+            // Colunas consecutivas com a mesma fase são desenhadas num só retângulo
+            int runStart = 0;
+            int runPhase = phaseAt(s, 0, size, columns);
+            for (int c = 1; c <= columns; c++) {
+                int phase = c < columns ? phaseAt(s, c, size, columns) : Integer.MIN_VALUE;
+                if (phase != runPhase) {
+                    if (runPhase >= 0) {
+                        gc.setFill(phaseColor(runPhase));
+                        gc.fillRect(runStart * step, y, (c - runStart) * step, laneHeight - 1);
+                    }
+                    runStart = c;
+                    runPhase = phase;
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtém o número de colunas ocupadas pela série: a série cheia ocupa a largura toda
+     * (min(capacidade, píxeis) colunas) e uma série a encher ocupa a parte proporcional.
+     */
+    private int columnCount(TimeSeriesBuffer s) {
+        int totalColumns = Math.min(s.getCapacity(), xs.length);
+        return Math.max(1, (int) ((long) s.size() * totalColumns / s.getCapacity()));
+    }
+
+    private static int phaseAt(TimeSeriesBuffer s, int column, int size, int columns) {
+        int to = (int) ((long) (column + 1) * size / columns);
+        return (int) s.getLast(to - 1); // A fase no fim da coluna
+    }
+
+    private static Color phaseColor(int ordinal) {
+        return switch (TrafficLightState.values()[ordinal]) {
+            case GREEN -> Color.GREEN;
+            case YELLOW -> Color.GOLD;
+            case RED -> Color.RED;
+        };
+    }
+
+    private GraphicsContext clear() {
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, getWidth(), getHeight());
+        gc.setStroke(Color.LIGHTGRAY);
+        gc.setLineWidth(1.0);
+        gc.strokeRect(0.5, 0.5, getWidth() - 1, getHeight() - 1);
+        return gc;
+    }
+}
@@ -0,0 +1,16 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PointDetectorTest {
+
+    @Test
+    void zoneCoversOneTickOfTheFastestClass() {
+        PointDetector detector = new PointDetector(Detector.STOP_LINE, 1, 100.0, 10);
+        assertTrue(detector.getZoneLength() >= VehicleClass.EMERGENCY.getMaxSpeed());
+        // Um veículo de emergência à velocidade máxima está na zona no tick antes de passar a espira
+        assertTrue(detector.isInZone(100.0 - VehicleClass.EMERGENCY.getMaxSpeed()));
+    }
+}
@@ -0,0 +1,36 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WorldTest {
+
+    // Totais (servidos, espera) das fatias de uma grelha de 8 cruzamentos repartida por "slices" mundos
+    private static long[] runSlices(int slices) {
+        long[] totals = new long[2];
+        for (int s = 0; s < slices; s++) {
+            World world = new World(7);
+            world.setupGridScenario(8, s * 8 / slices, (s + 1) * 8 / slices, RoadModel.MICROSCOPIC);
+            world.setVehicleIdSequence(s + 1, slices);
+            world.setVehicleGenerationInterval(2);
+            world.start();
+            for (int t = 0; t < 400; t++) {
+                world.tick();
+            }
+            totals[0] += world.getMetrics().getTotalVehiclesServed();
+            totals[1] += world.getMetrics().getTotalWaitingTime();
+        }
+        return totals;
+    }
+
+    @Test
+    void gridSlicesTogetherMatchTheWholeGrid() {
+        long[] whole = runSlices(1);
+        for (int slices : new int[]{2, 3}) {
+            long[] split = runSlices(slices);
+            assertEquals(whole[0], split[0]);
+            assertEquals(whole[1], split[1]);
+        }
+    }
+}
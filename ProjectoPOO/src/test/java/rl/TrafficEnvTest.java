@@ -0,0 +1,29 @@
+package rl;
+
+import controller.ExternalPhaseControl;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TrafficEnvTest {
+
+    @Test
+    void desiredPhaseOutsideZeroOrOneIsRejected() {
+        ExternalPhaseControl control = new ExternalPhaseControl();
+        assertThrows(IllegalArgumentException.class, () -> control.setDesiredPhase(0, 2));
+        assertThrows(IllegalArgumentException.class, () -> control.setDesiredPhase(0, -1));
+    }
+
+    @Test
+    void invalidActionIsRejectedBeforeAnyTick() {
+        TrafficEnv env = new TrafficEnv(2, 1, 5, 50);
+        env.reset(1);
+        assertThrows(IllegalArgumentException.class, () -> env.step(new int[]{1, 3}));
+        assertThrows(IllegalArgumentException.class, () -> env.step(new int[]{1}));
+        // Os passos inválidos não avançaram o episódio
+        assertEquals(0, env.getWorld().getSimulationTime());
+        env.step(new int[]{1, 0});
+        assertEquals(5, env.getWorld().getSimulationTime());
+    }
+}
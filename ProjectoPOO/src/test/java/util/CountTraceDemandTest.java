@@ -0,0 +1,139 @@
+package util;
+
+import model.FleetMix;
+import model.Road;
+import model.RoadModel;
+import model.Vehicle;
+import model.VehicleClass;
+import model.World;
+import model.WorldSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountTraceDemandTest {
+
+    private static World newWorld() {
+        World world = new World(1);
+        world.setupGridScenario(1, RoadModel.MICROSCOPIC);
+        world.start();
+        return world;
+    }
+
+    @Test
+    void recordsForSameRoadAndPeriodAreAdded() throws IOException {
+        Path file = Files.createTempFile("counts", ".csv");
+        try {
+            Files.writeString(file, "tick,road,count\n1,1,10\n1,1,10\n1,2,5\n");
+            World world = newWorld();
+            try (CountTraceDemand trace = new CountTraceDemand(file, 20)) {
+                world.setDemandSource(trace);
+                for (int t = 0; t < 20; t++) {
+                    world.tick();
+                }
+                assertEquals(3, trace.getRecordsRead());
+                assertEquals(25, trace.getArrivals());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void overlappingPeriodsAreRejected() throws IOException {
+        Path file = Files.createTempFile("counts", ".csv");
+        try {
+            Files.writeString(file, "1,1,10\n5,1,10\n");
+            World world = newWorld();
+            try (CountTraceDemand trace = new CountTraceDemand(file, 20)) {
+                world.setDemandSource(trace);
+                assertThrows(IllegalStateException.class, () -> {
+                    for (int t = 0; t < 20; t++) {
+                        world.tick();
+                    }
+                });
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void restoredRunDrawsTheSameVehicleClasses() throws IOException {
+        Path file = Files.createTempFile("counts", ".csv");
+        try {
+            Files.writeString(file, "1,1,30\n1,2,30\n");
+            FleetMix mix = new FleetMix(new VehicleClass[] {VehicleClass.CAR, VehicleClass.TRUCK}, new double[] {1, 1});
+            World original = newWorld();
+            World restored = newWorld();
+            try (CountTraceDemand trace = new CountTraceDemand(file, 60);
+                 CountTraceDemand replay = new CountTraceDemand(file, 60)) {
+                trace.setFleetMix(mix);
+                replay.setFleetMix(mix);
+                original.setDemandSource(trace);
+                for (int t = 0; t < 20; t++) {
+                    original.tick();
+                }
+                WorldSnapshot snapshot = original.snapshot();
+                for (int t = 0; t < 20; t++) {
+                    original.tick();
+                }
+
+                restored.restore(snapshot);
+                restored.setDemandSource(replay);
+                for (int t = 0; t < 20; t++) {
+                    restored.tick();
+                }
+                assertEquals(vehicleClasses(original), vehicleClasses(restored));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void replicaSeesTheSameDemandAndBacklog() throws IOException {
+        Path file = Files.createTempFile("counts", ".csv");
+        try {
+            // Três chegadas por tick na estrada 1: parte fica em espera no VehicleInjector
+            Files.writeString(file, "1,1,120\n1,2,10\n");
+            World world = newWorld();
+            try (CountTraceDemand trace = new CountTraceDemand(file, 40)) {
+                world.setDemandSource(trace);
+                for (int t = 0; t < 10; t++) {
+                    world.tick();
+                }
+                World replica = world.createReplica();
+                replica.restore(world.snapshot());
+                replica.start();
+                for (int t = 0; t < 20; t++) {
+                    world.tick();
+                    replica.tick();
+                }
+                assertTrue(world.getVehicleInjector().getBackloggedCount() > 0);
+                assertEquals(vehicleClasses(world), vehicleClasses(replica));
+                assertEquals(world.getMetrics().getTotalVehiclesServed(), replica.getMetrics().getTotalVehiclesServed());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<String> vehicleClasses(World world) {
+        List<String> classes = new ArrayList<>();
+        for (Road road : world.getRoads()) {
+            for (Vehicle vehicle : road.getVehicles()) {
+                classes.add(vehicle.getId() + ":" + vehicle.getVehicleClass());
+            }
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,69 @@
+package util;
+
+import model.RoadModel;
+import model.World;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyframeHistoryTest {
+
+    private static World newWorld() {
+        World world = new World(1);
+        world.setupGridScenario(1, RoadModel.MICROSCOPIC);
+        world.start();
+        return world;
+    }
+
+    private static void run(World world, SimulationHistory history, KeyframeHistory keyframes, int ticks) {
+        for (int t = 0; t < ticks; t++) {
+            world.tick();
+            history.record(world);
+            if (keyframes != null) {
+                keyframes.onTick(world);
+            }
+        }
+    }
+
+    // Compara os baldes mais recentes (o histórico mais curto pode ter perdido os antigos)
+    private static void assertSameNewest(TimeSeriesBuffer expected, TimeSeriesBuffer actual) {
+        int count = Math.min(expected.size(), actual.size());
+        assertTrue(count > 0);
+        for (int j = 1; j <= count; j++) {
+            assertEquals(expected.getMean(expected.size() - j), actual.getMean(actual.size() - j), 1e-6);
+            assertEquals(expected.getLast(expected.size() - j), actual.getLast(actual.size() - j), 1e-6);
+        }
+    }
+
+    private static void assertSameHistory(SimulationHistory expected, SimulationHistory actual) {
+        assertEquals(expected.getLastTick(), actual.getLastTick());
+        assertSameNewest(expected.getThroughput(), actual.getThroughput());
+        assertSameNewest(expected.getWaitingTime(), actual.getWaitingTime());
+        for (int i = 0; i < expected.getApproaches(); i++) {
+            assertSameNewest(expected.getQueue(i), actual.getQueue(i));
+            assertSameNewest(expected.getPhase(i), actual.getPhase(i));
+        }
+    }
+
+    @Test
+    void seekKeepsTheChartHistoryAtTheShownTick() {
+        World world = newWorld();
+        SimulationHistory history = new SimulationHistory(50, 5, 4);
+        KeyframeHistory keyframes = new KeyframeHistory(60, 64L * 1024 * 1024);
+        keyframes.capture(world);
+        run(world, history, keyframes, 400);
+        world.stop();
+
+        keyframes.seek(world, 100, history);
+        assertEquals(237, keyframes.seek(world, 237, history)); // Para trás e depois para a frente
+        world.start();
+        keyframes.truncateAfter(world.getSimulationTime());
+        run(world, history, keyframes, 100);
+
+        World reference = newWorld();
+        SimulationHistory expected = new SimulationHistory(50, 5, 4);
+        run(reference, expected, null, 337);
+        assertSameHistory(expected, history);
+    }
+}
@@ -0,0 +1,30 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RandomStreamTest {
+
+    @Test
+    void antitheticDrawIsExactlyOneMinusU() {
+        RandomStream normal = new RandomStream(42);
+        RandomStream antithetic = new RandomStream(42, true);
+        for (int i = 0; i < 10_000; i++) {
+            double u = normal.nextDouble();
+            double v = antithetic.nextDouble();
+            assertEquals(1.0 - u, v, 0.0);
+            assertTrue(v >= 0.0 && v < 1.0);
+        }
+    }
+
+    @Test
+    void antitheticDrawOfZeroStaysBelowOne() {
+        // O SplitMix64 devolve 0 quando o estado seguinte é 0
+        RandomStream normal = new RandomStream(-0x9E3779B97F4A7C15L);
+        RandomStream antithetic = new RandomStream(-0x9E3779B97F4A7C15L, true);
+        assertEquals(0.0, normal.nextDouble(), 0.0);
+        assertEquals(Math.nextDown(1.0), antithetic.nextDouble(), 0.0);
+    }
+}
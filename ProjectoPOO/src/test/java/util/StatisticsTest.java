@@ -0,0 +1,30 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatisticsTest {
+
+    @Test
+    void tCritical95UsesTableUpTo30() {
+        assertEquals(12.706, Statistics.tCritical95(1), 1e-9);
+        assertEquals(2.042, Statistics.tCritical95(30), 1e-9);
+    }
+
+    @Test
+    void tCritical95AboveTableMatchesStudentQuantiles() {
+        assertEquals(2.040, Statistics.tCritical95(31), 0.001);
+        assertEquals(2.021, Statistics.tCritical95(40), 0.001);
+        assertEquals(2.000, Statistics.tCritical95(60), 0.001);
+        assertEquals(1.980, Statistics.tCritical95(120), 0.001);
+    }
+
+    @Test
+    void tCritical95DecreasesTowardsNormal() {
+        assertTrue(Statistics.tCritical95(31) < Statistics.tCritical95(30));
+        assertTrue(Statistics.tCritical95(1000) > 1.96);
+        assertEquals(1.960, Statistics.tCritical95(100_000), 0.001);
+    }
+}
@@ -0,0 +1,29 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SteadyStateDetectorTest {
+
+    @Test
+    void batchesWithoutExitsDoNotBiasTheWaitingEstimate() {
+        SteadyStateDetector detector = new SteadyStateDetector(1, 0.05, 5);
+        Metrics metrics = new Metrics();
+        // Ciclo de três lotes: uma saída com espera 0, uma com espera 20 e um lote sem saídas
+        for (int batch = 0; batch < 600; batch++) {
+            switch (batch % 3) {
+                case 0 -> metrics.recordVehicleServed(0);
+                case 1 -> metrics.recordVehicleServed(20);
+                default -> {
+                }
+            }
+            metrics.recordQueueLength(3);
+            detector.observe(metrics);
+        }
+        assertTrue(detector.hasEstimate());
+        assertEquals(10.0, detector.getWaitingTimeEstimate(), 1.0); // Média por veículo servido
+        assertEquals(3.0, detector.getQueueLengthEstimate(), 1e-9);
+    }
+}
@@ -0,0 +1,27 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickProfilerTest {
+
+    @Test
+    void phaseNotRunInTickHasNoLastTime() throws InterruptedException {
+        TickProfiler profiler = new TickProfiler();
+        profiler.setPhaseTimingEnabled(true);
+
+        long start = profiler.beginTick();
+        Thread.sleep(1);
+        profiler.endPhase(TickProfiler.Phase.RECORDING, start);
+        profiler.endTick(1, 0, 0, 0);
+        assertTrue(profiler.getLastPhaseNanos(TickProfiler.Phase.RECORDING) > 0);
+
+        // Tick seguinte sem gravação
+        start = profiler.beginTick();
+        profiler.endPhase(TickProfiler.Phase.GENERATION, start);
+        profiler.endTick(2, 0, 0, 0);
+        assertEquals(0L, profiler.getLastPhaseNanos(TickProfiler.Phase.RECORDING));
+    }
+}
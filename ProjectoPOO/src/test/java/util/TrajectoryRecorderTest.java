@@ -0,0 +1,63 @@
+package util;
+
+import model.VehicleClass;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrajectoryRecorderTest {
+
+    @Test
+    void replayKeepsVehicleClass() throws IOException {
+        Path file = Files.createTempFile("trajectory", ".trj");
+        try {
+            try (TrajectoryRecorder recorder = new TrajectoryRecorder(file.toString())) {
+                for (int tick = 1; tick <= 3; tick++) {
+                    TrajectoryFrame frame = recorder.acquireFrame();
+                    frame.reset(tick);
+                    frame.addVehicle(7, 1, tick * 2.0, VehicleClass.TRUCK); // Copiado do frame anterior
+                    frame.addVehicle(8, 1, tick * 1.0, VehicleClass.EMERGENCY);
+                    frame.addVehicle(10 + tick, 2, 0.0, VehicleClass.BICYCLE); // Novo em cada frame
+                    recorder.record(frame);
+                }
+            }
+            try (TrajectoryReplay replay = new TrajectoryReplay(file.toString())) {
+                TrajectoryFrame frame = replay.frameAt(3);
+                assertEquals(3, frame.getVehicleCount());
+                assertEquals(VehicleClass.TRUCK, frame.getVehicleClass(0));
+                assertFalse(frame.isVehicleEmergency(0));
+                assertEquals(VehicleClass.EMERGENCY, frame.getVehicleClass(1));
+                assertTrue(frame.isVehicleEmergency(1));
+                assertEquals(13, frame.getVehicleId(2));
+                assertEquals(VehicleClass.BICYCLE, frame.getVehicleClass(2));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void writerFailureDoesNotBlockTheSimulation() throws IOException {
+        Path file = Files.createTempFile("trajectory", ".trj");
+        try {
+            TrajectoryRecorder recorder = new TrajectoryRecorder(file.toString());
+            // Uma estrada com id negativo faz o codificador falhar na thread de escrita
+            for (int tick = 1; tick <= 20; tick++) {
+                TrajectoryFrame frame = recorder.acquireFrame();
+                frame.reset(tick);
+                frame.addVehicle(1, -1, 0.0, VehicleClass.CAR);
+                recorder.record(frame);
+            }
+            assertThrows(IOException.class, recorder::close);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package util;
+
+import model.VehicleClass;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TripLogTest {
+
+    @Test
+    void binaryRoundTripKeepsVehicleClass() throws IOException {
+        Path file = Files.createTempFile("trips", ".bin.gz");
+        try {
+            try (TripLog log = new TripLog(file.toString(), TripLog.Format.BINARY)) {
+                log.record(1, VehicleClass.TRUCK, 5, 10, 40, 3);
+                log.record(2, VehicleClass.EMERGENCY, 6, 11, 20, 0);
+                log.record(3, VehicleClass.BICYCLE, 7, 12, 90, 8);
+            }
+            List<VehicleClass> classes = new ArrayList<>();
+            List<Integer> roads = new ArrayList<>();
+            long count = TripLog.readBinary(file.toString(), (id, vehicleClass, roadId, spawn, exit, waiting) -> {
+                classes.add(vehicleClass);
+                roads.add(roadId);
+            });
+            assertEquals(3, count);
+            assertEquals(List.of(VehicleClass.TRUCK, VehicleClass.EMERGENCY, VehicleClass.BICYCLE), classes);
+            assertEquals(List.of(5, 6, 7), roads);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void csvTypeColumnHasClassName() throws IOException {
+        Path file = Files.createTempFile("trips", ".csv.gz");
+        try {
+            try (TripLog log = new TripLog(file.toString(), TripLog.Format.CSV)) {
+                log.record(1, VehicleClass.BUS, 5, 10, 40, 3);
+                log.record(2, VehicleClass.CAR, 6, 11, 20, 0);
+            }
+            List<String> types = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new FileInputStream(file.toFile())), StandardCharsets.US_ASCII))) {
+                reader.readLine(); // Cabeçalho
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    types.add(line.split(",")[1]);
+                }
+            }
+            assertEquals(List.of("BUS", "CAR"), types);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void blockingLogWritesEveryTripThroughASmallRing() throws IOException {
+        Path file = Files.createTempFile("trips", ".bin.gz");
+        try {
+            TripLog log = new TripLog(file.toString(), TripLog.Format.BINARY, TripLog.Backpressure.BLOCK, 16, 1);
+            for (int id = 0; id < 1000; id++) {
+                log.record(id, VehicleClass.CAR, 1, id, id + 5, 0);
+            }
+            log.close();
+            assertEquals(1000, log.getTripsWritten());
+            assertEquals(0, log.getTripsDropped());
+            assertEquals(1000, TripLog.readBinary(file.toString(), (id, vehicleClass, roadId, spawn, exit, waiting) -> {
+            }));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}